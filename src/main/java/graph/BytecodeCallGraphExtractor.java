@@ -0,0 +1,560 @@
+package graph;
+
+import org.apache.commons.io.IOUtils;
+import org.objectweb.asm.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracteur du graphe d'appels à partir du bytecode compilé (.class, jars), avec ASM.
+ *
+ * Produit la même structure que CallGraphExtractor (Map<className, Map<methodName, List<MethodCall>>>)
+ * sans parser ni résoudre de bindings : le type receveur est le propriétaire de l'instruction
+ * invoke. Les règles de la version source sont reproduites :
+ *  - types imbriqués et locaux : entrée propre (nom simple) ;
+ *  - classes anonymes et lambdas : appels comptés dans la méthode englobante ;
+ *  - constructeurs sous le nom de la classe ; appels de constructeurs, accesseurs synthétiques
+ *    (access$NNN) et invokedynamic ignorés, comme les ClassInstanceCreation et références de méthodes.
+ */
+public class BytecodeCallGraphExtractor {
+
+    // Dossiers de classes compilées cherchés dans le projet et dans ses sous-modules
+    private static final String[] CLASS_DIRS = {
+            "target/classes", "build/classes/java/main", "build/classes/kotlin/main", "out/production", "bin"
+    };
+
+    /**
+     * Méthode lue dans un .class.
+     */
+    public static class MethodInfo {
+        private final String name;
+        private final int access;
+        private final int parameters;
+        private final List<ClassMethodCallVisitor.MethodCall> calls = new ArrayList<>();
+        private int firstLine = Integer.MAX_VALUE;
+        private int lastLine = 0;
+        private boolean trivialConstructor;
+        private boolean generated;
+
+        MethodInfo(String name, int access, String descriptor, int syntheticParameters) {
+            this.name = name;
+            this.access = access;
+            this.parameters = Type.getArgumentTypes(descriptor).length - syntheticParameters;
+            this.trivialConstructor = "<init>".equals(name) && parameters == 0;
+        }
+
+        public String getName() { return name; }
+        public int getParameters() { return parameters; }
+        public List<ClassMethodCallVisitor.MethodCall> getCalls() { return calls; }
+
+        /** Nombre de lignes couvertes (table des numéros de ligne), 0 sans informations de débogage. */
+        public int getLineSpan() { return lastLine == 0 ? 0 : lastLine - firstLine + 1; }
+        public int getLastLine() { return lastLine; }
+
+        /**
+         * Méthode écrite dans le source : ni synthétique (lambdas, ponts, accesseurs), ni
+         * initialiseur statique, ni values()/valueOf() d'enum, ni constructeur par défaut généré
+         * (un constructeur vide explicite ne s'en distingue pas et est donc ignoré lui aussi).
+         */
+        public boolean isDeclared() {
+            return (access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) == 0
+                    && !"<clinit>".equals(name) && !trivialConstructor && !generated;
+        }
+    }
+
+    /**
+     * Classe lue dans un .class : ce qu'il faut pour rattacher ses appels et compter ses membres.
+     */
+    public static class ClassInfo {
+        private final String internalName;
+        private final int access;
+        private String simpleName;
+        private boolean anonymous;
+        private String enclosingClass;   // classe englobante d'une classe anonyme ou locale
+        private String enclosingMethod;  // null : déclarée hors d'une méthode
+        private int fields;
+        private final List<MethodInfo> methods = new ArrayList<>();
+
+        ClassInfo(String internalName, int access) {
+            this.internalName = internalName;
+            this.access = access;
+            this.simpleName = simpleName(internalName);
+        }
+
+        public String getInternalName() { return internalName; }
+        public String getSimpleName() { return simpleName; }
+        public boolean isAnonymous() { return anonymous; }
+        public boolean isInterface() { return (access & Opcodes.ACC_INTERFACE) != 0 && !isAnnotation(); }
+        public boolean isEnum() { return (access & Opcodes.ACC_ENUM) != 0; }
+        public boolean isAnnotation() { return (access & Opcodes.ACC_ANNOTATION) != 0; }
+        public boolean isSynthetic() { return (access & Opcodes.ACC_SYNTHETIC) != 0; }
+        public String getEnclosingClass() { return enclosingClass; }
+        public int getFields() { return fields; }
+        public List<MethodInfo> getMethods() { return methods; }
+
+        public String getPackageName() {
+            int slash = internalName.lastIndexOf('/');
+            return slash < 0 ? "" : internalName.substring(0, slash).replace('/', '.');
+        }
+
+        /** Classe de premier niveau du fichier source (a/b/Outer$Inner$1 -> a/b/Outer). */
+        public String getTopLevelName() {
+            int slash = internalName.lastIndexOf('/');
+            int dollar = internalName.indexOf('$', slash + 1);
+            return dollar < 0 ? internalName : internalName.substring(0, dollar);
+        }
+    }
+
+    // ===============================================
+    // LECTURE
+    // ===============================================
+
+    /**
+     * Lit une classe compilée (informations de débogage conservées pour les numéros de ligne).
+     */
+    public static ClassInfo read(byte[] classFile) {
+        ClassInfoReader reader = new ClassInfoReader();
+        new ClassReader(classFile).accept(reader, ClassReader.SKIP_FRAMES);
+        return reader.info;
+    }
+
+    /**
+     * Lit toutes les classes des dossiers et jars donnés, en parallèle, dans l'ordre des chemins.
+     */
+    public static List<ClassInfo> readAll(List<File> roots) throws IOException {
+        List<ClassInfo> classes = new ArrayList<>();
+        for (File root : roots) {
+            if (root.isDirectory()) {
+                List<Path> classFiles;
+                try (Stream<Path> walk = Files.walk(root.toPath())) {
+                    classFiles = walk.filter(p -> isClassFile(p.getFileName().toString()))
+                            .sorted()
+                            .collect(Collectors.toList());
+                }
+                try {
+                    classes.addAll(classFiles.parallelStream().map(p -> {
+                        try {
+                            return read(Files.readAllBytes(p));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }).collect(Collectors.toList()));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            } else if (root.isFile()) {
+                try (ZipFile jar = new ZipFile(root)) {
+                    List<ZipEntry> entries = jar.stream()
+                            .filter(e -> !e.getName().startsWith("META-INF/")
+                                    && isClassFile(e.getName().substring(e.getName().lastIndexOf('/') + 1)))
+                            .sorted(Comparator.comparing(ZipEntry::getName))
+                            .collect(Collectors.toList());
+                    for (ZipEntry entry : entries) {
+                        try (InputStream in = jar.getInputStream(entry)) {
+                            classes.add(read(IOUtils.toByteArray(in)));
+                        }
+                    }
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static boolean isClassFile(String fileName) {
+        return fileName.endsWith(".class") && !fileName.equals("module-info.class")
+                && !fileName.equals("package-info.class");
+    }
+
+    /**
+     * Dossiers de classes compilées du projet (target/classes, build/classes/java/main...),
+     * dans le projet puis dans ses sous-dossiers directs (modules). Un jar ou un dossier
+     * de classes donné directement est retourné tel quel.
+     */
+    public static List<File> findClassRoots(File project) {
+        List<File> roots = new ArrayList<>();
+        if (project.isFile()) {
+            roots.add(project);
+            return roots;
+        }
+        addClassDirs(project, roots);
+        File[] children = project.listFiles(File::isDirectory);
+        if (children != null) {
+            Arrays.sort(children);
+            for (File child : children) {
+                addClassDirs(child, roots);
+            }
+        }
+        if (roots.isEmpty() && project.isDirectory()) {
+            roots.add(project); // dossier de .class fourni directement
+        }
+        return roots;
+    }
+
+    private static void addClassDirs(File dir, List<File> roots) {
+        for (String candidate : CLASS_DIRS) {
+            File classes = new File(dir, candidate);
+            if (classes.isDirectory()) {
+                roots.add(classes);
+                return;
+            }
+        }
+    }
+
+    // ===============================================
+    // GRAPHE D'APPELS
+    // ===============================================
+
+    /**
+     * Graphe d'appels de tout le bytecode du projet (voir findClassRoots).
+     */
+    public static Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> extract(File project) throws IOException {
+        return toCallGraph(readAll(findClassRoots(project)));
+    }
+
+    /**
+     * Assemble le graphe d'appels : une entrée par classe nommée, appels des lambdas et
+     * des classes anonymes rattachés à la méthode englobante.
+     */
+    public static Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> toCallGraph(List<ClassInfo> classes) {
+        Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> callGraph = new LinkedHashMap<>();
+        Map<String, ClassInfo> byName = new HashMap<>();
+        Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> byInternalName = new HashMap<>();
+        for (ClassInfo info : classes) {
+            byName.put(info.internalName, info);
+        }
+
+        for (ClassInfo info : classes) {
+            if (info.anonymous || info.isSynthetic()) continue;
+            Map<String, List<ClassMethodCallVisitor.MethodCall>> methods = new LinkedHashMap<>();
+            // même nom simple : la dernière classe remplace la précédente, comme en analyse source
+            callGraph.put(info.simpleName, methods);
+            byInternalName.put(info.internalName, methods);
+            for (MethodInfo m : info.methods) {
+                if (m.isDeclared()) {
+                    methods.put(sourceName(info, m.name), new ArrayList<>(m.calls));
+                }
+            }
+            for (MethodInfo m : info.methods) {
+                if (m.name.startsWith("lambda$")) {
+                    List<ClassMethodCallVisitor.MethodCall> target = methods.get(sourceName(info, m.name));
+                    if (target != null) target.addAll(m.calls);
+                }
+            }
+        }
+
+        for (ClassInfo info : classes) {
+            if (!info.anonymous) continue;
+            // remonte les classes anonymes imbriquées jusqu'au type nommé et à sa méthode
+            ClassInfo owner = info;
+            String method = null;
+            while (owner != null && owner.anonymous) {
+                method = owner.enclosingMethod;
+                owner = byName.get(owner.enclosingClass);
+            }
+            if (owner == null || method == null) continue; // hors méthode : non compté
+            Map<String, List<ClassMethodCallVisitor.MethodCall>> methods = byInternalName.get(owner.internalName);
+            List<ClassMethodCallVisitor.MethodCall> target = methods == null ? null : methods.get(sourceName(owner, method));
+            if (target != null) {
+                for (MethodInfo m : info.methods) {
+                    target.addAll(m.calls);
+                }
+            }
+        }
+        return callGraph;
+    }
+
+    /**
+     * Nom de la méthode dans le source : constructeur -> nom de la classe, lambda$m$0 -> m.
+     */
+    private static String sourceName(ClassInfo owner, String methodName) {
+        if ("<init>".equals(methodName)) return owner.simpleName;
+        if (methodName.startsWith("lambda$")) {
+            String[] parts = methodName.split("\\$");
+            return parts.length > 1 ? parts[1] : methodName;
+        }
+        return methodName;
+    }
+
+    /**
+     * Nom simple d'un type au format ITypeBinding.getName() : a/b/Outer$Inner -> Inner, [I -> int[].
+     */
+    static String simpleName(String internalName) {
+        String className = internalName.startsWith("[")
+                ? Type.getType(internalName).getClassName()
+                : internalName.replace('/', '.');
+        int cut = Math.max(className.lastIndexOf('.'), className.lastIndexOf('$'));
+        return className.substring(cut + 1);
+    }
+
+    // ===============================================
+    // VISITEURS ASM
+    // ===============================================
+
+    private static class ClassInfoReader extends ClassVisitor {
+        ClassInfo info;
+        // paramètres ajoutés par le compilateur aux constructeurs (nom et rang d'une constante
+        // d'enum, instance englobante d'une classe membre non statique)
+        private int syntheticParameters;
+
+        ClassInfoReader() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            info = new ClassInfo(name, access);
+            syntheticParameters = info.isEnum() ? 2 : 0;
+        }
+
+        @Override
+        public void visitOuterClass(String owner, String name, String descriptor) {
+            info.enclosingClass = owner;
+            info.enclosingMethod = name;
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (name.equals(info.internalName)) {
+                info.anonymous = innerName == null;
+                if (innerName != null) info.simpleName = innerName;
+                if (outerName != null && info.enclosingClass == null) info.enclosingClass = outerName;
+                if (outerName != null && (access & Opcodes.ACC_STATIC) == 0 && !info.isEnum() && !info.isInterface()) {
+                    syntheticParameters = 1;
+                }
+            }
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            if ((access & Opcodes.ACC_SYNTHETIC) == 0) {
+                info.fields++;
+            }
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            boolean constructor = "<init>".equals(name);
+            MethodInfo method = new MethodInfo(name, access, descriptor, constructor ? syntheticParameters : 0);
+            if (info.isEnum() && (("values".equals(name) && descriptor.equals("()[L" + info.internalName + ";"))
+                    || ("valueOf".equals(name) && descriptor.equals("(Ljava/lang/String;)L" + info.internalName + ";")))) {
+                method.generated = true; // values() et valueOf() implicites d'une enum
+            }
+            info.methods.add(method);
+            return new CallCollector(method, constructor ? syntheticParameters : -1);
+        }
+    }
+
+    /**
+     * Collecte les appels d'une méthode en écartant ceux que le compilateur a ajoutés et qui n'ont
+     * pas de MethodInvocation dans le source : concaténation (StringBuilder), boxing, for étendu
+     * (iterator/hasNext/next sur une variable sans nom), switch sur String (hashCode/equals)
+     * ou sur enum (ordinal), try-with-resources (addSuppressed), contrôles de nullité (dup + requireNonNull/getClass + pop).
+     */
+    private static class CallCollector extends MethodVisitor {
+
+        private static final Set<String> WRAPPERS = new HashSet<>(Arrays.asList(
+                "java/lang/Integer", "java/lang/Long", "java/lang/Short", "java/lang/Byte",
+                "java/lang/Character", "java/lang/Boolean", "java/lang/Float", "java/lang/Double"));
+
+        private enum Pending { NONE, HASHCODE, NULL_CHECK, ITERATOR, BUILDER }
+
+        private final MethodInfo method;
+        private final int syntheticSlots; // -1 hors constructeur
+        private final Set<Integer> removed = new HashSet<>();
+        private int previousOpcode = -1;
+        private int loadedSlot = -1;
+        private Pending pending = Pending.NONE;
+        private int pendingCall = -1;
+        private int concatDepth;
+        private boolean switchMap;
+        private boolean stringSwitch;
+        // for étendu : variable de l'itérateur -> appels iterator/hasNext/next faits sur elle
+        private final Map<Integer, List<Integer>> iteratorCalls = new HashMap<>();
+        private final Set<Integer> namedIteratorSlots = new HashSet<>();
+
+        CallCollector(MethodInfo method, int syntheticSlots) {
+            super(Opcodes.ASM9);
+            this.method = method;
+            this.syntheticSlots = syntheticSlots;
+        }
+
+        /** Confirme ou abandonne l'appel en attente selon l'instruction qui le suit. */
+        private void before(int opcode, int operand) {
+            switch (pending) {
+                case HASHCODE:
+                    if (opcode == Opcodes.TABLESWITCH || opcode == Opcodes.LOOKUPSWITCH) {
+                        removed.add(pendingCall);
+                        stringSwitch = true;
+                    }
+                    break;
+                case NULL_CHECK:
+                    if (opcode == Opcodes.POP) removed.add(pendingCall);
+                    break;
+                case ITERATOR:
+                    if (opcode == Opcodes.ASTORE) {
+                        iteratorCalls.put(operand, new ArrayList<>(Collections.singletonList(pendingCall)));
+                    }
+                    break;
+                case BUILDER:
+                    if (opcode == Opcodes.ASTORE) concatDepth--; // StringBuilder rangé dans une variable : écrit à la main
+                    break;
+                default:
+                    break;
+            }
+            pending = Pending.NONE;
+        }
+
+        private void after(int opcode) {
+            previousOpcode = opcode;
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            before(opcode, -1);
+            if (name.startsWith("<")) {
+                // appel de constructeur (new, super(), this()) : non compté, comme en source
+                if ("java/lang/StringBuilder".equals(owner) && concatDepth > 0) pending = Pending.BUILDER;
+                after(opcode);
+                return;
+            }
+            method.trivialConstructor = false;
+            if (!isGenerated(owner, name, descriptor)) {
+                method.calls.add(new ClassMethodCallVisitor.MethodCall(name, simpleName(owner),
+                        ClassMethodCallVisitor.Resolution.BYTECODE));
+                int index = method.calls.size() - 1;
+                if ("java/lang/String".equals(owner) && "hashCode".equals(name)) {
+                    pending = Pending.HASHCODE;
+                } else if (previousOpcode == Opcodes.DUP && (("java/util/Objects".equals(owner) && "requireNonNull".equals(name))
+                        || ("getClass".equals(name) && "()Ljava/lang/Class;".equals(descriptor)))) {
+                    pending = Pending.NULL_CHECK;
+                } else if ("iterator".equals(name) && descriptor.equals("()Ljava/util/Iterator;")) {
+                    pending = Pending.ITERATOR;
+                } else if ("java/util/Iterator".equals(owner) && previousOpcode == Opcodes.ALOAD
+                        && iteratorCalls.containsKey(loadedSlot)) {
+                    iteratorCalls.get(loadedSlot).add(index);
+                }
+                pendingCall = index;
+            }
+            after(opcode);
+        }
+
+        private boolean isGenerated(String owner, String name, String descriptor) {
+            if (name.startsWith("access$") || name.startsWith("lambda$")) return true;
+            if (concatDepth > 0 && "java/lang/StringBuilder".equals(owner)) {
+                if ("toString".equals(name)) concatDepth--;
+                return "append".equals(name) || "toString".equals(name);
+            }
+            if (WRAPPERS.contains(owner) && (("valueOf".equals(name) && descriptor.length() == 3 + 2 + owner.length())
+                    || (name.endsWith("Value") && descriptor.startsWith("()")))) {
+                return true; // boxing : valueOf(I)Ljava/lang/Integer; / unboxing : intValue()I
+            }
+            if (switchMap && "ordinal".equals(name) && "()I".equals(descriptor)) return true;
+            if (stringSwitch && "java/lang/String".equals(owner) && "equals".equals(name) && previousOpcode == Opcodes.LDC) return true;
+            return "java/lang/Throwable".equals(owner) && "addSuppressed".equals(name);
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int var) {
+            before(opcode, var);
+            if (opcode == Opcodes.ALOAD) loadedSlot = var;
+            boolean load = opcode >= Opcodes.ILOAD && opcode <= Opcodes.ALOAD;
+            if (!load || var > Math.max(syntheticSlots, 0)) method.trivialConstructor = false;
+            after(opcode);
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            before(opcode, -1);
+            if (opcode == Opcodes.NEW && "java/lang/StringBuilder".equals(type)) concatDepth++;
+            method.trivialConstructor = false;
+            after(opcode);
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            before(opcode, -1);
+            if (opcode == Opcodes.GETSTATIC && name.startsWith("$SwitchMap$")) switchMap = true;
+            // seul champ écrit par un constructeur implicite : l'instance englobante
+            if (opcode != Opcodes.PUTFIELD || !name.startsWith("this$")) method.trivialConstructor = false;
+            after(opcode);
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            before(opcode, -1);
+            if (opcode == Opcodes.IALOAD) switchMap = false;
+            if (opcode != Opcodes.RETURN) method.trivialConstructor = false;
+            after(opcode);
+        }
+
+        @Override
+        public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+            visitSwitch(Opcodes.TABLESWITCH);
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+            visitSwitch(Opcodes.LOOKUPSWITCH);
+        }
+
+        private void visitSwitch(int opcode) {
+            boolean hashSwitch = pending == Pending.HASHCODE;
+            before(opcode, -1);
+            // second switch (sur l'indice du cas) d'un switch sur String : fin des equals générés
+            if (!hashSwitch) stringSwitch = false;
+            method.trivialConstructor = false;
+            after(opcode);
+        }
+
+        @Override public void visitIntInsn(int opcode, int operand) { other(opcode); }
+        @Override public void visitJumpInsn(int opcode, Label label) { other(opcode); }
+        @Override public void visitLdcInsn(Object value) { other(Opcodes.LDC); }
+        @Override public void visitIincInsn(int var, int increment) { other(Opcodes.IINC); }
+        @Override public void visitMultiANewArrayInsn(String descriptor, int numDimensions) { other(Opcodes.MULTIANEWARRAY); }
+        @Override public void visitInvokeDynamicInsn(String name, String descriptor, Handle bsm, Object... bsmArgs) { other(Opcodes.INVOKEDYNAMIC); }
+
+        private void other(int opcode) {
+            before(opcode, -1);
+            method.trivialConstructor = false;
+            after(opcode);
+        }
+
+        @Override
+        public void visitLineNumber(int line, Label start) {
+            method.firstLine = Math.min(method.firstLine, line);
+            method.lastLine = Math.max(method.lastLine, line);
+        }
+
+        @Override
+        public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+            if ("Ljava/util/Iterator;".equals(descriptor)) namedIteratorSlots.add(index);
+        }
+
+        @Override
+        public void visitEnd() {
+            // itérateur sans variable nommée : boucle for étendu
+            for (Map.Entry<Integer, List<Integer>> e : iteratorCalls.entrySet()) {
+                if (!namedIteratorSlots.contains(e.getKey())) removed.addAll(e.getValue());
+            }
+            if (!removed.isEmpty()) {
+                List<ClassMethodCallVisitor.MethodCall> kept = new ArrayList<>();
+                for (int i = 0; i < method.calls.size(); i++) {
+                    if (!removed.contains(i)) kept.add(method.calls.get(i));
+                }
+                method.calls.clear();
+                method.calls.addAll(kept);
+            }
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package graph;
+
+import org.eclipse.jdt.core.dom.*;
+
+import java.util.*;
+
+/**
+ * Extracteur du graphe d'appels en un seul parcours de la CompilationUnit.
+ *
+ * Remplace l'application d'un ClassMethodCallVisitor par type (un parcours complet
+ * de l'AST par TypeDeclaration). Une pile des types englobants permet d'attribuer
+ * chaque appel à la bonne classe :
+ *  - types imbriqués, locaux et enums : entrée propre dans le graphe ;
+ *  - classes anonymes et lambdas : leurs appels sont comptés dans la méthode englobante ;
+ *    hors de toute méthode (initialiseur d'attribut, constante d'enum), chaque méthode de la
+ *    classe anonyme devient une méthode du type englobant, sous son propre nom
+ *    (comme le faisait ClassMethodCallVisitor).
+ *
+ * Sans bindings (mode rapide), les types receveurs sont déduits par un SyntacticTypeResolver
+ * dont les portées (attributs, paramètres, variables locales) sont tenues pendant ce même parcours.
+ * Avec bindings, les types du projet dont dépend la résolution sont relevés (getReferencedTypes) :
+ * receveurs, classes déclarantes et supertypes des types du fichier.
+ *
+ * Fichiers volumineux : le corps d'une méthode membre peut être parcouru à part (extractMethod,
+ * dans une sous-tâche) ; le parcours principal reprend alors ses appels précalculés à la place
+ * du corps, dans le même ordre.
+ *
+ * Résultat : Map<className, Map<methodName, List<MethodCall>>> pour tous les types du fichier.
+ */
+public class CallGraphExtractor extends ASTVisitor {
+
+    private final Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> callGraph = new LinkedHashMap<>();
+    private final Deque<TypeFrame> typeStack = new ArrayDeque<>();
+    private final SyntacticTypeResolver resolver; // null : résolution par les bindings
+    private Map<MethodDeclaration, MethodCalls> precomputed = Collections.emptyMap();
+    private final Set<String> referencedTypes = new TreeSet<>();
+
+    public CallGraphExtractor() {
+        this(null);
+    }
+
+    public CallGraphExtractor(SyntacticTypeResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * Appels d'une méthode parcourue à part, et graphes des types locaux déclarés dans son corps.
+     */
+    public static class MethodCalls {
+        final List<ClassMethodCallVisitor.MethodCall> calls;
+        final Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> localTypes;
+        final Set<String> referencedTypes;
+
+        MethodCalls(List<ClassMethodCallVisitor.MethodCall> calls,
+                    Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> localTypes,
+                    Set<String> referencedTypes) {
+            this.calls = calls;
+            this.localTypes = localTypes;
+            this.referencedTypes = referencedTypes;
+        }
+
+        /**
+         * Appels connus d'une méthode sans type local (méthode inchangée d'une analyse précédente).
+         */
+        public MethodCalls(List<ClassMethodCallVisitor.MethodCall> calls) {
+            this(calls, Collections.<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>>emptyMap(),
+                    Collections.<String>emptySet());
+        }
+
+        public Set<String> getReferencedTypes() {
+            return referencedTypes;
+        }
+    }
+
+    /**
+     * Méthodes dont le corps a déjà été parcouru (sous-tâches) : il ne sera pas revisité.
+     */
+    public void setPrecomputed(Map<MethodDeclaration, MethodCalls> precomputed) {
+        this.precomputed = precomputed;
+    }
+
+    /**
+     * Contexte d'un type nommé en cours de visite.
+     */
+    private static class TypeFrame {
+        final String className;
+        final Map<String, List<ClassMethodCallVisitor.MethodCall>> methods = new LinkedHashMap<>();
+        List<ClassMethodCallVisitor.MethodCall> currentCalls; // null hors d'une méthode
+        MethodDeclaration currentMethod;                       // méthode qui a ouvert currentCalls
+        int anonymousDepth = 0;
+
+        TypeFrame(String className) {
+            this.className = className;
+        }
+    }
+
+    // ===============================================
+    // TYPES
+    // ===============================================
+
+    @Override
+    public boolean visit(CompilationUnit node) {
+        if (resolver != null) {
+            resolver.addImports(node.imports());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean visit(TypeDeclaration node) {
+        addSupertypes(node.resolveBinding());
+        return enterType(node.getName().getIdentifier(), node.bodyDeclarations());
+    }
+
+    @Override
+    public void endVisit(TypeDeclaration node) {
+        exitType();
+    }
+
+    @Override
+    public boolean visit(EnumDeclaration node) {
+        addSupertypes(node.resolveBinding());
+        return enterType(node.getName().getIdentifier(), node.bodyDeclarations());
+    }
+
+    @Override
+    public void endVisit(EnumDeclaration node) {
+        exitType();
+    }
+
+    @Override
+    public boolean visit(AnonymousClassDeclaration node) {
+        addSupertypes(node.resolveBinding());
+        if (!typeStack.isEmpty()) {
+            typeStack.peek().anonymousDepth++;
+        }
+        if (resolver != null) {
+            resolver.enterType(null, node.bodyDeclarations());
+        }
+        return true;
+    }
+
+    @Override
+    public void endVisit(AnonymousClassDeclaration node) {
+        if (!typeStack.isEmpty()) {
+            typeStack.peek().anonymousDepth--;
+        }
+        if (resolver != null) {
+            resolver.exitScope();
+        }
+    }
+
+    /**
+     * Les méthodes héritées appelées sans receveur se résolvent dans les supertypes du type.
+     */
+    private void addSupertypes(ITypeBinding type) {
+        if (resolver != null || type == null) return;
+        ClassMethodCallVisitor.addReferencedType(type.getSuperclass(), referencedTypes);
+        for (ITypeBinding itf : type.getInterfaces()) {
+            ClassMethodCallVisitor.addReferencedType(itf, referencedTypes);
+        }
+    }
+
+    private boolean enterType(String className, List<?> bodyDeclarations) {
+        TypeFrame frame = new TypeFrame(className);
+        typeStack.push(frame);
+        callGraph.put(className, frame.methods);
+        if (resolver != null) {
+            resolver.enterType(className, bodyDeclarations);
+        }
+        return true;
+    }
+
+    private void exitType() {
+        typeStack.pop();
+        if (resolver != null) {
+            resolver.exitScope();
+        }
+    }
+
+    // ===============================================
+    // MÉTHODES ET APPELS
+    // ===============================================
+
+    @Override
+    public boolean visit(MethodDeclaration node) {
+        TypeFrame frame = typeStack.peek();
+        if (resolver != null) {
+            resolver.enterScope(); // paramètres et variables locales
+        }
+        MethodCalls done = precomputed.get(node);
+        if (done != null && frame != null) {
+            frame.methods.put(node.getName().getIdentifier(), done.calls);
+            callGraph.putAll(done.localTypes); // à la position où le parcours les aurait rencontrés
+            referencedTypes.addAll(done.referencedTypes);
+            return false;
+        }
+        // les méthodes d'une classe anonyme appartiennent à la méthode englobante, s'il y en a une
+        if (frame != null && (frame.anonymousDepth == 0 || frame.currentCalls == null)) {
+            frame.currentCalls = new ArrayList<>();
+            frame.currentMethod = node;
+            frame.methods.put(node.getName().getIdentifier(), frame.currentCalls);
+        }
+        return true;
+    }
+
+    @Override
+    public void endVisit(MethodDeclaration node) {
+        TypeFrame frame = typeStack.peek();
+        if (frame != null && frame.currentMethod == node) {
+            frame.currentCalls = null;
+            frame.currentMethod = null;
+        }
+        if (resolver != null) {
+            resolver.exitScope();
+        }
+    }
+
+    @Override
+    public boolean visit(MethodInvocation mi) {
+        TypeFrame frame = typeStack.peek();
+        if (frame != null && frame.currentCalls != null) {
+            frame.currentCalls.add(resolver != null
+                    ? resolver.resolve(mi, frame.className)
+                    : ClassMethodCallVisitor.resolveCall(mi, frame.className, referencedTypes));
+        }
+        return true;
+    }
+
+    // ===============================================
+    // PORTÉES DU MODE SANS BINDINGS
+    // ===============================================
+
+    @Override
+    public boolean visit(Initializer node) {
+        if (resolver != null) resolver.enterScope();
+        return true;
+    }
+
+    @Override
+    public void endVisit(Initializer node) {
+        if (resolver != null) resolver.exitScope();
+    }
+
+    @Override
+    public boolean visit(SingleVariableDeclaration node) {
+        // paramètres, catch, for étendu
+        if (resolver != null) {
+            resolver.declare(node, node.getType());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean visit(VariableDeclarationStatement node) {
+        if (resolver != null) {
+            for (Object f : node.fragments()) {
+                resolver.declare((VariableDeclarationFragment) f, node.getType());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean visit(VariableDeclarationExpression node) {
+        if (resolver != null) {
+            for (Object f : node.fragments()) {
+                resolver.declare((VariableDeclarationFragment) f, node.getType());
+            }
+        }
+        return true;
+    }
+
+    public Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> getCallGraph() {
+        return callGraph;
+    }
+
+    /**
+     * Noms qualifiés des types du projet référencés par les bindings (vide sans bindings).
+     */
+    public Set<String> getReferencedTypes() {
+        return referencedTypes;
+    }
+
+    /**
+     * Raccourci : parcourt la CompilationUnit une fois et retourne le graphe d'appels de tous ses types.
+     */
+    public static Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> extract(CompilationUnit cu) {
+        CallGraphExtractor extractor = new CallGraphExtractor();
+        cu.accept(extractor);
+        return extractor.getCallGraph();
+    }
+
+    /**
+     * Résolveur sans bindings placé dans le contexte d'un type membre : imports du fichier et
+     * attributs des types englobants, pour parcourir ses méthodes une à une (extractMethod).
+     */
+    public static SyntacticTypeResolver resolverFor(AbstractTypeDeclaration type, Set<String> projectTypes) {
+        Deque<AbstractTypeDeclaration> enclosing = new ArrayDeque<>();
+        for (ASTNode n = type; n instanceof AbstractTypeDeclaration; n = n.getParent()) {
+            enclosing.push((AbstractTypeDeclaration) n);
+        }
+        SyntacticTypeResolver resolver = new SyntacticTypeResolver(projectTypes);
+        resolver.addImports(((CompilationUnit) type.getRoot()).imports());
+        for (AbstractTypeDeclaration t : enclosing) {
+            resolver.enterType(t.getName().getIdentifier(), t.bodyDeclarations());
+        }
+        return resolver;
+    }
+
+    /**
+     * Parcourt une méthode membre seule : dans une sous-tâche fork/join sans bindings
+     * (MethodBodySplit), ou pour les seules méthodes modifiées d'un fichier (mode surveillance).
+     *
+     * @param resolver null : résolution par les bindings ; sinon obtenu par resolverFor(type englobant)
+     */
+    public static MethodCalls extractMethod(MethodDeclaration method, SyntacticTypeResolver resolver) {
+        CallGraphExtractor extractor = new CallGraphExtractor(resolver);
+        TypeFrame frame = new TypeFrame(((AbstractTypeDeclaration) method.getParent()).getName().getIdentifier());
+        extractor.typeStack.push(frame);
+        method.accept(extractor);
+        return new MethodCalls(frame.methods.get(method.getName().getIdentifier()), extractor.callGraph,
+                extractor.referencedTypes);
+    }
+
+    /**
+     * Variante sans bindings : types receveurs déduits syntaxiquement (voir SyntacticTypeResolver).
+     */
+    public static Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> extractSyntactic(
+            CompilationUnit cu, Set<String> projectTypes) {
+        CallGraphExtractor extractor = new CallGraphExtractor(new SyntacticTypeResolver(projectTypes));
+        cu.accept(extractor);
+        return extractor.getCallGraph();
+    }
+}
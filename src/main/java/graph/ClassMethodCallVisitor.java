@@ -35,19 +35,7 @@ public class ClassMethodCallVisitor extends ASTVisitor {
             node.getBody().accept(new ASTVisitor() {
                 @Override
                 public boolean visit(MethodInvocation mi) {
-                    String calledName = mi.getName().getIdentifier();
-                    String receiverType = null;
-
-                    if (mi.getExpression() != null && mi.getExpression().resolveTypeBinding() != null) {
-                        receiverType = mi.getExpression().resolveTypeBinding().getName();
-                    } else if (mi.resolveMethodBinding() != null &&
-                               mi.resolveMethodBinding().getDeclaringClass() != null) {
-                        receiverType = mi.resolveMethodBinding().getDeclaringClass().getName();
-                    } else {
-                        receiverType = className; // par défaut : même classe
-                    }
-
-                    methods.get(currentMethod).add(new MethodCall(calledName, receiverType));
+                    methods.get(currentMethod).add(resolveCall(mi, className));
                     return true;
                 }
             });
@@ -57,6 +45,65 @@ public class ClassMethodCallVisitor extends ASTVisitor {
     }
 
 
+    /**
+     * Type du receveur d'un appel : type de l'expression, sinon classe déclarante
+     * de la méthode, sinon la classe courante (par défaut).
+     */
+    public static String resolveReceiverType(MethodInvocation mi, String defaultType) {
+        return resolveCall(mi, defaultType).type;
+    }
+
+    /**
+     * Appel résolu par les bindings JDT, avec l'origine de son type receveur.
+     * Le résolveur de bindings d'un AST n'est pas thread-safe : un AST avec bindings n'est
+     * parcouru que par un thread (voir MethodBodySplit, limité au mode sans bindings).
+     */
+    public static MethodCall resolveCall(MethodInvocation mi, String defaultType) {
+        return resolveCall(mi, defaultType, null);
+    }
+
+    /**
+     * Variante qui relève aussi les types du projet dont dépend la résolution (type receveur,
+     * classe déclarante et leurs supertypes) : le fichier devra être réanalysé si l'un d'eux change.
+     *
+     * @param referencedTypes noms qualifiés des types référencés, complétés ici (null : non relevés)
+     */
+    public static MethodCall resolveCall(MethodInvocation mi, String defaultType, Set<String> referencedTypes) {
+        String calledName = mi.getName().getIdentifier();
+        ITypeBinding receiver = mi.getExpression() != null ? mi.getExpression().resolveTypeBinding() : null;
+        IMethodBinding binding = receiver == null || referencedTypes != null ? mi.resolveMethodBinding() : null;
+        if (referencedTypes != null) {
+            addReferencedType(receiver, referencedTypes);
+            addReferencedType(binding != null ? binding.getDeclaringClass() : null, referencedTypes);
+        }
+        if (receiver != null) {
+            return new MethodCall(calledName, receiver.getName(), Resolution.BINDING);
+        }
+        if (binding != null && binding.getDeclaringClass() != null) {
+            return new MethodCall(calledName, binding.getDeclaringClass().getName(), Resolution.BINDING);
+        }
+        return new MethodCall(calledName, defaultType, Resolution.DEFAULT); // par défaut : même classe
+    }
+
+    /**
+     * Ajoute un type du projet (déclaré dans les sources analysées, ou non résolu) et ses
+     * supertypes aux types référencés. Les types du JRE et des jars sont ignorés.
+     */
+    public static void addReferencedType(ITypeBinding type, Set<String> referencedTypes) {
+        if (type == null) return;
+        if (type.isArray()) {
+            type = type.getElementType();
+        }
+        type = type.getErasure();
+        if (type.isPrimitive() || !(type.isFromSource() || type.isRecovered())) return;
+        String name = type.getQualifiedName(); // vide pour une classe locale ou anonyme
+        if (!name.isEmpty() && !referencedTypes.add(name)) return; // supertypes déjà relevés
+        addReferencedType(type.getSuperclass(), referencedTypes);
+        for (ITypeBinding itf : type.getInterfaces()) {
+            addReferencedType(itf, referencedTypes);
+        }
+    }
+
     public String getClassName() {
         return className;
     }
@@ -66,21 +113,31 @@ public class ClassMethodCallVisitor extends ASTVisitor {
     }
     
 
-    public static class MethodCall {
+    /**
+     * Origine du type receveur d'un appel :
+     *  - BINDING : résolu par les bindings JDT ;
+     *  - HEURISTIC : déduit sans bindings (imports, déclarations, index des types du projet) ;
+     *  - DEFAULT : non résolu, attribué à la classe courante ;
+     *  - BYTECODE : lu dans l'instruction invoke du .class (backend bytecode).
+     */
+    public enum Resolution { BINDING, HEURISTIC, DEFAULT, BYTECODE }
+
+    public static class MethodCall implements java.io.Serializable {
+        private static final long serialVersionUID = 2L;
+
         public String name;
         public String type;
-        private  String receiverClass;
-        private  String methodName;
-
+        public Resolution resolution;
 
         public MethodCall(String name, String type) {
+            this(name, type, Resolution.BINDING);
+        }
+
+        public MethodCall(String name, String type, Resolution resolution) {
             this.name = name;
             this.type = type;
+            this.resolution = resolution;
         }
-        
-       
-        public String getReceiverClass() { return receiverClass; }
-        public String getMethodName() { return methodName; }
     }
     
     
@@ -0,0 +1,448 @@
+package graph;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Graphe d'appels compact : noms internés dans une table de symboles et
+ * arêtes stockées dans des tableaux d'entiers (format CSR).
+ *
+ *  - types : typeIds[t] ; ses méthodes sont les indices [methodStart[t], methodStart[t+1]) ;
+ *  - méthodes : methodIds[m] ; ses appels sont les indices [callStart[m], callStart[m+1]) ;
+ *  - appels : callNames[c] (méthode appelée), callTypes[c] (type du receveur, -1 si inconnu)
+ *    et callResolutions[c] (origine du type, ordinal de ClassMethodCallVisitor.Resolution).
+ *
+ * Utilisé par fichier (table de symboles locale, sérialisable dans le cache) puis
+ * fusionné en un graphe global pour tout le projet. La vue Map<className, Map<methodName,
+ * List<MethodCall>>> historique reste disponible via asMap() : les MethodCall sont créés
+ * à la demande et ne sont pas conservés.
+ */
+public final class CompactCallGraph implements Serializable {
+
+    private static final long serialVersionUID = 2L;
+
+    private static final ClassMethodCallVisitor.Resolution[] RESOLUTIONS = ClassMethodCallVisitor.Resolution.values();
+
+    public static final CompactCallGraph EMPTY = new Builder().build();
+
+    private final String[] symbols;
+    private final int[] typeIds;
+    private final int[] methodStart;
+    private final int[] methodIds;
+    private final int[] callStart;
+    private final int[] callNames;
+    private final int[] callTypes;
+    private final byte[] callResolutions;
+
+    // Index nom de type -> indice, construit à la première recherche
+    private transient Map<String, Integer> typeIndex;
+    private transient Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> mapView;
+
+    private CompactCallGraph(Builder b) {
+        this(b.symbols.toArray(new String[0]),
+                Arrays.copyOf(b.typeIds, b.typeCount),
+                Arrays.copyOf(b.methodStart, b.typeCount + 1),
+                Arrays.copyOf(b.methodIds, b.methodCount),
+                Arrays.copyOf(b.callStart, b.methodCount + 1),
+                Arrays.copyOf(b.callNames, b.callCount),
+                Arrays.copyOf(b.callTypes, b.callCount),
+                Arrays.copyOf(b.callResolutions, b.callCount));
+    }
+
+    private CompactCallGraph(String[] symbols, int[] typeIds, int[] methodStart, int[] methodIds,
+                             int[] callStart, int[] callNames, int[] callTypes, byte[] callResolutions) {
+        this.symbols = symbols;
+        this.typeIds = typeIds;
+        this.methodStart = methodStart;
+        this.methodIds = methodIds;
+        this.callStart = callStart;
+        this.callNames = callNames;
+        this.callTypes = callTypes;
+        this.callResolutions = callResolutions;
+    }
+
+    // ===============================================
+    // CONSTRUCTION
+    // ===============================================
+
+    /**
+     * Convertit la représentation Map (sortie de CallGraphExtractor) en graphe compact.
+     */
+    public static CompactCallGraph of(Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> graph) {
+        Builder b = new Builder();
+        for (Map.Entry<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> type : graph.entrySet()) {
+            b.beginType(type.getKey());
+            for (Map.Entry<String, List<ClassMethodCallVisitor.MethodCall>> method : type.getValue().entrySet()) {
+                b.beginMethod(method.getKey());
+                for (ClassMethodCallVisitor.MethodCall call : method.getValue()) {
+                    b.addCall(call.name, call.type, call.resolution);
+                }
+            }
+        }
+        return b.build();
+    }
+
+    /**
+     * Fusionne des graphes (un par fichier, dans l'ordre des fichiers) avec une table de symboles commune.
+     * Un type présent dans plusieurs graphes garde sa première position mais le contenu du dernier,
+     * comme un putAll successif sur des LinkedHashMap.
+     */
+    public static CompactCallGraph merge(List<CompactCallGraph> graphs) {
+        Map<String, int[]> lastOccurrence = new LinkedHashMap<>(); // type -> {graphe, indice}
+        for (int g = 0; g < graphs.size(); g++) {
+            CompactCallGraph graph = graphs.get(g);
+            for (int t = 0; t < graph.typeIds.length; t++) {
+                lastOccurrence.put(graph.symbols[graph.typeIds[t]], new int[]{g, t});
+            }
+        }
+
+        Builder b = new Builder();
+        for (int[] occ : lastOccurrence.values()) {
+            CompactCallGraph graph = graphs.get(occ[0]);
+            int t = occ[1];
+            b.beginType(graph.symbols[graph.typeIds[t]]);
+            for (int m = graph.methodStart[t]; m < graph.methodStart[t + 1]; m++) {
+                b.beginMethod(graph.symbols[graph.methodIds[m]]);
+                for (int c = graph.callStart[m]; c < graph.callStart[m + 1]; c++) {
+                    b.addCall(graph.symbols[graph.callNames[c]], graph.symbol(graph.callTypes[c]), graph.callResolution(c));
+                }
+            }
+        }
+        return b.build();
+    }
+
+    /**
+     * Construction incrémentale : beginType, puis beginMethod et addCall dans l'ordre.
+     * Chaque nom n'est stocké qu'une fois dans la table de symboles.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> symbols = new ArrayList<>();
+
+        private int[] typeIds = new int[4];
+        private int[] methodStart = new int[5];
+        private int[] methodIds = new int[16];
+        private int[] callStart = new int[17];
+        private int[] callNames = new int[32];
+        private int[] callTypes = new int[32];
+        private byte[] callResolutions = new byte[32];
+        private int typeCount, methodCount, callCount;
+
+        public Builder beginType(String name) {
+            typeIds = ensure(typeIds, typeCount + 1);
+            methodStart = ensure(methodStart, typeCount + 2);
+            typeIds[typeCount++] = intern(name);
+            methodStart[typeCount] = methodCount;
+            return this;
+        }
+
+        public Builder beginMethod(String name) {
+            if (typeCount == 0) throw new IllegalStateException("beginType doit précéder beginMethod");
+            methodIds = ensure(methodIds, methodCount + 1);
+            callStart = ensure(callStart, methodCount + 2);
+            methodIds[methodCount++] = intern(name);
+            callStart[methodCount] = callCount;
+            methodStart[typeCount] = methodCount;
+            return this;
+        }
+
+        public Builder addCall(String methodName, String receiverType, ClassMethodCallVisitor.Resolution resolution) {
+            if (methodCount == 0) throw new IllegalStateException("beginMethod doit précéder addCall");
+            callNames = ensure(callNames, callCount + 1);
+            callTypes = ensure(callTypes, callCount + 1);
+            if (callCount + 1 > callResolutions.length) {
+                callResolutions = Arrays.copyOf(callResolutions, callNames.length);
+            }
+            callNames[callCount] = intern(methodName);
+            callTypes[callCount] = receiverType == null ? -1 : intern(receiverType);
+            callResolutions[callCount] = (byte) resolution.ordinal();
+            callCount++;
+            callStart[methodCount] = callCount;
+            return this;
+        }
+
+        public CompactCallGraph build() {
+            return new CompactCallGraph(this);
+        }
+
+        private int intern(String s) {
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = symbols.size();
+                ids.put(s, id);
+                symbols.add(s);
+            }
+            return id;
+        }
+
+        private static int[] ensure(int[] a, int size) {
+            return size <= a.length ? a : Arrays.copyOf(a, Math.max(size, a.length * 2));
+        }
+    }
+
+    /**
+     * Fusion tenue à jour fichier par fichier (mode surveillance) : le graphe d'un fichier
+     * modifié est retiré puis remplacé, sans refusionner ceux des autres fichiers.
+     *
+     * Chaque graphe ajouté porte un rang (ordre des fichiers) ; comme dans merge, un type
+     * présent dans plusieurs graphes prend le contenu de celui de plus haut rang. Un type garde
+     * la position de sa première apparition tant qu'un graphe le déclare encore. Les contenus
+     * sont traduits une fois dans une table de symboles commune : snapshot() ne fait que
+     * recopier des tableaux d'entiers.
+     */
+    public static final class IncrementalMerge {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> symbols = new ArrayList<>();
+        // type -> contenus par rang de graphe ; ordre de première apparition
+        private final Map<String, TreeMap<Long, TypeBlock>> types = new LinkedHashMap<>();
+
+        /** Ajoute le graphe d'un fichier de ce rang (un seul graphe par rang). */
+        public void add(long rank, CompactCallGraph graph) {
+            int[] global = new int[graph.symbols.length];
+            for (int i = 0; i < global.length; i++) {
+                global[i] = intern(graph.symbols[i]);
+            }
+            for (int t = 0; t < graph.typeIds.length; t++) {
+                types.computeIfAbsent(graph.symbols[graph.typeIds[t]], k -> new TreeMap<>())
+                        .put(rank, new TypeBlock(graph, t, global));
+            }
+        }
+
+        /** Retire le graphe ajouté avec ce rang. */
+        public void remove(long rank, CompactCallGraph graph) {
+            for (int t = 0; t < graph.typeIds.length; t++) {
+                String type = graph.symbols[graph.typeIds[t]];
+                TreeMap<Long, TypeBlock> blocks = types.get(type);
+                if (blocks != null) {
+                    blocks.remove(rank);
+                    if (blocks.isEmpty()) {
+                        types.remove(type);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Graphe fusionné courant. La table de symboles garde les noms des graphes retirés :
+         * elle ne croît qu'avec les noms jamais vus.
+         */
+        public CompactCallGraph snapshot() {
+            int methodCount = 0, callCount = 0;
+            for (TreeMap<Long, TypeBlock> blocks : types.values()) {
+                TypeBlock block = blocks.lastEntry().getValue();
+                methodCount += block.methodIds.length;
+                callCount += block.callNames.length;
+            }
+            int[] typeIds = new int[types.size()];
+            int[] methodStart = new int[types.size() + 1];
+            int[] methodIds = new int[methodCount];
+            int[] callStart = new int[methodCount + 1];
+            int[] callNames = new int[callCount];
+            int[] callTypes = new int[callCount];
+            byte[] callResolutions = new byte[callCount];
+
+            int t = 0, m = 0, c = 0;
+            for (Map.Entry<String, TreeMap<Long, TypeBlock>> type : types.entrySet()) {
+                TypeBlock block = type.getValue().lastEntry().getValue();
+                typeIds[t++] = ids.get(type.getKey());
+                System.arraycopy(block.methodIds, 0, methodIds, m, block.methodIds.length);
+                for (int i = 0; i < block.methodIds.length; i++) {
+                    callStart[m + i] = c + block.callStart[i];
+                }
+                m += block.methodIds.length;
+                methodStart[t] = m;
+                System.arraycopy(block.callNames, 0, callNames, c, block.callNames.length);
+                System.arraycopy(block.callTypes, 0, callTypes, c, block.callTypes.length);
+                System.arraycopy(block.callResolutions, 0, callResolutions, c, block.callResolutions.length);
+                c += block.callNames.length;
+                callStart[m] = c;
+            }
+            return new CompactCallGraph(symbols.toArray(new String[0]), typeIds, methodStart, methodIds,
+                    callStart, callNames, callTypes, callResolutions);
+        }
+
+        private int intern(String s) {
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = symbols.size();
+                ids.put(s, id);
+                symbols.add(s);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Contenu d'un type (méthodes et appels) dans la table de symboles d'une IncrementalMerge ;
+     * callStart est relatif au premier appel du type.
+     */
+    private static final class TypeBlock {
+        final int[] methodIds;
+        final int[] callStart;
+        final int[] callNames;
+        final int[] callTypes;
+        final byte[] callResolutions;
+
+        TypeBlock(CompactCallGraph graph, int t, int[] global) {
+            int firstMethod = graph.methodStart[t], endMethod = graph.methodStart[t + 1];
+            int firstCall = graph.callStart[firstMethod], endCall = graph.callStart[endMethod];
+            methodIds = new int[endMethod - firstMethod];
+            callStart = new int[methodIds.length + 1];
+            for (int m = firstMethod; m < endMethod; m++) {
+                methodIds[m - firstMethod] = global[graph.methodIds[m]];
+                callStart[m - firstMethod + 1] = graph.callStart[m + 1] - firstCall;
+            }
+            callNames = new int[endCall - firstCall];
+            callTypes = new int[callNames.length];
+            for (int c = firstCall; c < endCall; c++) {
+                callNames[c - firstCall] = global[graph.callNames[c]];
+                callTypes[c - firstCall] = graph.callTypes[c] < 0 ? -1 : global[graph.callTypes[c]];
+            }
+            callResolutions = Arrays.copyOfRange(graph.callResolutions, firstCall, endCall);
+        }
+    }
+
+    // ===============================================
+    // ACCÈS PAR IDENTIFIANTS
+    // ===============================================
+
+    public int typeCount() { return typeIds.length; }
+    public int methodCount() { return methodIds.length; }
+    public int callCount() { return callNames.length; }
+    public int symbolCount() { return symbols.length; }
+
+    /** Nom associé à un identifiant (null pour -1). */
+    public String symbol(int id) { return id < 0 ? null : symbols[id]; }
+
+    public int typeId(int t) { return typeIds[t]; }
+    public int firstMethod(int t) { return methodStart[t]; }
+    public int endMethod(int t) { return methodStart[t + 1]; }
+    public int methodId(int m) { return methodIds[m]; }
+    public int firstCall(int m) { return callStart[m]; }
+    public int endCall(int m) { return callStart[m + 1]; }
+    public int callName(int c) { return callNames[c]; }
+    public int callType(int c) { return callTypes[c]; }
+    public ClassMethodCallVisitor.Resolution callResolution(int c) { return RESOLUTIONS[callResolutions[c]]; }
+
+    /**
+     * Nombre d'appels par origine du type receveur (bindings, heuristique, non résolu).
+     */
+    public Map<ClassMethodCallVisitor.Resolution, Integer> countByResolution() {
+        int[] counts = new int[RESOLUTIONS.length];
+        for (byte r : callResolutions) {
+            counts[r]++;
+        }
+        Map<ClassMethodCallVisitor.Resolution, Integer> byResolution = new EnumMap<>(ClassMethodCallVisitor.Resolution.class);
+        for (ClassMethodCallVisitor.Resolution r : RESOLUTIONS) {
+            byResolution.put(r, counts[r.ordinal()]);
+        }
+        return byResolution;
+    }
+
+    /** Indice du type portant ce nom, ou -1. */
+    public int indexOfType(String name) {
+        if (typeIndex == null) {
+            Map<String, Integer> index = new HashMap<>(typeIds.length * 2);
+            for (int t = 0; t < typeIds.length; t++) {
+                index.put(symbols[typeIds[t]], t);
+            }
+            typeIndex = index;
+        }
+        Integer t = typeIndex.get(name);
+        return t == null ? -1 : t;
+    }
+
+    // ===============================================
+    // VUE MAP (ADAPTATEUR)
+    // ===============================================
+
+    /**
+     * Vue en lecture seule Map<className, Map<methodName, List<MethodCall>>> sur ce graphe.
+     */
+    public Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> asMap() {
+        if (mapView == null) {
+            mapView = new TypesView();
+        }
+        return mapView;
+    }
+
+    private final class TypesView extends AbstractMap<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> {
+        @Override
+        public Set<Entry<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>>> entrySet() {
+            return new AbstractSet<Entry<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>>>() {
+                @Override
+                public Iterator<Entry<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>>> iterator() {
+                    return new Iterator<Entry<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>>>() {
+                        int t = 0;
+                        @Override public boolean hasNext() { return t < typeIds.length; }
+                        @Override public Entry<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int type = t++;
+                            return new SimpleImmutableEntry<>(symbols[typeIds[type]], new MethodsView(type));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() { return typeIds.length; }
+            };
+        }
+
+        @Override
+        public Map<String, List<ClassMethodCallVisitor.MethodCall>> get(Object key) {
+            int t = key instanceof String ? indexOfType((String) key) : -1;
+            return t < 0 ? null : new MethodsView(t);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && indexOfType((String) key) >= 0;
+        }
+
+        @Override
+        public int size() { return typeIds.length; }
+    }
+
+    private final class MethodsView extends AbstractMap<String, List<ClassMethodCallVisitor.MethodCall>> {
+        private final int type;
+
+        MethodsView(int type) { this.type = type; }
+
+        @Override
+        public Set<Entry<String, List<ClassMethodCallVisitor.MethodCall>>> entrySet() {
+            return new AbstractSet<Entry<String, List<ClassMethodCallVisitor.MethodCall>>>() {
+                @Override
+                public Iterator<Entry<String, List<ClassMethodCallVisitor.MethodCall>>> iterator() {
+                    return new Iterator<Entry<String, List<ClassMethodCallVisitor.MethodCall>>>() {
+                        int m = methodStart[type];
+                        @Override public boolean hasNext() { return m < methodStart[type + 1]; }
+                        @Override public Entry<String, List<ClassMethodCallVisitor.MethodCall>> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int method = m++;
+                            return new SimpleImmutableEntry<>(symbols[methodIds[method]], new CallsView(method));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() { return methodStart[type + 1] - methodStart[type]; }
+            };
+        }
+    }
+
+    private final class CallsView extends AbstractList<ClassMethodCallVisitor.MethodCall> implements RandomAccess {
+        private final int method;
+
+        CallsView(int method) { this.method = method; }
+
+        @Override
+        public ClassMethodCallVisitor.MethodCall get(int i) {
+            if (i < 0 || i >= size()) throw new IndexOutOfBoundsException("Index: " + i);
+            int c = callStart[method] + i;
+            return new ClassMethodCallVisitor.MethodCall(symbols[callNames[c]], symbol(callTypes[c]), callResolution(c));
+        }
+
+        @Override
+        public int size() { return callStart[method + 1] - callStart[method]; }
+    }
+}
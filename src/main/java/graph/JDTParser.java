@@ -1,102 +1,43 @@
 package graph;
 
-import org.apache.commons.io.FileUtils;
-import org.eclipse.jdt.core.dom.CompilationUnit;
+import webanalyzer.parser.AnalysisConfig;
+import webanalyzer.parser.AnalysisEngine;
+import webanalyzer.parser.Parser;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.*;
 
 /**
  * Parser amélioré : retourne un graphe global :
  * Map<className, Map<methodName, List<MethodCall>>>
+ *
+ * Le graphe vient de l'analyse partagée (AnalysisEngine, configuration de application.properties) :
+ * un projet déjà analysé par l'autre interface ou par l'application web n'est pas reparsé.
  */
 public class JDTParser {
 
-    // Chemin vers ton projet (modifiable dynamiquement)
-    public static String projectPath = "/Users/njap/eclipse-workspace/visitorDesignPattern";
-    public static String projectSourcePath = projectPath + "/src";
-
-    public static void setProjectPath(String p) {
-        projectPath = p;
-        projectSourcePath = projectPath + "/src";
-    }
-
     /**
      * Parse tout le projet et retourne la structure d'appel complète.
      */
-    public static Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> parseProject() throws IOException {
-        ArrayList<File> javaFiles = listJavaFilesForFolder(new File(projectSourcePath));
-        Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> projectGraph = new LinkedHashMap<>();
-
-        for (File f : javaFiles) {
-            try {
-                String content = FileUtils.readFileToString(f, "UTF-8");
-                CompilationUnit cu = parse(content.toCharArray(), f.getName());
-
-                // pour chaque TypeDeclaration dans le fichier, on applique le visitor
-                cu.accept(new org.eclipse.jdt.core.dom.ASTVisitor() {
-                    @Override
-                    public boolean visit(org.eclipse.jdt.core.dom.TypeDeclaration node) {
-                        String className = node.getName().getIdentifier();
-                        ClassMethodCallVisitor visitor = new ClassMethodCallVisitor(className);
-                        cu.accept(visitor);
-                        projectGraph.put(className, visitor.getMethods());
-                        return false; // ne pas descendre récursivement
-                    }
-                });
-
-            } catch (Exception ex) {
-                System.err.println("Erreur lors de l'analyse du fichier : " + f.getAbsolutePath());
-                ex.printStackTrace();
-            }
-        }
-
-        return projectGraph;
+    public static Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> parseProject(String projectPath) throws IOException {
+        return AnalysisEngine.shared().analyze(projectPath, AnalysisConfig.load()).getClassMethodCalls();
     }
 
     /**
-     * Parse et construit une CompilationUnit à partir d’un contenu Java.
+     * Même graphe, lu dans les classes compilées du projet (target/classes, build/classes...)
+     * au lieu des sources : pas de parsing ni de résolution de bindings.
      */
-    public static CompilationUnit parse(char[] source, String unitName) {
-        org.eclipse.jdt.core.dom.ASTParser parser = org.eclipse.jdt.core.dom.ASTParser.newParser(org.eclipse.jdt.core.dom.AST.JLS4);
-        parser.setResolveBindings(true);
-        parser.setKind(org.eclipse.jdt.core.dom.ASTParser.K_COMPILATION_UNIT);
-        parser.setBindingsRecovery(true);
-
-        parser.setUnitName(unitName);
-        String[] sources = { projectSourcePath };
-
-        // Classpath à enrichir selon ton environnement (facultatif)
-        String[] classpath = {};
-
-        parser.setEnvironment(classpath, sources, new String[]{"UTF-8"}, true);
-        parser.setSource(source);
-
-        return (CompilationUnit) parser.createAST(null);
-    }
-
-    /**
-     * Récupère récursivement tous les fichiers .java d’un dossier.
-     */
-    public static ArrayList<File> listJavaFilesForFolder(final File folder) {
-        ArrayList<File> javaFiles = new ArrayList<>();
-        if (folder == null || !folder.exists()) return javaFiles;
-        File[] files = folder.listFiles();
-        if (files == null) return javaFiles;
-        for (File f : files) {
-            if (f.isDirectory()) javaFiles.addAll(listJavaFilesForFolder(f));
-            else if (f.getName().endsWith(".java")) javaFiles.add(f);
-        }
-        return javaFiles;
+    public static Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> parseBytecode(String projectPath) throws IOException {
+        return AnalysisEngine.shared().analyze(projectPath, AnalysisConfig.load().withBackend(Parser.Backend.BYTECODE))
+                .getClassMethodCalls();
     }
 
     // -------------------------------------------------------------------------
     //  Nouvelle méthode : affichage console du graphe complet du projet
     // -------------------------------------------------------------------------
-    public static void printProjectCallGraph() {
+    public static void printProjectCallGraph(String projectPath) {
         try {
-            Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> projectGraph = parseProject();
+            Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> projectGraph = parseProject(projectPath);
 
             System.out.println("\n===== GRAPHE D'APPEL GLOBAL DU PROJET =====\n");
             for (String className : projectGraph.keySet()) {
@@ -187,6 +128,6 @@ public class JDTParser {
     //  Méthode main pour tester directement
     // -------------------------------------------------------------------------
     public static void main(String[] args) {
-        printProjectCallGraph();
+        printProjectCallGraph(args.length > 0 ? args[0] : ".");
     }
 }
@@ -0,0 +1,222 @@
+package graph;
+
+import org.eclipse.jdt.core.dom.*;
+
+import java.util.*;
+
+/**
+ * Résolution approximative du type receveur d'un appel, pour les AST construits
+ * sans bindings (mode rapide).
+ *
+ * Le type est déduit, dans l'ordre :
+ *  - des variables visibles : paramètres et variables locales de la méthode,
+ *    attributs des types englobants (pile de portées tenue par CallGraphExtractor) ;
+ *  - des noms de types connus : imports simples du fichier, types déclarés dans le fichier,
+ *    index des types du projet (noms de fichiers), sinon nom en CamelCase commençant par une majuscule ;
+ *  - de la forme de l'expression : this, new X(), cast, littéral chaîne, X.class.
+ *
+ * Les noms produits suivent ceux de ITypeBinding.getName() (nom simple, arguments de type
+ * et dimensions conservés) pour que le couplage soit comparable avec le mode bindings.
+ * Un receveur non déduit est attribué à la classe courante (Resolution.DEFAULT).
+ */
+public class SyntacticTypeResolver {
+
+    private final Set<String> projectTypes;
+    private final Set<String> knownTypes = new HashSet<>();
+    // Portées imbriquées (type, méthode, lambda...) : nom de variable -> type
+    private final Deque<Map<String, String>> scopes = new ArrayDeque<>();
+
+    /**
+     * @param projectTypes noms simples des types du projet (peut être vide)
+     */
+    public SyntacticTypeResolver(Set<String> projectTypes) {
+        this.projectTypes = projectTypes;
+    }
+
+    // ===============================================
+    // PORTÉES
+    // ===============================================
+
+    /** Imports simples (non statiques, non « .* ») du fichier. */
+    public void addImports(List<?> imports) {
+        for (Object o : imports) {
+            ImportDeclaration imp = (ImportDeclaration) o;
+            if (!imp.isStatic() && !imp.isOnDemand()) {
+                knownTypes.add(simpleName(imp.getName()));
+            }
+        }
+    }
+
+    /** Types déjà rencontrés dans le fichier (parcours d'une méthode seule). */
+    public void addKnownTypes(Collection<String> typeNames) {
+        knownTypes.addAll(typeNames);
+    }
+
+    /**
+     * Ouvre la portée d'un type : ses attributs sont visibles dans toutes ses méthodes,
+     * même s'ils sont déclarés après elles.
+     */
+    public void enterType(String typeName, List<?> bodyDeclarations) {
+        if (typeName != null) {
+            knownTypes.add(typeName);
+        }
+        enterScope();
+        for (Object o : bodyDeclarations) {
+            if (o instanceof FieldDeclaration) {
+                FieldDeclaration fd = (FieldDeclaration) o;
+                for (Object f : fd.fragments()) {
+                    declare((VariableDeclarationFragment) f, fd.getType());
+                }
+            }
+        }
+    }
+
+    public void enterScope() {
+        scopes.push(new HashMap<>());
+    }
+
+    public void exitScope() {
+        scopes.pop();
+    }
+
+    public void declare(VariableDeclaration var, Type type) {
+        if (scopes.isEmpty() || type == null) return;
+        String name = typeName(type);
+        for (int i = 0; i < var.getExtraDimensions(); i++) {
+            name += "[]";
+        }
+        if (var instanceof SingleVariableDeclaration && ((SingleVariableDeclaration) var).isVarargs()) {
+            name += "[]";
+        }
+        scopes.peek().put(var.getName().getIdentifier(), name);
+    }
+
+    // ===============================================
+    // RÉSOLUTION
+    // ===============================================
+
+    /**
+     * Appel dont le type receveur est déduit sans bindings.
+     */
+    public ClassMethodCallVisitor.MethodCall resolve(MethodInvocation mi, String currentType) {
+        String calledName = mi.getName().getIdentifier();
+        Expression expr = mi.getExpression();
+        if (expr == null) {
+            // appel non qualifié : méthode de la classe (ou héritée)
+            return new ClassMethodCallVisitor.MethodCall(calledName, currentType, ClassMethodCallVisitor.Resolution.HEURISTIC);
+        }
+        String type = typeOf(expr, currentType);
+        if (type == null) {
+            return new ClassMethodCallVisitor.MethodCall(calledName, currentType, ClassMethodCallVisitor.Resolution.DEFAULT);
+        }
+        return new ClassMethodCallVisitor.MethodCall(calledName, type, ClassMethodCallVisitor.Resolution.HEURISTIC);
+    }
+
+    private String typeOf(Expression expr, String currentType) {
+        switch (expr.getNodeType()) {
+            case ASTNode.THIS_EXPRESSION: {
+                Name qualifier = ((ThisExpression) expr).getQualifier();
+                return qualifier == null ? currentType : simpleName(qualifier);
+            }
+            case ASTNode.SIMPLE_NAME: {
+                String name = ((SimpleName) expr).getIdentifier();
+                String varType = lookup(name);
+                if (varType != null) return varType;
+                return isTypeName(name) ? name : null;
+            }
+            case ASTNode.QUALIFIED_NAME: {
+                // Outer.Inner, java.util.Collections, ou accès à un attribut (a.b) non suivi
+                QualifiedName qn = (QualifiedName) expr;
+                String last = qn.getName().getIdentifier();
+                String first = firstSegment(qn);
+                if (lookup(first) == null && looksLikeType(last)) {
+                    return last;
+                }
+                return null;
+            }
+            case ASTNode.FIELD_ACCESS: {
+                FieldAccess fa = (FieldAccess) expr;
+                return fa.getExpression() instanceof ThisExpression ? lookup(fa.getName().getIdentifier()) : null;
+            }
+            case ASTNode.CLASS_INSTANCE_CREATION:
+                return typeName(((ClassInstanceCreation) expr).getType());
+            case ASTNode.CAST_EXPRESSION:
+                return typeName(((CastExpression) expr).getType());
+            case ASTNode.PARENTHESIZED_EXPRESSION:
+                return typeOf(((ParenthesizedExpression) expr).getExpression(), currentType);
+            case ASTNode.STRING_LITERAL:
+                return "String";
+            case ASTNode.TYPE_LITERAL:
+                return "Class<" + typeName(((TypeLiteral) expr).getType()) + ">";
+            default:
+                return null;
+        }
+    }
+
+    private String lookup(String name) {
+        for (Map<String, String> scope : scopes) {
+            String type = scope.get(name);
+            if (type != null) return type;
+        }
+        return null;
+    }
+
+    private boolean isTypeName(String name) {
+        return knownTypes.contains(name) || projectTypes.contains(name) || looksLikeType(name);
+    }
+
+    // Convention Java : Majuscule initiale, mais pas une CONSTANTE
+    private static boolean looksLikeType(String name) {
+        return !name.isEmpty() && Character.isUpperCase(name.charAt(0)) && !name.equals(name.toUpperCase());
+    }
+
+    /**
+     * Nom d'un type au format de ITypeBinding.getName() : List<String>, String[], Entry...
+     */
+    public static String typeName(Type type) {
+        if (type.isSimpleType()) {
+            return simpleName(((SimpleType) type).getName());
+        }
+        if (type.isQualifiedType()) {
+            return ((QualifiedType) type).getName().getIdentifier();
+        }
+        if (type.isParameterizedType()) {
+            ParameterizedType pt = (ParameterizedType) type;
+            StringBuilder sb = new StringBuilder(typeName(pt.getType()));
+            if (!pt.typeArguments().isEmpty()) {
+                sb.append('<');
+                for (int i = 0; i < pt.typeArguments().size(); i++) {
+                    if (i > 0) sb.append(',');
+                    sb.append(typeName((Type) pt.typeArguments().get(i)));
+                }
+                sb.append('>');
+            }
+            return sb.toString();
+        }
+        if (type.isArrayType()) {
+            ArrayType at = (ArrayType) type;
+            StringBuilder sb = new StringBuilder(typeName(at.getElementType()));
+            for (int i = 0; i < at.getDimensions(); i++) {
+                sb.append("[]");
+            }
+            return sb.toString();
+        }
+        if (type.isWildcardType()) {
+            WildcardType wt = (WildcardType) type;
+            if (wt.getBound() == null) return "?";
+            return (wt.isUpperBound() ? "? extends " : "? super ") + typeName(wt.getBound());
+        }
+        return type.toString(); // types primitifs
+    }
+
+    private static String simpleName(Name name) {
+        return name.isSimpleName() ? ((SimpleName) name).getIdentifier() : ((QualifiedName) name).getName().getIdentifier();
+    }
+
+    private static String firstSegment(Name name) {
+        while (name.isQualifiedName()) {
+            name = ((QualifiedName) name).getQualifier();
+        }
+        return ((SimpleName) name).getIdentifier();
+    }
+}
@@ -14,12 +14,8 @@ import visiteurs.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Optional;
 
-import org.apache.commons.io.FileUtils;
-import org.eclipse.jdt.core.dom.CompilationUnit;
-
 public class JDTAnalyzerGUI extends Application {
 
     private TableView<FileStats> fileTable = new TableView<>();
@@ -153,86 +149,41 @@ private void analyzeProject() {
     });
 
 
-    ArrayList<File> javaFiles = Parser.listJavaFilesForFolder(projectFolder);
-
-    // --- Création des visiteurs globaux ---
-    ClassCounterVisitor classVisitor = new ClassCounterVisitor();
-    MethodCounterVisitor methodVisitor = new MethodCounterVisitor();
-    LineCodeCounterVisitor lineVisitor = new LineCodeCounterVisitor();
-    PackageCounterVisitor packageVisitor = new PackageCounterVisitor();
-    TopMethodClassVisitor topMethod = new TopMethodClassVisitor();
-    TopAttributeClassVisitor topAttribute = new TopAttributeClassVisitor();
-    CombinedCategoryVisitor combine = new CombinedCategoryVisitor();
-    PlusXMethodCounterVisitor xMethod = new PlusXMethodCounterVisitor(); // ← valeur X
-    MaxParametersCounterVisitor maxParam = new MaxParametersCounterVisitor();
+    int x = result.map(Integer::parseInt).orElse(3);
 
     try {
-        for (File fileEntry : javaFiles) {
-            String content = FileUtils.readFileToString(fileEntry, "UTF-8");
-            CompilationUnit parse = Parser.parse(content.toCharArray());
-
-            // --- Visiteurs locaux par fichier ---
-            ClassCounterVisitor classVisitorFile = new ClassCounterVisitor();
-            MethodCounterVisitor methodVisitorFile = new MethodCounterVisitor();
-            LineCodeCounterVisitor lineVisitorFile = new LineCodeCounterVisitor();
-            PackageCounterVisitor packageVisitorFile = new PackageCounterVisitor();
-
-            MethodPerClassAVGCounterVisitor classMethodStatsVisitor = new MethodPerClassAVGCounterVisitor();
-            LinePerMethodAVGCounterVisitor linePerMethodAVG = new LinePerMethodAVGCounterVisitor(parse);
-            AttributPerClassAVGCounterVisitor attrPerClassAVG = new AttributPerClassAVGCounterVisitor();
-            LongestMethodsPerClassVisitor longMethod = new LongestMethodsPerClassVisitor(parse);
-
-            // --- Appliquer les visiteurs locaux ---
-            parse.accept(classVisitorFile);
-            parse.accept(methodVisitorFile);
-            parse.accept(lineVisitorFile);
-            parse.accept(packageVisitorFile);
-            parse.accept(classMethodStatsVisitor);
-            parse.accept(linePerMethodAVG);
-            parse.accept(attrPerClassAVG);
-            parse.accept(longMethod);
-
-            // --- Ajouter au tableau ---
+        // analyse partagée avec l'autre interface et l'application web (AnalysisEngine)
+        webanalyzer.parser.Parser parser = Parser.analyze(projectFolder.getAbsolutePath());
+
+        for (webanalyzer.parser.Parser.FileAnalysis fa : parser.getFileAnalyses().values()) {
             fileStatsData.add(new FileStats(
-                    fileEntry.getName(),
-                    classVisitorFile.getClassCount(),
-                    methodVisitorFile.getMethodCount(),
-                    lineVisitorFile.getLgcode(),
-                    packageVisitorFile.getDistinctPackageCount(),
-                    classMethodStatsVisitor.getAverageMethodsPerCleass(),
-                    linePerMethodAVG.getAverageLinesPerMethod(),
-                    attrPerClassAVG.getAverageAttributesperClass(),
-                    longMethod.toString()
+                    fa.getFileName(),
+                    fa.getClasses().size(),
+                    fa.getMethods().size(),
+                    fa.getLines(),
+                    fa.getPackages(),
+                    fa.getAvgMethodsPerClass(),
+                    fa.getAvgLinesPerMethod(),
+                    fa.getAvgAttributesPerClass(),
+                    fa.getLongestMethods().toString()
             ));
-
-            // --- Visiteurs globaux ---
-            parse.accept(classVisitor);
-            parse.accept(methodVisitor);
-            parse.accept(lineVisitor);
-            parse.accept(packageVisitor);
-            parse.accept(topMethod);
-            parse.accept(topAttribute);
-            parse.accept(combine);
-            parse.accept(xMethod);
-            parse.accept(maxParam);
         }
 
         // --- Statistiques globales ---
         globalStatsBox.getChildren().addAll(
-                new Label("Total classes : " + classVisitor.getClassCount()),
-                new Label("Total interfaces : " + classVisitor.getInterfaceCount()),
-                new Label("Total méthodes : " + methodVisitor.getMethodCount()),
-                new Label("Total lignes de code : " + lineVisitor.getLgcode()),
-                new Label("Total packages : " + packageVisitor.getDistinctPackageCount()),
-                new Label("Top 10% classes par méthodes : " + topMethod.getTop10PercentClasses()),
-                new Label("Top 10% classes par attributs : " + topAttribute.getTop10PercentClasses()),
-                new Label("Intersection top méthodes & attributs : " +
-                        combine.getIntersection(topMethod.getTop10PercentClasses(), topAttribute.getTop10PercentClasses())),
-                new Label("Classes > " + Integer.parseInt(result.get())  + " méthodes : " + xMethod.getClassesOverThreshold(Integer.parseInt(result.get()))),
-                new Label("Nombre maximal de paramètres : " + maxParam.getMaxParameters())
+                new Label("Total classes : " + parser.getTotalClasses()),
+                new Label("Total interfaces : " + parser.getTotalInterfaces()),
+                new Label("Total méthodes : " + parser.getTotalMethods()),
+                new Label("Total lignes de code : " + parser.getTotalLines()),
+                new Label("Total packages : " + parser.getTotalPackage()),
+                new Label("Top 10% classes par méthodes : " + parser.getTopMethodsClasses()),
+                new Label("Top 10% classes par attributs : " + parser.getTopAttributeClasses()),
+                new Label("Intersection top méthodes & attributs : " + parser.getIntersectionTopClasses()),
+                new Label("Classes > " + x + " méthodes : " + parser.getClassesOverXMethods(x)),
+                new Label("Nombre maximal de paramètres : " + parser.getMaxParameters())
         );
 
-        statusLabel.setText("Analyse terminée pour " + javaFiles.size() + " fichiers.");
+        statusLabel.setText("Analyse terminée pour " + parser.getFileAnalyses().size() + " fichiers.");
 
     } catch (IOException e) {
         e.printStackTrace();
@@ -41,6 +41,8 @@ public class JDTCallGraphGUI extends Application {
     private Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> projectGraph = new LinkedHashMap<>();
     private BorderPane mainRoot;
     private TextField searchField = new TextField();
+    private CheckMenuItem bytecodeItem = new CheckMenuItem("Lire les classes compilées (bytecode)");
+    private String projectPath = "";
 
     // Transform for zoom/pan
     private double scale = 1.0;
@@ -137,7 +139,7 @@ public class JDTCallGraphGUI extends Application {
                     detailsArea.setText(buildMethodDetails(methodName));
                 } else if (newV== treeView.getRoot()) {
                 	layoutAndDrawGraph(projectGraph);
-                    detailsArea.setText("Projet: "+JDTParser.projectPath);
+                    detailsArea.setText("Projet: "+projectPath);
                 } else {
                     detailsArea.setText(val);
                 }
@@ -155,7 +157,7 @@ public class JDTCallGraphGUI extends Application {
         openProj.setOnAction(e -> chooseProjectDir(stage));
         MenuItem exit = new MenuItem("Quitter");
         exit.setOnAction(e -> Platform.exit());
-        file.getItems().addAll(openProj, new SeparatorMenuItem(), exit);
+        file.getItems().addAll(openProj, bytecodeItem, new SeparatorMenuItem(), exit);
 
         Menu view = new Menu("Affichage");
 
@@ -180,12 +182,13 @@ public class JDTCallGraphGUI extends Application {
         dc.setTitle("Choisir le dossier racine du projet (contenant src/)");
         File chosen = dc.showDialog(stage);
         if (chosen != null) {
-            JDTParser.setProjectPath(chosen.getAbsolutePath());
+            projectPath = chosen.getAbsolutePath();
             Task<Void> task = new Task() {
                 @Override
                 protected Void call() throws Exception {
                     Platform.runLater(() -> statusLabel.setText("Analyse en cours..."));
-                    projectGraph = JDTParser.parseProject();
+                    projectGraph = bytecodeItem.isSelected()
+                            ? JDTParser.parseBytecode(projectPath) : JDTParser.parseProject(projectPath);
                     Platform.runLater(() -> {
                         buildTreeFromProject(projectGraph);
                         layoutAndDrawGraph(projectGraph);
@@ -266,7 +269,7 @@ public class JDTCallGraphGUI extends Application {
 
     // --- TREE ---
     private void buildTreeFromProject(Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> graph) {
-        TreeItem<String> root = new TreeItem<>("Projet : " + JDTParser.projectPath);
+        TreeItem<String> root = new TreeItem<>("Projet : " + projectPath);
         root.setExpanded(true);
         for (String className : graph.keySet()) {
             TreeItem<String> classItem = new TreeItem<>("Classe : " + className);
@@ -0,0 +1,90 @@
+package webanalyzer.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import webanalyzer.parser.AnalysisEngine;
+import webanalyzer.parser.AnalysisSnapshot;
+import webanalyzer.parser.Parser;
+import webanalyzer.service.AnalysisConfigProvider;
+import webanalyzer.service.SnapshotDiffService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * API JSON de comparaison : différences de métriques, de couplage et de modules entre deux
+ * dossiers ou instantanés enregistrés (par exemple la branche principale et une pull request).
+ * Les instantanés sont rangés dans le dossier configuré (analyzer.snapshots.dir) et désignés
+ * par leur seul nom : le client ne choisit aucun chemin de fichier.
+ */
+@RestController
+@RequestMapping("/diff")
+public class DiffController {
+
+    @Autowired
+    private AnalysisConfigProvider configProvider;
+
+    /**
+     * Compare « before » et « after », chacun un dossier ou le nom d'un instantané enregistré.
+     * Un dossier « after » est analysé à partir de « before » : seuls ses fichiers modifiés sont parsés.
+     */
+    @GetMapping
+    public ResponseEntity<?> diff(@RequestParam("before") String before,
+                                  @RequestParam("after") String after,
+                                  @RequestParam(value = "threshold", defaultValue = "0.059") double threshold,
+                                  @RequestParam(value = "resolution", defaultValue = "BINDINGS") Parser.ResolutionMode resolution) {
+        Parser parser = createParser(resolution);
+        Path snapshotDir = configProvider.getConfig().getSnapshotDir();
+        try {
+            AnalysisSnapshot beforeSnapshot = AnalysisSnapshot.open(parser, before, null, snapshotDir);
+            AnalysisSnapshot afterSnapshot = AnalysisSnapshot.open(parser, after, beforeSnapshot, snapshotDir);
+            return ResponseEntity.ok(SnapshotDiffService.compare(beforeSnapshot, afterSnapshot, threshold));
+        } catch (IOException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap(
+                    "error", "Comparaison impossible : " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Enregistre l'instantané d'un dossier sous le nom « file » dans le dossier des instantanés,
+     * référence des comparaisons suivantes.
+     */
+    @PostMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> snapshot(@RequestParam("path") String path,
+                                                        @RequestParam("file") String file,
+                                                        @RequestParam(value = "resolution", defaultValue = "BINDINGS") Parser.ResolutionMode resolution) {
+        if (!new File(path).isDirectory()) {
+            return ResponseEntity.badRequest().body(Collections.<String, Object>singletonMap(
+                    "error", "Le chemin n'existe pas ou n'est pas un dossier : " + path));
+        }
+        File target;
+        try {
+            target = AnalysisSnapshot.snapshotFile(configProvider.getConfig().getSnapshotDir(), file);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.<String, Object>singletonMap("error", e.getMessage()));
+        }
+        try {
+            AnalysisSnapshot snapshot = AnalysisSnapshot.create(createParser(resolution), path);
+            Files.createDirectories(target.toPath().getParent());
+            snapshot.save(target);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("path", snapshot.getRoot());
+            body.put("file", file);
+            body.put("files", snapshot.getHashes().size());
+            return ResponseEntity.ok(body);
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(Collections.<String, Object>singletonMap(
+                    "error", "Impossible d'enregistrer l'instantané : " + e.getMessage()));
+        }
+    }
+
+    private Parser createParser(Parser.ResolutionMode resolution) {
+        return AnalysisEngine.shared().createParser(configProvider.getConfig().withResolutionMode(resolution));
+    }
+}
@@ -0,0 +1,90 @@
+package webanalyzer.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import webanalyzer.model.AnalysisEstimate;
+import webanalyzer.parser.AnalysisEngine;
+import webanalyzer.parser.Parser;
+import webanalyzer.parser.SampledAnalysis;
+import webanalyzer.service.AnalysisConfigProvider;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * API JSON de l'analyse approchée : l'interface web lance une SampledAnalysis sur un projet
+ * puis interroge la dernière estimation, qui se resserre au fil des tours.
+ * Les faits calculés passent par le cache d'analyse : une analyse complète lancée ensuite
+ * réutilise les fichiers déjà échantillonnés.
+ */
+@RestController
+@RequestMapping("/estimate")
+public class EstimateController {
+
+    @Autowired
+    private AnalysisConfigProvider configProvider;
+
+    // Une analyse échantillonnée par projet (chemin absolu)
+    private final Map<String, SampledAnalysis> analyses = new ConcurrentHashMap<>();
+
+    /**
+     * Lance (ou relance) l'analyse échantillonnée du projet.
+     */
+    @PostMapping("/start")
+    public ResponseEntity<Map<String, Object>> start(@RequestParam("path") String path,
+                                                     @RequestParam(value = "fraction", defaultValue = "0.02") double fraction,
+                                                     @RequestParam(value = "seed", defaultValue = "42") long seed,
+                                                     @RequestParam(value = "resolution", defaultValue = "BINDINGS") Parser.ResolutionMode resolution) {
+        File folder = new File(path);
+        if (!folder.isDirectory()) {
+            return ResponseEntity.badRequest().body(Collections.<String, Object>singletonMap(
+                    "error", "Le chemin n'existe pas ou n'est pas un dossier : " + path));
+        }
+        String key = folder.getAbsolutePath();
+        Parser parser = AnalysisEngine.shared().createParser(configProvider.getConfig().withResolutionMode(resolution));
+        SampledAnalysis analysis = new SampledAnalysis(parser, key, fraction, seed);
+        SampledAnalysis previous = analyses.put(key, analysis);
+        if (previous != null) {
+            previous.close();
+        }
+        analysis.start();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("path", key);
+        body.put("fraction", fraction);
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Dernière estimation publiée (204 tant que le premier tour n'est pas terminé).
+     */
+    @GetMapping("/current")
+    public ResponseEntity<AnalysisEstimate> current(@RequestParam("path") String path) {
+        SampledAnalysis analysis = analyses.get(new File(path).getAbsolutePath());
+        if (analysis == null) {
+            return ResponseEntity.notFound().build();
+        }
+        AnalysisEstimate estimate = analysis.getEstimate();
+        return estimate == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(estimate);
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<Void> stop(@RequestParam("path") String path) {
+        SampledAnalysis analysis = analyses.remove(new File(path).getAbsolutePath());
+        if (analysis != null) {
+            analysis.close();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PreDestroy
+    public void stopAll() {
+        for (SampledAnalysis analysis : analyses.values()) {
+            analysis.close();
+        }
+        analyses.clear();
+    }
+}
@@ -0,0 +1,49 @@
+package webanalyzer.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import webanalyzer.parser.AnalysisEngine;
+import webanalyzer.parser.GitHistoryAnalyzer;
+import webanalyzer.parser.Parser;
+import webanalyzer.service.AnalysisConfigProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * API JSON de l'historique git : métriques globales et couplage de chaque commit d'une plage,
+ * pour tracer l'évolution de l'architecture d'un projet.
+ */
+@RestController
+@RequestMapping("/history")
+public class HistoryController {
+
+    @Autowired
+    private AnalysisConfigProvider configProvider;
+
+    /**
+     * Analyse les commits de la plage (syntaxe de git log), du plus ancien au plus récent.
+     */
+    @GetMapping
+    public ResponseEntity<?> history(@RequestParam("path") String path,
+                                     @RequestParam(value = "range", defaultValue = "HEAD") String range,
+                                     @RequestParam(value = "max", defaultValue = "50") int maxCommits,
+                                     @RequestParam(value = "xMethods", defaultValue = "2") int xMethods,
+                                     @RequestParam(value = "resolution", defaultValue = "BINDINGS") Parser.ResolutionMode resolution) {
+        File folder = new File(path);
+        if (!folder.isDirectory()) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap(
+                    "error", "Le chemin n'existe pas ou n'est pas un dossier : " + path));
+        }
+        Parser parser = AnalysisEngine.shared().createParser(configProvider.getConfig().withResolutionMode(resolution));
+        try {
+            return ResponseEntity.ok(new GitHistoryAnalyzer(parser, folder.getAbsolutePath(), xMethods)
+                    .analyze(range, maxCommits));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(Collections.singletonMap(
+                    "error", "Impossible d'analyser l'historique : " + e.getMessage()));
+        }
+    }
+}
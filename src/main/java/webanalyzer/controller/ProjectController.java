@@ -1,14 +1,21 @@
 package webanalyzer.controller;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import graph.ClassMethodCallVisitor;
+import webanalyzer.parser.AnalysisConfig;
+import webanalyzer.parser.AnalysisEngine;
 import webanalyzer.parser.Parser;
+import webanalyzer.parser.SourceArchive;
+import webanalyzer.service.CouplingService;
 import webanalyzer.service.DendrogramService;
+import webanalyzer.service.AnalysisConfigProvider;
 import webanalyzer.service.ModuleIdentifierService;
 
 import java.io.File;
@@ -24,10 +31,29 @@ public class ProjectController {
 
     private Parser parser;
 
+    // Préfixe du chemin affiché pour une archive envoyée (pas de fichier sur le serveur)
+    private static final String UPLOAD_PREFIX = "upload:";
+
+    // --- Configuration d'analyse (analyzer.* : cache, exclusions, budget, mode...) ---
+    @Autowired
+    private AnalysisConfigProvider configProvider;
+
     @GetMapping("/")
     public String index() {
         return "index";
     }
+
+    /**
+     * Tableau de bord de l'analyse approchée (estimations interrogées sur /estimate).
+     */
+    @GetMapping("/estimation")
+    public String estimation(@RequestParam("path") String path,
+                             @RequestParam(value = "resolution", defaultValue = "BINDINGS") Parser.ResolutionMode resolution,
+                             Model model) {
+        model.addAttribute("projectPath", path);
+        model.addAttribute("resolutionMode", resolution);
+        return "estimation";
+    }
     
    
     /**
@@ -41,26 +67,89 @@ public class ProjectController {
 					            @RequestParam(value = "activeTab", required = false) String activeTab,
 
 	                             @RequestParam(value = "threshold", required = false) Double thresholdParam,
+					            @RequestParam(value = "resolution", defaultValue = "BINDINGS") Parser.ResolutionMode resolution,
+					            @RequestParam(value = "backend", defaultValue = "SOURCE") Parser.Backend backend,
 					            Model model) {
-        parser = new Parser();
+        model.addAttribute("resolutionMode", resolution);
+        model.addAttribute("backend", backend);
 
-        File folder = new File(path);
-        if (!folder.exists() || !folder.isDirectory()) {
-            model.addAttribute("error", "Le chemin n'existe pas ou n'est pas un dossier : " + path);
+        File input = new File(path);
+        try {
+            if (path.startsWith(UPLOAD_PREFIX)) {
+                // archive envoyée précédemment : on réaffiche son analyse sans la redemander
+                if (parser == null || !path.equals(parser.getProjectPath())) {
+                    model.addAttribute("error", "Archive envoyée introuvable, merci de la renvoyer : " + path);
+                    return "analysis";
+                }
+            } else if (input.isFile() && SourceArchive.isArchive(input.getName())) {
+                parser = createParser(resolution);
+                try (SourceArchive archive = SourceArchive.open(input)) {
+                    parser.analyzeArchive(archive);
+                }
+            } else if (input.isDirectory()) {
+                // analyse partagée : reprise telle quelle si le projet n'a pas changé depuis
+                parser = AnalysisEngine.shared().analyze(path, config(resolution).withBackend(backend));
+            } else {
+                model.addAttribute("error", "Le chemin n'existe pas ou n'est ni un dossier ni une archive : " + path);
+                return "analysis";
+            }
+        } catch (IOException e) {
+            model.addAttribute("error", "Erreur lors de l'analyse : " + e.getMessage());
             return "analysis";
         }
+        return showAnalysis(path, xMethods, classA, classB, activeTab, thresholdParam, model);
+    }
 
-        List<File> javaFiles = Parser.listJavaFiles(folder);
-        if (javaFiles.isEmpty()) {
-            model.addAttribute("error", "Aucun fichier Java trouvé dans : " + path);
+    /**
+     * Analyse une archive de sources envoyée par le navigateur (.zip, -sources.jar, .tar.gz),
+     * lue en flux sans extraction.
+     */
+    @PostMapping("/analyze/upload")
+    public String analyzeUpload(@RequestParam("archive") MultipartFile upload,
+                                @RequestParam(value = "resolution", defaultValue = "BINDINGS") Parser.ResolutionMode resolution,
+                                Model model) {
+        model.addAttribute("resolutionMode", resolution);
+        model.addAttribute("backend", Parser.Backend.SOURCE);
+        String name = upload.getOriginalFilename();
+        if (upload.isEmpty() || !SourceArchive.isArchive(name)) {
+            model.addAttribute("error", "Archive attendue (.zip, .jar, .tar.gz, .tgz, .tar) : " + name);
+            return "analysis";
+        }
+        String path = UPLOAD_PREFIX + name;
+        try (SourceArchive archive = SourceArchive.open(upload.getInputStream(), path)) {
+            parser = createParser(resolution);
+            parser.analyzeArchive(archive);
+        } catch (IOException e) {
+            model.addAttribute("error", "Erreur lors de l'analyse : " + e.getMessage());
             return "analysis";
         }
+        return showAnalysis(path, 2, null, null, null, null, model);
+    }
+
+    private AnalysisConfig config(Parser.ResolutionMode resolution) {
+        return configProvider.getConfig().withResolutionMode(resolution);
+    }
+
+    private Parser createParser(Parser.ResolutionMode resolution) {
+        return AnalysisEngine.shared().createParser(config(resolution));
+    }
 
+    /**
+     * Remplit le modèle de la page d'analyse à partir du résultat du parser courant.
+     */
+    private String showAnalysis(String path, int xMethods, String classA, String classB, String activeTab,
+                                Double thresholdParam, Model model) {
         try {
-            parser.analyzeProject(path);
+            if (parser.getFileAnalyses().isEmpty()) {
+                model.addAttribute("error", "Aucun fichier Java trouvé dans : " + path);
+                return "analysis";
+            }
+            List<File> javaFiles = parser.getFileAnalyses().keySet().stream()
+                .map(File::new)
+                .collect(Collectors.toList());
 
             // --- Calcul du couplage entre classes ---
-            Map<String, Map<String, Double>> couplingMap = calculateCouplingRatio(parser.getClassMethodCalls());
+            Map<String, Map<String, Double>> couplingMap = CouplingService.calculateCouplingRatio(parser.getCallGraph());
             String couplingGraphJson = convertCouplingToJson(couplingMap);
             List<Map<String, Object>> couplingMatrix = buildCouplingMatrix(couplingMap);
             
@@ -135,6 +224,12 @@ public class ProjectController {
             model.addAttribute("totalMethods", parser.getTotalMethods());
             model.addAttribute("totalLines", parser.getTotalLines());
             model.addAttribute("totalPackage", parser.getTotalPackage());
+            model.addAttribute("parseMode", parser.getParseMode());
+            model.addAttribute("analysisTimeMs", parser.getLastAnalysisTimeMs());
+            model.addAttribute("callResolutions", parser.getCallGraph().countByResolution());
+            model.addAttribute("quarantinedFiles", parser.getQuarantinedFiles());
+            model.addAttribute("moduleResults", parser.getModuleResults());
+            model.addAttribute("crossModuleCalls", parser.getCrossModuleCalls());
 
             // --- Métriques de Densité et Complexité ---
             model.addAttribute("avgMethodsPerClass", String.format("%.2f", parser.getAvgMethodsPerClass()));
@@ -177,62 +272,6 @@ public class ProjectController {
     // ---- CONVERTISSEURS ET CALCULATEURS
     // --------------------------------------------------------------------
 
-    /**
-     * Calcule le couplage dirigé entre classes.
-     * Couplage(A,B) = Nombre d'appels A->B / Nombre total d'appels inter-classes dans l'application.
-     */
-    private Map<String, Map<String, Double>> calculateCouplingRatio(
-            Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> classMethodCalls) {
-
-        Map<String, Map<String, Double>> couplingMap = new HashMap<>();
-        // Note: La logique de calculateCoupling est ici, renommée pour clarifier que c'est une métrique "ratio global".
-        int totalRelations = 0;
-
-        // 1. Compter les relations inter-classes (Dénominateur global)
-        for (String sourceClass : classMethodCalls.keySet()) {
-            for (List<ClassMethodCallVisitor.MethodCall> calls : classMethodCalls.get(sourceClass).values()) {
-                for (ClassMethodCallVisitor.MethodCall call : calls) {
-                    if (!isInternalCall(sourceClass, call.type)) { // Si la classe cible est différente de la source
-                        totalRelations++;
-                    }
-                }
-            }
-        }
-
-        // 2. Compter les relations entre chaque paire (A,B) (Numérateur)
-        for (String sourceClass : classMethodCalls.keySet()) {
-            for (List<ClassMethodCallVisitor.MethodCall> calls : classMethodCalls.get(sourceClass).values()) {
-                for (ClassMethodCallVisitor.MethodCall call : calls) {
-                    if (!isInternalCall(sourceClass, call.type)) {
-                        couplingMap
-                                .computeIfAbsent(sourceClass, k -> new HashMap<>())
-                                .merge(call.type, 1.0, Double::sum); // Compte le nombre d'appels A -> B
-                    }
-                }
-            }
-        }
-
-        // 3. Normalisation par le total (Couplage(A,B) = Appels(A->B) / TotalAppels)
-        if (totalRelations > 0) {
-            for (String a : couplingMap.keySet()) {
-                for (String b : couplingMap.get(a).keySet()) {
-                    double value = couplingMap.get(a).get(b) / totalRelations;
-                    couplingMap.get(a).put(b, value);
-                }
-            }
-        }
-
-        return couplingMap;
-    }
-
-    // Méthode utilitaire pour vérifier si l'appel est dans la même classe
-    private boolean isInternalCall(String sourceClass, String targetType) {
-        if (targetType == null) return true;
-        return sourceClass.equalsIgnoreCase(targetType.replace(".java", ""));
-    }
-
-   
-
     /**
      * Transforme la map de couplage en JSON pour Cytoscape.
      */
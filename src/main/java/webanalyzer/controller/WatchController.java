@@ -0,0 +1,102 @@
+package webanalyzer.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import webanalyzer.model.AnalysisDelta;
+import webanalyzer.parser.AnalysisEngine;
+import webanalyzer.parser.Parser;
+import webanalyzer.parser.ProjectWatcher;
+import webanalyzer.service.AnalysisConfigProvider;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * API JSON du mode surveillance : l'interface web démarre un ProjectWatcher sur un projet
+ * puis récupère les deltas d'analyse au lieu de resoumettre tout le formulaire.
+ */
+@RestController
+@RequestMapping("/watch")
+public class WatchController {
+
+    @Autowired
+    private AnalysisConfigProvider configProvider;
+
+    // Un watcher par projet (chemin absolu)
+    private final Map<String, ProjectWatcher> watchers = new ConcurrentHashMap<>();
+
+    /**
+     * Démarre (ou réutilise) la surveillance du projet et retourne la version courante.
+     */
+    @PostMapping("/start")
+    public ResponseEntity<Map<String, Object>> start(@RequestParam("path") String path,
+                                                     @RequestParam(value = "xMethods", defaultValue = "2") int xMethods) {
+        File folder = new File(path);
+        if (!folder.isDirectory()) {
+            return ResponseEntity.badRequest().body(Collections.<String, Object>singletonMap(
+                    "error", "Le chemin n'existe pas ou n'est pas un dossier : " + path));
+        }
+        String key = folder.getAbsolutePath();
+        try {
+            // une seule création par projet, même pour des requêtes simultanées
+            ProjectWatcher watcher = watchers.computeIfAbsent(key, k -> {
+                Parser parser = AnalysisEngine.shared().createParser(configProvider.getConfig());
+                ProjectWatcher created = new ProjectWatcher(parser, k, xMethods);
+                try {
+                    created.start();
+                    return created;
+                } catch (IOException e) {
+                    try {
+                        created.close();
+                    } catch (IOException ignored) {
+                        // l'erreur de démarrage est celle qui est remontée
+                    }
+                    throw new UncheckedIOException(e);
+                }
+            });
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("path", key);
+            body.put("version", watcher.getVersion());
+            body.put("stats", watcher.getResult().toGlobalStats(xMethods));
+            return ResponseEntity.ok(body);
+        } catch (UncheckedIOException e) {
+            return ResponseEntity.internalServerError().body(Collections.<String, Object>singletonMap(
+                    "error", "Impossible de surveiller le projet : " + e.getCause().getMessage()));
+        }
+    }
+
+    /**
+     * Deltas produits depuis la version donnée.
+     */
+    @GetMapping("/deltas")
+    public ResponseEntity<List<AnalysisDelta>> deltas(@RequestParam("path") String path,
+                                                      @RequestParam(value = "since", defaultValue = "0") int since) {
+        ProjectWatcher watcher = watchers.get(new File(path).getAbsolutePath());
+        if (watcher == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(watcher.getDeltasSince(since));
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<Void> stop(@RequestParam("path") String path) throws IOException {
+        ProjectWatcher watcher = watchers.remove(new File(path).getAbsolutePath());
+        if (watcher != null) {
+            watcher.close();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PreDestroy
+    public void stopAll() throws IOException {
+        for (ProjectWatcher watcher : watchers.values()) {
+            watcher.close();
+        }
+        watchers.clear();
+    }
+}
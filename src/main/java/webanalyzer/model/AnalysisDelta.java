@@ -0,0 +1,42 @@
+package webanalyzer.model;
+
+import webanalyzer.service.CouplingService;
+
+import java.util.List;
+
+/**
+ * Mise à jour incrémentale envoyée à l'interface web par le mode surveillance :
+ * fichiers modifiés/supprimés, fichiers inchangés réanalysés parce qu'ils dépendent d'un type
+ * modifié, nouvelles métriques globales et arêtes de couplage modifiées.
+ */
+public class AnalysisDelta {
+	private final int version;
+	private final long timestamp;
+	private final List<String> changedFiles;
+	private final List<String> removedFiles;
+	private final List<String> dependentFiles;
+	private final GlobalStats stats;
+	private final List<CouplingService.EdgeChange> couplingChanges;
+	private final long updateTimeMs;
+
+	public AnalysisDelta(int version, List<String> changedFiles, List<String> removedFiles, List<String> dependentFiles,
+	                     GlobalStats stats, List<CouplingService.EdgeChange> couplingChanges, long updateTimeMs) {
+		this.version = version;
+		this.timestamp = System.currentTimeMillis();
+		this.changedFiles = changedFiles;
+		this.removedFiles = removedFiles;
+		this.dependentFiles = dependentFiles;
+		this.stats = stats;
+		this.couplingChanges = couplingChanges;
+		this.updateTimeMs = updateTimeMs;
+	}
+
+	public int getVersion() { return version; }
+	public long getTimestamp() { return timestamp; }
+	public List<String> getChangedFiles() { return changedFiles; }
+	public List<String> getRemovedFiles() { return removedFiles; }
+	public List<String> getDependentFiles() { return dependentFiles; }
+	public GlobalStats getStats() { return stats; }
+	public List<CouplingService.EdgeChange> getCouplingChanges() { return couplingChanges; }
+	public long getUpdateTimeMs() { return updateTimeMs; }
+}
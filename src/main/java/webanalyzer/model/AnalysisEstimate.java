@@ -0,0 +1,82 @@
+package webanalyzer.model;
+
+import java.util.List;
+
+/**
+ * Estimation des métriques globales à partir d'un échantillon de fichiers (analyse approchée),
+ * avec intervalles de confiance à 95 %. Une nouvelle estimation, plus resserrée, est publiée
+ * à chaque tour ; la dernière (complete) couvre tous les fichiers et est exacte.
+ */
+public class AnalysisEstimate {
+
+	/**
+	 * Valeur estimée et bornes de l'intervalle de confiance.
+	 */
+	public static class Interval {
+		private final double value;
+		private final double low;
+		private final double high;
+
+		public Interval(double value, double low, double high) {
+			this.value = value;
+			this.low = low;
+			this.high = high;
+		}
+
+		public double getValue() { return value; }
+		public double getLow() { return low; }
+		public double getHigh() { return high; }
+		/** Demi-largeur de l'intervalle. */
+		public double getMargin() { return (high - low) / 2; }
+
+		@Override
+		public String toString() {
+			return String.format("%.2f [%.2f ; %.2f]", value, low, high);
+		}
+	}
+
+	private final int round;
+	private final int analyzedFiles;
+	private final int totalFiles;
+	private final boolean complete;
+	private final long elapsedMs;
+	private final Interval totalClasses;
+	private final Interval totalMethods;
+	private final Interval totalLines;
+	private final Interval avgMethodsPerClass;
+	private final Interval avgLinesPerMethod;
+	private final Interval avgAttributesPerClass;
+	private final List<String> topMethodsClasses;
+
+	public AnalysisEstimate(int round, int analyzedFiles, int totalFiles, long elapsedMs,
+	                        Interval totalClasses, Interval totalMethods, Interval totalLines,
+	                        Interval avgMethodsPerClass, Interval avgLinesPerMethod, Interval avgAttributesPerClass,
+	                        List<String> topMethodsClasses) {
+		this.round = round;
+		this.analyzedFiles = analyzedFiles;
+		this.totalFiles = totalFiles;
+		this.complete = analyzedFiles == totalFiles;
+		this.elapsedMs = elapsedMs;
+		this.totalClasses = totalClasses;
+		this.totalMethods = totalMethods;
+		this.totalLines = totalLines;
+		this.avgMethodsPerClass = avgMethodsPerClass;
+		this.avgLinesPerMethod = avgLinesPerMethod;
+		this.avgAttributesPerClass = avgAttributesPerClass;
+		this.topMethodsClasses = topMethodsClasses;
+	}
+
+	public int getRound() { return round; }
+	public int getAnalyzedFiles() { return analyzedFiles; }
+	public int getTotalFiles() { return totalFiles; }
+	public boolean isComplete() { return complete; }
+	public long getElapsedMs() { return elapsedMs; }
+	public Interval getTotalClasses() { return totalClasses; }
+	public Interval getTotalMethods() { return totalMethods; }
+	public Interval getTotalLines() { return totalLines; }
+	public Interval getAvgMethodsPerClass() { return avgMethodsPerClass; }
+	public Interval getAvgLinesPerMethod() { return avgLinesPerMethod; }
+	public Interval getAvgAttributesPerClass() { return avgAttributesPerClass; }
+	/** Classes de l'échantillon appartenant aux 10 % les plus chargés en méthodes (estimation). */
+	public List<String> getTopMethodsClasses() { return topMethodsClasses; }
+}
@@ -0,0 +1,55 @@
+package webanalyzer.model;
+
+import webanalyzer.service.CouplingService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Métriques d'un commit de l'historique git : statistiques globales, matrice de couplage
+ * et arêtes modifiées depuis le commit précédent de la plage.
+ */
+public class CommitAnalysis {
+	private final String commitId;
+	private final long time;
+	private final String author;
+	private final String subject;
+	private final GlobalStats stats;
+	private final Map<String, Map<String, Double>> coupling;
+	private final List<CouplingService.EdgeChange> couplingChanges;
+	private final List<String> changedFiles;
+	private final List<String> removedFiles;
+	private final int parsedFiles;
+	private final long updateTimeMs;
+
+	public CommitAnalysis(String commitId, long time, String author, String subject,
+	                      GlobalStats stats, Map<String, Map<String, Double>> coupling,
+	                      List<CouplingService.EdgeChange> couplingChanges,
+	                      List<String> changedFiles, List<String> removedFiles,
+	                      int parsedFiles, long updateTimeMs) {
+		this.commitId = commitId;
+		this.time = time;
+		this.author = author;
+		this.subject = subject;
+		this.stats = stats;
+		this.coupling = coupling;
+		this.couplingChanges = couplingChanges;
+		this.changedFiles = changedFiles;
+		this.removedFiles = removedFiles;
+		this.parsedFiles = parsedFiles;
+		this.updateTimeMs = updateTimeMs;
+	}
+
+	public String getCommitId() { return commitId; }
+	public long getTime() { return time; }
+	public String getAuthor() { return author; }
+	public String getSubject() { return subject; }
+	public GlobalStats getStats() { return stats; }
+	public Map<String, Map<String, Double>> getCoupling() { return coupling; }
+	public List<CouplingService.EdgeChange> getCouplingChanges() { return couplingChanges; }
+	public List<String> getChangedFiles() { return changedFiles; }
+	public List<String> getRemovedFiles() { return removedFiles; }
+	/** Blobs jamais vus dans la plage, analysés pour ce commit (ou repris du cache d'analyse). */
+	public int getParsedFiles() { return parsedFiles; }
+	public long getUpdateTimeMs() { return updateTimeMs; }
+}
@@ -0,0 +1,83 @@
+package webanalyzer.model;
+
+import webanalyzer.service.CouplingService;
+
+import java.util.List;
+
+/**
+ * Différences entre deux instantanés d'analyse (avant / après) : fichiers touchés,
+ * classes et méthodes par package, entrées et sorties des tops 10%, arêtes de couplage
+ * et modules (groupes de classes couplées) qui ont changé.
+ */
+public class SnapshotDiff {
+
+	/**
+	 * Nombre de classes et de méthodes d'un package, avant et après.
+	 */
+	public static class PackageChange {
+		private final String packageName;
+		private final int classesBefore;
+		private final int classesAfter;
+		private final int methodsBefore;
+		private final int methodsAfter;
+
+		public PackageChange(String packageName, int classesBefore, int classesAfter, int methodsBefore, int methodsAfter) {
+			this.packageName = packageName;
+			this.classesBefore = classesBefore;
+			this.classesAfter = classesAfter;
+			this.methodsBefore = methodsBefore;
+			this.methodsAfter = methodsAfter;
+		}
+
+		public String getPackageName() { return packageName; }
+		public int getClassesBefore() { return classesBefore; }
+		public int getClassesAfter() { return classesAfter; }
+		public int getMethodsBefore() { return methodsBefore; }
+		public int getMethodsAfter() { return methodsAfter; }
+	}
+
+	private List<String> addedFiles;
+	private List<String> modifiedFiles;
+	private List<String> removedFiles;
+	private List<PackageChange> packageChanges;
+	private List<String> topMethodsEntered;
+	private List<String> topMethodsLeft;
+	private List<String> topAttributesEntered;
+	private List<String> topAttributesLeft;
+	private int totalRelationsBefore;
+	private int totalRelationsAfter;
+	private List<CouplingService.EdgeChange> couplingChanges;
+	private List<List<String>> modulesAdded;
+	private List<List<String>> modulesRemoved;
+	private long diffTimeMs;
+
+	// Getters / setters
+	public List<String> getAddedFiles() { return addedFiles; }
+	public void setAddedFiles(List<String> addedFiles) { this.addedFiles = addedFiles; }
+	public List<String> getModifiedFiles() { return modifiedFiles; }
+	public void setModifiedFiles(List<String> modifiedFiles) { this.modifiedFiles = modifiedFiles; }
+	public List<String> getRemovedFiles() { return removedFiles; }
+	public void setRemovedFiles(List<String> removedFiles) { this.removedFiles = removedFiles; }
+	public List<PackageChange> getPackageChanges() { return packageChanges; }
+	public void setPackageChanges(List<PackageChange> packageChanges) { this.packageChanges = packageChanges; }
+	public List<String> getTopMethodsEntered() { return topMethodsEntered; }
+	public void setTopMethodsEntered(List<String> topMethodsEntered) { this.topMethodsEntered = topMethodsEntered; }
+	public List<String> getTopMethodsLeft() { return topMethodsLeft; }
+	public void setTopMethodsLeft(List<String> topMethodsLeft) { this.topMethodsLeft = topMethodsLeft; }
+	public List<String> getTopAttributesEntered() { return topAttributesEntered; }
+	public void setTopAttributesEntered(List<String> topAttributesEntered) { this.topAttributesEntered = topAttributesEntered; }
+	public List<String> getTopAttributesLeft() { return topAttributesLeft; }
+	public void setTopAttributesLeft(List<String> topAttributesLeft) { this.topAttributesLeft = topAttributesLeft; }
+	public int getTotalRelationsBefore() { return totalRelationsBefore; }
+	public void setTotalRelationsBefore(int totalRelationsBefore) { this.totalRelationsBefore = totalRelationsBefore; }
+	public int getTotalRelationsAfter() { return totalRelationsAfter; }
+	public void setTotalRelationsAfter(int totalRelationsAfter) { this.totalRelationsAfter = totalRelationsAfter; }
+	public List<CouplingService.EdgeChange> getCouplingChanges() { return couplingChanges; }
+	public void setCouplingChanges(List<CouplingService.EdgeChange> couplingChanges) { this.couplingChanges = couplingChanges; }
+	public List<List<String>> getModulesAdded() { return modulesAdded; }
+	public void setModulesAdded(List<List<String>> modulesAdded) { this.modulesAdded = modulesAdded; }
+	public List<List<String>> getModulesRemoved() { return modulesRemoved; }
+	public void setModulesRemoved(List<List<String>> modulesRemoved) { this.modulesRemoved = modulesRemoved; }
+	public long getDiffTimeMs() { return diffTimeMs; }
+	public void setDiffTimeMs(long diffTimeMs) { this.diffTimeMs = diffTimeMs; }
+}
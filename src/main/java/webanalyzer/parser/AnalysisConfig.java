@@ -0,0 +1,211 @@
+package webanalyzer.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Configuration d'une analyse, commune à l'application web, aux interfaces JavaFX et à la
+ * ligne de commande : mêmes clés analyzer.* que application.properties.
+ * Immuable : elle sert de clé aux résultats partagés par AnalysisEngine.
+ */
+public final class AnalysisConfig {
+
+    private static final String PROPERTIES = "application.properties";
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^}:]+)(?::([^}]*))?}");
+
+    private Parser.ParseMode parseMode = Parser.ParseMode.PARALLEL;
+    private Parser.ResolutionMode resolutionMode = Parser.ResolutionMode.BINDINGS;
+    private Parser.Backend backend = Parser.Backend.SOURCE;
+    private List<String> excludeGlobs = SourceDiscovery.DEFAULT_EXCLUDES;
+    private FileBudget fileBudget = FileBudget.DEFAULT;
+    private boolean moduleDetection = true;
+    private int shardWorkers = 0;                 // 0 : analyse dans ce processus
+    private List<String> workerJvmOptions = Collections.emptyList();
+    private Path cacheDir;                        // null : pas de cache d'analyse
+    private long cacheMaxSizeBytes = 512L * 1024 * 1024;
+    private String cacheRemoteUrl;                // null : pas de cache partagé
+    private String cacheRemoteToken;              // null : cache partagé en lecture seule
+    private Path snapshotDir = Paths.get(System.getProperty("user.home"), ".jdt-analyzer", "snapshots");
+
+    private AnalysisConfig() {
+    }
+
+    /**
+     * Valeurs par défaut, sans cache d'analyse.
+     */
+    public static AnalysisConfig defaults() {
+        return new AnalysisConfig();
+    }
+
+    /**
+     * Configuration lue dans application.properties (classpath), chaque clé pouvant être
+     * remplacée par une propriété système (-Danalyzer.parse-mode=PIPELINED) : réglages
+     * partagés par les interfaces JavaFX et la ligne de commande.
+     */
+    public static AnalysisConfig load() {
+        Properties properties = new Properties();
+        try (InputStream in = AnalysisConfig.class.getClassLoader().getResourceAsStream(PROPERTIES)) {
+            if (in != null) {
+                properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            System.err.println(PROPERTIES + " illisible, configuration par défaut : " + e.getMessage());
+        }
+        return fromProperties(key -> {
+            String value = System.getProperty(key, properties.getProperty(key));
+            return value != null ? resolvePlaceholders(value) : null;
+        });
+    }
+
+    /**
+     * Configuration lue par clé (Environment de Spring, Properties...) ; valeur absente : null.
+     */
+    public static AnalysisConfig fromProperties(Function<String, String> properties) {
+        AnalysisConfig c = new AnalysisConfig();
+        c.parseMode = Parser.ParseMode.valueOf(get(properties, "analyzer.parse-mode", c.parseMode.name()));
+        c.resolutionMode = Parser.ResolutionMode.valueOf(get(properties, "analyzer.resolution", c.resolutionMode.name()));
+        c.backend = Parser.Backend.valueOf(get(properties, "analyzer.backend", c.backend.name()));
+        String excludes = properties.apply("analyzer.discovery.excludes");
+        if (excludes != null) {
+            c.excludeGlobs = split(excludes);
+        }
+        FileBudget d = FileBudget.DEFAULT;
+        c.fileBudget = new FileBudget(
+                Long.parseLong(get(properties, "analyzer.budget.max-bytes", String.valueOf(d.getMaxBytes()))),
+                Long.parseLong(get(properties, "analyzer.budget.max-millis", String.valueOf(d.getMaxMillis()))),
+                Integer.parseInt(get(properties, "analyzer.budget.max-nodes", String.valueOf(d.getMaxNodes()))),
+                FileBudget.OnExceed.valueOf(get(properties, "analyzer.budget.on-exceed", d.getOnExceed().name())));
+        c.moduleDetection = Boolean.parseBoolean(get(properties, "analyzer.modules.detection", "true"));
+        c.shardWorkers = Integer.parseInt(get(properties, "analyzer.shards.workers", "0"));
+        c.workerJvmOptions = split(get(properties, "analyzer.shards.jvm-options", ""));
+        if (Boolean.parseBoolean(get(properties, "analyzer.cache.enabled", "true"))) {
+            c.cacheDir = Paths.get(get(properties, "analyzer.cache.dir",
+                    System.getProperty("user.home") + "/.jdt-analyzer/cache"));
+            c.cacheMaxSizeBytes = Long.parseLong(get(properties, "analyzer.cache.max-size-mb", "512")) * 1024 * 1024;
+            c.cacheRemoteUrl = get(properties, "analyzer.cache.remote-url", null);
+            c.cacheRemoteToken = get(properties, FactStoreServer.TOKEN_PROPERTY, null);
+        }
+        c.snapshotDir = Paths.get(get(properties, "analyzer.snapshots.dir", c.snapshotDir.toString()));
+        return c;
+    }
+
+    private static String get(Function<String, String> properties, String key, String defaultValue) {
+        String value = properties.apply(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    private static List<String> split(String list) {
+        List<String> values = new ArrayList<>();
+        for (String v : list.split(",")) {
+            if (!v.trim().isEmpty()) values.add(v.trim());
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    /** ${nom} et ${nom:défaut} remplacés par les propriétés système (user.home...). */
+    private static String resolvePlaceholders(String value) {
+        Matcher m = PLACEHOLDER.matcher(value);
+        StringBuffer sb = new StringBuffer();
+        while (m.find()) {
+            String replacement = System.getProperty(m.group(1), m.group(2) != null ? m.group(2) : m.group());
+            m.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    // ===============================================
+    // VARIANTES (choix faits dans l'interface)
+    // ===============================================
+
+    private AnalysisConfig copy() {
+        AnalysisConfig c = new AnalysisConfig();
+        c.parseMode = parseMode;
+        c.resolutionMode = resolutionMode;
+        c.backend = backend;
+        c.excludeGlobs = excludeGlobs;
+        c.fileBudget = fileBudget;
+        c.moduleDetection = moduleDetection;
+        c.shardWorkers = shardWorkers;
+        c.workerJvmOptions = workerJvmOptions;
+        c.cacheDir = cacheDir;
+        c.cacheMaxSizeBytes = cacheMaxSizeBytes;
+        c.cacheRemoteUrl = cacheRemoteUrl;
+        c.cacheRemoteToken = cacheRemoteToken;
+        c.snapshotDir = snapshotDir;
+        return c;
+    }
+
+    public AnalysisConfig withParseMode(Parser.ParseMode parseMode) {
+        AnalysisConfig c = copy();
+        c.parseMode = parseMode;
+        return c;
+    }
+
+    public AnalysisConfig withResolutionMode(Parser.ResolutionMode resolutionMode) {
+        AnalysisConfig c = copy();
+        c.resolutionMode = resolutionMode;
+        return c;
+    }
+
+    public AnalysisConfig withBackend(Parser.Backend backend) {
+        AnalysisConfig c = copy();
+        c.backend = backend;
+        return c;
+    }
+
+    /**
+     * Mode effectif : SHARDED dès que des JVM filles sont configurées.
+     */
+    public Parser.ParseMode getParseMode() {
+        return shardWorkers > 0 ? Parser.ParseMode.SHARDED : parseMode;
+    }
+
+    public Parser.ResolutionMode getResolutionMode() { return resolutionMode; }
+    public Parser.Backend getBackend() { return backend; }
+    public List<String> getExcludeGlobs() { return excludeGlobs; }
+    public FileBudget getFileBudget() { return fileBudget; }
+    public boolean isModuleDetection() { return moduleDetection; }
+    public int getShardWorkers() { return shardWorkers; }
+    public List<String> getWorkerJvmOptions() { return workerJvmOptions; }
+    public Path getCacheDir() { return cacheDir; }
+    public long getCacheMaxSizeBytes() { return cacheMaxSizeBytes; }
+    public String getCacheRemoteUrl() { return cacheRemoteUrl; }
+    public String getCacheRemoteToken() { return cacheRemoteToken; }
+    public Path getSnapshotDir() { return snapshotDir; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AnalysisConfig)) return false;
+        AnalysisConfig c = (AnalysisConfig) o;
+        return getParseMode() == c.getParseMode() && resolutionMode == c.resolutionMode && backend == c.backend
+                && moduleDetection == c.moduleDetection && shardWorkers == c.shardWorkers
+                && cacheMaxSizeBytes == c.cacheMaxSizeBytes
+                && excludeGlobs.equals(c.excludeGlobs) && fileBudget.equals(c.fileBudget)
+                && workerJvmOptions.equals(c.workerJvmOptions) && Objects.equals(cacheDir, c.cacheDir)
+                && Objects.equals(cacheRemoteUrl, c.cacheRemoteUrl) && Objects.equals(cacheRemoteToken, c.cacheRemoteToken)
+                && snapshotDir.equals(c.snapshotDir);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getParseMode(), resolutionMode, backend, moduleDetection, shardWorkers,
+                excludeGlobs, fileBudget, workerJvmOptions, cacheDir, cacheRemoteUrl, cacheRemoteToken, snapshotDir);
+    }
+
+    @Override
+    public String toString() {
+        return "AnalysisConfig[" + getParseMode() + ", " + resolutionMode + ", " + backend + ", " + fileBudget
+                + (cacheDir != null ? ", cache " + cacheDir : ", sans cache")
+                + (cacheRemoteUrl != null ? ", cache partagé " + cacheRemoteUrl : "") + "]";
+    }
+}
@@ -0,0 +1,223 @@
+package webanalyzer.parser;
+
+import graph.BytecodeCallGraphExtractor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Point d'entrée unique de l'analyse, partagé par l'application web, les interfaces JavaFX
+ * (JDTAnalyzerGUI, JDTCallGraphGUI) et la ligne de commande.
+ *
+ * Un projet est analysé une seule fois par configuration : métriques, graphe d'appels et
+ * couplage sont servis par le même Parser, tant que ses entrées n'ont pas changé (chemin,
+ * taille et date de chaque source, fichiers de build et classpath résolu). Le cache d'analyse d'un même
+ * dossier est ouvert une seule fois dans le processus ; sur disque, il est commun à tous les
+ * processus : un projet déjà ouvert ailleurs n'est pas reparsé.
+ */
+public final class AnalysisEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnalysisEngine.class);
+
+    private static final AnalysisEngine SHARED = new AnalysisEngine();
+
+    // Projets analysés gardés en mémoire (les moins récemment consultés sont oubliés)
+    private static final int MAX_ANALYSES = 4;
+
+    private final Map<Path, FactCache> factCaches = new HashMap<>();
+    private final Map<Key, Analysis> analyses = new LinkedHashMap<Key, Analysis>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Analysis> eldest) {
+            return size() > MAX_ANALYSES;
+        }
+    };
+
+    private AnalysisEngine() {
+        // envois vers le cache partagé encore en file : terminés avant l'arrêt de la JVM
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "analysis-engine-shutdown"));
+    }
+
+    public static AnalysisEngine shared() {
+        return SHARED;
+    }
+
+    /**
+     * Ferme les magasins partagés des caches ouverts, en attendant leurs envois en cours.
+     */
+    void close() {
+        List<FactCache> caches;
+        synchronized (factCaches) {
+            caches = new ArrayList<>(factCaches.values());
+        }
+        for (FactCache cache : caches) {
+            if (cache != null && cache.getRemote() != null) {
+                cache.getRemote().close();
+            }
+        }
+    }
+
+    /**
+     * Projet (chemin absolu) et configuration d'une analyse.
+     */
+    private static final class Key {
+        final String path;
+        final AnalysisConfig config;
+
+        Key(String path, AnalysisConfig config) {
+            this.path = path;
+            this.config = config;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && path.equals(((Key) o).path) && config.equals(((Key) o).config);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * path.hashCode() + config.hashCode();
+        }
+    }
+
+    /**
+     * Dernière analyse d'un projet et l'état de ses sources à ce moment-là.
+     */
+    private static final class Analysis {
+        Parser parser;
+        String stamp;
+    }
+
+    /**
+     * Parser configuré (cache d'analyse compris), pas encore lancé : pour analyser une archive,
+     * échantillonner ou surveiller un projet avec les mêmes réglages.
+     */
+    public Parser createParser(AnalysisConfig config) {
+        Parser p = new Parser();
+        p.setParseMode(config.getParseMode());
+        p.setResolutionMode(config.getResolutionMode());
+        p.setBackend(config.getBackend());
+        p.setExcludeGlobs(config.getExcludeGlobs());
+        p.setFileBudget(config.getFileBudget());
+        p.setModuleDetection(config.isModuleDetection());
+        if (config.getShardWorkers() > 0) {
+            p.setShardWorkers(config.getShardWorkers());
+        }
+        p.setWorkerJvmOptions(config.getWorkerJvmOptions());
+        p.setFactCache(factCache(config));
+        p.setCostModel(CostModel.shared());
+        return p;
+    }
+
+    /**
+     * Analyse le projet, ou retourne l'analyse déjà faite avec la même configuration si ses
+     * sources n'ont pas changé. Le Parser retourné est partagé : il ne doit pas être relancé.
+     */
+    public Parser analyze(String projectPath, AnalysisConfig config) throws IOException {
+        File project = new File(projectPath).getAbsoluteFile();
+        Key key = new Key(project.getPath(), config);
+        Analysis analysis;
+        synchronized (analyses) {
+            analysis = analyses.computeIfAbsent(key, k -> new Analysis());
+        }
+        // une seule analyse à la fois par projet et configuration : les autres appelants l'attendent
+        synchronized (analysis) {
+            String stamp = stamp(project, config);
+            if (analysis.parser == null || !stamp.equals(analysis.stamp)) {
+                Parser p = createParser(config);
+                p.analyzeProject(project.getPath());
+                analysis.parser = p;
+                analysis.stamp = stamp;
+            } else {
+                LOG.debug("Analyse réutilisée : {} ({})", project, config);
+            }
+            return analysis.parser;
+        }
+    }
+
+    /**
+     * Oublie les analyses du projet (toutes configurations) : la prochaine le reparse.
+     */
+    public void invalidate(String projectPath) {
+        String path = new File(projectPath).getAbsolutePath();
+        synchronized (analyses) {
+            analyses.keySet().removeIf(k -> k.path.equals(path));
+        }
+    }
+
+    /**
+     * Cache d'analyse de la configuration, ouvert une fois par dossier (null si désactivé ou inaccessible).
+     * Son magasin partagé est celui de la première configuration qui ouvre le dossier.
+     */
+    public FactCache factCache(AnalysisConfig config) {
+        Path dir = config.getCacheDir();
+        if (dir == null) {
+            return null;
+        }
+        synchronized (factCaches) {
+            if (!factCaches.containsKey(dir)) {
+                FactCache cache = null;
+                try {
+                    cache = new FactCache(dir, config.getCacheMaxSizeBytes());
+                    if (config.getCacheRemoteUrl() != null) {
+                        cache.setRemote(new RemoteFactStore(config.getCacheRemoteUrl(), config.getCacheRemoteToken()));
+                    }
+                } catch (IOException e) {
+                    System.err.println("Cache d'analyse désactivé : " + e.getMessage());
+                }
+                factCaches.put(dir, cache);
+            }
+            return factCaches.get(dir);
+        }
+    }
+
+    /**
+     * État des entrées de l'analyse, résumé par une empreinte : chemin relatif (trié), taille
+     * et date de chaque source découverte avec les exclusions de la configuration (ou classe
+     * compilée) ; pour les sources, fichiers de build et entrées du classpath résolu (un pom
+     * modifié ou un jar mis à jour change les bindings).
+     */
+    private static String stamp(File project, AnalysisConfig config) throws IOException {
+        List<File> inputs = new ArrayList<>();
+        if (config.getBackend() == Parser.Backend.BYTECODE) {
+            for (File root : BytecodeCallGraphExtractor.findClassRoots(project)) {
+                if (root.isFile()) {
+                    inputs.add(root);
+                } else {
+                    try (Stream<Path> files = Files.walk(root.toPath())) {
+                        files.filter(Files::isRegularFile).forEach(f -> inputs.add(f.toFile()));
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        } else {
+            inputs.addAll(new SourceDiscovery(project.toPath(), config.getExcludeGlobs()).listJavaFiles());
+        }
+        Path base = project.toPath();
+        List<String> lines = new ArrayList<>();
+        for (File f : inputs) {
+            lines.add(base.relativize(f.toPath()) + "\t" + f.length() + "\t" + f.lastModified());
+        }
+        Collections.sort(lines);
+
+        if (config.getBackend() == Parser.Backend.SOURCE && config.getResolutionMode() == Parser.ResolutionMode.BINDINGS) {
+            // résolution refaite par ClasspathResolver si ses fichiers de build ont changé
+            ClasspathResolver cp = ClasspathResolver.forProject(project);
+            for (File f : cp.getBuildFiles()) {
+                lines.add("build\t" + f.getAbsolutePath() + "\t" + f.length() + "\t" + f.lastModified());
+            }
+            for (String entry : cp.getClasspathEntries()) {
+                File f = new File(entry);
+                lines.add("cp\t" + entry + "\t" + f.length() + "\t" + f.lastModified());
+            }
+        }
+        return FactCache.hash(String.join("\n", lines).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,159 @@
+package webanalyzer.parser;
+
+import graph.ClassMethodCallVisitor;
+import graph.CompactCallGraph;
+import webanalyzer.model.GlobalStats;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Résultat immuable d'une analyse de projet.
+ * Produit par MetricsAccumulator.toResult() une fois tous les fichiers traités
+ * (séquentiellement ou après fusion des accumulateurs des workers).
+ */
+public final class AnalysisResult {
+
+    public static final AnalysisResult EMPTY = new MetricsAccumulator().toResult();
+
+    // --- Métriques globales ---
+    private final int totalClasses;
+    private final int totalInterfaces;
+    private final int totalMethods;
+    private final int totalLines;
+    private final int totalPackage;
+    private final int totalAttributes;
+    private final int totalLinesInMethods;
+    private final int maxParameters;
+
+    private final double avgMethodsPerClass;
+    private final double avgLinesPerMethod;
+    private final double avgAttributesPerClass;
+
+    // --- Structures de données ---
+    private final Map<String, Parser.FileAnalysis> fileAnalyses;
+    private final CompactCallGraph callGraph;
+    private final Map<String, Integer> methodsPerClass;
+    private final Map<String, Integer> attributesPerClass;
+    private final Set<String> packageNames;
+    private final List<QuarantinedFile> quarantinedFiles;
+
+    AnalysisResult(MetricsAccumulator acc) {
+        this(acc, CompactCallGraph.merge(acc.callGraphs));
+    }
+
+    /**
+     * Variante dont le graphe d'appels est déjà fusionné (mode surveillance, voir IncrementalMetrics).
+     */
+    AnalysisResult(MetricsAccumulator acc, CompactCallGraph callGraph) {
+        totalClasses = acc.totalClasses;
+        totalInterfaces = acc.totalInterfaces;
+        totalMethods = acc.totalMethods;
+        totalLines = acc.totalLines;
+        totalPackage = acc.packageNames.size();
+        totalAttributes = acc.totalAttributes;
+        totalLinesInMethods = acc.totalLinesInMethods;
+        maxParameters = acc.maxParameters;
+
+        // --- Calcul final des métriques moyennes ---
+        int totalTypes = totalClasses + totalInterfaces;
+        avgMethodsPerClass = totalTypes == 0 ? 0 : (double) totalMethods / totalTypes;
+        avgAttributesPerClass = totalTypes == 0 ? 0 : (double) totalAttributes / totalTypes;
+        avgLinesPerMethod = totalMethods == 0 ? 0 : (double) totalLinesInMethods / totalMethods;
+
+        fileAnalyses = Collections.unmodifiableMap(new LinkedHashMap<>(acc.fileAnalyses));
+        this.callGraph = callGraph;
+        methodsPerClass = Collections.unmodifiableMap(new HashMap<>(acc.methodsPerClass));
+        attributesPerClass = Collections.unmodifiableMap(new HashMap<>(acc.attributesPerClass));
+        packageNames = Collections.unmodifiableSet(new HashSet<>(acc.packageNames));
+        quarantinedFiles = Collections.unmodifiableList(new ArrayList<>(acc.quarantinedFiles));
+    }
+
+    // === Tops et Stats ===
+
+    private static int getTopN(int total) {
+        // Retourne 10% (minimum 1, maximum 10)
+        return Math.max(1, (int) Math.ceil(0.10 * total));
+    }
+
+    /**
+     * 10% des classes ayant les plus grandes valeurs ; à égalité, ordre des noms
+     * (deux analyses des mêmes sources donnent le même top).
+     */
+    static List<String> topClasses(Map<String, Integer> valuesPerClass) {
+        int limit = getTopN(valuesPerClass.size());
+        return valuesPerClass.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+    
+    public List<String> getTopMethodsClasses() {
+        return topClasses(methodsPerClass);
+    }
+
+    public List<String> getTopAttributeClasses() {
+        return topClasses(attributesPerClass);
+    }
+
+    public List<String> getIntersectionTopClasses() {
+        Set<String> topMethods = new HashSet<>(getTopMethodsClasses());
+        Set<String> topAttributes = new HashSet<>(getTopAttributeClasses());
+        topMethods.retainAll(topAttributes);
+        return new ArrayList<>(topMethods);
+    }
+
+    public List<String> getClassesOverXMethods(int x) {
+        return methodsPerClass.entrySet().stream()
+                .filter(e -> e.getValue() > x)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Instantané des métriques globales (nombre de fichiers inclus).
+     */
+    public GlobalStats toGlobalStats(int xMethods) {
+        GlobalStats stats = new GlobalStats();
+        stats.setTotalFiles(fileAnalyses.size());
+        stats.setTotalClasses(totalClasses);
+        stats.setTotalInterfaces(totalInterfaces);
+        stats.setTotalMethods(totalMethods);
+        stats.setTotalLines(totalLines);
+        stats.setTotalPackage(totalPackage);
+        stats.setAvgMethodsPerClass(avgMethodsPerClass);
+        stats.setAvgLinesPerMethod(avgLinesPerMethod);
+        stats.setAvgAttributesPerClass(avgAttributesPerClass);
+        stats.setTop10MethodsClasses(getTopMethodsClasses());
+        stats.setTop10AttributesClasses(getTopAttributeClasses());
+        stats.setIntersectionTopClasses(getIntersectionTopClasses());
+        stats.setClassesOverXMethods(getClassesOverXMethods(xMethods));
+        stats.setMaxParameters(maxParameters);
+        return stats;
+    }
+
+    public int getTotalClasses() { return totalClasses; }
+    public int getTotalInterfaces() { return totalInterfaces; }
+    public int getTotalMethods() { return totalMethods; }
+    public int getTotalLines() { return totalLines; }
+    public int getTotalPackage() { return totalPackage; }
+    public int getTotalAttributes() { return totalAttributes; }
+    public int getTotalLinesInMethods() { return totalLinesInMethods; }
+    public int getMaxParameters() { return maxParameters; }
+
+    public double getAvgMethodsPerClass() { return avgMethodsPerClass; }
+    public double getAvgLinesPerMethod() { return avgLinesPerMethod; }
+    public double getAvgAttributesPerClass() { return avgAttributesPerClass; }
+
+    public Map<String, Parser.FileAnalysis> getFileAnalyses() { return fileAnalyses; }
+    public CompactCallGraph getCallGraph() { return callGraph; }
+    /** Vue Map du graphe d'appels (adaptateur en lecture seule sur le graphe compact). */
+    public Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> getClassMethodCalls() { return callGraph.asMap(); }
+    public Map<String, Integer> getMethodsPerClass() { return methodsPerClass; }
+    public Map<String, Integer> getAttributesPerClass() { return attributesPerClass; }
+    public Set<String> getPackageNames() { return packageNames; }
+    /** Fichiers ayant dépassé leur budget, dans l'ordre d'analyse. */
+    public List<QuarantinedFile> getQuarantinedFiles() { return quarantinedFiles; }
+}
@@ -0,0 +1,427 @@
+package webanalyzer.parser;
+
+import graph.CompactCallGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import webanalyzer.model.SnapshotDiff;
+import webanalyzer.service.CouplingService;
+import webanalyzer.service.SnapshotDiffService;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Instantané d'une analyse : faits compacts et empreinte du contenu de chaque fichier
+ * (chemin relatif à la racine du projet), avec les agrégats que consulte la comparaison
+ * de deux instantanés : méthodes et attributs par classe, classes et méthodes par package,
+ * appels entre classes.
+ *
+ * Les agrégats sont tenus à jour fichier par fichier : un instantané dérivé d'un autre
+ * (update) ne reparse que les fichiers dont le contenu a changé, et leurs dépendants. Un instantané peut être
+ * enregistré (save) pour servir de référence, par exemple celui de la branche principale.
+ *
+ * Usage : AnalysisSnapshot save [dossier] [fichier]
+ *         AnalysisSnapshot [avant] [après] [seuil des modules] (dossiers ou instantanés enregistrés)
+ */
+public class AnalysisSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOG = LoggerFactory.getLogger(AnalysisSnapshot.class);
+
+    public static final String DEFAULT_PACKAGE = "(défaut)";
+    // Fichiers par appel à extractFacts (un createASTs par lot)
+    private static final int CHUNK_SIZE = 64;
+    // Nom d'un instantané enregistré dans le dossier des instantanés (pas de séparateur ni de "..")
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,127}");
+    // Références désérialisées au plus par instantané (faits de tous les fichiers d'un projet)
+    private static final int MAX_REFERENCES = 1 << 26;
+
+    private String analyzerVersion;
+    private final Parser.ResolutionMode resolutionMode;
+    private String root;
+
+    // Par fichier (chemin relatif, séparateur '/')
+    private final TreeMap<String, String> hashes = new TreeMap<>();
+    private final TreeMap<String, FileFacts> facts = new TreeMap<>();
+
+    // Agrégats
+    private final HashMap<String, Integer> methodsPerClass = new HashMap<>();
+    private final HashMap<String, Integer> attributesPerClass = new HashMap<>();
+    private final HashMap<String, int[]> packageCounts = new HashMap<>();          // {classes, méthodes}
+    private final HashMap<String, HashMap<String, Integer>> calls = new HashMap<>(); // appels A -> B
+    private int totalRelations;
+
+    private AnalysisSnapshot(Parser.ResolutionMode resolutionMode) {
+        this.analyzerVersion = Parser.ANALYZER_VERSION;
+        this.resolutionMode = resolutionMode;
+    }
+
+    /**
+     * Instantané complet d'un dossier (les fichiers déjà dans le cache d'analyse ne sont pas reparsés).
+     */
+    public static AnalysisSnapshot create(Parser parser, String projectPath) throws IOException {
+        return new AnalysisSnapshot(parser.getResolutionMode()).update(parser, projectPath);
+    }
+
+    /**
+     * Instantané enregistré (fichier) ou instantané d'un dossier, dérivé de base s'il y en a une.
+     */
+    public static AnalysisSnapshot open(Parser parser, String path, AnalysisSnapshot base) throws IOException {
+        File file = new File(path);
+        if (file.isFile()) {
+            return load(file);
+        }
+        if (!file.isDirectory()) {
+            throw new FileNotFoundException("Ni dossier ni instantané : " + path);
+        }
+        return base != null ? base.update(parser, path) : create(parser, path);
+    }
+
+    /**
+     * Comme open, pour un client distant : un instantané n'est relu que par son nom dans
+     * snapshotDir (voir snapshotFile) ; tout autre chemin doit être un dossier à analyser.
+     */
+    public static AnalysisSnapshot open(Parser parser, String path, AnalysisSnapshot base, Path snapshotDir)
+            throws IOException {
+        if (SNAPSHOT_NAME.matcher(path).matches()) {
+            File saved = snapshotFile(snapshotDir, path);
+            if (saved.isFile()) {
+                return load(saved);
+            }
+        }
+        if (!new File(path).isDirectory()) {
+            throw new FileNotFoundException("Ni dossier ni instantané enregistré : " + path);
+        }
+        return base != null ? base.update(parser, path) : create(parser, path);
+    }
+
+    /**
+     * Fichier de l'instantané nommé name dans snapshotDir ; un nom qui n'est pas un simple nom
+     * de fichier (séparateur, "..", caractères spéciaux) est refusé.
+     */
+    public static File snapshotFile(Path snapshotDir, String name) {
+        if (name == null || !SNAPSHOT_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Nom d'instantané invalide (lettres, chiffres, '.', '_', '-') : " + name);
+        }
+        return snapshotDir.resolve(name).toFile();
+    }
+
+    /**
+     * Instantané d'un dossier dérivé de celui-ci : seuls les fichiers ajoutés ou dont le
+     * contenu diffère (même chemin relatif) sont analysés, ainsi que les fichiers dont les
+     * bindings référencent un type déclaré par un fichier touché (voir DependencyIndex) ;
+     * les autres gardent leurs faits.
+     */
+    public AnalysisSnapshot update(Parser parser, String projectPath) throws IOException {
+        if (parser.getResolutionMode() != resolutionMode) {
+            throw new IllegalArgumentException("Instantané " + resolutionMode
+                    + " incompatible avec une analyse " + parser.getResolutionMode());
+        }
+        File folder = new File(projectPath).getAbsoluteFile();
+        parser.setProjectPath(folder.getPath());
+        List<File> javaFiles = parser.createDiscovery(folder).listJavaFiles();
+        if (resolutionMode == Parser.ResolutionMode.SYNTACTIC) {
+            parser.updateProjectTypes(javaFiles);
+        }
+
+        AnalysisSnapshot next = copy();
+        next.root = folder.getPath();
+        Map<String, File> current = new TreeMap<>();
+        for (File f : javaFiles) {
+            current.put(relativePath(folder, f), f);
+        }
+        List<String> touched = new ArrayList<>();
+        for (String path : hashes.keySet()) {
+            if (!current.containsKey(path)) {
+                next.remove(path);
+                touched.add(path);
+            }
+        }
+
+        Map<String, String> changed = new TreeMap<>(); // chemin -> nouvelle empreinte
+        for (Map.Entry<String, File> e : current.entrySet()) {
+            String hash = SourceLoader.getDefault().hash(e.getValue());
+            if (!hash.equals(hashes.get(e.getKey()))) {
+                changed.put(e.getKey(), hash);
+            }
+        }
+        touched.addAll(changed.keySet());
+
+        // dépendants des types que déclaraient les fichiers touchés, puis de ceux qu'ils déclarent désormais
+        DependencyIndex<String> dependencies = DependencyIndex.of(facts);
+        Set<String> dependents = dependencies.dependents(touched);
+        next.reanalyze(parser, current, changed, true);
+        dependents.addAll(dependencies.referencing(next.declaredTypes(changed.keySet())));
+        dependents.removeAll(touched);
+        Map<String, String> unchanged = new TreeMap<>();
+        for (String path : dependents) {
+            unchanged.put(path, hashes.get(path));
+        }
+        // contenu inchangé : le cache d'analyse ne sert pas
+        next.reanalyze(parser, current, unchanged, false);
+
+        LOG.debug("Instantané {} : {} fichiers, {} analysés, {} dépendants réanalysés", folder, current.size(),
+                changed.size(), unchanged.size());
+        return next;
+    }
+
+    /**
+     * Remplace les faits de ces fichiers (chemin -> empreinte) par ceux d'une nouvelle analyse.
+     */
+    private void reanalyze(Parser parser, Map<String, File> current, Map<String, String> paths, boolean useCache)
+            throws IOException {
+        List<String> relative = new ArrayList<>(paths.keySet());
+        List<File> files = new ArrayList<>();
+        for (String path : relative) {
+            remove(path);
+            files.add(current.get(path));
+        }
+        FileFacts[] result = extractFacts(parser, files, useCache);
+        for (int i = 0; i < result.length; i++) {
+            // null : JDT n'a pas pu construire l'AST, le fichier sera retenté au prochain instantané
+            if (result[i] != null) {
+                add(relative.get(i), paths.get(relative.get(i)), result[i]);
+            }
+        }
+    }
+
+    private Set<String> declaredTypes(Collection<String> paths) {
+        Set<String> types = new HashSet<>();
+        for (String path : paths) {
+            FileFacts f = facts.get(path);
+            if (f != null) {
+                types.addAll(f.declaredTypes);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Faits de fichiers, par lots répartis sur les cœurs (cache d'analyse compris si useCache).
+     */
+    private static FileFacts[] extractFacts(Parser parser, List<File> files, boolean useCache) throws IOException {
+        FileFacts[] result = new FileFacts[files.size()];
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<FileFacts[]>> chunks = new ArrayList<>();
+            for (int from = 0; from < files.size(); from += CHUNK_SIZE) {
+                List<File> chunk = files.subList(from, Math.min(files.size(), from + CHUNK_SIZE));
+                chunks.add(pool.submit(() -> parser.extractFacts(chunk, true, useCache)));
+            }
+            for (int c = 0; c < chunks.size(); c++) {
+                FileFacts[] chunkFacts = chunks.get(c).get();
+                System.arraycopy(chunkFacts, 0, result, c * CHUNK_SIZE, chunkFacts.length);
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Analyse interrompue");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // ===============================================
+    // AGRÉGATS
+    // ===============================================
+
+    private void add(String path, String hash, FileFacts f) {
+        hashes.put(path, hash);
+        facts.put(path, f);
+        apply(f, 1);
+        methodsPerClass.putAll(f.methodsPerClass);
+        attributesPerClass.putAll(f.attributesPerClass);
+    }
+
+    private void remove(String path) {
+        hashes.remove(path);
+        FileFacts f = facts.remove(path);
+        if (f != null) {
+            apply(f, -1);
+            methodsPerClass.keySet().removeAll(f.methodsPerClass.keySet());
+            attributesPerClass.keySet().removeAll(f.attributesPerClass.keySet());
+        }
+    }
+
+    /**
+     * Ajoute (sign = 1) ou retire (sign = -1) les compteurs d'un fichier.
+     */
+    private void apply(FileFacts f, int sign) {
+        String pkg = packageOf(f);
+        int[] counts = packageCounts.computeIfAbsent(pkg, k -> new int[2]);
+        counts[0] += sign * f.classes;
+        counts[1] += sign * f.methods;
+        if (counts[0] == 0 && counts[1] == 0) {
+            packageCounts.remove(pkg);
+        }
+        for (Map.Entry<String, Map<String, Integer>> row : interClassCalls(f).entrySet()) {
+            HashMap<String, Integer> targets = calls.computeIfAbsent(row.getKey(), k -> new HashMap<>());
+            for (Map.Entry<String, Integer> e : row.getValue().entrySet()) {
+                totalRelations += sign * e.getValue();
+                if (targets.merge(e.getKey(), sign * e.getValue(), Integer::sum) == 0) {
+                    targets.remove(e.getKey());
+                }
+            }
+            if (targets.isEmpty()) {
+                calls.remove(row.getKey());
+            }
+        }
+    }
+
+    /**
+     * Appels inter-classes d'un fichier, comptés par paire (A -> B) comme dans CouplingService.
+     */
+    public static Map<String, Map<String, Integer>> interClassCalls(FileFacts f) {
+        Map<String, Map<String, Integer>> pairs = new HashMap<>();
+        CompactCallGraph graph = f.callGraph;
+        for (int t = 0; t < graph.typeCount(); t++) {
+            String sourceClass = graph.symbol(graph.typeId(t));
+            for (int m = graph.firstMethod(t); m < graph.endMethod(t); m++) {
+                for (int c = graph.firstCall(m); c < graph.endCall(m); c++) {
+                    String target = graph.symbol(graph.callType(c));
+                    if (!CouplingService.isInternalCall(sourceClass, target)) {
+                        pairs.computeIfAbsent(sourceClass, k -> new HashMap<>()).merge(target, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    public static String packageOf(FileFacts f) {
+        return f.packageNames.isEmpty() ? DEFAULT_PACKAGE : f.packageNames.iterator().next();
+    }
+
+    private AnalysisSnapshot copy() {
+        AnalysisSnapshot c = new AnalysisSnapshot(resolutionMode);
+        c.root = root;
+        c.hashes.putAll(hashes);
+        c.facts.putAll(facts);
+        c.methodsPerClass.putAll(methodsPerClass);
+        c.attributesPerClass.putAll(attributesPerClass);
+        for (Map.Entry<String, int[]> e : packageCounts.entrySet()) {
+            c.packageCounts.put(e.getKey(), e.getValue().clone());
+        }
+        for (Map.Entry<String, HashMap<String, Integer>> e : calls.entrySet()) {
+            c.calls.put(e.getKey(), new HashMap<>(e.getValue()));
+        }
+        c.totalRelations = totalRelations;
+        return c;
+    }
+
+    private static String relativePath(File folder, File file) {
+        return folder.toPath().relativize(file.getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/');
+    }
+
+    // ===============================================
+    // ENREGISTREMENT
+    // ===============================================
+
+    public void save(File file) throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(file))))) {
+            out.writeObject(this);
+        }
+    }
+
+    /**
+     * Relit un instantané enregistré, avec les mêmes restrictions que le cache d'analyse
+     * (classes des faits seulement, voir FactCache.FactsInputStream) ; celui d'une autre
+     * version de l'analyseur est refusé (ses faits ne sont pas comparables).
+     */
+    public static AnalysisSnapshot load(File file) throws IOException {
+        try (ObjectInputStream in = new FactCache.FactsInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file))), MAX_REFERENCES)) {
+            AnalysisSnapshot snapshot = (AnalysisSnapshot) in.readObject();
+            if (!Parser.ANALYZER_VERSION.equals(snapshot.analyzerVersion)) {
+                throw new IOException("Instantané de la version " + snapshot.analyzerVersion
+                        + " de l'analyseur (version courante : " + Parser.ANALYZER_VERSION + ") : " + file);
+            }
+            return snapshot;
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Instantané illisible : " + file, e);
+        }
+    }
+
+    // ===============================================
+    // LIGNE DE COMMANDE (pull requests)
+    // ===============================================
+
+    public static void main(String[] args) throws IOException {
+        Parser parser = AnalysisEngine.shared().createParser(AnalysisConfig.load());
+        if (args.length == 3 && "save".equals(args[0])) {
+            create(parser, args[1]).save(new File(args[2]));
+            return;
+        }
+        AnalysisSnapshot before = open(parser, args[0], null);
+        AnalysisSnapshot after = open(parser, args[1], before);
+        SnapshotDiff diff = SnapshotDiffService.compare(before, after, args.length > 2 ? Double.parseDouble(args[2]) : 0.059);
+
+        System.out.println("========== COMPARAISON ==========");
+        System.out.println("Fichiers ajoutés : " + diff.getAddedFiles());
+        System.out.println("Fichiers modifiés : " + diff.getModifiedFiles());
+        System.out.println("Fichiers supprimés : " + diff.getRemovedFiles());
+        for (SnapshotDiff.PackageChange p : diff.getPackageChanges()) {
+            System.out.println("Package " + p.getPackageName() + " : classes " + p.getClassesBefore() + " -> "
+                    + p.getClassesAfter() + ", méthodes " + p.getMethodsBefore() + " -> " + p.getMethodsAfter());
+        }
+        System.out.println("Top 10% méthodes : +" + diff.getTopMethodsEntered() + " -" + diff.getTopMethodsLeft());
+        System.out.println("Top 10% attributs : +" + diff.getTopAttributesEntered() + " -" + diff.getTopAttributesLeft());
+        System.out.println("Appels inter-classes : " + diff.getTotalRelationsBefore() + " -> " + diff.getTotalRelationsAfter());
+        for (CouplingService.EdgeChange e : diff.getCouplingChanges()) {
+            System.out.printf("Couplage %s -> %s : %.4f -> %.4f%n", e.getSource(), e.getTarget(), e.getOldValue(), e.getNewValue());
+        }
+        System.out.println("Modules ajoutés : " + diff.getModulesAdded());
+        System.out.println("Modules retirés : " + diff.getModulesRemoved());
+        System.out.println("Comparaison en " + diff.getDiffTimeMs() + " ms");
+    }
+
+    // ===============================================
+    // CONSULTATION
+    // ===============================================
+
+    public String getRoot() { return root; }
+    public Parser.ResolutionMode getResolutionMode() { return resolutionMode; }
+    /** Empreinte du contenu par fichier (chemin relatif), triée par chemin. */
+    public Map<String, String> getHashes() { return Collections.unmodifiableMap(hashes); }
+    public FileFacts getFacts(String path) { return facts.get(path); }
+
+    public int getClassCount(String pkg) { return packageCounts.containsKey(pkg) ? packageCounts.get(pkg)[0] : 0; }
+    public int getMethodCount(String pkg) { return packageCounts.containsKey(pkg) ? packageCounts.get(pkg)[1] : 0; }
+    public int getCallCount(String source, String target) {
+        Map<String, Integer> targets = calls.get(source);
+        return targets != null ? targets.getOrDefault(target, 0) : 0;
+    }
+    public int getTotalRelations() { return totalRelations; }
+
+    public List<String> getTopMethodsClasses() { return AnalysisResult.topClasses(methodsPerClass); }
+    public List<String> getTopAttributeClasses() { return AnalysisResult.topClasses(attributesPerClass); }
+
+    /**
+     * Matrice de couplage, comme CouplingService.calculateCouplingRatio sur l'analyse complète,
+     * sauf pour deux classes de même nom simple : leurs appels sont cumulés au lieu que la
+     * dernière remplace la première.
+     */
+    public Map<String, Map<String, Double>> getCouplingRatio() {
+        Map<String, Map<String, Double>> couplingMap = new HashMap<>();
+        for (Map.Entry<String, HashMap<String, Integer>> row : calls.entrySet()) {
+            Map<String, Double> targets = new HashMap<>();
+            for (Map.Entry<String, Integer> e : row.getValue().entrySet()) {
+                targets.put(e.getKey(), (double) e.getValue() / totalRelations);
+            }
+            couplingMap.put(row.getKey(), targets);
+        }
+        return couplingMap;
+    }
+}
@@ -0,0 +1,114 @@
+package webanalyzer.parser;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Recherche hors ligne d'un artefact dans les caches locaux :
+ * dépôt Maven (~/.m2/repository ou -Dmaven.repo.local) puis cache Gradle
+ * (~/.gradle/caches/modules-2/files-2.1 ou $GRADLE_USER_HOME). Rien n'est téléchargé.
+ */
+class ArtifactLocator {
+
+    private final Path mavenRepository;
+    private final Path gradleCache;
+    // poms déjà lus (parents et BOM communs à de nombreuses dépendances)
+    private final Map<File, PomModel> poms = new HashMap<>();
+
+    ArtifactLocator() {
+        String home = System.getProperty("user.home");
+        mavenRepository = Paths.get(System.getProperty("maven.repo.local",
+                home + File.separator + ".m2" + File.separator + "repository"));
+        String gradleHome = System.getenv("GRADLE_USER_HOME");
+        gradleCache = Paths.get(gradleHome != null ? gradleHome : home + File.separator + ".gradle",
+                "caches", "modules-2", "files-2.1");
+    }
+
+    /**
+     * Fichier de l'artefact (extension "jar" ou "pom"), ou null s'il n'est dans aucun cache.
+     */
+    File find(String groupId, String artifactId, String version, String classifier, String extension) {
+        if (groupId == null || artifactId == null || version == null || version.contains("${")) return null;
+        if (version.startsWith("[") || version.startsWith("(")) {
+            version = highestInRange(groupId, artifactId, version);
+            if (version == null) return null;
+        }
+        String fileName = artifactId + "-" + version
+                + (classifier == null || classifier.isEmpty() ? "" : "-" + classifier) + "." + extension;
+
+        File m2 = mavenRepository.resolve(groupId.replace('.', File.separatorChar))
+                .resolve(artifactId).resolve(version).resolve(fileName).toFile();
+        if (m2.isFile()) return m2;
+
+        // Gradle : files-2.1/<groupe>/<artefact>/<version>/<empreinte>/<fichier>
+        File versionDir = gradleCache.resolve(groupId).resolve(artifactId).resolve(version).toFile();
+        File[] hashDirs = versionDir.listFiles();
+        if (hashDirs != null) {
+            for (File hashDir : hashDirs) {
+                File candidate = new File(hashDir, fileName);
+                if (candidate.isFile()) return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Plus haute version disponible localement dans un intervalle Maven "[1.0,2.0)" (bornes optionnelles).
+     */
+    private String highestInRange(String groupId, String artifactId, String range) {
+        String[] bounds = range.substring(1, range.length() - 1).split(",", -1);
+        String low = bounds[0].trim(), high = bounds.length > 1 ? bounds[1].trim() : low;
+        boolean lowInclusive = range.startsWith("["), highInclusive = range.endsWith("]");
+
+        Set<String> versions = new HashSet<>();
+        for (Path dir : new Path[]{mavenRepository.resolve(groupId.replace('.', File.separatorChar)).resolve(artifactId),
+                                   gradleCache.resolve(groupId).resolve(artifactId)}) {
+            String[] names = dir.toFile().list();
+            if (names != null) versions.addAll(Arrays.asList(names));
+        }
+        String best = null;
+        for (String v : versions) {
+            if (!low.isEmpty()) {
+                int c = compareVersions(v, low);
+                if (c < 0 || (c == 0 && !lowInclusive)) continue;
+            }
+            if (!high.isEmpty()) {
+                int c = compareVersions(v, high);
+                if (c > 0 || (c == 0 && !highInclusive)) continue;
+            }
+            if (best == null || compareVersions(v, best) > 0) best = v;
+        }
+        return best;
+    }
+
+    /**
+     * Comparaison numérique segment par segment ("3.10.0-v2014" > "3.7.0").
+     */
+    static int compareVersions(String a, String b) {
+        String[] pa = a.split("[.\\-]"), pb = b.split("[.\\-]");
+        for (int i = 0; i < Math.max(pa.length, pb.length); i++) {
+            String x = i < pa.length ? pa[i] : "0", y = i < pb.length ? pb[i] : "0";
+            int c;
+            if (x.matches("\\d+") && y.matches("\\d+")) {
+                c = Long.compare(Long.parseLong(x), Long.parseLong(y));
+            } else {
+                c = x.compareTo(y);
+            }
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    /**
+     * pom lu une seule fois par résolution (null si illisible ou hiérarchie trop profonde).
+     */
+    PomModel pom(File pomFile, int depth) {
+        File key = pomFile.getAbsoluteFile();
+        if (poms.containsKey(key)) return poms.get(key);
+        PomModel model = PomModel.load(key, this, depth);
+        poms.put(key, model);
+        return model;
+    }
+}
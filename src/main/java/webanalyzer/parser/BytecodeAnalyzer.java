@@ -0,0 +1,123 @@
+package webanalyzer.parser;
+
+import graph.BytecodeCallGraphExtractor;
+import graph.BytecodeCallGraphExtractor.ClassInfo;
+import graph.BytecodeCallGraphExtractor.MethodInfo;
+import graph.CompactCallGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Backend bytecode : construit les faits d'analyse à partir des classes compilées
+ * plutôt que des sources. Les .class d'une même classe de premier niveau (Outer, Outer$Inner,
+ * Outer$1...) forment un « fichier » et donnent un FileFacts, comme un .java.
+ *
+ * Le graphe d'appels est exact (types receveurs lus dans les invoke) ; les métriques de taille
+ * sont approchées : les lignes proviennent de la table des numéros de ligne (débogage),
+ * et non de la longueur des nœuds de l'AST.
+ */
+class BytecodeAnalyzer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BytecodeAnalyzer.class);
+
+    private BytecodeAnalyzer() {
+    }
+
+    /**
+     * Analyse les classes compilées du projet (voir BytecodeCallGraphExtractor.findClassRoots).
+     */
+    static AnalysisResult analyze(File project) throws IOException {
+        List<File> roots = BytecodeCallGraphExtractor.findClassRoots(project);
+        List<ClassInfo> classes = BytecodeCallGraphExtractor.readAll(roots);
+
+        Map<String, List<ClassInfo>> byTopLevel = classes.stream()
+                .collect(Collectors.groupingBy(ClassInfo::getTopLevelName, TreeMap::new, Collectors.toList()));
+        List<Map.Entry<String, List<ClassInfo>>> groups = new ArrayList<>(byTopLevel.entrySet());
+        List<FileFacts> facts = groups.parallelStream()
+                .map(g -> extractFacts(g.getValue()))
+                .collect(Collectors.toList());
+
+        MetricsAccumulator acc = new MetricsAccumulator();
+        for (int i = 0; i < groups.size(); i++) {
+            String topLevel = groups.get(i).getKey();
+            String fileName = topLevel.substring(topLevel.lastIndexOf('/') + 1) + ".class";
+            acc.add(rootOf(roots, topLevel) + "!/" + topLevel + ".class", fileName, facts.get(i));
+        }
+        LOG.debug("Bytecode : {} classes lues dans {}", classes.size(), roots);
+        return acc.toResult();
+    }
+
+    /**
+     * Faits d'une classe de premier niveau et de ses classes imbriquées, anonymes comprises.
+     * Comme GlobalAnalysisVisitor : seules les classes et interfaces comptent (ni enums ni annotations),
+     * et les méthodes d'une classe anonyme sont attribuées à la classe qui la déclare.
+     */
+    static FileFacts extractFacts(List<ClassInfo> classes) {
+        FileFacts facts = new FileFacts();
+        Map<String, ClassInfo> byName = new HashMap<>();
+        for (ClassInfo info : classes) {
+            byName.put(info.getInternalName(), info);
+        }
+
+        for (ClassInfo info : classes) {
+            if (info.isSynthetic() || info.isEnum() || info.isAnnotation()) continue;
+            String className;
+            if (info.isAnonymous()) {
+                ClassInfo owner = info;
+                while (owner != null && owner.isAnonymous()) {
+                    owner = byName.get(owner.getEnclosingClass());
+                }
+                if (owner == null || owner.isEnum()) continue;
+                className = owner.getSimpleName();
+            } else {
+                className = info.getSimpleName();
+                facts.methodsPerClass.putIfAbsent(className, 0);
+                facts.attributesPerClass.put(className, info.getFields());
+                facts.attributes += info.getFields();
+                if (info.isInterface()) {
+                    facts.interfaces++;
+                } else {
+                    facts.classes++;
+                }
+            }
+
+            for (MethodInfo m : info.getMethods()) {
+                facts.lines = Math.max(facts.lines, m.getLastLine());
+                if (!m.isDeclared()) continue;
+                facts.methodsPerClass.merge(className, 1, Integer::sum);
+                facts.methods++;
+                facts.linesInMethods += m.getLineSpan();
+                facts.maxParameters = Math.max(facts.maxParameters, m.getParameters());
+            }
+            facts.packageNames.add(info.getPackageName());
+        }
+
+        Map<String, Map<String, List<graph.ClassMethodCallVisitor.MethodCall>>> callGraph =
+                BytecodeCallGraphExtractor.toCallGraph(classes);
+        facts.callGraph = CompactCallGraph.of(callGraph);
+
+        // FileAnalysis : classe de premier niveau et ses méthodes, comme pour un .java
+        for (ClassInfo info : classes) {
+            if (info.getInternalName().equals(info.getTopLevelName()) && !info.isEnum() && !info.isAnnotation()) {
+                facts.classNames.add(info.getSimpleName());
+                facts.methodNames.addAll(callGraph.getOrDefault(info.getSimpleName(), Collections.emptyMap()).keySet());
+            }
+        }
+        facts.packageNames.remove("");
+        return facts;
+    }
+
+    private static String rootOf(List<File> roots, String internalName) {
+        for (File root : roots) {
+            if (root.isFile() || new File(root, internalName + ".class").isFile()) {
+                return root.getAbsolutePath();
+            }
+        }
+        return roots.isEmpty() ? "" : roots.get(0).getAbsolutePath();
+    }
+}
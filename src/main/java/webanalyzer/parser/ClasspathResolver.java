@@ -0,0 +1,467 @@
+package webanalyzer.parser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Classpath et dossiers sources d'un projet analysé, déduits de son fichier de build.
+ *
+ *  - Maven : pom.xml (parents, propriétés, dependencyManagement, BOM importés, modules),
+ *    dépendances transitives lues dans les .pom du dépôt local ;
+ *  - Gradle : build.gradle / build.gradle.kts (et projets inclus par settings.gradle),
+ *    notations "groupe:artefact:version" et group:/name:/version: ;
+ *  - sinon : dossier du projet seul.
+ *
+ * Les jars sont cherchés hors ligne (ArtifactLocator) ; les artefacts absents sont listés
+ * dans getMissingArtifacts(). Les modules d'un build multi-module (getModules()) gardent
+ * chacun leurs dossiers sources et leurs dépendances vers les autres modules. Le résultat est mis en cache par projet et recalculé
+ * seulement si un fichier de build change.
+ */
+public class ClasspathResolver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClasspathResolver.class);
+
+    public enum BuildSystem { MAVEN, GRADLE, NONE }
+
+    // Profondeur maximale des dépendances transitives suivies
+    private static final int MAX_DEPTH = 12;
+    private static final Set<String> TRANSITIVE_SCOPES = new HashSet<>(Arrays.asList("compile", "runtime"));
+
+    private static final Pattern GRADLE_STRING_DEP = Pattern.compile(
+            "\\b(?:implementation|api|compile|compileOnly|runtimeOnly|runtime|testImplementation|testCompile"
+            + "|testCompileOnly|testRuntimeOnly|annotationProcessor|kapt)\\b\\s*\\(?\\s*['\"]([^'\":\\s]+):([^'\":\\s]+):([^'\"@:\\s]+)(?::([^'\"@\\s]+))?(?:@[^'\"]*)?['\"]");
+    private static final Pattern GRADLE_MAP_DEP = Pattern.compile(
+            "group\\s*[:=]\\s*['\"]([^'\"]+)['\"]\\s*,\\s*name\\s*[:=]\\s*['\"]([^'\"]+)['\"]\\s*,\\s*version\\s*[:=]\\s*['\"]([^'\"]+)['\"]");
+    private static final Pattern GRADLE_VARIABLE = Pattern.compile(
+            "(?:def|val|var|ext\\.|set\\(\\s*['\"])?\\s*([A-Za-z_][\\w.]*)['\"]?\\s*[=,]\\s*['\"]([^'\"$]+)['\"]");
+    private static final Pattern GRADLE_INCLUDE = Pattern.compile("['\"]:?([\\w\\-.:]+)['\"]");
+    private static final Pattern GRADLE_PROJECT_DEP = Pattern.compile(
+            "\\bproject\\s*\\(\\s*(?:path\\s*[:=]\\s*)?['\"](:[\\w\\-.:]+)['\"]");
+
+    private static final Map<String, ClasspathResolver> CACHE = new ConcurrentHashMap<>();
+    private static String[] jreClasspath;
+
+    private final File projectRoot;
+    private final BuildSystem buildSystem;
+    private final List<File> buildFiles = new ArrayList<>();
+    private final long buildStamp;
+    private final List<String> jars = new ArrayList<>();
+    private final List<String> sourceRoots = new ArrayList<>();
+    private final List<String> missingArtifacts = new ArrayList<>();
+    private final List<ProjectModule> modules = new ArrayList<>();
+    private volatile JarTypeIndex typeIndex;
+
+    private final ArtifactLocator locator = new ArtifactLocator();
+
+    /**
+     * Résolution (en cache) pour le projet contenant ce dossier. Le fichier de build est
+     * cherché dans le dossier puis dans ses parents (analyse de src/main/java directement).
+     */
+    public static ClasspathResolver forProject(File folder) {
+        File root = findBuildRoot(folder.getAbsoluteFile());
+        String key = folder.getAbsolutePath();
+        ClasspathResolver cached = CACHE.get(key);
+        if (cached != null && cached.buildStamp == stampOf(cached.buildFiles)) {
+            return cached;
+        }
+        ClasspathResolver resolver = new ClasspathResolver(root != null ? root : folder.getAbsoluteFile(), root != null);
+        CACHE.put(key, resolver);
+        return resolver;
+    }
+
+    /**
+     * Sans projet sur disque (archive analysée en place) : JRE seul, aucun dossier source.
+     */
+    public static ClasspathResolver jreOnly() {
+        return new ClasspathResolver();
+    }
+
+    private ClasspathResolver() {
+        projectRoot = null;
+        buildSystem = BuildSystem.NONE;
+        buildStamp = 0;
+    }
+
+    private ClasspathResolver(File projectRoot, boolean hasBuildFile) {
+        this.projectRoot = projectRoot;
+        long start = System.nanoTime();
+        if (hasBuildFile && new File(projectRoot, "pom.xml").isFile()) {
+            buildSystem = BuildSystem.MAVEN;
+            resolveMaven(new File(projectRoot, "pom.xml"));
+        } else if (hasBuildFile) {
+            buildSystem = BuildSystem.GRADLE;
+            resolveGradle(projectRoot);
+        } else {
+            buildSystem = BuildSystem.NONE;
+        }
+        if (sourceRoots.isEmpty()) {
+            sourceRoots.add(projectRoot.getAbsolutePath());
+        }
+        buildStamp = stampOf(buildFiles);
+        LOG.debug("Classpath {} : {} jars, {} artefacts absents du cache local, {} ms", buildSystem, jars.size(),
+                missingArtifacts.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // ===============================================
+    // MAVEN
+    // ===============================================
+
+    private void resolveMaven(File rootPom) {
+        List<PomModel> models = new ArrayList<>();
+        List<File> modelDirs = new ArrayList<>();
+        collectModules(rootPom, models, modelDirs, 0);
+
+        Set<String> moduleKeys = new HashSet<>();
+        Map<String, PomModel.Dependency> rootManaged = new HashMap<>();
+        for (PomModel m : models) {
+            moduleKeys.add(m.groupId + ":" + m.artifactId);
+        }
+        for (int i = 0; i < models.size(); i++) {
+            PomModel m = models.get(i);
+            rootManaged.putAll(m.managed);
+            ProjectModule module = new ProjectModule(m.artifactId, modelDirs.get(i));
+            addSourceRoot(module, m.sourceDirectory != null ? m.sourceDirectory : "src/main/java");
+            addSourceRoot(module, m.testSourceDirectory != null ? m.testSourceDirectory : "src/test/java");
+            for (PomModel.Dependency dep : m.dependencies) {
+                if (moduleKeys.contains(dep.key()) && !dep.artifactId.equals(m.artifactId)) {
+                    module.dependencies.add(dep.artifactId);
+                }
+            }
+            addModule(module);
+        }
+
+        List<Pending> topLevel = new ArrayList<>();
+        for (PomModel m : models) {
+            // dépendance déclarée deux fois : première position, dernière déclaration (comme Maven)
+            Map<String, PomModel.Dependency> declared = new LinkedHashMap<>();
+            for (PomModel.Dependency dep : m.dependencies) {
+                declared.put(dep.key(), dep);
+            }
+            for (PomModel.Dependency dep : declared.values()) {
+                topLevel.add(new Pending(dep, m, 0, Collections.<String>emptySet()));
+            }
+        }
+        resolveDependencies(topLevel, rootManaged, moduleKeys);
+    }
+
+    private void collectModules(File pom, List<PomModel> models, List<File> dirs, int depth) {
+        PomModel model = locator.pom(pom, 0);
+        if (model == null || depth > MAX_DEPTH) return;
+        buildFiles.add(pom);
+        models.add(model);
+        dirs.add(pom.getParentFile());
+        for (String module : model.modules) {
+            File modulePom = new File(pom.getParentFile(), module);
+            if (modulePom.isDirectory()) modulePom = new File(modulePom, "pom.xml");
+            if (modulePom.isFile()) {
+                collectModules(modulePom, models, dirs, depth + 1);
+            }
+        }
+    }
+
+    // ===============================================
+    // GRADLE
+    // ===============================================
+
+    private void resolveGradle(File root) {
+        List<File> projectDirs = new ArrayList<>();
+        projectDirs.add(root);
+        for (String settingsName : new String[]{"settings.gradle", "settings.gradle.kts"}) {
+            File settings = new File(root, settingsName);
+            if (settings.isFile()) {
+                buildFiles.add(settings);
+                for (String line : readLines(settings)) {
+                    if (line.trim().startsWith("include")) {
+                        Matcher m = GRADLE_INCLUDE.matcher(line);
+                        while (m.find()) {
+                            projectDirs.add(new File(root, m.group(1).replace(':', File.separatorChar)));
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<String, String> variables = new HashMap<>();
+        File gradleProperties = new File(root, "gradle.properties");
+        if (gradleProperties.isFile()) {
+            Properties props = new Properties();
+            try (InputStream in = new FileInputStream(gradleProperties)) {
+                props.load(in);
+            } catch (IOException e) {
+                // propriétés ignorées
+            }
+            for (String name : props.stringPropertyNames()) {
+                variables.put(name, props.getProperty(name));
+            }
+        }
+
+        List<Pending> topLevel = new ArrayList<>();
+        for (File dir : projectDirs) {
+            String path = root.toPath().relativize(dir.toPath()).toString().replace(File.separatorChar, ':');
+            ProjectModule module = new ProjectModule(":" + path, dir);
+            addSourceRoot(module, "src/main/java");
+            addSourceRoot(module, "src/test/java");
+            for (String buildName : new String[]{"build.gradle", "build.gradle.kts"}) {
+                File build = new File(dir, buildName);
+                if (!build.isFile()) continue;
+                buildFiles.add(build);
+                String script = String.join("\n", readLines(build));
+
+                Matcher p = GRADLE_PROJECT_DEP.matcher(script);
+                while (p.find()) {
+                    if (!p.group(1).equals(module.getName())) module.dependencies.add(p.group(1));
+                }
+
+                Matcher v = GRADLE_VARIABLE.matcher(script);
+                while (v.find()) {
+                    variables.putIfAbsent(v.group(1), v.group(2));
+                }
+                Matcher s = GRADLE_STRING_DEP.matcher(script);
+                while (s.find()) {
+                    topLevel.add(new Pending(new PomModel.Dependency(s.group(1), s.group(2),
+                            substitute(s.group(3), variables), "compile", "jar", s.group(4), false, null),
+                            null, 0, Collections.<String>emptySet()));
+                }
+                Matcher m = GRADLE_MAP_DEP.matcher(script);
+                while (m.find()) {
+                    topLevel.add(new Pending(new PomModel.Dependency(m.group(1), m.group(2),
+                            substitute(m.group(3), variables), "compile", "jar", null, false, null),
+                            null, 0, Collections.<String>emptySet()));
+                }
+            }
+            addModule(module);
+        }
+        resolveDependencies(topLevel, Collections.<String, PomModel.Dependency>emptyMap(), Collections.<String>emptySet());
+    }
+
+    private static String substitute(String version, Map<String, String> variables) {
+        // "$springVersion", "${springVersion}" ou "${project.ext.v}"
+        String name = version.replaceAll("^\\$\\{?(?:project\\.)?(?:ext\\.)?", "").replaceAll("}$", "");
+        return version.startsWith("$") && variables.containsKey(name) ? variables.get(name) : version;
+    }
+
+    // ===============================================
+    // DÉPENDANCES (PARCOURS EN LARGEUR, LA PLUS PROCHE L'EMPORTE)
+    // ===============================================
+
+    private static class Pending {
+        final PomModel.Dependency dep;
+        final PomModel context; // pom qui déclare la dépendance (null : build Gradle)
+        final int depth;
+        final Set<String> exclusions; // exclusions héritées du chemin de dépendances
+
+        Pending(PomModel.Dependency dep, PomModel context, int depth, Set<String> exclusions) {
+            this.dep = dep;
+            this.context = context;
+            this.depth = depth;
+            this.exclusions = exclusions;
+        }
+
+        boolean isExcluded() {
+            return exclusions.contains(dep.key()) || exclusions.contains(dep.groupId + ":*")
+                    || exclusions.contains("*:*");
+        }
+    }
+
+    private void resolveDependencies(List<Pending> topLevel, Map<String, PomModel.Dependency> rootManaged,
+                                     Set<String> moduleKeys) {
+        Deque<Pending> queue = new ArrayDeque<>(topLevel);
+        Set<String> seen = new HashSet<>(moduleKeys);
+
+        while (!queue.isEmpty()) {
+            Pending p = queue.poll();
+            PomModel.Dependency dep = p.dep;
+            String scope = p.context != null ? p.context.scopeOf(dep) : dep.scope;
+            if ("import".equals(scope)) continue;
+            if (p.depth > 0 && (dep.optional || !TRANSITIVE_SCOPES.contains(scope) || p.isExcluded())) continue;
+            if (!seen.add(dep.key())) continue;
+
+            String version;
+            PomModel.Dependency managed = rootManaged.get(dep.key());
+            if (p.depth > 0 && managed != null && managed.version != null) {
+                version = managed.version;
+            } else {
+                version = p.context != null ? p.context.versionOf(dep) : dep.version;
+            }
+
+            if ("system".equals(scope)) {
+                if (dep.systemPath != null && new File(dep.systemPath).isFile()) {
+                    jars.add(new File(dep.systemPath).getAbsolutePath());
+                }
+                continue;
+            }
+            if (!"pom".equals(dep.type)) {
+                String classifier = "test-jar".equals(dep.type) ? "tests" : dep.classifier;
+                File jar = locator.find(dep.groupId, dep.artifactId, version, classifier, "jar");
+                if (jar != null) {
+                    jars.add(jar.getAbsolutePath());
+                } else {
+                    missingArtifacts.add(dep.key() + ":" + version);
+                }
+            }
+
+            if (p.depth < MAX_DEPTH) {
+                File pom = locator.find(dep.groupId, dep.artifactId, version, null, "pom");
+                PomModel model = pom == null ? null : locator.pom(pom, 0);
+                if (model != null) {
+                    Set<String> exclusions = p.exclusions;
+                    if (!dep.exclusions.isEmpty()) {
+                        exclusions = new HashSet<>(exclusions);
+                        exclusions.addAll(dep.exclusions);
+                    }
+                    for (PomModel.Dependency child : model.dependencies) {
+                        queue.add(new Pending(child, model, p.depth + 1, exclusions));
+                    }
+                }
+            }
+        }
+    }
+
+    // ===============================================
+    // UTILITAIRES
+    // ===============================================
+
+    private void addSourceRoot(ProjectModule module, String relative) {
+        File src = new File(relative);
+        if (!src.isAbsolute()) src = new File(module.getDirectory(), relative);
+        if (src.isDirectory()) {
+            String path = src.getAbsolutePath();
+            module.sourceRoots.add(path);
+            if (!sourceRoots.contains(path)) {
+                sourceRoots.add(path);
+            }
+        }
+    }
+
+    /** Module retenu s'il a des sources (un pom agrégateur n'en a pas). */
+    private void addModule(ProjectModule module) {
+        if (!module.sourceRoots.isEmpty()) {
+            modules.add(module);
+        }
+    }
+
+    private static File findBuildRoot(File folder) {
+        File dir = folder;
+        for (int i = 0; i < 5 && dir != null; i++, dir = dir.getParentFile()) {
+            for (String name : new String[]{"pom.xml", "build.gradle", "build.gradle.kts"}) {
+                if (new File(dir, name).isFile()) return dir;
+            }
+        }
+        return null;
+    }
+
+    private static long stampOf(List<File> files) {
+        long stamp = files.size();
+        for (File f : files) {
+            stamp = stamp * 31 + f.lastModified();
+        }
+        return stamp;
+    }
+
+    private static List<String> readLines(File f) {
+        try {
+            return Files.readAllLines(f.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Classpath du JRE (rt.jar), calculé une seule fois.
+     */
+    public static synchronized String[] jreClasspath() {
+        if (jreClasspath == null) {
+            // Récupère le chemin du rt.jar de ton JRE (important sous Java 8)
+            String javaHome = System.getProperty("java.home");
+            File rtJar = new File(javaHome + File.separator + "lib" + File.separator + "rt.jar");
+            if (!rtJar.exists()) {
+                // macOS JDK 8 stocke souvent les libs dans ../Classes/classes.jar
+                rtJar = new File(javaHome + File.separator + ".." + File.separator + "Classes" + File.separator + "classes.jar");
+            }
+            jreClasspath = rtJar.exists() ? new String[]{rtJar.getAbsolutePath()} : new String[0];
+        }
+        return jreClasspath;
+    }
+
+    /**
+     * Entrées de classpath pour ASTParser.setEnvironment : JRE puis jars des dépendances.
+     */
+    public String[] getClasspathEntries() {
+        String[] jre = jreClasspath();
+        String[] entries = Arrays.copyOf(jre, jre.length + jars.size());
+        for (int i = 0; i < jars.size(); i++) {
+            entries[jre.length + i] = jars.get(i);
+        }
+        return entries;
+    }
+
+    public String[] getSourcepathEntries() {
+        return sourceRoots.toArray(new String[0]);
+    }
+
+    /**
+     * Sourcepath propre à un module : ses dossiers sources puis ceux des modules dont il
+     * dépend, transitivement. JDT n'explore plus tout l'arbre pour un type non résolu.
+     */
+    public String[] getSourcepathEntries(ProjectModule module) {
+        Map<String, ProjectModule> byName = new HashMap<>();
+        for (ProjectModule m : modules) {
+            byName.put(m.getName(), m);
+        }
+        Set<String> roots = new LinkedHashSet<>();
+        Set<String> visited = new HashSet<>();
+        Deque<ProjectModule> queue = new ArrayDeque<>(Collections.singletonList(module));
+        while (!queue.isEmpty()) {
+            ProjectModule m = queue.poll();
+            if (!visited.add(m.getName())) continue;
+            roots.addAll(m.sourceRoots);
+            for (String dep : m.dependencies) {
+                ProjectModule target = byName.get(dep);
+                if (target != null) queue.add(target);
+            }
+        }
+        return roots.toArray(new String[0]);
+    }
+
+    /** Encodage de chaque dossier source (même longueur que getSourcepathEntries()). */
+    public String[] getSourcepathEncodings() {
+        String[] encodings = new String[sourceRoots.size()];
+        Arrays.fill(encodings, "UTF-8");
+        return encodings;
+    }
+
+    /**
+     * Index des types des jars (construit au premier appel, relu depuis le disque ensuite).
+     */
+    public JarTypeIndex getTypeIndex() {
+        if (typeIndex == null) {
+            synchronized (this) {
+                if (typeIndex == null) {
+                    typeIndex = JarTypeIndex.load(jars);
+                }
+            }
+        }
+        return typeIndex;
+    }
+
+    public File getProjectRoot() { return projectRoot; }
+    public BuildSystem getBuildSystem() { return buildSystem; }
+    /** Fichiers de build lus pour la résolution (pom.xml et parents, build.gradle, settings.gradle). */
+    public List<File> getBuildFiles() { return Collections.unmodifiableList(buildFiles); }
+    public List<String> getJars() { return Collections.unmodifiableList(jars); }
+    public List<String> getSourceRoots() { return Collections.unmodifiableList(sourceRoots); }
+    /** Modules ayant des sources, dans l'ordre du build (un seul pour un projet simple). */
+    public List<ProjectModule> getModules() { return Collections.unmodifiableList(modules); }
+    public List<String> getMissingArtifacts() { return Collections.unmodifiableList(missingArtifacts); }
+}
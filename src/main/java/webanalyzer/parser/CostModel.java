@@ -0,0 +1,129 @@
+package webanalyzer.parser;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Modèle de coût du parsing par fichier, pour ordonnancer l'analyse parallèle (les fichiers
+ * les plus coûteux d'abord, voir ParallelAnalysisEngine).
+ *
+ * Le coût d'un fichier déjà parsé est sa dernière durée mesurée (construction de l'AST,
+ * bindings et extraction), ramenée à sa taille actuelle ; celui d'un fichier inconnu est sa
+ * taille multipliée par le coût moyen d'un octet observé. Les mesures sont conservées entre
+ * les analyses dans ~/.jdt-analyzer/parse-costs.txt (une ligne par fichier : nanosecondes,
+ * octets, chemin absolu).
+ */
+public class CostModel {
+
+    private static final Path DEFAULT_FILE = Paths.get(System.getProperty("user.home"), ".jdt-analyzer", "parse-costs.txt");
+    // Coût d'un octet sans aucune mesure : seul l'ordre relatif des fichiers compte alors
+    private static final double DEFAULT_NANOS_PER_BYTE = 1000;
+
+    private static CostModel shared;
+
+    private final Path file; // null : mesures non conservées
+    private final Map<String, long[]> observations = new ConcurrentHashMap<>(); // chemin -> {ns, octets}
+
+    public CostModel() {
+        this(null);
+    }
+
+    private CostModel(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Modèle du processus, chargé une fois depuis le fichier par défaut.
+     */
+    public static synchronized CostModel shared() {
+        if (shared == null) {
+            shared = load(DEFAULT_FILE);
+        }
+        return shared;
+    }
+
+    public static CostModel load(Path file) {
+        CostModel model = new CostModel(file);
+        if (Files.isRegularFile(file)) {
+            try {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    String[] parts = line.split("\t", 3);
+                    if (parts.length == 3) {
+                        model.observations.put(parts[2], new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])});
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // fichier illisible : les coûts seront réappris
+                model.observations.clear();
+            }
+        }
+        return model;
+    }
+
+    // ===============================================
+    // MESURES ET ESTIMATIONS
+    // ===============================================
+
+    /**
+     * Enregistre la durée de parsing d'un fichier (depuis plusieurs threads).
+     */
+    public void record(File javaFile, long nanos) {
+        observations.put(javaFile.getAbsolutePath(), new long[]{nanos, javaFile.length()});
+    }
+
+    private double nanosPerByte() {
+        long nanos = 0, bytes = 0;
+        for (long[] observed : observations.values()) {
+            nanos += observed[0];
+            bytes += observed[1];
+        }
+        return bytes > 0 ? (double) nanos / bytes : DEFAULT_NANOS_PER_BYTE;
+    }
+
+    /**
+     * Coûts estimés du parsing de ces fichiers, en nanosecondes.
+     */
+    public long[] estimate(List<File> javaFiles) {
+        double nanosPerByte = nanosPerByte();
+        long[] costs = new long[javaFiles.size()];
+        for (int i = 0; i < costs.length; i++) {
+            File f = javaFiles.get(i);
+            long[] observed = observations.get(f.getAbsolutePath());
+            costs[i] = observed != null && observed[1] > 0
+                    ? Math.max(1, observed[0] * f.length() / observed[1])
+                    : Math.max(1, (long) (f.length() * nanosPerByte));
+        }
+        return costs;
+    }
+
+    public int size() {
+        return observations.size();
+    }
+
+    // ===============================================
+    // PERSISTANCE
+    // ===============================================
+
+    /**
+     * Écrit les mesures des fichiers qui existent encore (remplacement atomique).
+     */
+    public synchronized void save() throws IOException {
+        if (file == null) return;
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, long[]> e : new TreeMap<>(observations).entrySet()) {
+                if (new File(e.getKey()).isFile()) {
+                    out.write(e.getValue()[0] + "\t" + e.getValue()[1] + "\t" + e.getKey());
+                    out.newLine();
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
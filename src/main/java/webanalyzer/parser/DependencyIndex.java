@@ -0,0 +1,90 @@
+package webanalyzer.parser;
+
+import java.util.*;
+
+/**
+ * Index des dépendances entre fichiers d'une analyse avec bindings : pour chaque type du
+ * projet, les fichiers dont les bindings le référencent (FileFacts.referencedTypes).
+ *
+ * Quand un fichier change, les appels des autres fichiers vers ses types peuvent se résoudre
+ * autrement (méthode renommée, type de retour modifié) alors que leur contenu est identique :
+ * seuls le fichier et ses dépendants (dependents) sont à réanalyser, sans passer par le cache
+ * d'analyse qui ne connaît que le contenu. Sans bindings, les faits ne dépendent que du
+ * contenu et de l'index des types du projet : aucun dépendant.
+ *
+ * @param <K> identifiant d'un fichier (File, chemin relatif...)
+ */
+public class DependencyIndex<K> {
+
+    private final Map<K, Set<String>> declaredTypes = new HashMap<>();
+    private final Map<K, Set<String>> referencedTypes = new HashMap<>();
+    private final Map<String, Set<K>> referencingFiles = new HashMap<>(); // type -> fichiers
+
+    /**
+     * Index de fichiers déjà analysés.
+     */
+    public static <K> DependencyIndex<K> of(Map<K, FileFacts> factsByFile) {
+        DependencyIndex<K> index = new DependencyIndex<>();
+        for (Map.Entry<K, FileFacts> e : factsByFile.entrySet()) {
+            index.put(e.getKey(), e.getValue());
+        }
+        return index;
+    }
+
+    /**
+     * Enregistre (ou remplace) les dépendances d'un fichier.
+     */
+    public void put(K file, FileFacts facts) {
+        remove(file);
+        declaredTypes.put(file, facts.declaredTypes);
+        referencedTypes.put(file, facts.referencedTypes);
+        for (String type : facts.referencedTypes) {
+            referencingFiles.computeIfAbsent(type, t -> new HashSet<>()).add(file);
+        }
+    }
+
+    public void remove(K file) {
+        declaredTypes.remove(file);
+        Set<String> referenced = referencedTypes.remove(file);
+        if (referenced == null) return;
+        for (String type : referenced) {
+            Set<K> files = referencingFiles.get(type);
+            files.remove(file);
+            if (files.isEmpty()) {
+                referencingFiles.remove(type);
+            }
+        }
+    }
+
+    /**
+     * Types déclarés par ces fichiers, selon leurs faits indexés.
+     */
+    public Set<String> declaredBy(Collection<K> files) {
+        Set<String> types = new HashSet<>();
+        for (K file : files) {
+            types.addAll(declaredTypes.getOrDefault(file, Collections.<String>emptySet()));
+        }
+        return types;
+    }
+
+    /**
+     * Fichiers qui référencent l'un de ces types.
+     */
+    public Set<K> referencing(Collection<String> types) {
+        Set<K> files = new HashSet<>();
+        for (String type : types) {
+            files.addAll(referencingFiles.getOrDefault(type, Collections.<K>emptySet()));
+        }
+        return files;
+    }
+
+    /**
+     * Fichiers à réanalyser après le changement de ces fichiers : ceux qui référencent un type
+     * qu'ils déclarent (les fichiers changés eux-mêmes exclus).
+     */
+    public Set<K> dependents(Collection<K> changed) {
+        Set<K> files = referencing(declaredBy(changed));
+        files.removeAll(changed);
+        return files;
+    }
+}
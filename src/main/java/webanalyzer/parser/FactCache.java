@@ -0,0 +1,428 @@
+package webanalyzer.parser;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cache persistant des faits d'analyse, adressé par le contenu des fichiers.
+ *
+ * Clé : SHA-256 du contenu du fichier source (voir Parser.cacheKey). Valeur : FileFacts sérialisé.
+ * Les entrées sont rangées dans un sous-dossier propre à Parser.ANALYZER_VERSION :
+ * à l'ouverture, les dossiers des versions antérieures (v<n>) sont supprimés, rien d'autre.
+ * La taille totale est bornée ; au-delà, les entrées les moins récemment
+ * utilisées (date de modification, mise à jour à chaque lecture) sont évincées.
+ *
+ * Avec bindings, les faits d'un fichier dépendent aussi de son environnement : la clé que
+ * fournit Parser comprend alors l'empreinte du classpath et du sourcepath, et chaque valeur
+ * porte celle des sources des types qu'elle référence (FileFacts.referencesDigest) ; Parser
+ * écarte à la lecture une valeur dont l'un de ces types a changé.
+ *
+ * Second niveau optionnel : un magasin HTTP partagé (RemoteFactStore), consulté en cas
+ * d'absence locale et alimenté à chaque écriture ; ses valeurs sont recopiées localement.
+ * Seules les classes des faits sont désérialisées depuis le cache (voir FactsInputStream).
+ */
+public class FactCache {
+
+    private static final String ENTRY_SUFFIX = ".facts";
+    private static final Pattern VERSION_DIR = Pattern.compile("v(\\d{1,9})");
+
+    private final Path versionDir;
+    private final long maxSizeBytes;
+    private final AtomicLong currentSize = new AtomicLong();
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger remoteHits = new AtomicInteger();
+
+    private RemoteFactStore remote; // null : cache local seul
+
+    public FactCache(Path cacheDir, long maxSizeBytes) throws IOException {
+        this.maxSizeBytes = maxSizeBytes;
+        this.versionDir = cacheDir.resolve("v" + Parser.ANALYZER_VERSION);
+        Files.createDirectories(versionDir);
+        purgeOtherVersions(cacheDir);
+        currentSize.set(computeSize());
+    }
+
+    // ===============================================
+    // LECTURE / ÉCRITURE
+    // ===============================================
+
+    /**
+     * Retourne les faits associés à ce contenu, ou null si absents.
+     */
+    public FileFacts get(String hash) {
+        FileFacts facts = readLocal(hash);
+        if (facts == null && remote != null) {
+            facts = fromRemote(hash, remote.get(remoteKey(hash)));
+        }
+        (facts != null ? hits : misses).incrementAndGet();
+        return facts;
+    }
+
+    /**
+     * Faits des contenus présents dans le cache : les absents localement sont demandés au
+     * magasin partagé en une série de lots (voir RemoteFactStore.getAll).
+     */
+    public Map<String, FileFacts> getAll(Collection<String> hashes) {
+        Map<String, FileFacts> found = new HashMap<>();
+        List<String> remoteKeys = new ArrayList<>();
+        for (String hash : hashes) {
+            FileFacts facts = readLocal(hash);
+            if (facts != null) {
+                found.put(hash, facts);
+            } else if (remote != null) {
+                remoteKeys.add(remoteKey(hash));
+            }
+        }
+        if (!remoteKeys.isEmpty()) {
+            for (Map.Entry<String, byte[]> e : remote.getAll(remoteKeys).entrySet()) {
+                String hash = e.getKey().substring(e.getKey().indexOf('-') + 1);
+                FileFacts facts = fromRemote(hash, e.getValue());
+                if (facts != null) {
+                    found.put(hash, facts);
+                }
+            }
+        }
+        hits.addAndGet(found.size());
+        misses.addAndGet(new HashSet<>(hashes).size() - found.size());
+        return found;
+    }
+
+    private FileFacts readLocal(String hash) {
+        Path entry = entryPath(hash);
+        if (!Files.exists(entry)) {
+            return null;
+        }
+        try {
+            FileFacts facts = deserialize(Files.readAllBytes(entry));
+            // LRU : la date de modification sert de date du dernier accès
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return facts;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // Entrée corrompue ou incompatible : on l'oublie
+            delete(entry);
+            return null;
+        }
+    }
+
+    /** Faits reçus du magasin partagé, recopiés dans le cache local (null si illisibles). */
+    private FileFacts fromRemote(String hash, byte[] value) {
+        if (value == null) return null;
+        try {
+            FileFacts facts = deserialize(value);
+            writeLocal(hash, value);
+            remoteHits.incrementAndGet();
+            return facts;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    public void put(String hash, FileFacts facts) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(facts);
+            }
+            byte[] value = bytes.toByteArray();
+            writeLocal(hash, value);
+            if (remote != null) {
+                remote.put(remoteKey(hash), value);
+            }
+        } catch (IOException e) {
+            System.err.println("Impossible d'écrire dans le cache : " + e.getMessage());
+        }
+    }
+
+    private void writeLocal(String hash, byte[] value) throws IOException {
+        Path entry = entryPath(hash);
+        Files.createDirectories(entry.getParent());
+        Path tmp = Files.createTempFile(entry.getParent(), hash, ".tmp");
+        Files.write(tmp, value);
+        long previous = Files.exists(entry) ? Files.size(entry) : 0;
+        Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (currentSize.addAndGet(value.length - previous) > maxSizeBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Clé du magasin partagé : il sert à toutes les versions de l'analyseur (le hash reçu,
+     * Parser.cacheKey, porte déjà le mode et l'empreinte du classpath).
+     */
+    private static String remoteKey(String hash) {
+        return "v" + Parser.ANALYZER_VERSION + "-" + hash;
+    }
+
+    private static FileFacts deserialize(byte[] value) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new FactsInputStream(new ByteArrayInputStream(value))) {
+            return (FileFacts) in.readObject();
+        }
+    }
+
+    /**
+     * Désérialisation limitée aux classes des faits (modèle d'analyse, graphe d'appels,
+     * collections et types de base du JDK) : une entrée du magasin partagé ne peut pas
+     * instancier d'autres classes du classpath.
+     *
+     * Profondeur, longueur des tableaux et nombre de références sont bornés par le filtre de
+     * sérialisation du JDK (java.io.ObjectInputFilter depuis Java 9, sun.misc.ObjectInputFilter
+     * depuis Java 8u121), installé par réflexion : le code cible Java 8. Sans filtre disponible,
+     * seul le nombre d'objets est compté ici.
+     *
+     * Sert aussi à relire les instantanés enregistrés (AnalysisSnapshot.load), avec une borne
+     * de références à la mesure d'un projet entier.
+     */
+    static final class FactsInputStream extends ObjectInputStream {
+        private static final String[] ALLOWED = {"webanalyzer.parser.", "graph.", "java.lang.", "java.util."};
+
+        private static final int MAX_DEPTH = 64;
+        private static final int MAX_ARRAY_LENGTH = 1 << 22;
+        private static final int MAX_REFERENCES = 1 << 22;
+
+        private final int maxReferences;
+        private int objects;
+
+        FactsInputStream(InputStream in) throws IOException {
+            this(in, MAX_REFERENCES);
+        }
+
+        FactsInputStream(InputStream in, int maxReferences) throws IOException {
+            super(in);
+            this.maxReferences = maxReferences;
+            if (!installFilter("maxdepth=" + MAX_DEPTH + ";maxarray=" + MAX_ARRAY_LENGTH + ";maxrefs=" + maxReferences)) {
+                enableResolveObject(true);
+            }
+        }
+
+        private boolean installFilter(String limits) {
+            try {
+                Class<?> filterType = Class.forName("java.io.ObjectInputFilter");
+                Object filter = Class.forName("java.io.ObjectInputFilter$Config")
+                        .getMethod("createFilter", String.class).invoke(null, limits);
+                ObjectInputStream.class.getMethod("setObjectInputFilter", filterType).invoke(this, filter);
+                return true;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Java 8 : filtre de sun.misc, s'il existe
+            }
+            try {
+                Class<?> filterType = Class.forName("sun.misc.ObjectInputFilter");
+                Class<?> config = Class.forName("sun.misc.ObjectInputFilter$Config");
+                Object filter = config.getMethod("createFilter", String.class).invoke(null, limits);
+                config.getMethod("setObjectInputFilter", ObjectInputStream.class, filterType).invoke(null, this, filter);
+                return true;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return false;
+            }
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            if (++objects > maxReferences) {
+                throw new InvalidObjectException("plus de " + maxReferences + " objets dans le flux");
+            }
+            return obj;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            String name = desc.getName().replaceFirst("^\\[+L?", "").replaceFirst(";$", "");
+            boolean allowed = name.length() == 1; // tableau de primitifs ([J, [I...)
+            for (String prefix : ALLOWED) {
+                allowed |= name.startsWith(prefix);
+            }
+            if (!allowed) {
+                throw new InvalidClassException(desc.getName(), "classe absente des faits d'analyse");
+            }
+            return super.resolveClass(desc);
+        }
+    }
+
+    /**
+     * Empreinte SHA-256 (hexadécimale) d'un contenu.
+     */
+    public static String hash(byte[] content) {
+        MessageDigest md = sha256();
+        return hex(md.digest(content));
+    }
+
+    /**
+     * Empreinte SHA-256 d'un fichier lu par blocs (jars du classpath, voir Parser.cacheKey).
+     */
+    public static String hash(Path file) throws IOException {
+        MessageDigest md = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                md.update(buffer, 0, n);
+            }
+        }
+        return hex(md.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    // ===============================================
+    // ÉVICTION ET INVALIDATION
+    // ===============================================
+
+    /**
+     * Supprime les entrées les moins récemment utilisées jusqu'à revenir à 90% de la limite.
+     */
+    private synchronized void evict() {
+        if (currentSize.get() <= maxSizeBytes) return;
+        List<Path> entries = listEntries();
+        entries.sort(Comparator.comparingLong(FactCache::lastModified));
+        long target = (long) (maxSizeBytes * 0.9);
+        for (Path entry : entries) {
+            if (currentSize.get() <= target) break;
+            try {
+                long size = Files.size(entry);
+                if (Files.deleteIfExists(entry)) {
+                    currentSize.addAndGet(-size);
+                }
+            } catch (IOException e) {
+                // entrée déjà supprimée par un autre thread
+            }
+        }
+    }
+
+    /**
+     * Supprime les entrées des versions antérieures de l'analyseur (dossiers v<n>, n inférieur
+     * à la version courante) : tout autre contenu du dossier configuré est laissé en place, et
+     * une version plus récente qui partage le dossier garde ses entrées.
+     */
+    private void purgeOtherVersions(Path cacheDir) throws IOException {
+        int current = Integer.parseInt(Parser.ANALYZER_VERSION);
+        try (Stream<Path> dirs = Files.list(cacheDir)) {
+            for (Path dir : dirs.collect(Collectors.toList())) {
+                Matcher m = VERSION_DIR.matcher(dir.getFileName().toString());
+                if (m.matches() && Files.isDirectory(dir) && Long.parseLong(m.group(1)) < current) {
+                    deleteRecursively(dir);
+                }
+            }
+        }
+    }
+
+    public void clear() throws IOException {
+        deleteRecursively(versionDir);
+        Files.createDirectories(versionDir);
+        currentSize.set(0);
+    }
+
+    // ===============================================
+    // MÉTHODES AUXILIAIRES
+    // ===============================================
+
+    private Path entryPath(String hash) {
+        // deux premiers caractères en sous-dossier pour éviter les répertoires géants
+        return versionDir.resolve(hash.substring(0, 2)).resolve(hash + ENTRY_SUFFIX);
+    }
+
+    private List<Path> listEntries() {
+        try (Stream<Path> files = Files.walk(versionDir)) {
+            return files.filter(p -> p.toString().endsWith(ENTRY_SUFFIX)).collect(Collectors.toList());
+        } catch (IOException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    private long computeSize() {
+        long total = 0;
+        for (Path entry : listEntries()) {
+            try {
+                total += Files.size(entry);
+            } catch (IOException e) {
+                // ignorée
+            }
+        }
+        return total;
+    }
+
+    private static long lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void delete(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            // ignorée
+        }
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) return;
+        try (Stream<Path> walk = Files.walk(root)) {
+            List<Path> paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            for (Path p : paths) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    public int getHits() { return hits.get(); }
+    public int getMisses() { return misses.get(); }
+    public int getRemoteHits() { return remoteHits.get(); }
+    public long getCurrentSize() { return currentSize.get(); }
+    public long getMaxSizeBytes() { return maxSizeBytes; }
+    public Path getCacheDir() { return versionDir.getParent(); }
+
+    /**
+     * Une valeur lue s'est révélée périmée (type référencé modifié, voir Parser) : le fichier
+     * est réanalysé, il compte comme tel.
+     */
+    void rejectStale() {
+        hits.decrementAndGet();
+        misses.incrementAndGet();
+    }
+
+    public void resetStats() {
+        hits.set(0);
+        misses.set(0);
+        remoteHits.set(0);
+    }
+
+    public RemoteFactStore getRemote() { return remote; }
+
+    /**
+     * Ajoute le magasin partagé en second niveau (null : cache local seul).
+     */
+    public void setRemote(RemoteFactStore remote) { this.remote = remote; }
+
+    public String statsSummary() {
+        return "Cache d'analyse : " + hits.get() + " fichiers réutilisés"
+                + (remote != null ? " (dont " + remoteHits.get() + " du cache partagé)" : "")
+                + ", " + misses.get() + " fichiers analysés";
+    }
+}
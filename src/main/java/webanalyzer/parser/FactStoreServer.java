@@ -0,0 +1,200 @@
+package webanalyzer.parser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Serveur de référence du cache partagé (protocole de RemoteFactStore), sur le serveur HTTP
+ * du JDK : pour un usage local ou une petite équipe. Les valeurs sont gardées dans un dossier
+ * (un fichier par clé) ou, sans dossier, en mémoire.
+ *
+ * Par défaut, le serveur n'écoute que sur l'interface locale ; les écritures (PUT) exigent le
+ * jeton partagé (en-tête Authorization: Bearer), les lectures restent libres. Sans jeton
+ * configuré, le serveur est en lecture seule.
+ *
+ * java -Danalyzer.cache.remote-token=... webanalyzer.parser.FactStoreServer 8090 /var/cache/jdt-analyzer-facts 0.0.0.0
+ * puis analyzer.cache.remote-url=http://hôte:8090/facts et le même analyzer.cache.remote-token
+ */
+public class FactStoreServer implements Closeable {
+
+    // Clés de FactCache (empreinte hexadécimale, suffixe de mode) : jamais de séparateur de chemin
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9_-]{1,128}");
+    private static final String CONTEXT = "/facts";
+    static final String BEARER = "Bearer ";
+    static final String TOKEN_PROPERTY = "analyzer.cache.remote-token";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Path dir;                                        // null : en mémoire
+    private final Map<String, byte[]> memory = new ConcurrentHashMap<>();
+    private final byte[] token;                                    // null : lecture seule
+
+    /**
+     * Serveur sur l'interface locale uniquement.
+     */
+    public FactStoreServer(int port, Path dir, String token) throws IOException {
+        this(InetAddress.getLoopbackAddress(), port, dir, token);
+    }
+
+    /**
+     * @param address interface d'écoute (0.0.0.0 pour toutes : à réserver à un réseau de confiance)
+     * @param token   jeton exigé des écritures, ou null pour un serveur en lecture seule
+     */
+    public FactStoreServer(InetAddress address, int port, Path dir, String token) throws IOException {
+        this.dir = dir;
+        this.token = token != null && !token.isEmpty() ? token.getBytes(StandardCharsets.UTF_8) : null;
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        server.createContext(CONTEXT, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** Adresse à donner à RemoteFactStore. */
+    public String getUrl() {
+        InetAddress address = server.getAddress().getAddress();
+        String host = address.isAnyLocalAddress() || address.isLoopbackAddress() ? "localhost" : address.getHostAddress();
+        return "http://" + host + ":" + getPort() + CONTEXT;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    // ===============================================
+    // REQUÊTES
+    // ===============================================
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String key = exchange.getRequestURI().getPath().substring(CONTEXT.length()).replaceFirst("^/", "");
+            String method = exchange.getRequestMethod();
+            if (key.equals("batch") && method.equals("POST")) {
+                batch(exchange);
+            } else if (!KEY.matcher(key).matches()) {
+                exchange.sendResponseHeaders(400, -1);
+            } else if (method.equals("GET")) {
+                byte[] value = read(key);
+                if (value == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, value.length);
+                    exchange.getResponseBody().write(value);
+                }
+            } else if (method.equals("PUT")) {
+                if (!authorized(exchange)) {
+                    exchange.sendResponseHeaders(token == null ? 405 : 403, -1);
+                    return;
+                }
+                write(key, readFully(exchange.getRequestBody()));
+                exchange.sendResponseHeaders(204, -1);
+            } else {
+                exchange.sendResponseHeaders(405, -1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void batch(HttpExchange exchange) throws IOException {
+        String[] keys = new String(readFully(exchange.getRequestBody()), StandardCharsets.UTF_8).split("\n");
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(exchange.getResponseBody()))) {
+            for (String key : keys) {
+                if (key.isEmpty()) continue;
+                byte[] value = KEY.matcher(key).matches() ? read(key) : null;
+                out.writeInt(value == null ? -1 : value.length);
+                if (value != null) {
+                    out.write(value);
+                }
+            }
+        }
+    }
+
+    /** Jeton de l'en-tête Authorization comparé en temps constant. */
+    private boolean authorized(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (token == null || header == null || !header.startsWith(BEARER)) {
+            return false;
+        }
+        return MessageDigest.isEqual(token, header.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ===============================================
+    // STOCKAGE
+    // ===============================================
+
+    private byte[] read(String key) throws IOException {
+        if (dir == null) {
+            return memory.get(key);
+        }
+        Path entry = dir.resolve(key);
+        try {
+            return Files.readAllBytes(entry);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void write(String key, byte[] value) throws IOException {
+        if (dir == null) {
+            memory.put(key, value);
+            return;
+        }
+        Path tmp = Files.createTempFile(dir, key, ".tmp");
+        Files.write(tmp, value);
+        Files.move(tmp, dir.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Arguments : port, dossier (absent ou "-" : en mémoire), interface d'écoute (défaut : locale).
+     * Sans -Danalyzer.cache.remote-token, un jeton est tiré au hasard et affiché.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8090;
+        Path dir = args.length > 1 && !args[1].equals("-") ? Paths.get(args[1]) : null;
+        InetAddress address = args.length > 2 ? InetAddress.getByName(args[2]) : InetAddress.getLoopbackAddress();
+        String token = System.getProperty(TOKEN_PROPERTY);
+        if (token == null || token.isEmpty()) {
+            byte[] random = new byte[24];
+            new SecureRandom().nextBytes(random);
+            token = FactCache.hash(random).substring(0, 32);
+            System.out.println("Jeton d'écriture généré : " + TOKEN_PROPERTY + "=" + token);
+        }
+        FactStoreServer server = new FactStoreServer(address, port, dir, token);
+        System.out.println("Cache partagé sur " + address.getHostAddress() + ":" + server.getPort()
+                + (dir != null ? " (" + dir + ")" : " (en mémoire)"));
+    }
+}
@@ -0,0 +1,109 @@
+package webanalyzer.parser;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import java.util.Objects;
+
+/**
+ * Limites par fichier de l'analyse JDT : taille du source, temps de construction de l'AST
+ * et nombre de nœuds. Un fichier qui en dépasse une (table de parser ou sortie protobuf
+ * générée, par exemple) est mis en quarantaine : reparsé en mode syntaxique, sans bindings,
+ * ou ignoré, pour que son coût ne fixe plus la durée de toute l'analyse.
+ */
+public final class FileBudget {
+
+    /**
+     * SYNTACTIC : nouvelle tentative sans bindings (couplage approximatif), ignoré si elle échoue aussi.
+     * SKIP : fichier ignoré.
+     */
+    public enum OnExceed { SYNTACTIC, SKIP }
+
+    public static final FileBudget DEFAULT = new FileBudget(1L << 20, 20_000, 1_000_000, OnExceed.SYNTACTIC);
+
+    public static final FileBudget UNLIMITED = new FileBudget(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, OnExceed.SYNTACTIC);
+
+    private final long maxBytes;
+    private final long maxMillis;
+    private final int maxNodes;
+    private final OnExceed onExceed;
+
+    public FileBudget(long maxBytes, long maxMillis, int maxNodes, OnExceed onExceed) {
+        this.maxBytes = maxBytes;
+        this.maxMillis = maxMillis;
+        this.maxNodes = maxNodes;
+        this.onExceed = onExceed;
+    }
+
+    /**
+     * Motif de dépassement de la taille, ou null si le fichier est dans la limite.
+     */
+    String checkSize(long bytes) {
+        return bytes > maxBytes ? "taille " + bytes + " octets > " + maxBytes : null;
+    }
+
+    /**
+     * Motif de dépassement du nombre de nœuds, ou null.
+     */
+    String checkNodes(int nodes) {
+        return nodes > maxNodes ? "plus de " + maxNodes + " nœuds AST" : null;
+    }
+
+    String timeoutReason() {
+        return "construction de l'AST > " + maxMillis + " ms";
+    }
+
+    /**
+     * Moniteur passé à createAST / createASTs : JDT le consulte pendant la résolution des noms
+     * et la conversion de l'AST et s'interrompt (OperationCanceledException) une fois le délai écoulé.
+     */
+    Deadline deadline() {
+        return new Deadline(maxMillis);
+    }
+
+    public long getMaxBytes() { return maxBytes; }
+    public long getMaxMillis() { return maxMillis; }
+    public int getMaxNodes() { return maxNodes; }
+    public OnExceed getOnExceed() { return onExceed; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FileBudget)) return false;
+        FileBudget b = (FileBudget) o;
+        return maxBytes == b.maxBytes && maxMillis == b.maxMillis && maxNodes == b.maxNodes && onExceed == b.onExceed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxBytes, maxMillis, maxNodes, onExceed);
+    }
+
+    @Override
+    public String toString() {
+        return "FileBudget[" + maxBytes + " octets, " + maxMillis + " ms, " + maxNodes + " nœuds, " + onExceed + "]";
+    }
+
+    /**
+     * Délai réarmable : en mode lot, il repart à chaque AST livré, ce qui borne le temps par fichier.
+     */
+    static final class Deadline extends NullProgressMonitor {
+        private final long millis;
+        private volatile long deadline;
+
+        Deadline(long millis) {
+            this.millis = millis;
+            restart();
+        }
+
+        void restart() {
+            long now = System.nanoTime();
+            long nanos = millis >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE / 2 : millis * 1_000_000;
+            deadline = now + nanos;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return super.isCanceled() || System.nanoTime() - deadline > 0;
+        }
+    }
+}
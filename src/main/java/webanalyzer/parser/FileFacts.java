@@ -0,0 +1,123 @@
+package webanalyzer.parser;
+
+import graph.ClassMethodCallVisitor;
+import graph.CompactCallGraph;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Faits extraits d'un seul fichier source : sa contribution aux métriques globales,
+ * au graphe d'appels et aux compteurs par classe.
+ * Ne dépend que du contenu du fichier (pas de son chemin) : sérialisable et
+ * réutilisable depuis le cache d'analyse (FactCache).
+ */
+public class FileFacts implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // --- Contribution aux compteurs globaux ---
+    int classes = 0;
+    int interfaces = 0;
+    int methods = 0;
+    int lines = 0;
+    int attributes = 0;
+    int linesInMethods = 0;
+    int maxParameters = 0;
+
+    // --- Contenu du FileAnalysis (classes de premier niveau et leurs méthodes) ---
+    final List<String> classNames = new ArrayList<>();
+    final List<String> methodNames = new ArrayList<>();
+
+    // --- Contribution par classe (ordre de visite conservé) ---
+    final Map<String, Integer> methodsPerClass = new LinkedHashMap<>();
+    final Map<String, Integer> attributesPerClass = new LinkedHashMap<>();
+    // Nombre de lignes de chaque méthode, par classe (une surcharge remplace la précédente)
+    final Map<String, Map<String, Integer>> methodLines = new LinkedHashMap<>();
+    final Set<String> packageNames = new HashSet<>();
+
+    // --- Graphe d'appels du fichier (identifiants internés, tableaux d'entiers) ---
+    CompactCallGraph callGraph = CompactCallGraph.EMPTY;
+
+    // --- Dépendances (noms qualifiés) : types déclarés (hors types locaux) et types du projet
+    //     référencés par les bindings, vide sans bindings (voir DependencyIndex) ---
+    final Set<String> declaredTypes = new TreeSet<>();
+    final Set<String> referencedTypes = new TreeSet<>();
+    // Empreinte des sources de ces types à l'extraction (validité d'une entrée du cache, voir Parser)
+    String referencesDigest;
+
+    // --- Empreintes des méthodes (mode surveillance), null si non calculées : jamais mises en
+    //     cache, recalculées sans bindings pour les faits qui en viennent (voir Parser) ---
+    transient MethodFingerprints fingerprints;
+
+    // --- Quarantaine (budget dépassé) : propre à une analyse, jamais mise en cache ---
+    transient String quarantineReason;
+    transient boolean skipped;
+
+    /**
+     * Faits d'un fichier ignoré pour avoir dépassé son budget : seul le motif est conservé.
+     */
+    static FileFacts skipped(String reason) {
+        FileFacts facts = new FileFacts();
+        facts.quarantineReason = reason;
+        facts.skipped = true;
+        return facts;
+    }
+
+    boolean isQuarantined() {
+        return quarantineReason != null;
+    }
+
+    /**
+     * Construit le FileAnalysis de ce fichier sous le nom donné.
+     */
+    public Parser.FileAnalysis toFileAnalysis(String fileName) {
+        Parser.FileAnalysis fa = new Parser.FileAnalysis(fileName);
+        classNames.forEach(fa::addClass);
+        fa.addMethods(methodNames);
+        fa.setLines(lines);
+        fa.setPackages(packageNames.size());
+        fa.setAvgMethodsPerClass(average(methodsPerClass.values()));
+        fa.setAvgAttributesPerClass(average(attributesPerClass.values()));
+        List<Integer> spans = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Integer>> e : methodLines.entrySet()) {
+            spans.addAll(e.getValue().values());
+            fa.putLongestMethods(e.getKey(), longestMethods(e.getValue()));
+        }
+        fa.setAvgLinesPerMethod(average(spans));
+        return fa;
+    }
+
+    private static double average(Collection<Integer> values) {
+        return values.stream().mapToInt(i -> i).average().orElse(0.0);
+    }
+
+    /**
+     * Les 10 % des méthodes d'une classe qui ont le plus de lignes (au moins une).
+     */
+    private static List<String> longestMethods(Map<String, Integer> lines) {
+        int limit = Math.max(1, (int) Math.ceil(lines.size() * 0.1));
+        List<String> longest = new ArrayList<>();
+        lines.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(e -> longest.add(e.getKey()));
+        return longest;
+    }
+
+    public int getClasses() { return classes; }
+    public int getInterfaces() { return interfaces; }
+    public int getMethods() { return methods; }
+    public int getLines() { return lines; }
+    public int getAttributes() { return attributes; }
+    public int getLinesInMethods() { return linesInMethods; }
+    public int getMaxParameters() { return maxParameters; }
+    public Map<String, Integer> getMethodsPerClass() { return methodsPerClass; }
+    public Map<String, Integer> getAttributesPerClass() { return attributesPerClass; }
+    public Map<String, Map<String, Integer>> getMethodLines() { return methodLines; }
+    public CompactCallGraph getCallGraph() { return callGraph; }
+    public Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> getClassMethodCalls() { return callGraph.asMap(); }
+    public Set<String> getPackageNames() { return packageNames; }
+    public Set<String> getDeclaredTypes() { return declaredTypes; }
+    public Set<String> getReferencedTypes() { return referencedTypes; }
+}
@@ -0,0 +1,223 @@
+package webanalyzer.parser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import webanalyzer.model.CommitAnalysis;
+import webanalyzer.model.GlobalStats;
+import webanalyzer.service.CouplingService;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Analyse de l'historique git d'un projet : métriques globales et matrice de couplage de
+ * chaque commit d'une plage, sans extraire les commits sur disque.
+ *
+ * Le premier commit est analysé en entier ; pour les suivants, seuls les fichiers de la
+ * différence avec le commit précédent sont considérés. Les faits sont gardés par blob :
+ * un fichier inchangé n'est pas reparsé, et un contenu déjà vu ailleurs (retour arrière,
+ * exécution précédente de la nuit) est repris du cache d'analyse.
+ *
+ * Comme pour une archive, les sources sont parsées depuis la mémoire : les bindings ne
+ * couvrent que le JRE. En mode SYNTACTIC, les faits d'un blob sont extraits avec l'index
+ * des types du commit où il apparaît pour la première fois.
+ *
+ * Usage : GitHistoryAnalyzer [chemin du dépôt] [plage, HEAD par défaut] [nombre maximal de commits]
+ * [X pour les classes de plus de X méthodes] ; une ligne CSV par commit sur la sortie standard.
+ */
+public class GitHistoryAnalyzer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GitHistoryAnalyzer.class);
+
+    // Blobs lus d'avance puis parsés ensemble (borne la mémoire des contenus)
+    private static final int READ_CHUNK_SIZE = 256;
+
+    private final Parser parser;
+    private final File folder;
+    private final int xMethods;
+    private final SourceDiscovery exclusions;
+
+    // Faits par blob des fichiers du commit courant
+    private final Map<String, FileFacts> factsByBlob = new HashMap<>();
+    private AnalysisResult result = AnalysisResult.EMPTY;
+
+    public GitHistoryAnalyzer(Parser parser, String path, int xMethods) {
+        this.parser = parser;
+        this.folder = new File(path).getAbsoluteFile();
+        this.xMethods = xMethods;
+        this.exclusions = new SourceDiscovery(folder.toPath(), parser.getExcludeGlobs());
+    }
+
+    public List<CommitAnalysis> analyze(String range, int maxCommits) throws IOException {
+        List<CommitAnalysis> commits = new ArrayList<>();
+        analyze(range, maxCommits, commits::add);
+        return commits;
+    }
+
+    /**
+     * Analyse les commits de la plage, du plus ancien au plus récent (premier parent seulement,
+     * les maxCommits plus récents ; 0 : pas de limite). Chaque commit est transmis à l'écouteur
+     * dès qu'il est analysé : une longue plage n'est pas gardée en mémoire.
+     */
+    public void analyze(String range, int maxCommits, Consumer<CommitAnalysis> listener) throws IOException {
+        long total = System.nanoTime();
+        parser.startInMemoryAnalysis(folder.getPath());
+        if (parser.getFactCache() != null) {
+            parser.getFactCache().resetStats();
+        }
+        factsByBlob.clear();
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try (GitRepository git = new GitRepository(folder)) {
+            List<GitRepository.Commit> commits = git.listCommits(range, maxCommits);
+            SortedMap<String, String> tree = null;
+            String previous = null;
+            Map<String, Map<String, Double>> coupling = new HashMap<>();
+
+            for (GitRepository.Commit commit : commits) {
+                long start = System.nanoTime();
+                List<String> changed = new ArrayList<>();
+                List<String> removed = new ArrayList<>();
+                if (tree == null) {
+                    tree = git.listJavaFiles(commit.id);
+                    tree.keySet().removeIf(exclusions::isExcluded);
+                    changed.addAll(tree.keySet());
+                } else {
+                    for (GitRepository.Change change : git.diff(previous, commit.id)) {
+                        if (exclusions.isExcluded(change.path)) continue;
+                        if (change.blob == null) {
+                            if (tree.remove(change.path) != null) removed.add(change.path);
+                        } else {
+                            tree.put(change.path, change.blob);
+                            changed.add(change.path);
+                        }
+                    }
+                }
+
+                if (parser.getResolutionMode() == Parser.ResolutionMode.SYNTACTIC) {
+                    Set<String> names = new HashSet<>();
+                    for (String path : tree.keySet()) {
+                        String fileName = fileName(path);
+                        names.add(fileName.substring(0, fileName.length() - ".java".length()));
+                    }
+                    parser.projectTypeNames = names;
+                }
+                int parsed = parseNewBlobs(git, tree, changed, pool);
+                factsByBlob.keySet().retainAll(new HashSet<>(tree.values()));
+
+                // Somme des faits du commit : pas de parsing, uniquement des fusions de maps
+                MetricsAccumulator acc = new MetricsAccumulator();
+                for (Map.Entry<String, String> e : tree.entrySet()) {
+                    acc.add(e.getKey(), fileName(e.getKey()), factsByBlob.get(e.getValue()));
+                }
+                result = acc.toResult();
+
+                Map<String, Map<String, Double>> newCoupling = CouplingService.calculateCouplingRatio(result.getCallGraph());
+                List<CouplingService.EdgeChange> couplingChanges = CouplingService.diff(coupling, newCoupling);
+                coupling = newCoupling;
+
+                listener.accept(new CommitAnalysis(commit.id, commit.time, commit.author, commit.subject,
+                        result.toGlobalStats(xMethods), newCoupling, couplingChanges, changed, removed,
+                        parsed, (System.nanoTime() - start) / 1_000_000));
+                previous = commit.id;
+            }
+
+            LOG.debug("Historique {} : {} commit(s) en {} ms", range, commits.size(), (System.nanoTime() - total) / 1_000_000);
+            if (parser.getFactCache() != null) {
+                LOG.debug(parser.getFactCache().statsSummary());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Extrait les faits des blobs modifiés encore inconnus ; retourne leur nombre.
+     * Les contenus sont lus par lots puis parsés en parallèle.
+     */
+    private int parseNewBlobs(GitRepository git, SortedMap<String, String> tree, List<String> changed,
+                              ForkJoinPool pool) throws IOException {
+        Map<String, String> newBlobs = new LinkedHashMap<>();
+        for (String path : changed) {
+            String blob = tree.get(path);
+            if (!factsByBlob.containsKey(blob)) {
+                newBlobs.putIfAbsent(blob, fileName(path));
+            }
+        }
+
+        List<Map.Entry<String, String>> blobs = new ArrayList<>(newBlobs.entrySet());
+        for (int from = 0; from < blobs.size(); from += READ_CHUNK_SIZE) {
+            List<Map.Entry<String, String>> chunk = blobs.subList(from, Math.min(blobs.size(), from + READ_CHUNK_SIZE));
+            List<Callable<FileFacts>> tasks = new ArrayList<>();
+            for (Map.Entry<String, String> blob : chunk) {
+                byte[] content = git.readBlob(blob.getKey());
+                String unitName = blob.getValue();
+                tasks.add(() -> parser.parseContent(content, unitName));
+            }
+            List<Future<FileFacts>> facts = pool.invokeAll(tasks);
+            try {
+                for (int i = 0; i < chunk.size(); i++) {
+                    factsByBlob.put(chunk.get(i).getKey(), facts.get(i).get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Analyse interrompue");
+            } catch (ExecutionException e) {
+                throw new IOException("Analyse d'un blob impossible", e.getCause());
+            }
+        }
+        return blobs.size();
+    }
+
+    private static String fileName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Résultat complet (fichiers, graphe d'appels) du dernier commit analysé.
+     */
+    public AnalysisResult getResult() { return result; }
+
+    public static void main(String[] args) throws IOException {
+        String path = args.length > 0 ? args[0] : ".";
+        String range = args.length > 1 ? args[1] : "HEAD";
+        int maxCommits = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int x = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        // les journaux du Parser partent sur la sortie d'erreur : la sortie standard reste un CSV
+        PrintStream csv = System.out;
+        System.setOut(System.err);
+        csv.println("commit;date;fichiers;classes;interfaces;methodes;lignes;packages;"
+                + "methodesParClasse;lignesParMethode;attributsParClasse;maxParametres;"
+                + "classesPlusDeX;aretesCouplage;aretesModifiees;fichiersModifies;fichiersParses;ms");
+
+        Parser parser = AnalysisEngine.shared().createParser(AnalysisConfig.load());
+        new GitHistoryAnalyzer(parser, path, x).analyze(range, maxCommits, c -> {
+            GlobalStats s = c.getStats();
+            int edges = 0;
+            for (Map<String, Double> targets : c.getCoupling().values()) {
+                edges += targets.size();
+            }
+            csv.println(String.join(";", c.getCommitId(), Instant.ofEpochMilli(c.getTime()).toString(),
+                    String.valueOf(s.getTotalFiles()), String.valueOf(s.getTotalClasses()),
+                    String.valueOf(s.getTotalInterfaces()), String.valueOf(s.getTotalMethods()),
+                    String.valueOf(s.getTotalLines()), String.valueOf(s.getTotalPackage()),
+                    String.valueOf(s.getAvgMethodsPerClass()), String.valueOf(s.getAvgLinesPerMethod()),
+                    String.valueOf(s.getAvgAttributesPerClass()), String.valueOf(s.getMaxParameters()),
+                    String.valueOf(s.getClassesOverXMethods().size()), String.valueOf(edges),
+                    String.valueOf(c.getCouplingChanges().size()),
+                    String.valueOf(c.getChangedFiles().size() + c.getRemovedFiles().size()),
+                    String.valueOf(c.getParsedFiles()), String.valueOf(c.getUpdateTimeMs())));
+            csv.flush();
+        });
+    }
+}
@@ -0,0 +1,229 @@
+package webanalyzer.parser;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Lecture d'un dépôt git local par la commande git : commits d'une plage, arbres,
+ * différences entre deux commits et contenu des blobs (un seul processus cat-file --batch).
+ * Les chemins sont relatifs au dossier analysé (sous-dossier du dépôt accepté).
+ */
+class GitRepository implements Closeable {
+
+    private static final String NULL_ID = "0000000000000000000000000000000000000000";
+    // Mode git d'un sous-module (entrée de type commit, sans contenu)
+    private static final String SUBMODULE_MODE = "160000";
+
+    private final File topLevel;
+    // Chemin du dossier analysé sous la racine du dépôt ("" ou "module/")
+    private final String prefix;
+
+    private Process catFile;
+    private OutputStream catFileIn;
+    private InputStream catFileOut;
+
+    /**
+     * Commit de la plage parcourue.
+     */
+    static final class Commit {
+        final String id;
+        final long time;
+        final String author;
+        final String subject;
+
+        Commit(String id, long time, String author, String subject) {
+            this.id = id;
+            this.time = time;
+            this.author = author;
+            this.subject = subject;
+        }
+    }
+
+    /**
+     * Fichier modifié entre deux commits ; blob null s'il a été supprimé.
+     */
+    static final class Change {
+        final String path;
+        final String blob;
+
+        Change(String path, String blob) {
+            this.path = path;
+            this.blob = blob;
+        }
+    }
+
+    GitRepository(File folder) throws IOException {
+        this.topLevel = new File(text(run(folder, "rev-parse", "--show-toplevel")).trim());
+        this.prefix = text(run(folder, "rev-parse", "--show-prefix")).trim();
+    }
+
+    /**
+     * Commits de la plage (syntaxe de git log : "v1.0..HEAD", "HEAD"...), du plus ancien au plus récent.
+     * Seul le premier parent est suivi : une branche fusionnée compte comme un seul pas.
+     * maxCommits (0 : pas de limite) garde les plus récents.
+     */
+    List<Commit> listCommits(String range, int maxCommits) throws IOException {
+        List<String> args = new ArrayList<>(Arrays.asList("log", "--first-parent", "--reverse",
+                "--format=%H%x1f%ct%x1f%an%x1f%s"));
+        if (maxCommits > 0) {
+            args.add("--max-count=" + maxCommits);
+        }
+        args.add(range);
+        args.add("--");
+        List<Commit> commits = new ArrayList<>();
+        for (String line : text(run(topLevel, args.toArray(new String[0]))).split("\n")) {
+            if (line.isEmpty()) continue;
+            String[] fields = line.split("\u001f", 4);
+            commits.add(new Commit(fields[0], Long.parseLong(fields[1]) * 1000, fields[2],
+                    fields.length > 3 ? fields[3] : ""));
+        }
+        return commits;
+    }
+
+    /**
+     * Fichiers .java du commit et leur blob, triés par chemin.
+     */
+    SortedMap<String, String> listJavaFiles(String commit) throws IOException {
+        SortedMap<String, String> files = new TreeMap<>();
+        // <mode> SP <type> SP <blob> TAB <chemin> NUL
+        for (String record : split(run(topLevel, pathspec("ls-tree", "-r", "-z", commit)))) {
+            int tab = record.indexOf('\t');
+            String[] fields = record.substring(0, tab).split(" ");
+            String path = relative(record.substring(tab + 1));
+            if ("blob".equals(fields[1]) && path != null) {
+                files.put(path, fields[2]);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Fichiers .java ajoutés, modifiés ou supprimés entre deux commits (renommage = suppression + ajout).
+     */
+    List<Change> diff(String from, String to) throws IOException {
+        List<Change> changes = new ArrayList<>();
+        // :<ancien mode> <nouveau mode> <ancien blob> <nouveau blob> <statut> NUL <chemin> NUL
+        List<String> records = split(run(topLevel, pathspec("diff-tree", "-r", "-z", "--no-renames", from, to)));
+        for (int i = 0; i + 1 < records.size(); i += 2) {
+            String[] fields = records.get(i).split(" ");
+            String path = relative(records.get(i + 1));
+            if (path == null) continue;
+            boolean deleted = NULL_ID.equals(fields[3]) || SUBMODULE_MODE.equals(fields[1]);
+            changes.add(new Change(path, deleted ? null : fields[3]));
+        }
+        return changes;
+    }
+
+    /**
+     * Contenu d'un blob, lu par le processus cat-file --batch du dépôt (lancé au premier appel).
+     */
+    byte[] readBlob(String blob) throws IOException {
+        if (catFile == null) {
+            catFile = new ProcessBuilder("git", "-C", topLevel.getPath(), "cat-file", "--batch")
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            catFileIn = catFile.getOutputStream();
+            catFileOut = new BufferedInputStream(catFile.getInputStream(), 64 * 1024);
+        }
+        catFileIn.write((blob + "\n").getBytes(StandardCharsets.US_ASCII));
+        catFileIn.flush();
+
+        // <blob> SP blob SP <taille> LF <contenu> LF
+        String[] header = readLine(catFileOut).split(" ");
+        if (header.length < 3) {
+            throw new IOException("Blob introuvable : " + blob);
+        }
+        byte[] content = new byte[Integer.parseInt(header[2])];
+        int read = 0;
+        while (read < content.length) {
+            int n = catFileOut.read(content, read, content.length - read);
+            if (n < 0) throw new EOFException("Blob tronqué : " + blob);
+            read += n;
+        }
+        catFileOut.read();
+        return content;
+    }
+
+    @Override
+    public void close() {
+        if (catFile != null) {
+            catFile.destroy();
+            catFile = null;
+        }
+    }
+
+    // ===============================================
+    // MÉTHODES AUXILIAIRES
+    // ===============================================
+
+    /**
+     * Chemin .java relatif au dossier analysé, ou null s'il est ailleurs dans le dépôt.
+     */
+    private String relative(String path) {
+        if (!path.endsWith(".java") || !path.startsWith(prefix)) {
+            return null;
+        }
+        return path.substring(prefix.length());
+    }
+
+    /**
+     * Commande limitée au dossier analysé.
+     */
+    private String[] pathspec(String... args) {
+        List<String> command = new ArrayList<>(Arrays.asList(args));
+        if (!prefix.isEmpty()) {
+            command.add("--");
+            command.add(prefix);
+        }
+        return command.toArray(new String[0]);
+    }
+
+    private static byte[] run(File dir, String... args) throws IOException {
+        List<String> command = new ArrayList<>(Arrays.asList("git", "-C", dir.getPath()));
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+        try {
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("git " + String.join(" ", args) + " a échoué (code " + exitCode + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Analyse interrompue");
+        }
+        return out.toByteArray();
+    }
+
+    private static String text(byte[] output) {
+        return new String(output, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> split(byte[] output) {
+        List<String> records = new ArrayList<>();
+        for (String record : text(output).split("\u0000")) {
+            if (!record.isEmpty()) records.add(record);
+        }
+        return records;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) throw new EOFException("cat-file arrêté");
+            line.write(b);
+        }
+        return line.toString("UTF-8");
+    }
+}
@@ -0,0 +1,131 @@
+package webanalyzer.parser;
+
+import graph.CompactCallGraph;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Totaux d'analyse tenus à jour fichier par fichier (mode surveillance) : la contribution
+ * d'un fichier est retirée puis remplacée par ses nouveaux faits, sans re-sommer les autres.
+ *
+ * Donne le même résultat que MetricsAccumulator sur les fichiers dans leur ordre d'ajout :
+ * pour un nom de classe déclaré par plusieurs fichiers, la valeur du dernier fichier ;
+ * le maximum de paramètres et les packages sont tenus par décompte. Le graphe d'appels est
+ * fusionné au fil de l'eau (CompactCallGraph.IncrementalMerge).
+ */
+class IncrementalMetrics {
+
+    // Compteurs, fichiers, classes et packages courants (callGraphs inutilisé)
+    private final MetricsAccumulator totals = new MetricsAccumulator();
+    private final CompactCallGraph.IncrementalMerge callGraph = new CompactCallGraph.IncrementalMerge();
+
+    // Rang de chaque fichier (ordre d'ajout) : départage les classes de même nom
+    private final Map<File, Long> ranks = new HashMap<>();
+    private long nextRank = 0;
+
+    private final TreeMap<Integer, Integer> maxParameterCounts = new TreeMap<>();
+    private final Map<String, TreeMap<Long, Integer>> methodsPerClass = new HashMap<>();
+    private final Map<String, TreeMap<Long, Integer>> attributesPerClass = new HashMap<>();
+    private final Map<String, Integer> packageCounts = new HashMap<>();
+    private final TreeMap<Long, QuarantinedFile> quarantinedFiles = new TreeMap<>();
+
+    /**
+     * Remplace la contribution d'un fichier : previous null pour un nouveau fichier, facts
+     * null pour un fichier oublié. Un fichier remplacé garde son rang.
+     */
+    void replace(File file, FileFacts previous, FileFacts facts) {
+        Long rank = ranks.get(file);
+        if (previous != null && rank != null) {
+            apply(file, rank, previous, -1);
+        }
+        if (facts == null || facts.skipped) {
+            totals.fileAnalyses.remove(file.getAbsolutePath()); // sinon remplacé à la même position
+        }
+        if (facts == null) {
+            ranks.remove(file);
+            return;
+        }
+        if (rank == null) {
+            rank = nextRank++;
+            ranks.put(file, rank);
+        }
+        apply(file, rank, facts, 1);
+    }
+
+    private void apply(File file, long rank, FileFacts facts, int sign) {
+        String path = file.getAbsolutePath();
+        if (facts.isQuarantined()) {
+            if (sign > 0) {
+                quarantinedFiles.put(rank, new QuarantinedFile(path, facts.quarantineReason,
+                        facts.skipped ? QuarantinedFile.Outcome.SKIPPED : QuarantinedFile.Outcome.SYNTACTIC));
+            } else {
+                quarantinedFiles.remove(rank);
+            }
+            if (facts.skipped) {
+                return;
+            }
+        }
+        totals.totalClasses += sign * facts.classes;
+        totals.totalInterfaces += sign * facts.interfaces;
+        totals.totalMethods += sign * facts.methods;
+        totals.totalLines += sign * facts.lines;
+        totals.totalAttributes += sign * facts.attributes;
+        totals.totalLinesInMethods += sign * facts.linesInMethods;
+        count(maxParameterCounts, facts.maxParameters, sign);
+        totals.maxParameters = maxParameterCounts.isEmpty() ? 0 : maxParameterCounts.lastKey();
+
+        if (sign > 0) {
+            totals.fileAnalyses.put(path, facts.toFileAnalysis(file.getName()));
+            callGraph.add(rank, facts.callGraph);
+        } else {
+            callGraph.remove(rank, facts.callGraph);
+        }
+        applyPerClass(methodsPerClass, totals.methodsPerClass, facts.methodsPerClass, rank, sign);
+        applyPerClass(attributesPerClass, totals.attributesPerClass, facts.attributesPerClass, rank, sign);
+        for (String name : facts.packageNames) {
+            count(packageCounts, name, sign);
+            if (packageCounts.containsKey(name)) {
+                totals.packageNames.add(name);
+            } else {
+                totals.packageNames.remove(name);
+            }
+        }
+    }
+
+    /**
+     * Valeurs par classe : la valeur retenue est celle du fichier de plus haut rang.
+     */
+    private static void applyPerClass(Map<String, TreeMap<Long, Integer>> byRank, Map<String, Integer> current,
+                                      Map<String, Integer> values, long rank, int sign) {
+        for (Map.Entry<String, Integer> e : values.entrySet()) {
+            TreeMap<Long, Integer> ranked = byRank.computeIfAbsent(e.getKey(), k -> new TreeMap<>());
+            if (sign > 0) {
+                ranked.put(rank, e.getValue());
+            } else {
+                ranked.remove(rank);
+            }
+            if (ranked.isEmpty()) {
+                byRank.remove(e.getKey());
+                current.remove(e.getKey());
+            } else {
+                current.put(e.getKey(), ranked.lastEntry().getValue());
+            }
+        }
+    }
+
+    private static <K> void count(Map<K, Integer> counts, K key, int sign) {
+        if (counts.merge(key, sign, Integer::sum) == 0) {
+            counts.remove(key);
+        }
+    }
+
+    /**
+     * Résultat courant : aucune fusion, le graphe d'appels est recopié en tableaux d'entiers.
+     */
+    AnalysisResult toResult() {
+        totals.quarantinedFiles.clear();
+        totals.quarantinedFiles.addAll(quarantinedFiles.values());
+        return new AnalysisResult(totals, callGraph.snapshot());
+    }
+}
@@ -0,0 +1,95 @@
+package webanalyzer.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Index des types (noms qualifiés) contenus dans les jars du classpath.
+ *
+ * Chaque jar est lu une seule fois : sa liste de types est écrite dans
+ * ~/.jdt-analyzer/jar-index/, sous une clé dérivée de son chemin, de sa taille
+ * et de sa date de modification, puis relue telle quelle lors des analyses suivantes.
+ */
+public class JarTypeIndex {
+
+    private static final Path DEFAULT_DIR = Paths.get(System.getProperty("user.home"), ".jdt-analyzer", "jar-index");
+
+    private final Map<String, String> jarByType = new HashMap<>(); // nom qualifié -> jar
+    private final Set<String> simpleNames = new HashSet<>();
+
+    public static JarTypeIndex load(List<String> jars) {
+        return load(jars, DEFAULT_DIR);
+    }
+
+    public static JarTypeIndex load(List<String> jars, Path indexDir) {
+        JarTypeIndex index = new JarTypeIndex();
+        for (String jar : jars) {
+            for (String type : typesOf(new File(jar), indexDir)) {
+                index.jarByType.putIfAbsent(type, jar);
+                index.simpleNames.add(type.substring(type.lastIndexOf('.') + 1));
+            }
+        }
+        return index;
+    }
+
+    /** Jar qui contient ce type (nom qualifié), ou null. */
+    public String jarOf(String qualifiedName) { return jarByType.get(qualifiedName); }
+    public boolean contains(String qualifiedName) { return jarByType.containsKey(qualifiedName); }
+    /** Noms simples des types des jars (sans les types imbriqués). */
+    public Set<String> getSimpleNames() { return Collections.unmodifiableSet(simpleNames); }
+    public int size() { return jarByType.size(); }
+
+    // ===============================================
+    // LECTURE ET CACHE PAR JAR
+    // ===============================================
+
+    private static List<String> typesOf(File jar, Path indexDir) {
+        Path entry = indexDir.resolve(FactCache.hash(
+                (jar.getAbsolutePath() + "|" + jar.length() + "|" + jar.lastModified()).getBytes(StandardCharsets.UTF_8)) + ".idx");
+        if (Files.isRegularFile(entry)) {
+            try {
+                return Files.readAllLines(entry, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                // entrée illisible : reconstruite ci-dessous
+            }
+        }
+
+        List<String> types = scan(jar);
+        try {
+            Files.createDirectories(indexDir);
+            Path tmp = Files.createTempFile(indexDir, "idx", ".tmp");
+            Files.write(tmp, types, StandardCharsets.UTF_8);
+            Files.move(tmp, entry, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Impossible d'écrire l'index du jar " + jar + " : " + e.getMessage());
+        }
+        return types;
+    }
+
+    /**
+     * Types de premier niveau du jar (les classes imbriquées et package-info sont ignorées).
+     */
+    private static List<String> scan(File jar) {
+        List<String> types = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(jar)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && name.indexOf('$') < 0 && !name.startsWith("META-INF/")
+                        && !name.endsWith("package-info.class") && !name.endsWith("module-info.class")) {
+                    types.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Jar illisible : " + jar + " (" + e.getMessage() + ")");
+        }
+        return types;
+    }
+}
@@ -0,0 +1,205 @@
+package webanalyzer.parser;
+
+import graph.CallGraphExtractor;
+import graph.SyntacticTypeResolver;
+import org.eclipse.jdt.core.dom.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Découpage d'un gros fichier (classes générées de 20k à 80k lignes) par méthode, une fois
+ * son AST construit : les corps des méthodes membres sont parcourus en sous-tâches fork/join
+ * (graphe d'appels et types locaux pour GlobalAnalysisVisitor), puis le parcours principal,
+ * réduit au squelette des types, reprend ces résultats dans l'ordre des déclarations.
+ *
+ * Les méthodes consécutives sont regroupées jusqu'à TASK_LENGTH caractères de corps par
+ * sous-tâche. Les méthodes des classes anonymes et des types locaux restent dans le corps
+ * de la méthode qui les contient.
+ *
+ * Mode sans bindings seulement : le résolveur de bindings d'un AST n'est pas thread-safe, et
+ * les sous-tâches d'un fichier avec bindings se sérialiseraient sur lui (voir Parser.extractFacts).
+ */
+final class MethodBodySplit {
+
+    // Taille (caractères) à partir de laquelle un fichier est découpé
+    static final int MIN_UNIT_LENGTH = 256 * 1024;
+    // Taille cumulée des corps de méthodes d'une sous-tâche
+    static final int TASK_LENGTH = 32 * 1024;
+
+    private final List<MethodDeclaration> methods = new ArrayList<>();
+    // Types membres déclarés avant chaque méthode (types connus du résolveur syntaxique)
+    private final List<String> typeNames = new ArrayList<>();
+    private final List<Integer> typesBefore = new ArrayList<>();
+    private final List<int[]> chunks = new ArrayList<>(); // [début, fin[ dans methods
+
+    private final Map<MethodDeclaration, CallGraphExtractor.MethodCalls> methodCalls = new HashMap<>();
+    private final Map<MethodDeclaration, List<ASTNode>> nestedDeclarations = new HashMap<>();
+
+    private MethodBodySplit() {
+    }
+
+    /**
+     * Découpage d'un fichier, ou null s'il est trop petit pour en tirer parti.
+     */
+    static MethodBodySplit of(CompilationUnit cu) {
+        if (cu.getLength() < MIN_UNIT_LENGTH) {
+            return null;
+        }
+        MethodBodySplit split = members(cu);
+
+        int start = 0, length = 0;
+        for (int i = 0; i < split.methods.size(); i++) {
+            Block body = split.methods.get(i).getBody();
+            length += body == null ? 0 : body.getLength();
+            if (length >= TASK_LENGTH) {
+                split.chunks.add(new int[]{start, i + 1});
+                start = i + 1;
+                length = 0;
+            }
+        }
+        if (start < split.methods.size()) {
+            split.chunks.add(new int[]{start, split.methods.size()});
+        }
+        return split.chunks.size() < 2 ? null : split;
+    }
+
+    /**
+     * Méthodes membres d'un fichier, sans découpage (voir getMethods, knownTypesBefore).
+     */
+    static MethodBodySplit members(CompilationUnit cu) {
+        MethodBodySplit split = new MethodBodySplit();
+        cu.accept(split.new MemberMethodCollector());
+        return split;
+    }
+
+    List<MethodDeclaration> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Types membres déclarés avant la méthode d'indice i : types connus du résolveur syntaxique
+     * lorsque le parcours séquentiel l'atteint.
+     */
+    List<String> knownTypesBefore(int i) {
+        return typeNames.subList(0, typesBefore.get(i));
+    }
+
+    /**
+     * Parcourt les corps de méthodes, une sous-tâche par groupe : dans le pool de la tâche
+     * courante (worker de ParallelAnalysisEngine, qui aide à les exécuter au lieu d'attendre),
+     * sinon dans le pool commun.
+     *
+     * @param projectTypes types du projet connus du résolveur syntaxique
+     */
+    void run(Set<String> projectTypes) {
+        List<ChunkTask> tasks = new ArrayList<>();
+        for (int[] chunk : chunks) {
+            tasks.add(new ChunkTask(chunk[0], chunk[1], projectTypes));
+        }
+        if (ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+        for (ChunkTask t : tasks) {
+            methodCalls.putAll(t.methodCalls);
+            nestedDeclarations.putAll(t.nestedDeclarations);
+        }
+    }
+
+    Map<MethodDeclaration, CallGraphExtractor.MethodCalls> getMethodCalls() {
+        return methodCalls;
+    }
+
+    Map<MethodDeclaration, List<ASTNode>> getNestedDeclarations() {
+        return nestedDeclarations;
+    }
+
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+        private final Set<String> projectTypes;
+        final Map<MethodDeclaration, CallGraphExtractor.MethodCalls> methodCalls = new HashMap<>();
+        final Map<MethodDeclaration, List<ASTNode>> nestedDeclarations = new HashMap<>();
+
+        ChunkTask(int from, int to, Set<String> projectTypes) {
+            this.from = from;
+            this.to = to;
+            this.projectTypes = projectTypes;
+        }
+
+        @Override
+        protected void compute() {
+            SyntacticTypeResolver resolver = null;
+            ASTNode resolverType = null;
+            for (int i = from; i < to; i++) {
+                MethodDeclaration method = methods.get(i);
+                // un résolveur par type englobant, partagé par ses méthodes consécutives
+                if (method.getParent() != resolverType) {
+                    resolverType = method.getParent();
+                    resolver = CallGraphExtractor.resolverFor((AbstractTypeDeclaration) resolverType, projectTypes);
+                }
+                resolver.addKnownTypes(knownTypesBefore(i));
+                methodCalls.put(method, CallGraphExtractor.extractMethod(method, resolver));
+                nestedDeclarations.put(method, Parser.GlobalAnalysisVisitor.nestedDeclarations(method));
+            }
+        }
+    }
+
+    /**
+     * Méthodes des types membres (classes, interfaces, enums), sans descendre dans les corps,
+     * les initialiseurs ni les classes anonymes.
+     */
+    private class MemberMethodCollector extends ASTVisitor {
+
+        @Override
+        public boolean visit(TypeDeclaration node) {
+            typeNames.add(node.getName().getIdentifier());
+            return true;
+        }
+
+        @Override
+        public boolean visit(EnumDeclaration node) {
+            typeNames.add(node.getName().getIdentifier());
+            return true;
+        }
+
+        @Override
+        public boolean visit(MethodDeclaration node) {
+            methods.add(node);
+            typesBefore.add(typeNames.size());
+            return false;
+        }
+
+        @Override
+        public boolean visit(AnnotationTypeDeclaration node) {
+            return false;
+        }
+
+        @Override
+        public boolean visit(FieldDeclaration node) {
+            return false;
+        }
+
+        @Override
+        public boolean visit(Initializer node) {
+            return false;
+        }
+
+        @Override
+        public boolean visit(EnumConstantDeclaration node) {
+            return false;
+        }
+    }
+}
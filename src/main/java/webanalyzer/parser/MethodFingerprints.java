@@ -0,0 +1,114 @@
+package webanalyzer.parser;
+
+import org.eclipse.jdt.core.dom.*;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Empreintes d'un fichier au niveau des méthodes (mode surveillance) : une empreinte par
+ * méthode membre (signature et corps normalisés : ni espaces ni commentaires) et une pour
+ * le squelette (package, imports, en-têtes des types, attributs, signatures).
+ *
+ * Tant que le squelette ne change pas, une modification se limite aux corps des méthodes
+ * dont l'empreinte diffère : seuls leurs appels sont à résoudre de nouveau
+ * (Parser.updateChangedMethods), et les autres fichiers ne peuvent pas en dépendre.
+ */
+final class MethodFingerprints implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long skeleton;
+    private final long[] methods;     // dans l'ordre des méthodes membres
+    private final boolean localTypes; // un corps déclare une classe locale
+
+    private MethodFingerprints(long skeleton, long[] methods, boolean localTypes) {
+        this.skeleton = skeleton;
+        this.methods = methods;
+        this.localTypes = localTypes;
+    }
+
+    static MethodFingerprints of(CompilationUnit cu) {
+        List<MethodDeclaration> members = MethodBodySplit.members(cu).getMethods();
+        long[] methods = new long[members.size()];
+        boolean localTypes = false;
+        for (int i = 0; i < methods.length; i++) {
+            MethodDeclaration method = members.get(i);
+            methods[i] = hash(signature(method) + (method.getBody() == null ? ";" : method.getBody().toString()));
+            for (ASTNode n : Parser.GlobalAnalysisVisitor.nestedDeclarations(method)) {
+                localTypes |= n instanceof TypeDeclaration;
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (cu.getPackage() != null) {
+            sb.append(cu.getPackage());
+        }
+        for (Object imp : cu.imports()) {
+            sb.append(imp);
+        }
+        appendTypes(cu.types(), sb);
+        return new MethodFingerprints(hash(sb.toString()), methods, localTypes);
+    }
+
+    /**
+     * Indices des méthodes modifiées depuis ces empreintes, ou null si le squelette a changé.
+     */
+    List<Integer> changedMethods(MethodFingerprints newer) {
+        if (skeleton != newer.skeleton || methods.length != newer.methods.length) {
+            return null;
+        }
+        List<Integer> changed = new ArrayList<>();
+        for (int i = 0; i < methods.length; i++) {
+            if (methods[i] != newer.methods[i]) {
+                changed.add(i);
+            }
+        }
+        return changed;
+    }
+
+    boolean hasLocalTypes() {
+        return localTypes;
+    }
+
+    // ===============================================
+    // NORMALISATION
+    // ===============================================
+
+    private static void appendTypes(List<?> declarations, StringBuilder sb) {
+        for (Object o : declarations) {
+            if (o instanceof TypeDeclaration) {
+                TypeDeclaration td = (TypeDeclaration) o;
+                sb.append(td.modifiers()).append(td.isInterface() ? " interface " : " class ")
+                        .append(td.getName()).append(td.typeParameters())
+                        .append(" extends ").append(td.getSuperclassType())
+                        .append(" implements ").append(td.superInterfaceTypes()).append('{');
+                appendTypes(td.bodyDeclarations(), sb);
+                sb.append('}');
+            } else if (o instanceof EnumDeclaration) {
+                EnumDeclaration ed = (EnumDeclaration) o;
+                sb.append(ed.modifiers()).append(" enum ").append(ed.getName())
+                        .append(" implements ").append(ed.superInterfaceTypes())
+                        .append('{').append(ed.enumConstants()).append(';');
+                appendTypes(ed.bodyDeclarations(), sb);
+                sb.append('}');
+            } else if (o instanceof MethodDeclaration) {
+                MethodDeclaration md = (MethodDeclaration) o;
+                sb.append(signature(md)).append(md.getBody() == null ? ";" : "{}");
+            } else {
+                sb.append(o); // attributs, initialiseurs, types annotation
+            }
+        }
+    }
+
+    private static String signature(MethodDeclaration md) {
+        return md.modifiers() + " " + md.typeParameters() + " " + md.getReturnType2() + " " + md.getName()
+                + md.parameters() + "[]x" + md.getExtraDimensions() + " throws " + md.thrownExceptions();
+    }
+
+    // 64 premiers bits du SHA-256 du texte normalisé
+    private static long hash(String text) {
+        return Long.parseUnsignedLong(FactCache.hash(text.getBytes(StandardCharsets.UTF_8)).substring(0, 16), 16);
+    }
+}
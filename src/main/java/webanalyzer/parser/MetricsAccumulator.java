@@ -0,0 +1,96 @@
+package webanalyzer.parser;
+
+import graph.CompactCallGraph;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Accumulateur mutable des métriques d'analyse.
+ * Chaque worker possède le sien : aucune synchronisation n'est nécessaire,
+ * les accumulateurs sont fusionnés (merge) à la fin dans l'ordre des fichiers.
+ */
+public class MetricsAccumulator {
+
+    // --- Compteurs ---
+    int totalClasses = 0;
+    int totalInterfaces = 0;
+    int totalMethods = 0;
+    int totalLines = 0;
+    int totalAttributes = 0;
+    int totalLinesInMethods = 0;
+    int maxParameters = 0;
+
+    // --- Structures de données ---
+    final Map<String, Parser.FileAnalysis> fileAnalyses = new LinkedHashMap<>();
+    // graphes compacts par fichier, fusionnés une seule fois dans toResult()
+    final List<CompactCallGraph> callGraphs = new ArrayList<>();
+    final Map<String, Integer> methodsPerClass = new HashMap<>();
+    final Map<String, Integer> attributesPerClass = new HashMap<>();
+    final Set<String> packageNames = new HashSet<>();
+    final List<QuarantinedFile> quarantinedFiles = new ArrayList<>();
+
+    /**
+     * Ajoute la contribution d'un fichier (faits fraîchement extraits ou lus du cache).
+     */
+    public MetricsAccumulator add(File file, FileFacts facts) {
+        return add(file.getAbsolutePath(), file.getName(), facts);
+    }
+
+    /**
+     * Variante pour une source sans fichier sur disque (entrée d'archive "archive!/a/B.java").
+     */
+    public MetricsAccumulator add(String path, String fileName, FileFacts facts) {
+        if (facts.isQuarantined()) {
+            quarantinedFiles.add(new QuarantinedFile(path, facts.quarantineReason,
+                    facts.skipped ? QuarantinedFile.Outcome.SKIPPED : QuarantinedFile.Outcome.SYNTACTIC));
+            if (facts.skipped) {
+                return this;
+            }
+        }
+        totalClasses += facts.classes;
+        totalInterfaces += facts.interfaces;
+        totalMethods += facts.methods;
+        totalLines += facts.lines;
+        totalAttributes += facts.attributes;
+        totalLinesInMethods += facts.linesInMethods;
+        maxParameters = Math.max(maxParameters, facts.maxParameters);
+
+        fileAnalyses.put(path, facts.toFileAnalysis(fileName));
+        callGraphs.add(facts.callGraph);
+        methodsPerClass.putAll(facts.methodsPerClass);
+        attributesPerClass.putAll(facts.attributesPerClass);
+        packageNames.addAll(facts.packageNames);
+        return this;
+    }
+
+    /**
+     * Ajoute les valeurs d'un autre accumulateur à celui-ci.
+     * L'autre accumulateur doit couvrir des fichiers situés APRÈS ceux de celui-ci
+     * (les entrées par classe sont écrasées comme en analyse séquentielle).
+     */
+    public MetricsAccumulator merge(MetricsAccumulator other) {
+        totalClasses += other.totalClasses;
+        totalInterfaces += other.totalInterfaces;
+        totalMethods += other.totalMethods;
+        totalLines += other.totalLines;
+        totalAttributes += other.totalAttributes;
+        totalLinesInMethods += other.totalLinesInMethods;
+        maxParameters = Math.max(maxParameters, other.maxParameters);
+
+        fileAnalyses.putAll(other.fileAnalyses);
+        callGraphs.addAll(other.callGraphs);
+        methodsPerClass.putAll(other.methodsPerClass);
+        attributesPerClass.putAll(other.attributesPerClass);
+        packageNames.addAll(other.packageNames);
+        quarantinedFiles.addAll(other.quarantinedFiles);
+        return this;
+    }
+
+    /**
+     * Fige l'état courant dans un résultat immuable (calcul des moyennes inclus).
+     */
+    public AnalysisResult toResult() {
+        return new AnalysisResult(this);
+    }
+}
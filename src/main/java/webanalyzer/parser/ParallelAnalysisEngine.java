@@ -0,0 +1,306 @@
+package webanalyzer.parser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Moteur d'analyse parallèle : les fichiers sont répartis en lots (createASTs, cache) sur un
+ * ForkJoinPool, les plus coûteux d'abord selon le modèle de coût du Parser (CostModel) : un
+ * gros fichier découvert en dernier ne laisse plus les autres workers inactifs en fin
+ * d'analyse. Les lots sont soumis dans cet ordre et pris par les workers libres ; les faits
+ * sont ensuite ajoutés dans l'ordre des fichiers : le résultat est identique à celui du
+ * parcours séquentiel.
+ */
+public class ParallelAnalysisEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelAnalysisEngine.class);
+
+    // Taille des lots soumis en mode flux (nombre total de fichiers inconnu à l'avance)
+    private static final int STREAM_CHUNK_SIZE = 64;
+
+    private final Parser parser;
+    private final int parallelism;
+
+    public ParallelAnalysisEngine(Parser parser) {
+        this(parser, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelAnalysisEngine(Parser parser, int parallelism) {
+        this.parser = parser;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public AnalysisResult analyze(List<File> javaFiles) throws IOException {
+        return analyzeModules(Collections.singletonList(parser), Collections.singletonList(javaFiles)).get(0).toResult();
+    }
+
+    /**
+     * Variante en flux. L'ordonnancement LPT a besoin de tous les fichiers : avec des coûts
+     * mesurés, la fin de la découverte est attendue avant le premier lot (le parsing ne
+     * recouvre plus la découverte, mais les gros fichiers partent en premier). Sans aucune
+     * mesure (première analyse), l'estimation ne serait que la taille des fichiers : les lots
+     * sont alors soumis au fil de la découverte, comme pour une archive, et leurs durées
+     * alimentent le modèle pour les analyses suivantes.
+     */
+    public AnalysisResult analyze(BlockingQueue<File> queue) throws IOException {
+        CostModel model = parser.getCostModel();
+        if (model == null || model.size() == 0) {
+            return stream(queue);
+        }
+        List<File> javaFiles = new ArrayList<>();
+        File javaFile;
+        while ((javaFile = SourceDiscovery.next(queue)) != SourceDiscovery.END) {
+            javaFiles.add(javaFile);
+        }
+        return analyze(javaFiles);
+    }
+
+    /**
+     * Lots de STREAM_CHUNK_SIZE fichiers soumis au pool au fur et à mesure que la découverte
+     * remplit la file, fusionnés dans l'ordre de soumission.
+     */
+    private AnalysisResult stream(BlockingQueue<File> queue) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<ForkJoinTask<MetricsAccumulator>> tasks = new ArrayList<>();
+        try {
+            List<File> chunk = new ArrayList<>();
+            File javaFile;
+            while ((javaFile = SourceDiscovery.next(queue)) != SourceDiscovery.END) {
+                chunk.add(javaFile);
+                if (chunk.size() >= STREAM_CHUNK_SIZE) {
+                    tasks.add(pool.submit(filesTask(chunk)));
+                    chunk = new ArrayList<>();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                tasks.add(pool.submit(filesTask(chunk)));
+            }
+
+            MetricsAccumulator acc = new MetricsAccumulator();
+            for (ForkJoinTask<MetricsAccumulator> task : tasks) {
+                acc.merge(task.join());
+            }
+            return acc.toResult();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Variante pour les entrées d'une archive : lots soumis au fil de la lecture,
+     * fusionnés dans l'ordre de l'archive.
+     */
+    public AnalysisResult analyzeEntries(BlockingQueue<SourceArchive.Entry> queue, SourceArchive archive) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<ForkJoinTask<MetricsAccumulator>> tasks = new ArrayList<>();
+        try {
+            List<SourceArchive.Entry> chunk = new ArrayList<>();
+            SourceArchive.Entry entry;
+            while ((entry = SourceArchive.next(queue)) != SourceArchive.END) {
+                chunk.add(entry);
+                if (chunk.size() >= STREAM_CHUNK_SIZE) {
+                    tasks.add(pool.submit(entriesTask(chunk, archive)));
+                    chunk = new ArrayList<>();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                tasks.add(pool.submit(entriesTask(chunk, archive)));
+            }
+
+            MetricsAccumulator acc = new MetricsAccumulator();
+            for (ForkJoinTask<MetricsAccumulator> task : tasks) {
+                acc.merge(task.join());
+            }
+            return acc.toResult();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Variante multi-module : chaque module est analysé par son propre Parser (sourcepath du module),
+     * les lots de tous les modules partageant le même pool. Un accumulateur par module, dans l'ordre donné.
+     */
+    public List<MetricsAccumulator> analyzeModules(List<Parser> moduleParsers, List<List<File>> moduleFiles) throws IOException {
+        FileFacts[][] facts = new FileFacts[moduleFiles.size()][];
+        for (int m = 0; m < facts.length; m++) {
+            facts[m] = new FileFacts[moduleFiles.get(m).size()];
+        }
+        List<WorkUnit> units = schedule(moduleParsers, moduleFiles, facts);
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // file de soumission FIFO : les workers libres prennent les lots dans l'ordre LPT
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (WorkUnit unit : units) {
+                tasks.add(pool.submit(unit));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+        logBalance(units, System.nanoTime() - start);
+
+        List<MetricsAccumulator> accs = new ArrayList<>();
+        for (int m = 0; m < facts.length; m++) {
+            MetricsAccumulator acc = new MetricsAccumulator();
+            for (int i = 0; i < facts[m].length; i++) {
+                if (facts[m][i] != null) {
+                    acc.add(moduleFiles.get(m).get(i), facts[m][i]);
+                }
+            }
+            accs.add(acc);
+        }
+        return accs;
+    }
+
+    // ===============================================
+    // ORDONNANCEMENT
+    // ===============================================
+
+    /**
+     * Lots du plus coûteux au moins coûteux (LPT), ~4 par worker : un fichier au moins aussi
+     * coûteux que la cible forme son propre lot, les suivants sont regroupés par module
+     * jusqu'à atteindre la cible.
+     */
+    private List<WorkUnit> schedule(List<Parser> moduleParsers, List<List<File>> moduleFiles, FileFacts[][] facts) {
+        CostModel model = parser.getCostModel() != null ? parser.getCostModel() : new CostModel();
+        List<long[]> files = new ArrayList<>(); // {coût, module, indice}
+        long total = 0;
+        for (int m = 0; m < moduleFiles.size(); m++) {
+            long[] costs = model.estimate(moduleFiles.get(m));
+            for (int i = 0; i < costs.length; i++) {
+                files.add(new long[]{costs[i], m, i});
+                total += costs[i];
+            }
+        }
+        files.sort((a, b) -> Long.compare(b[0], a[0]));
+
+        long target = Math.max(1, total / (parallelism * 4));
+        List<WorkUnit> units = new ArrayList<>();
+        Map<Integer, WorkUnit> open = new HashMap<>();
+        for (long[] f : files) {
+            int m = (int) f[1];
+            WorkUnit unit = open.computeIfAbsent(m, k -> new WorkUnit(moduleParsers.get(k), moduleFiles.get(k), facts[k]));
+            unit.add((int) f[2], f[0]);
+            if (unit.estimated >= target) {
+                units.add(unit);
+                open.remove(m);
+            }
+        }
+        units.addAll(open.values());
+        units.sort(Comparator.comparingLong((WorkUnit u) -> u.estimated).reversed());
+        return units;
+    }
+
+    /**
+     * Écart à l'équilibre idéal : durée de la phase parallèle comparée au plus grand de
+     * (travail total / workers) et du lot le plus long.
+     */
+    private void logBalance(List<WorkUnit> units, long elapsedNanos) {
+        if (!LOG.isDebugEnabled()) {
+            return;
+        }
+        long work = 0, longest = 0;
+        for (WorkUnit unit : units) {
+            work += unit.elapsed;
+            longest = Math.max(longest, unit.elapsed);
+        }
+        long ideal = Math.max(work / parallelism, longest);
+        LOG.debug(String.format("Ordonnancement : %d lots sur %d workers en %d ms, idéal %d ms (écart %+.1f %%)",
+                units.size(), parallelism, elapsedNanos / 1_000_000, ideal / 1_000_000,
+                ideal > 0 ? 100.0 * (elapsedNanos - ideal) / ideal : 0.0));
+    }
+
+    private Callable<MetricsAccumulator> filesTask(List<File> files) {
+        return () -> {
+            MetricsAccumulator acc = new MetricsAccumulator();
+            FileFacts[] facts;
+            try {
+                facts = parser.extractFacts(files, true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (int i = 0; i < facts.length; i++) {
+                if (facts[i] != null) {
+                    acc.add(files.get(i), facts[i]);
+                }
+            }
+            return acc;
+        };
+    }
+
+    private Callable<MetricsAccumulator> entriesTask(List<SourceArchive.Entry> entries, SourceArchive archive) {
+        return () -> {
+            MetricsAccumulator acc = new MetricsAccumulator();
+            parser.analyzeEntries(entries, archive, acc);
+            return acc;
+        };
+    }
+
+    /**
+     * Lot de fichiers d'un module, analysé par un seul createASTs ; ses faits sont rangés
+     * à l'indice de chaque fichier.
+     */
+    private static class WorkUnit extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Parser parser;
+        private final List<File> moduleFiles;
+        private final FileFacts[] moduleFacts;
+        private final List<Integer> indices = new ArrayList<>();
+        long estimated;
+        long elapsed;
+
+        WorkUnit(Parser parser, List<File> moduleFiles, FileFacts[] moduleFacts) {
+            this.parser = parser;
+            this.moduleFiles = moduleFiles;
+            this.moduleFacts = moduleFacts;
+        }
+
+        void add(int index, long cost) {
+            indices.add(index);
+            estimated += cost;
+        }
+
+        @Override
+        protected void compute() {
+            long start = System.nanoTime();
+            List<File> files = new ArrayList<>();
+            for (int i : indices) {
+                files.add(moduleFiles.get(i));
+            }
+            try {
+                FileFacts[] facts = parser.extractFacts(files, true);
+                for (int k = 0; k < facts.length; k++) {
+                    moduleFacts[indices.get(k)] = facts[k];
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            elapsed = System.nanoTime() - start;
+        }
+    }
+}
@@ -1,18 +1,24 @@
 package webanalyzer.parser;
 
-import org.apache.commons.io.FileUtils;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jdt.core.dom.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.stereotype.Service;
 
+import graph.CallGraphExtractor;
 import graph.ClassMethodCallVisitor;
+import graph.CompactCallGraph;
+import graph.SyntacticTypeResolver;
 import visiteurs.PackageCounterVisitor;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Analyseur Java par fichier et projet complet avec graphe d'appels.
@@ -20,43 +26,137 @@ import java.util.stream.Collectors;
 @Service
 public class Parser {
 
-    // --- Métriques globales ---
-    private int totalClasses = 0;
-    private int totalInterfaces = 0;
-    private int totalMethods = 0;
-    private int totalLines = 0;
-    private int totalPackage = 0;
-    private int totalAttributes = 0;
-    private int totalLinesInMethods = 0;
-    private int maxParameters = 0;
-
-    private double avgMethodsPerClass = 0.0;
-    private double avgLinesPerMethod = 0.0;
-    private double avgAttributesPerClass = 0.0;
-
-    // --- Structures de données pour les tops et stats ---
-    private final Map<String, FileAnalysis> fileAnalyses = new LinkedHashMap<>();
-    private final Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> classMethodCalls = new LinkedHashMap<>();
-    private final Map<String, Integer> methodsPerClass = new HashMap<>(); // NOM DE CLASSE -> NOMBRE DE METHODES
-    private final Map<String, Integer> attributesPerClass = new HashMap<>(); // NOM DE CLASSE -> NOMBRE D'ATTRIBUTS
+    private static final Logger LOG = LoggerFactory.getLogger(Parser.class);
+
+    /**
+     * Version de l'extraction des faits : à incrémenter dès que le contenu de
+     * FileFacts change, afin d'invalider les caches d'analyse existants.
+     */
+    public static final String ANALYZER_VERSION = "11";
+
+    // --- Résultat de la dernière analyse (immuable) ---
+    private AnalysisResult result = AnalysisResult.EMPTY;
 
     //chemin du projet
     private String projectPath;
 
+    // --- Mode de construction des AST ---
+    /**
+     * SEQUENTIAL : un ASTParser et un createAST par fichier.
+     * BATCH : un seul ASTParser.createASTs pour tout le projet, l'environnement
+     * de noms et les bindings des types partagés sont résolus une seule fois.
+     * PARALLEL : lots createASTs répartis sur un ForkJoinPool (ParallelAnalysisEngine).
+     * SHARDED : lots analysés dans des JVM filles, un tas par processus (ShardCoordinator).
+     * PIPELINED : lecture des fichiers sur threads virtuels (Java 21), parsing sur un pool
+     * de threads plateforme, un createAST par fichier (PipelinedAnalysisEngine).
+     */
+    public enum ParseMode { SEQUENTIAL, BATCH, PARALLEL, SHARDED, PIPELINED }
+
+    private ParseMode parseMode = ParseMode.PARALLEL;
+    // Mode SHARDED : JVM filles lancées en même temps et leurs options (-Xmx...)
+    private int shardWorkers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private boolean shardWorkersConfigured = false; // setShardWorkers appelé
+    private List<String> workerJvmOptions = Collections.emptyList();
+
+    // --- Résolution des types receveurs ---
+    /**
+     * BINDINGS : AST avec bindings JDT (précis, lent sur les gros projets).
+     * SYNTACTIC : mode rapide sans bindings, types déduits des imports, déclarations
+     * et de l'index des types du projet ; le couplage obtenu est approximatif.
+     */
+    public enum ResolutionMode { BINDINGS, SYNTACTIC }
+
+    private ResolutionMode resolutionMode = ResolutionMode.BINDINGS;
+
+    // --- Source des faits ---
+    /**
+     * SOURCE : fichiers .java parsés par JDT.
+     * BYTECODE : classes compilées (target/classes, build/classes..., jar) lues avec ASM ;
+     * graphe d'appels exact et bien plus rapide, métriques de taille approchées (voir BytecodeAnalyzer).
+     */
+    public enum Backend { SOURCE, BYTECODE }
+
+    private Backend backend = Backend.SOURCE;
+    // Index des noms de types du projet (noms des fichiers), utilisé en mode SYNTACTIC
+    volatile Set<String> projectTypeNames = Collections.emptySet();
+    private long lastAnalysisTimeMs = 0;
+
+    // --- Découverte des sources ---
+    private static final int DISCOVERY_QUEUE_CAPACITY = 1024;
+    // Entrées d'archive lues d'avance (contenu en mémoire)
+    private static final int ARCHIVE_QUEUE_CAPACITY = 256;
+    // Nombre de fichiers par appel createASTs en mode BATCH (l'analyse démarre sans attendre la fin du parcours)
+    private static final int BATCH_SIZE = 512;
+    private List<String> excludeGlobs = SourceDiscovery.DEFAULT_EXCLUDES;
+
+    // Cache persistant des faits par fichier (optionnel)
+    private FactCache factCache;
+
+    // Durées de parsing mesurées par fichier, pour ordonnancer l'analyse parallèle (optionnel)
+    private CostModel costModel;
+
+    // Empreintes des méthodes dans les faits (mode surveillance, voir updateChangedMethods)
+    private boolean methodFingerprints = false;
+    // Au-delà, reparser tout le fichier revient moins cher que deux parsings (squelette, puis
+    // bindings des seuls corps modifiés)
+    private static final int MAX_CHANGED_METHODS = 4;
+
+    // Classpath du projet (JRE + jars des dépendances), résolu depuis son pom.xml / build.gradle
+    private volatile ClasspathResolver classpath;
+
+    // Limites par fichier (taille, temps, nœuds AST) au-delà desquelles il est mis en quarantaine
+    private FileBudget fileBudget = FileBudget.DEFAULT;
+
+    // --- Projets multi-module (réacteur Maven, multi-projet Gradle) ---
+    // Nom du groupe des fichiers situés hors des dossiers sources des modules
+    public static final String OUTSIDE_MODULES = "(hors modules)";
+    private boolean moduleDetection = true;
+    // Sourcepath propre au module analysé (null : tous les dossiers sources du projet)
+    String[] sourcepath;
+    // Empreinte du classpath et du sourcepath (clé du cache en mode BINDINGS), remise à null
+    // à chaque changement de classpath
+    private volatile String environmentDigest;
+    // Empreintes des fichiers sources déclarant des types référencés : chemin -> {longueur, date, empreinte}
+    // (pour les jars du classpath : JAR_HASHES, commun aux Parser du processus)
+    private static final Map<String, String[]> JAR_HASHES = new java.util.concurrent.ConcurrentHashMap<>();
+    private final Map<String, String[]> sourceHashes = new java.util.concurrent.ConcurrentHashMap<>();
+    private Map<String, AnalysisResult> moduleResults = Collections.emptyMap();
+    private Map<String, Map<String, Integer>> crossModuleCalls = Collections.emptyMap();
+
     // ===============================================
     // CLASSE INTERNE : ANALYSE PAR FICHIER
     // ===============================================
-    public static class FileAnalysis {
+    public static class FileAnalysis implements java.io.Serializable {
+        private static final long serialVersionUID = 1L;
         private final String fileName;
         private final List<String> classes = new ArrayList<>();
         private final List<String> methods = new ArrayList<>();
+        private int lines;
+        private int packages;
+        private double avgMethodsPerClass;
+        private double avgLinesPerMethod;
+        private double avgAttributesPerClass;
+        // Les 10 % des méthodes les plus longues, par classe
+        private final Map<String, List<String>> longestMethods = new LinkedHashMap<>();
 
         public FileAnalysis(String fileName) { this.fileName = fileName; }
         public void addClass(String cls) { classes.add(cls); }
         public void addMethods(Collection<String> m) { methods.addAll(m); }
+        public void setLines(int lines) { this.lines = lines; }
+        public void setPackages(int packages) { this.packages = packages; }
+        public void setAvgMethodsPerClass(double avg) { this.avgMethodsPerClass = avg; }
+        public void setAvgLinesPerMethod(double avg) { this.avgLinesPerMethod = avg; }
+        public void setAvgAttributesPerClass(double avg) { this.avgAttributesPerClass = avg; }
+        public void putLongestMethods(String cls, List<String> m) { longestMethods.put(cls, m); }
         public String getFileName() { return fileName; }
         public List<String> getClasses() { return classes; }
         public List<String> getMethods() { return methods; }
+        public int getLines() { return lines; }
+        public int getPackages() { return packages; }
+        public double getAvgMethodsPerClass() { return avgMethodsPerClass; }
+        public double getAvgLinesPerMethod() { return avgLinesPerMethod; }
+        public double getAvgAttributesPerClass() { return avgAttributesPerClass; }
+        public Map<String, List<String>> getLongestMethods() { return longestMethods; }
     }
 
 
@@ -66,20 +166,61 @@ public class Parser {
 
     /**
      * Visiteur pour collecter les métriques spécifiques par classe/interface.
+     * Les valeurs sont écrites dans les faits du fichier visité.
      */
-    public class GlobalAnalysisVisitor extends ASTVisitor {
+    public static class GlobalAnalysisVisitor extends ASTVisitor {
+        private final FileFacts facts;
         private String currentClassName = null;
+        // Corps déjà parcourus en sous-tâche : types locaux et leurs méthodes, à rejouer
+        private Map<MethodDeclaration, List<ASTNode>> precomputed = Collections.emptyMap();
+
+        public GlobalAnalysisVisitor(FileFacts facts) {
+            this.facts = facts;
+        }
+
+        public void setPrecomputed(Map<MethodDeclaration, List<ASTNode>> precomputed) {
+            this.precomputed = precomputed;
+        }
+
+        /**
+         * Déclarations rencontrées dans le corps d'une méthode, dans l'ordre du parcours :
+         * un type local y figure deux fois (visite, puis fin de visite), ses méthodes entre les deux.
+         */
+        static List<ASTNode> nestedDeclarations(MethodDeclaration method) {
+            List<ASTNode> nested = new ArrayList<>();
+            if (method.getBody() != null) {
+                method.getBody().accept(new ASTVisitor() {
+                    @Override
+                    public boolean visit(TypeDeclaration node) {
+                        nested.add(node);
+                        return true;
+                    }
+
+                    @Override
+                    public void endVisit(TypeDeclaration node) {
+                        nested.add(node);
+                    }
+
+                    @Override
+                    public boolean visit(MethodDeclaration node) {
+                        nested.add(node);
+                        return true;
+                    }
+                });
+            }
+            return nested;
+        }
 
         @Override
         public boolean visit(TypeDeclaration node) {
             currentClassName = node.getName().getIdentifier();
-            methodsPerClass.put(currentClassName, 0);
-            attributesPerClass.put(currentClassName, 0);
+            facts.methodsPerClass.put(currentClassName, 0);
+            facts.attributesPerClass.put(currentClassName, 0);
             
             if (node.isInterface()) {
-                totalInterfaces++;
+                facts.interfaces++;
             } else {
-                totalClasses++;
+                facts.classes++;
             }
 
             // Compter les attributs (Fields)
@@ -87,8 +228,8 @@ public class Parser {
             for (FieldDeclaration fd : node.getFields()) {
                 attributeCount += fd.fragments().size();
             }
-            attributesPerClass.put(currentClassName, attributeCount);
-            totalAttributes += attributeCount;
+            facts.attributesPerClass.put(currentClassName, attributeCount);
+            facts.attributes += attributeCount;
 
             return true; 
         }
@@ -97,23 +238,52 @@ public class Parser {
         public boolean visit(MethodDeclaration node) {
             if (currentClassName != null) {
                 // 1. Compter les méthodes par classe
-                methodsPerClass.merge(currentClassName, 1, Integer::sum);
-                totalMethods++;
+                facts.methodsPerClass.merge(currentClassName, 1, Integer::sum);
+                facts.methods++;
                 
                 // 2. Compter les lignes de la méthode (approximatif)
                 if (node.getBody() != null) {
-                    totalLinesInMethods += node.getBody().getLength(); 
+                    facts.linesInMethods += node.getBody().getLength(); 
                 }
 
                 // 3. Nombre maximal de paramètres
                 int paramCount = node.parameters().size();
-                if (paramCount > maxParameters) {
-                    maxParameters = paramCount;
+                if (paramCount > facts.maxParameters) {
+                    facts.maxParameters = paramCount;
                 }
+
+                // 4. Lignes de la méthode (moyenne et 10 % les plus longues par classe)
+                if (node.getRoot() instanceof CompilationUnit) {
+                    CompilationUnit cu = (CompilationUnit) node.getRoot();
+                    int start = cu.getLineNumber(node.getStartPosition());
+                    int end = cu.getLineNumber(node.getStartPosition() + node.getLength() - 1);
+                    facts.methodLines.computeIfAbsent(currentClassName, k -> new LinkedHashMap<>())
+                            .put(node.getName().getIdentifier(), Math.max(0, end - start));
+                }
+            }
+            List<ASTNode> nested = precomputed.get(node);
+            if (nested != null) {
+                replay(nested);
+                return false;
             }
             return super.visit(node);
         }
 
+        private void replay(List<ASTNode> nested) {
+            Deque<ASTNode> open = new ArrayDeque<>();
+            for (ASTNode n : nested) {
+                if (n instanceof MethodDeclaration) {
+                    visit((MethodDeclaration) n);
+                } else if (open.peek() == n) {
+                    open.pop();
+                    endVisit((TypeDeclaration) n);
+                } else {
+                    open.push(n);
+                    visit((TypeDeclaration) n);
+                }
+            }
+        }
+
         @Override
         public void endVisit(TypeDeclaration node) {
             currentClassName = null;
@@ -125,181 +295,1083 @@ public class Parser {
     // ===============================================
 
     public void analyzeProject(String projectPath) throws IOException {
+        analyzeProject(projectPath, parseMode);
+    }
+
+    public void analyzeProject(String projectPath, ParseMode mode) throws IOException {
     	
     	if(!projectPath.isEmpty()) {
     		this.projectPath=projectPath;
     	}
     	
-        resetMetrics();
-        List<File> javaFiles = listJavaFiles(new File(projectPath));
-
-        if (javaFiles.isEmpty()) {
+        result = AnalysisResult.EMPTY;
+        long start = System.nanoTime();
+        if (backend == Backend.BYTECODE) {
+            result = BytecodeAnalyzer.analyze(new File(this.projectPath));
+            lastAnalysisTimeMs = (System.nanoTime() - start) / 1_000_000;
+            LOG.debug("Analyse BYTECODE : {} classes de premier niveau en {} ms", result.getFileAnalyses().size(),
+                    lastAnalysisTimeMs);
             return;
         }
+        classpath = ClasspathResolver.forProject(new File(this.projectPath));
+        environmentDigest = null; // pom ou jars peut-être modifiés depuis la dernière analyse
+        moduleResults = Collections.emptyMap();
+        crossModuleCalls = Collections.emptyMap();
 
-        PackageCounterVisitor p = new PackageCounterVisitor();
+        if (factCache != null) {
+            factCache.resetStats();
+        }
+        SourceLoader.getDefault().resetStats();
 
-        for (File javaFile : javaFiles) {
-            String code = FileUtils.readFileToString(javaFile, "UTF-8");
-            CompilationUnit cu = createCompilationUnit(code, javaFile.getName());
+        List<ProjectModule> modules = moduleDetection ? classpath.getModules() : Collections.<ProjectModule>emptyList();
+        if (modules.size() > 1) {
+            result = analyzeModules(modules, mode);
+        } else {
+            BlockingQueue<File> queue;
+            SourceDiscovery discovery = null;
+            if (resolutionMode == ResolutionMode.SYNTACTIC) {
+                // l'index des types doit être complet avant le premier fichier : parcours préalable
+                List<File> javaFiles = createDiscovery(new File(projectPath)).listJavaFiles();
+                updateProjectTypes(javaFiles);
+                queue = new LinkedBlockingQueue<>(javaFiles);
+                queue.add(SourceDiscovery.END);
+            } else {
+                // La découverte diffuse les fichiers pendant que l'analyse consomme la file
+                discovery = createDiscovery(new File(projectPath));
+                queue = discovery.stream(DISCOVERY_QUEUE_CAPACITY);
+            }
 
-            FileAnalysis fa = new FileAnalysis(javaFile.getName());
+            try {
+                if (mode == ParseMode.PARALLEL) {
+                    result = new ParallelAnalysisEngine(this).analyze(queue);
+                } else if (mode == ParseMode.PIPELINED) {
+                    result = new PipelinedAnalysisEngine(this).analyze(queue);
+                } else if (mode == ParseMode.SHARDED) {
+                    List<File> files = new ArrayList<>();
+                    File javaFile;
+                    while ((javaFile = SourceDiscovery.next(queue)) != SourceDiscovery.END) {
+                        files.add(javaFile);
+                    }
+                    result = new ShardCoordinator(this, shardWorkers, workerJvmOptions).analyze(files);
+                } else {
+                    MetricsAccumulator acc = new MetricsAccumulator();
+                    boolean batch = mode == ParseMode.BATCH;
+                    int batchSize = batch ? BATCH_SIZE : 1;
+                    List<File> files = new ArrayList<>();
+                    File javaFile;
+                    while ((javaFile = SourceDiscovery.next(queue)) != SourceDiscovery.END) {
+                        files.add(javaFile);
+                        if (files.size() >= batchSize) {
+                            analyzeFiles(files, acc, batch);
+                            files = new ArrayList<>();
+                        }
+                    }
+                    if (!files.isEmpty()) {
+                        analyzeFiles(files, acc, batch);
+                    }
+                    result = acc.toResult();
+                }
+            } finally {
+                // analyse interrompue ou en erreur : le parcours ne doit pas rester bloqué sur la file
+                if (discovery != null) {
+                    discovery.cancel();
+                }
+            }
+        }
 
-            // 1. Analyse Globale (Classes, Méthodes, Attributs, Paramètres, Interfaces)
-            GlobalAnalysisVisitor globalVisitor = new GlobalAnalysisVisitor();
-            cu.accept(globalVisitor);
-            
-            // 2. Analyse du Graphe d'Appels et par fichier
-            for (Object typeObj : cu.types()) {
-                if (typeObj instanceof TypeDeclaration) {
-                    TypeDeclaration td = (TypeDeclaration) typeObj;
-                    String className = td.getName().getIdentifier();
-                    
-                    ClassMethodCallVisitor callVisitor = new ClassMethodCallVisitor(className);
-                    cu.accept(callVisitor);
-                    classMethodCalls.put(className, callVisitor.getMethods());
-                    
-                    totalLines += countLines(td); 
-
-                    fa.addClass(className);
-                    fa.addMethods(callVisitor.getMethods().keySet());
+        lastAnalysisTimeMs = (System.nanoTime() - start) / 1_000_000;
+        LOG.debug("Analyse {} ({}) : {} fichiers en {} ms", mode, resolutionMode, result.getFileAnalyses().size(), lastAnalysisTimeMs);
+        logQuarantine();
+        if (costModel != null) {
+            try {
+                costModel.save();
+            } catch (IOException e) {
+                System.err.println("Impossible d'enregistrer les coûts de parsing : " + e.getMessage());
+            }
+        }
+        if (factCache != null) {
+            LOG.debug(factCache.statsSummary());
+        }
+        LOG.debug(SourceLoader.getDefault().statsSummary());
+    }
+
+    /**
+     * Analyse les sources d'une archive (.zip, -sources.jar, .tar.gz) sans l'extraire :
+     * les entrées sont lues en flux et parsées depuis la mémoire (createAST sur char[]).
+     * Sans dossier source sur disque, les bindings ne couvrent que le JRE : les appels
+     * entre types de l'archive sont résolus par l'heuristique de ClassMethodCallVisitor.
+     */
+    public void analyzeArchive(SourceArchive archive) throws IOException {
+        analyzeArchive(archive, parseMode);
+    }
+
+    public void analyzeArchive(SourceArchive archive, ParseMode mode) throws IOException {
+        startInMemoryAnalysis(archive.getName());
+        long start = System.nanoTime();
+
+        if (factCache != null) {
+            factCache.resetStats();
+        }
+        SourceLoader.getDefault().resetStats();
+        if (resolutionMode == ResolutionMode.SYNTACTIC) {
+            projectTypeNames = archive.listTypeNames(excludeGlobs);
+        }
+
+        BlockingQueue<SourceArchive.Entry> queue = archive.stream(ARCHIVE_QUEUE_CAPACITY, excludeGlobs, fileBudget);
+        // SHARDED, PIPELINED : les entrées sont déjà en mémoire, elles sont analysées comme en PARALLEL
+        if (mode == ParseMode.PARALLEL || mode == ParseMode.SHARDED || mode == ParseMode.PIPELINED) {
+            result = new ParallelAnalysisEngine(this).analyzeEntries(queue, archive);
+        } else {
+            // pas de createASTs depuis la mémoire : BATCH revient au mode séquentiel
+            MetricsAccumulator acc = new MetricsAccumulator();
+            SourceArchive.Entry entry;
+            while ((entry = SourceArchive.next(queue)) != SourceArchive.END) {
+                analyzeEntries(Collections.singletonList(entry), archive, acc);
+            }
+            result = acc.toResult();
+        }
+        archive.checkFailure();
+
+        lastAnalysisTimeMs = (System.nanoTime() - start) / 1_000_000;
+        LOG.debug("Analyse archive {} ({}) : {} fichiers en {} ms", mode, resolutionMode, result.getFileAnalyses().size(),
+                lastAnalysisTimeMs);
+        logQuarantine();
+        if (factCache != null) {
+            LOG.debug(factCache.statsSummary());
+        }
+        LOG.debug(SourceLoader.getDefault().statsSummary());
+    }
+
+    /**
+     * Projet multi-module : chaque module est analysé avec son propre sourcepath (ses sources
+     * et celles des modules dont il dépend), tous les modules en parallèle. Les résultats sont
+     * ensuite fusionnés : les appels d'un module vers un autre se relient par le nom des classes.
+     */
+    private AnalysisResult analyzeModules(List<ProjectModule> modules, ParseMode mode) throws IOException {
+        List<File> javaFiles = createDiscovery(new File(projectPath)).listJavaFiles();
+        if (resolutionMode == ResolutionMode.SYNTACTIC) {
+            updateProjectTypes(javaFiles);
+        }
+
+        // chaque fichier va au module dont un dossier source le contient (le plus spécifique)
+        Map<ProjectModule, List<File>> filesByModule = new LinkedHashMap<>();
+        for (ProjectModule m : modules) {
+            filesByModule.put(m, new ArrayList<>());
+        }
+        List<File> outside = new ArrayList<>();
+        for (File f : javaFiles) {
+            ProjectModule owner = null;
+            int best = 0;
+            for (ProjectModule m : modules) {
+                int length = m.match(f);
+                if (length > best) {
+                    best = length;
+                    owner = m;
                 }
             }
+            (owner == null ? outside : filesByModule.get(owner)).add(f);
+        }
 
-            // 3. Comptage des packages
-            cu.accept(p);
-            totalPackage = p.getDistinctPackageCount();
-            
-            fileAnalyses.put(javaFile.getAbsolutePath(), fa);
+        List<String> names = new ArrayList<>();
+        List<Parser> parsers = new ArrayList<>();
+        List<List<File>> files = new ArrayList<>();
+        for (Map.Entry<ProjectModule, List<File>> e : filesByModule.entrySet()) {
+            if (!e.getValue().isEmpty()) {
+                names.add(e.getKey().getName());
+                parsers.add(forModule(classpath.getSourcepathEntries(e.getKey())));
+                files.add(e.getValue());
+            }
+        }
+        if (!outside.isEmpty()) {
+            names.add(OUTSIDE_MODULES);
+            parsers.add(this);
+            files.add(outside);
         }
 
-        // --- Calcul final des métriques moyennes ---
-        int totalTypes = totalClasses + totalInterfaces;
-        
-        avgMethodsPerClass = totalTypes == 0 ? 0 : (double) totalMethods / totalTypes;
-        avgAttributesPerClass = totalTypes == 0 ? 0 : (double) totalAttributes / totalTypes;
-        avgLinesPerMethod = totalMethods == 0 ? 0 : (double) totalLinesInMethods / totalMethods;
+        List<MetricsAccumulator> accs;
+        if (mode == ParseMode.PARALLEL) {
+            accs = new ParallelAnalysisEngine(this).analyzeModules(parsers, files);
+        } else if (mode == ParseMode.PIPELINED) {
+            accs = new PipelinedAnalysisEngine(this).analyzeModules(parsers, files);
+        } else if (mode == ParseMode.SHARDED) {
+            accs = new ShardCoordinator(this, shardWorkers, workerJvmOptions).analyzeModules(parsers, files);
+        } else {
+            accs = new ArrayList<>();
+            boolean batch = mode == ParseMode.BATCH;
+            int batchSize = batch ? BATCH_SIZE : 1;
+            for (int i = 0; i < parsers.size(); i++) {
+                MetricsAccumulator acc = new MetricsAccumulator();
+                List<File> moduleFiles = files.get(i);
+                for (int from = 0; from < moduleFiles.size(); from += batchSize) {
+                    parsers.get(i).analyzeFiles(moduleFiles.subList(from, Math.min(moduleFiles.size(), from + batchSize)), acc, batch);
+                }
+                accs.add(acc);
+            }
+        }
+
+        MetricsAccumulator total = new MetricsAccumulator();
+        Map<String, AnalysisResult> perModule = new LinkedHashMap<>();
+        for (int i = 0; i < accs.size(); i++) {
+            perModule.put(names.get(i), accs.get(i).toResult());
+            total.merge(accs.get(i));
+        }
+        moduleResults = Collections.unmodifiableMap(perModule);
+        crossModuleCalls = linkModules(perModule);
+        LOG.debug("Modules analysés séparément : {}", perModule.keySet());
+        return total.toResult();
     }
 
-    private void resetMetrics() {
-        totalClasses = totalInterfaces = totalMethods = totalLines = totalPackage = 0;
-        totalAttributes = totalLinesInMethods = maxParameters = 0;
-        avgMethodsPerClass = avgLinesPerMethod = avgAttributesPerClass = 0.0;
-        fileAnalyses.clear();
-        classMethodCalls.clear();
-        methodsPerClass.clear();
-        attributesPerClass.clear();
+    /**
+     * Copie de la configuration de ce Parser, limitée au sourcepath d'un module.
+     */
+    private Parser forModule(String[] moduleSourcepath) {
+        Parser p = new Parser();
+        p.projectPath = projectPath;
+        p.parseMode = parseMode;
+        p.resolutionMode = resolutionMode;
+        p.backend = backend;
+        p.projectTypeNames = projectTypeNames;
+        p.excludeGlobs = excludeGlobs;
+        p.factCache = factCache;
+        p.methodFingerprints = methodFingerprints;
+        p.costModel = costModel;
+        p.classpath = classpath;
+        p.fileBudget = fileBudget;
+        p.sourcepath = moduleSourcepath;
+        return p;
     }
-    
-    // === Accesseurs pour les Tops et Stats ===
 
-    private int getTopN(int total) {
-        // Retourne 10% (minimum 1, maximum 10)
-        return Math.max(1, (int) Math.ceil(0.10 * total));
+    /**
+     * Appels entre modules : module appelant -> module de la classe appelée -> nombre d'appels.
+     * Une classe est attribuée au premier module qui la déclare.
+     */
+    static Map<String, Map<String, Integer>> linkModules(Map<String, AnalysisResult> perModule) {
+        Map<String, String> moduleOfClass = new HashMap<>();
+        for (Map.Entry<String, AnalysisResult> e : perModule.entrySet()) {
+            for (String cls : e.getValue().getMethodsPerClass().keySet()) {
+                moduleOfClass.putIfAbsent(cls, e.getKey());
+            }
+            CompactCallGraph graph = e.getValue().getCallGraph();
+            for (int t = 0; t < graph.typeCount(); t++) {
+                moduleOfClass.putIfAbsent(graph.symbol(graph.typeId(t)), e.getKey());
+            }
+        }
+
+        Map<String, Map<String, Integer>> links = new TreeMap<>();
+        for (Map.Entry<String, AnalysisResult> e : perModule.entrySet()) {
+            CompactCallGraph graph = e.getValue().getCallGraph();
+            for (int c = 0; c < graph.callCount(); c++) {
+                String target = moduleOfClass.get(graph.symbol(graph.callType(c)));
+                if (target != null && !target.equals(e.getKey())) {
+                    links.computeIfAbsent(e.getKey(), k -> new TreeMap<>()).merge(target, 1, Integer::sum);
+                }
+            }
+        }
+        return links;
     }
-    
-    public List<String> getTopMethodsClasses() {
-        int limit = getTopN(methodsPerClass.size());
-        return methodsPerClass.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+
+    /**
+     * Trace les fichiers mis en quarantaine (liste complète : getQuarantinedFiles()).
+     */
+    private void logQuarantine() {
+        List<QuarantinedFile> quarantined = result.getQuarantinedFiles();
+        if (!quarantined.isEmpty() && LOG.isDebugEnabled()) {
+            LOG.debug("Quarantaine ({}) : {} fichier(s)", fileBudget, quarantined.size());
+            for (QuarantinedFile q : quarantined) {
+                LOG.debug("  {}", q);
+            }
+        }
+    }
+
+    /**
+     * Prépare l'analyse de sources sans dossier sur disque (archive, historique git) :
+     * bindings limités au JRE, résultat précédent oublié.
+     */
+    void startInMemoryAnalysis(String name) {
+        this.projectPath = name;
+        result = AnalysisResult.EMPTY;
+        classpath = ClasspathResolver.jreOnly();
+        environmentDigest = null;
+    }
+
+    /**
+     * Analyse des entrées d'archive (cache compris, même clé que pour un fichier de même contenu).
+     * Une entrée trop grosse, non lue par SourceArchive, est mise en quarantaine comme ignorée.
+     */
+    void analyzeEntries(List<SourceArchive.Entry> entries, SourceArchive archive, MetricsAccumulator acc) {
+        for (SourceArchive.Entry entry : entries) {
+            FileFacts facts = entry.getOversize() != null ? FileFacts.skipped(entry.getOversize())
+                    : parseContent(entry.getContent(), entry.getFileName());
+            acc.add(archive.displayPath(entry), entry.getFileName(), facts);
+        }
+    }
+
+    /**
+     * Faits d'un source en mémoire, cache compris (même clé que pour un fichier de même contenu).
+     */
+    FileFacts parseContent(byte[] content, String unitName) {
+        String key = factCache != null ? cacheKey(FactCache.hash(content)) : null;
+        FileFacts facts = key != null ? cached(factCache.get(key)) : null;
+        if (facts == null) {
+            facts = parseWithinBudget(content, unitName);
+            if (key != null && !facts.isQuarantined()) {
+                putInCache(key, facts);
+            }
+        }
+        return facts;
+    }
+
+    /**
+     * Analyse une liste de fichiers et ajoute leurs faits à l'accumulateur, dans l'ordre des fichiers.
+     */
+    void analyzeFiles(List<File> files, MetricsAccumulator acc, boolean batch) throws IOException {
+        FileFacts[] facts = extractFacts(files, batch);
+        for (int i = 0; i < files.size(); i++) {
+            if (facts[i] != null) {
+                acc.add(files.get(i), facts[i]);
+            }
+        }
+    }
+
+    /**
+     * Extrait les faits d'une liste de fichiers (null pour un fichier que JDT n'a pas pu construire).
+     * Les fichiers dont le contenu est déjà dans le cache ne sont pas reparsés.
+     * Les autres sont construits ensemble par un seul ASTParser.createASTs (batch),
+     * ou un par un avec createAST ; chaque CompilationUnit est libérée dès ses faits extraits.
+     * Les fichiers trop gros, et ceux du lot restant si le délai par fichier expire, repassent
+     * un par un dans leur budget (voir parseWithinBudget).
+     */
+    FileFacts[] extractFacts(List<File> files, boolean batch) throws IOException {
+        return extractFacts(files, batch, true);
+    }
+
+    /**
+     * @param useCache false : fichiers reparsés même si leur contenu est dans le cache (dépendants
+     *                 d'un fichier modifié, voir DependencyIndex) ; leurs nouveaux faits y sont enregistrés
+     */
+    FileFacts[] extractFacts(List<File> files, boolean batch, boolean useCache) throws IOException {
+        FileFacts[] facts = new FileFacts[files.size()];
+        String[] hashes = new String[files.size()];
+        Map<String, Integer> toParse = new LinkedHashMap<>(); // chemin absolu -> index
+        List<Integer> oneByOne = new ArrayList<>();
+        SourceLoader loader = SourceLoader.getDefault();
+
+        if (factCache != null) {
+            for (int i = 0; i < files.size(); i++) {
+                hashes[i] = cacheKey(loader.hash(files.get(i)));
+            }
+            // une seule consultation pour la liste : lots groupés vers le cache partagé
+            Map<String, FileFacts> found = useCache ? factCache.getAll(Arrays.asList(hashes))
+                    : Collections.<String, FileFacts>emptyMap();
+            for (int i = 0; i < files.size(); i++) {
+                facts[i] = cached(found.get(hashes[i]));
+                if (facts[i] != null && methodFingerprints) {
+                    facts[i].fingerprints = fingerprintsOf(files.get(i));
+                }
+            }
+        }
+        for (int i = 0; i < files.size(); i++) {
+            if (facts[i] == null) {
+                toParse.put(files.get(i).getAbsolutePath(), i);
+            }
+        }
+
+        if (batch && !toParse.isEmpty()) {
+            // createASTs lit lui-même les fichiers à partir de leurs chemins
+            Map<String, Integer> inBatch = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> e : toParse.entrySet()) {
+                if (fileBudget.checkSize(files.get(e.getValue()).length()) != null) {
+                    oneByOne.add(e.getValue());
+                } else {
+                    inBatch.put(e.getKey(), e.getValue());
+                }
+            }
+            String[] paths = inBatch.keySet().toArray(new String[0]);
+            String[] encodings = new String[paths.length];
+            Arrays.fill(encodings, "UTF-8");
+
+            FileBudget.Deadline deadline = fileBudget.deadline();
+            List<Integer> accepted = new ArrayList<>();
+            long start = System.nanoTime();
+            try {
+                createParser(resolutionMode == ResolutionMode.BINDINGS).createASTs(paths, encodings, new String[0], new FileASTRequestor() {
+                    @Override
+                    public void acceptAST(String sourceFilePath, CompilationUnit cu) {
+                        Integer i = inBatch.get(new File(sourceFilePath).getAbsolutePath());
+                        if (i != null) {
+                            facts[i] = extractFactsWithinNodes(cu);
+                            accepted.add(i);
+                        }
+                        deadline.restart();
+                    }
+                }, deadline);
+            } catch (OperationCanceledException e) {
+                // le fichier en cause n'est pas connu : tout le reste du lot repasse un par un
+            }
+            recordBatchCost(files, accepted, System.nanoTime() - start);
+            // createASTs peut aussi abandonner des unités sans erreur (classes de dépendances
+            // illisibles pour JDT...) : elles repassent un par un
+            for (int i : inBatch.values()) {
+                if (facts[i] == null) oneByOne.add(i);
+            }
+        } else {
+            oneByOne.addAll(toParse.values());
+        }
+        for (int i : oneByOne) {
+            long start = System.nanoTime();
+            facts[i] = parseWithinBudget(files.get(i));
+            recordCost(files.get(i), System.nanoTime() - start);
+        }
+
+        if (factCache != null) {
+            for (int i : toParse.values()) {
+                if (facts[i] != null && !facts[i].isQuarantined()) {
+                    putInCache(hashes[i], facts[i]);
+                }
+            }
+        }
+        return facts;
+    }
+
+    private void recordCost(File javaFile, long nanos) {
+        if (costModel != null) {
+            costModel.record(javaFile, nanos);
+        }
     }
 
-    public List<String> getTopAttributeClasses() {
-        int limit = getTopN(attributesPerClass.size());
-        return attributesPerClass.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+    /**
+     * Durée d'un lot createASTs répartie entre ses fichiers au prorata de leur taille : le lot
+     * parse toutes les unités et prépare l'environnement avant la première résolution, l'écart
+     * entre deux unités livrées ne mesure donc pas le coût d'un fichier.
+     */
+    private void recordBatchCost(List<File> files, List<Integer> accepted, long nanos) {
+        if (costModel == null || accepted.isEmpty()) return;
+        long bytes = 0;
+        for (int i : accepted) {
+            bytes += files.get(i).length();
+        }
+        for (int i : accepted) {
+            long length = files.get(i).length();
+            recordCost(files.get(i), bytes > 0 ? nanos * length / bytes : nanos / accepted.size());
+        }
+    }
+
+    // ===============================================
+    // BUDGET PAR FICHIER
+    // ===============================================
+
+    /**
+     * Parse un fichier dans son budget ; un fichier trop gros n'est pas lu s'il doit être ignoré.
+     */
+    FileFacts parseWithinBudget(File javaFile) throws IOException {
+        String oversize = fileBudget.checkSize(javaFile.length());
+        if (oversize != null && !canRetrySyntactic()) {
+            return FileFacts.skipped(oversize);
+        }
+        // le tampon retourne au pool une fois les faits extraits (l'AST n'est plus référencé)
+        try (SourceLoader.Source source = SourceLoader.getDefault().load(javaFile)) {
+            return parseWithinBudget(source.getChars(), javaFile.getName(), oversize);
+        }
+    }
+
+    FileFacts parseWithinBudget(byte[] content, String unitName) {
+        String oversize = fileBudget.checkSize(content.length);
+        if (oversize != null && !canRetrySyntactic()) {
+            return FileFacts.skipped(oversize);
+        }
+        try (SourceLoader.Source source = SourceLoader.getDefault().load(content)) {
+            return parseWithinBudget(source.getChars(), unitName, oversize);
+        }
+    }
+
+    /**
+     * Faits d'un source déjà lu (étage de parsing de PipelinedAnalysisEngine), cache compris :
+     * la clé vient de l'empreinte calculée pendant la lecture (SourceLoader.load(file, true)).
+     */
+    FileFacts parseLoaded(SourceLoader.Source source, String unitName, String oversize) {
+        String key = factCache != null ? cacheKey(source.getHash()) : null;
+        FileFacts facts = key != null ? cached(factCache.get(key)) : null;
+        if (facts == null) {
+            facts = parseWithinBudget(source.getChars(), unitName, oversize);
+            if (key != null && !facts.isQuarantined()) {
+                putInCache(key, facts);
+            }
+        }
+        return facts;
+    }
+
+    /**
+     * Construit l'AST sous délai et extrait ses faits. Hors budget, le fichier est reparsé
+     * sans bindings (index des types vide en mode BINDINGS : seuls imports et déclarations
+     * du fichier servent à résoudre les receveurs), ou ignoré.
+     */
+    private FileFacts parseWithinBudget(char[] source, String unitName, String oversize) {
+        String reason = oversize;
+        if (reason == null) {
+            try {
+                return extractFactsWithinNodes(createCompilationUnit(source, unitName,
+                        resolutionMode == ResolutionMode.BINDINGS, fileBudget.deadline()));
+            } catch (OperationCanceledException e) {
+                reason = fileBudget.timeoutReason();
+            }
+        }
+        if (!canRetrySyntactic()) {
+            return FileFacts.skipped(reason);
+        }
+        try {
+            FileFacts facts = extractFacts(createCompilationUnit(source, unitName, false, fileBudget.deadline()), true);
+            facts.quarantineReason = reason;
+            return facts;
+        } catch (OperationCanceledException e) {
+            return FileFacts.skipped(reason + ", puis " + fileBudget.timeoutReason() + " sans bindings");
+        }
+    }
+
+    /**
+     * Extrait les faits d'un AST, sans bindings au-delà du nombre de nœuds autorisé
+     * (l'AST est déjà construit : seule l'extraction du graphe d'appels est allégée).
+     */
+    private FileFacts extractFactsWithinNodes(CompilationUnit cu) {
+        String reason = fileBudget.checkNodes(countNodes(cu, fileBudget.getMaxNodes()));
+        if (reason == null) {
+            return extractFacts(cu);
+        }
+        if (!canRetrySyntactic()) {
+            return FileFacts.skipped(reason);
+        }
+        FileFacts facts = extractFacts(cu, true);
+        facts.quarantineReason = reason;
+        return facts;
+    }
+
+    /** La nouvelle tentative syntaxique n'a de sens que si l'analyse normale utilise les bindings. */
+    boolean canRetrySyntactic() {
+        return fileBudget.getOnExceed() == FileBudget.OnExceed.SYNTACTIC && resolutionMode == ResolutionMode.BINDINGS;
+    }
+
+    /** Nombre de nœuds de l'AST, le parcours s'arrêtant dès que la limite est dépassée. */
+    private static int countNodes(CompilationUnit cu, int max) {
+        if (max == Integer.MAX_VALUE) {
+            return 0;
+        }
+        int[] count = {0};
+        cu.accept(new ASTVisitor(true) {
+            @Override
+            public boolean preVisit2(ASTNode node) {
+                return ++count[0] <= max;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Extrait les faits d'une CompilationUnit : métriques globales, graphe d'appels et packages.
+     * Sans état partagé : peut être appelée depuis plusieurs threads.
+     */
+    FileFacts extractFacts(CompilationUnit cu) {
+        return extractFacts(cu, resolutionMode == ResolutionMode.SYNTACTIC);
+    }
+
+    private FileFacts extractFacts(CompilationUnit cu, boolean syntactic) {
+        FileFacts facts = extractFacts(cu, cu, syntactic, null);
+        if (methodFingerprints) {
+            facts.fingerprints = MethodFingerprints.of(cu);
+        }
+        return facts;
     }
 
-    public List<String> getIntersectionTopClasses() {
-        Set<String> topMethods = new HashSet<>(getTopMethodsClasses());
-        Set<String> topAttributes = new HashSet<>(getTopAttributeClasses());
-        topMethods.retainAll(topAttributes);
-        return new ArrayList<>(topMethods);
+    /**
+     * @param callUnit    unité parcourue pour le graphe d'appels : cu, ou la même source
+     *                    reparsée avec bindings (voir updateChangedMethods)
+     * @param precomputed appels déjà connus de chaque méthode membre de callUnit, ou null
+     */
+    private FileFacts extractFacts(CompilationUnit cu, CompilationUnit callUnit, boolean syntactic,
+                                   Map<MethodDeclaration, CallGraphExtractor.MethodCalls> precomputed) {
+        FileFacts facts = new FileFacts();
+
+        // 0. Gros fichier sans bindings : corps des méthodes parcourus en sous-tâches fork/join
+        //    (avec bindings, la résolution n'est pas thread-safe : le fichier reste parcouru d'un bloc)
+        MethodBodySplit split = precomputed == null && syntactic ? MethodBodySplit.of(cu) : null;
+        if (split != null) {
+            split.run(projectTypeNames);
+            precomputed = split.getMethodCalls();
+        }
+
+        // 1. Analyse Globale (Classes, Méthodes, Attributs, Paramètres, Interfaces)
+        GlobalAnalysisVisitor globalVisitor = new GlobalAnalysisVisitor(facts);
+        if (split != null) {
+            globalVisitor.setPrecomputed(split.getNestedDeclarations());
+        }
+        cu.accept(globalVisitor);
+        
+        // 2. Analyse du Graphe d'Appels (un seul parcours pour tous les types) et par fichier
+        CallGraphExtractor extractor = new CallGraphExtractor(syntactic ? new SyntacticTypeResolver(projectTypeNames) : null);
+        if (precomputed != null) {
+            extractor.setPrecomputed(precomputed);
+        }
+        callUnit.accept(extractor);
+        Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> callGraph = extractor.getCallGraph();
+        facts.referencedTypes.addAll(extractor.getReferencedTypes());
+        String packagePrefix = cu.getPackage() != null ? cu.getPackage().getName().getFullyQualifiedName() + "." : "";
+        addDeclaredTypes(packagePrefix, cu.types(), facts.declaredTypes);
+        // converti aussitôt en faits compacts : la CompilationUnit et les MethodCall ne sont pas retenus
+        facts.callGraph = CompactCallGraph.of(callGraph);
+
+        for (Object typeObj : cu.types()) {
+            if (typeObj instanceof TypeDeclaration) {
+                TypeDeclaration td = (TypeDeclaration) typeObj;
+                String className = td.getName().getIdentifier();
+                
+                facts.lines += countLines(td); 
+
+                facts.classNames.add(className);
+                facts.methodNames.addAll(callGraph.getOrDefault(className, Collections.emptyMap()).keySet());
+            }
+        }
+
+        // 3. Comptage des packages (seule la déclaration de package est visitée)
+        PackageCounterVisitor p = new PackageCounterVisitor();
+        if (cu.getPackage() != null) {
+            cu.getPackage().accept(p);
+        }
+        facts.packageNames.addAll(p.getPackageNames());
+        
+        return facts;
     }
 
-    public List<String> getClassesOverXMethods(int x) {
-        return methodsPerClass.entrySet().stream()
-                .filter(e -> e.getValue() > x)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+    /**
+     * Mesure le temps d'analyse du projet dans chacun des modes, pour comparaison.
+     * SHARDED, qui lance des JVM filles, n'est mesuré que si leur nombre a été configuré.
+     */
+    public Map<ParseMode, Long> compareParseModes(String projectPath) throws IOException {
+        Map<ParseMode, Long> timings = new LinkedHashMap<>();
+        for (ParseMode mode : ParseMode.values()) {
+            if (mode == ParseMode.SHARDED && !shardWorkersConfigured) continue;
+            analyzeProject(projectPath, mode);
+            timings.put(mode, lastAnalysisTimeMs);
+        }
+        return timings;
     }
+
+    // === Accesseurs pour les Tops et Stats ===
+
+    public List<String> getTopMethodsClasses() { return result.getTopMethodsClasses(); }
+    public List<String> getTopAttributeClasses() { return result.getTopAttributeClasses(); }
+    public List<String> getIntersectionTopClasses() { return result.getIntersectionTopClasses(); }
+    public List<String> getClassesOverXMethods(int x) { return result.getClassesOverXMethods(x); }
     
     // === Getters pour le Controller ===
-    public int getTotalClasses() { return totalClasses; }
-    public int getTotalInterfaces() { return totalInterfaces; }
-    public int getTotalMethods() { return totalMethods; }
-    public int getTotalLines() { return totalLines; }
-    public int getTotalPackage() { return totalPackage; }
-    public int getMaxParameters() { return maxParameters; } 
+    public AnalysisResult getResult() { return result; }
 
-    public double getAvgMethodsPerClass() { return avgMethodsPerClass; }
-    public double getAvgLinesPerMethod() { return avgLinesPerMethod; }
-    public double getAvgAttributesPerClass() { return avgAttributesPerClass; }
+    public int getTotalClasses() { return result.getTotalClasses(); }
+    public int getTotalInterfaces() { return result.getTotalInterfaces(); }
+    public int getTotalMethods() { return result.getTotalMethods(); }
+    public int getTotalLines() { return result.getTotalLines(); }
+    public int getTotalPackage() { return result.getTotalPackage(); }
+    public int getMaxParameters() { return result.getMaxParameters(); } 
 
-    public Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> getClassMethodCalls() { return classMethodCalls; }
-    public Map<String, FileAnalysis> getFileAnalyses() { return fileAnalyses; }
+    public double getAvgMethodsPerClass() { return result.getAvgMethodsPerClass(); }
+    public double getAvgLinesPerMethod() { return result.getAvgLinesPerMethod(); }
+    public double getAvgAttributesPerClass() { return result.getAvgAttributesPerClass(); }
+
+    public Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> getClassMethodCalls() { return result.getClassMethodCalls(); }
+    public CompactCallGraph getCallGraph() { return result.getCallGraph(); }
+    public Map<String, FileAnalysis> getFileAnalyses() { return result.getFileAnalyses(); }
 
 
     // === Méthodes auxiliaires ===
     public CompilationUnit createCompilationUnit(String code, String unitName) {
+        return createCompilationUnit(code.toCharArray(), unitName);
+    }
+
+    /**
+     * Variante sans copie pour un tampon de SourceLoader (fin remplie d'espaces).
+     */
+    public CompilationUnit createCompilationUnit(char[] source, String unitName) {
+        return createCompilationUnit(source, unitName, resolutionMode == ResolutionMode.BINDINGS, null);
+    }
+
+    /**
+     * Le moniteur (délai du budget, ou null) peut interrompre la construction : OperationCanceledException.
+     */
+    CompilationUnit createCompilationUnit(char[] source, String unitName, boolean bindings, IProgressMonitor monitor) {
+        ASTParser parser = createParser(bindings);
+        parser.setSource(source);
+        parser.setUnitName(unitName);
+
+        return (CompilationUnit) parser.createAST(monitor);
+    }
+
+    /**
+     * Crée un ASTParser configuré pour le projet (bindings ou non, classpath JRE, sourcepath).
+     */
+    ASTParser createParser(boolean bindings) {
         ASTParser parser = ASTParser.newParser(AST.JLS4);
         parser.setKind(ASTParser.K_COMPILATION_UNIT);
-        parser.setSource(code.toCharArray());
-        parser.setResolveBindings(true);
-        parser.setBindingsRecovery(true);
+        parser.setResolveBindings(bindings);
+        parser.setBindingsRecovery(bindings);
         parser.setStatementsRecovery(true);
-        parser.setUnitName(unitName);
 
         try {
-            // Récupère le chemin du rt.jar de ton JRE (important sous Java 8)
-            String javaHome = System.getProperty("java.home");
-            String rtJarPath = javaHome + File.separator + "lib" + File.separator + "rt.jar";
-
-            // Si le JRE est en mode JDK (comme sur macOS), adapter le chemin
-            File rtJar = new File(rtJarPath);
-            if (!rtJar.exists()) {
-                // macOS JDK 8 stocke souvent les libs dans ../Classes/classes.jar
-                rtJar = new File(javaHome + File.separator + ".." + File.separator + "Classes" + File.separator + "classes.jar");
-            }
-
-            String[] classpathEntries = { rtJar.getAbsolutePath() };
-            String[] sourcepathEntries = { projectPath };
+            ClasspathResolver cp = getClasspathResolver();
+            String[] classpathEntries = cp.getClasspathEntries();
+            String[] sourcepathEntries = sourcepath != null ? sourcepath : cp.getSourcepathEntries();
 
             parser.setEnvironment(
-                    classpathEntries,      // dépendances (runtime du JRE)
-                    sourcepathEntries,     // ton dossier source
+                    classpathEntries,      // runtime du JRE + jars des dépendances
+                    sourcepathEntries,     // dossiers sources du projet
                     null,                  // encodage par défaut
                     true                   // inclure sous-répertoires
             );
         } catch (Exception e) {
             e.printStackTrace();
         }
+        return parser;
+    }
 
-        return (CompilationUnit) parser.createAST(null);
+    /**
+     * Classpath et dossiers sources du projet (fichier de build), résolus une fois par projet.
+     */
+    ClasspathResolver getClasspathResolver() {
+        ClasspathResolver cp = classpath;
+        if (cp == null) {
+            cp = ClasspathResolver.forProject(new File(projectPath));
+            classpath = cp;
+        }
+        return cp;
     }
 
 
 
     
+    /**
+     * Liste les fichiers .java d'un dossier (exclusions par défaut : target/, build/, .git/, generated-sources/).
+     */
     public static List<File> listJavaFiles(File folder) {
-        List<File> javaFiles = new ArrayList<>();
-        File[] files = folder.listFiles();
-        if (files != null) {
-            for (File f : files) {
-                if (f.isDirectory()) {
-                    javaFiles.addAll(listJavaFiles(f));
-                } else if (f.getName().endsWith(".java")) {
-                    javaFiles.add(f);
+        return new SourceDiscovery(folder.toPath()).listJavaFiles();
+    }
+
+    /**
+     * Découverte des sources sous ce dossier avec les exclusions configurées sur ce Parser.
+     */
+    public SourceDiscovery createDiscovery(File folder) {
+        return new SourceDiscovery(folder.toPath(), excludeGlobs);
+    }
+
+    // ===============================================
+    // MISE À JOUR PAR MÉTHODE (MODE SURVEILLANCE)
+    // ===============================================
+
+    /**
+     * Met à jour les faits d'un fichier modifié au niveau de ses méthodes (empreintes activées) :
+     * si son squelette est inchangé, seuls les appels des méthodes dont l'empreinte a changé sont
+     * résolus de nouveau ; ceux des autres méthodes sont repris des faits précédents, et les
+     * fichiers dépendants n'ont pas à être réanalysés.
+     *
+     * Les métriques et les empreintes viennent d'un parsing sans bindings. Avec bindings, la
+     * source est reparsée les corps des méthodes inchangées vidés (positions conservées) :
+     * JDT ne résout plus que le squelette et les corps modifiés.
+     *
+     * @return null si le fichier doit être reparsé entièrement (squelette modifié, classes locales,
+     *         trop de méthodes modifiées, faits précédents sans empreintes, budget dépassé)
+     */
+    FileFacts updateChangedMethods(File javaFile, FileFacts previous) throws IOException {
+        if (previous.fingerprints == null || previous.isQuarantined() || previous.fingerprints.hasLocalTypes()) {
+            return null;
+        }
+        try (SourceLoader.Source source = SourceLoader.getDefault().load(javaFile)) {
+            char[] chars = source.getChars();
+            boolean syntactic = resolutionMode == ResolutionMode.SYNTACTIC;
+            FileBudget.Deadline deadline = fileBudget.deadline();
+            CompilationUnit cu = createCompilationUnit(chars, javaFile.getName(), false, deadline);
+            if (fileBudget.checkNodes(countNodes(cu, fileBudget.getMaxNodes())) != null) {
+                return null;
+            }
+            MethodFingerprints fingerprints = MethodFingerprints.of(cu);
+            List<Integer> changed = previous.fingerprints.changedMethods(fingerprints);
+            if (changed == null || changed.size() > MAX_CHANGED_METHODS || fingerprints.hasLocalTypes()) {
+                return null;
+            }
+
+            MethodBodySplit members = MethodBodySplit.members(cu);
+            CompilationUnit callUnit = cu;
+            if (!syntactic) {
+                int count = members.getMethods().size();
+                callUnit = createCompilationUnit(withoutBodies(chars, members.getMethods(), changed), javaFile.getName(), true, deadline);
+                members = MethodBodySplit.members(callUnit);
+                if (members.getMethods().size() != count) {
+                    return null;
+                }
+            }
+
+            // appels connus par méthode ; une surcharge non retenue dans le graphe est de toute
+            // façon remplacée par la dernière du même nom lors du parcours
+            Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> previousCalls = new HashMap<>();
+            for (Map.Entry<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> e : previous.callGraph.asMap().entrySet()) {
+                previousCalls.put(e.getKey(), new HashMap<>(e.getValue()));
+            }
+            Map<MethodDeclaration, CallGraphExtractor.MethodCalls> calls = new HashMap<>();
+            Set<String> referencedTypes = new TreeSet<>(previous.referencedTypes);
+            for (int i = 0; i < members.getMethods().size(); i++) {
+                MethodDeclaration method = members.getMethods().get(i);
+                CallGraphExtractor.MethodCalls methodCalls;
+                if (changed.contains(i)) {
+                    SyntacticTypeResolver resolver = null;
+                    if (syntactic) {
+                        resolver = CallGraphExtractor.resolverFor((AbstractTypeDeclaration) method.getParent(), projectTypeNames);
+                        resolver.addKnownTypes(members.knownTypesBefore(i));
+                    }
+                    methodCalls = CallGraphExtractor.extractMethod(method, resolver);
+                    referencedTypes.addAll(methodCalls.getReferencedTypes());
+                } else {
+                    String type = ((AbstractTypeDeclaration) method.getParent()).getName().getIdentifier();
+                    List<ClassMethodCallVisitor.MethodCall> known = previousCalls
+                            .getOrDefault(type, Collections.emptyMap()).get(method.getName().getIdentifier());
+                    methodCalls = new CallGraphExtractor.MethodCalls(known != null ? known : new ArrayList<>());
+                }
+                calls.put(method, methodCalls);
+            }
+
+            FileFacts facts = extractFacts(cu, callUnit, syntactic, calls);
+            facts.referencedTypes.addAll(referencedTypes); // squelette inchangé : mêmes supertypes
+            facts.fingerprints = fingerprints;
+            return facts;
+        } catch (OperationCanceledException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Copie de la source où l'intérieur des corps des méthodes non modifiées est remplacé par
+     * des espaces (fins de ligne gardées : positions et numéros de ligne inchangés).
+     */
+    private static char[] withoutBodies(char[] source, List<MethodDeclaration> methods, List<Integer> changed) {
+        char[] copy = source.clone();
+        for (int i = 0; i < methods.size(); i++) {
+            Block body = methods.get(i).getBody();
+            if (body == null || changed.contains(i)) continue;
+            int end = body.getStartPosition() + body.getLength() - 1; // accolade fermante
+            for (int k = body.getStartPosition() + 1; k < end; k++) {
+                if (copy[k] != '\n' && copy[k] != '\r') {
+                    copy[k] = ' ';
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Empreintes des méthodes d'un fichier dont les faits viennent du cache, où elles ne sont
+     * pas conservées : un parsing sans bindings suffit. Null si le fichier ne se parse pas.
+     */
+    private MethodFingerprints fingerprintsOf(File javaFile) throws IOException {
+        try (SourceLoader.Source source = SourceLoader.getDefault().load(javaFile)) {
+            return MethodFingerprints.of(createCompilationUnit(source.getChars(), javaFile.getName(), false, fileBudget.deadline()));
+        } catch (OperationCanceledException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Noms qualifiés des types déclarés et de leurs types membres (Outer.Inner, comme ITypeBinding).
+     */
+    private static void addDeclaredTypes(String prefix, List<?> declarations, Set<String> declaredTypes) {
+        for (Object o : declarations) {
+            if (o instanceof AbstractTypeDeclaration) {
+                AbstractTypeDeclaration type = (AbstractTypeDeclaration) o;
+                String name = prefix + type.getName().getIdentifier();
+                declaredTypes.add(name);
+                addDeclaredTypes(name + ".", type.bodyDeclarations(), declaredTypes);
+            }
+        }
+    }
+
+    // ===============================================
+    // CLÉ ET VALIDITÉ DU CACHE
+    // ===============================================
+
+    /**
+     * Clé du cache : empreinte du contenu, distincte selon le mode de résolution
+     * (les faits d'un même fichier diffèrent avec ou sans bindings). Avec bindings, elle
+     * comprend aussi l'empreinte de l'environnement de résolution : un même fichier compilé
+     * contre d'autres dépendances (ou un autre module) n'a pas les mêmes faits, mais deux
+     * machines qui ont les mêmes dépendances produisent la même clé.
+     */
+    String cacheKey(String hash) {
+        return resolutionMode == ResolutionMode.BINDINGS ? hash + "-" + environmentDigest() : hash + "-syntactic";
+    }
+
+    /**
+     * Empreinte de l'environnement de résolution, indépendante de la machine (le cache partagé
+     * doit servir d'un poste ou d'un agent à l'autre) : contenu de chaque jar du classpath,
+     * version de la spécification Java pour le JRE, dossiers (sources, classes de modules)
+     * par leur chemin relatif à la racine du projet. Tronquée à 16 caractères.
+     */
+    private String environmentDigest() {
+        String digest = environmentDigest;
+        if (digest == null) {
+            StringBuilder sb = new StringBuilder();
+            try {
+                ClasspathResolver cp = getClasspathResolver();
+                File root = cp.getProjectRoot();
+                Set<String> jre = new HashSet<>(Arrays.asList(ClasspathResolver.jreClasspath()));
+                for (String entry : cp.getClasspathEntries()) {
+                    File f = new File(entry);
+                    if (jre.contains(entry)) {
+                        sb.append("jre\t").append(System.getProperty("java.specification.version"));
+                    } else if (f.isFile()) {
+                        sb.append("cp\t").append(jarHash(f));
+                    } else {
+                        sb.append("cp\t").append(relativePath(root, f));
+                    }
+                    sb.append('\n');
+                }
+                for (String entry : sourcepath != null ? sourcepath : cp.getSourcepathEntries()) {
+                    sb.append("sp\t").append(relativePath(root, new File(entry))).append('\n');
+                }
+            } catch (Exception e) {
+                sb.append("?"); // environnement illisible : même repli que createParser
+            }
+            digest = FactCache.hash(sb.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8)).substring(0, 16);
+            environmentDigest = digest;
+        }
+        return digest;
+    }
+
+    /** Chemin relatif à la racine du projet (séparateur /), ou absolu hors du projet. */
+    private static String relativePath(File root, File f) {
+        java.nio.file.Path path = f.getAbsoluteFile().toPath().normalize();
+        if (root != null) {
+            java.nio.file.Path base = root.getAbsoluteFile().toPath().normalize();
+            if (path.startsWith(base)) {
+                return base.relativize(path).toString().replace(File.separatorChar, '/');
+            }
+        }
+        return path.toString();
+    }
+
+    /**
+     * Empreinte du contenu d'un jar, recalculée seulement si sa taille ou sa date a changé
+     * (jars partagés par tous les Parser du processus).
+     */
+    private static String jarHash(File jar) throws IOException {
+        String length = Long.toString(jar.length());
+        String modified = Long.toString(jar.lastModified());
+        String[] known = JAR_HASHES.get(jar.getPath());
+        if (known != null && known[0].equals(length) && known[1].equals(modified)) {
+            return known[2];
+        }
+        String hash = FactCache.hash(jar.toPath());
+        JAR_HASHES.put(jar.getPath(), new String[]{length, modified, hash});
+        return hash;
+    }
+
+    /**
+     * Oublie le classpath résolu et son empreinte : relus au prochain parsing (la résolution
+     * du projet n'est refaite que si ses fichiers de build ont changé, voir ClasspathResolver).
+     * Pour un Parser de longue durée (ProjectWatcher), avant chaque mise à jour.
+     */
+    void refreshEnvironment() {
+        classpath = null;
+        environmentDigest = null;
+    }
+
+    /**
+     * Faits lus dans le cache, ou null s'ils sont absents ou périmés : avec bindings, un type
+     * référencé dont le source a changé depuis leur extraction (voir referencesDigest).
+     */
+    private FileFacts cached(FileFacts facts) {
+        if (facts == null || resolutionMode != ResolutionMode.BINDINGS) {
+            return facts;
+        }
+        if (referencesDigest(facts).equals(facts.referencesDigest)) {
+            return facts;
+        }
+        factCache.rejectStale();
+        return null;
+    }
+
+    private void putInCache(String key, FileFacts facts) {
+        if (resolutionMode == ResolutionMode.BINDINGS) {
+            facts.referencesDigest = referencesDigest(facts);
+        }
+        factCache.put(key, facts);
+    }
+
+    /**
+     * Empreinte des types du projet référencés par ces faits : pour chacun, l'empreinte du
+     * fichier source qui le déclare ("-" s'il n'en a pas, type recouvré).
+     */
+    private String referencesDigest(FileFacts facts) {
+        if (facts.referencedTypes.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String type : facts.referencedTypes) {
+            File source = declaringSource(type);
+            sb.append(type).append('=').append(source != null ? sourceHash(source) : "-").append('\n');
+        }
+        return FactCache.hash(sb.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8)).substring(0, 16);
+    }
+
+    /**
+     * Fichier source d'un type qualifié dans le sourcepath : a.b.C.D est cherché dans
+     * a/b/C/D.java, puis a/b/C.java (type membre), etc.
+     */
+    private File declaringSource(String qualifiedName) {
+        String[] roots;
+        try {
+            roots = sourcepath != null ? sourcepath : getClasspathResolver().getSourcepathEntries();
+        } catch (Exception e) {
+            return null;
+        }
+        String path = qualifiedName.replace('.', File.separatorChar);
+        while (true) {
+            for (String root : roots) {
+                File candidate = new File(root, path + ".java");
+                if (candidate.isFile()) {
+                    return candidate;
                 }
             }
+            int last = path.lastIndexOf(File.separatorChar);
+            if (last < 0) {
+                return null;
+            }
+            path = path.substring(0, last);
+        }
+    }
+
+    /**
+     * Empreinte du contenu d'un fichier, recalculée seulement si sa taille ou sa date a changé.
+     */
+    private String sourceHash(File source) {
+        String length = Long.toString(source.length());
+        String modified = Long.toString(source.lastModified());
+        String[] known = sourceHashes.get(source.getPath());
+        if (known != null && known[0].equals(length) && known[1].equals(modified)) {
+            return known[2];
         }
-        return javaFiles;
+        String hash;
+        try {
+            hash = SourceLoader.getDefault().hash(source);
+        } catch (IOException e) {
+            hash = "?";
+        }
+        sourceHashes.put(source.getPath(), new String[]{length, modified, hash});
+        return hash;
+    }
+
+    /**
+     * Met à jour l'index des types du projet à partir des noms de fichiers (Foo.java -> Foo),
+     * complété par les types des jars du classpath.
+     */
+    void updateProjectTypes(List<File> javaFiles) {
+        Set<String> names = new HashSet<>(getClasspathResolver().getTypeIndex().getSimpleNames());
+        for (File f : javaFiles) {
+            String name = f.getName();
+            names.add(name.substring(0, name.length() - ".java".length()));
+        }
+        projectTypeNames = names;
     }
 
     private int countLines(TypeDeclaration td) {
@@ -312,6 +1384,152 @@ public class Parser {
 
 	public void setProjectPath(String projectPath) {
 		this.projectPath = projectPath;
+		this.classpath = null;
+		this.environmentDigest = null;
+	}
+
+	public ParseMode getParseMode() {
+		return parseMode;
+	}
+
+	public void setParseMode(ParseMode parseMode) {
+		this.parseMode = parseMode;
+	}
+
+	public FactCache getFactCache() {
+		return factCache;
+	}
+
+	/**
+	 * Active le cache persistant des faits (null pour le désactiver).
+	 */
+	public void setFactCache(FactCache factCache) {
+		this.factCache = factCache;
+	}
+
+	public CostModel getCostModel() {
+		return costModel;
+	}
+
+	/**
+	 * Modèle de coût mis à jour à chaque fichier parsé et enregistré après chaque analyse de projet.
+	 * Sans modèle, l'analyse parallèle ordonne les fichiers d'après leur seule taille.
+	 */
+	public void setCostModel(CostModel costModel) {
+		this.costModel = costModel;
+	}
+
+	public boolean isMethodFingerprints() {
+		return methodFingerprints;
+	}
+
+	/**
+	 * Ajoute aux faits les empreintes des méthodes (voir updateChangedMethods). Activé par le
+	 * mode surveillance ; sans intérêt pour une analyse ponctuelle.
+	 */
+	public void setMethodFingerprints(boolean methodFingerprints) {
+		this.methodFingerprints = methodFingerprints;
+	}
+
+	public List<String> getExcludeGlobs() {
+		return excludeGlobs;
+	}
+
+	/**
+	 * Motifs d'exclusion de la découverte des sources (voir SourceDiscovery).
+	 */
+	public void setExcludeGlobs(List<String> excludeGlobs) {
+		this.excludeGlobs = excludeGlobs;
+	}
+
+	public ResolutionMode getResolutionMode() {
+		return resolutionMode;
+	}
+
+	public void setResolutionMode(ResolutionMode resolutionMode) {
+		this.resolutionMode = resolutionMode;
+	}
+
+	public Backend getBackend() {
+		return backend;
+	}
+
+	public void setBackend(Backend backend) {
+		this.backend = backend;
+	}
+
+	public FileBudget getFileBudget() {
+		return fileBudget;
+	}
+
+	/**
+	 * Limites par fichier (FileBudget.UNLIMITED pour les lever).
+	 */
+	public void setFileBudget(FileBudget fileBudget) {
+		this.fileBudget = fileBudget;
+	}
+
+	public int getShardWorkers() {
+		return shardWorkers;
+	}
+
+	/**
+	 * Nombre de JVM filles lancées en même temps en mode SHARDED.
+	 */
+	public void setShardWorkers(int shardWorkers) {
+		this.shardWorkers = Math.max(1, shardWorkers);
+		this.shardWorkersConfigured = true;
+	}
+
+	public List<String> getWorkerJvmOptions() {
+		return workerJvmOptions;
+	}
+
+	/**
+	 * Options des JVM filles du mode SHARDED (par exemple -Xmx2g).
+	 */
+	public void setWorkerJvmOptions(List<String> workerJvmOptions) {
+		this.workerJvmOptions = workerJvmOptions;
+	}
+
+	public boolean isModuleDetection() {
+		return moduleDetection;
+	}
+
+	/**
+	 * Analyse module par module des projets multi-module (activée par défaut).
+	 */
+	public void setModuleDetection(boolean moduleDetection) {
+		this.moduleDetection = moduleDetection;
+	}
+
+	/** Résultat par module de la dernière analyse (vide pour un projet d'un seul module). */
+	public Map<String, AnalysisResult> getModuleResults() {
+		return moduleResults;
+	}
+
+	/** Appels entre modules de la dernière analyse : appelant -> appelé -> nombre. */
+	public Map<String, Map<String, Integer>> getCrossModuleCalls() {
+		return crossModuleCalls;
+	}
+
+	public List<QuarantinedFile> getQuarantinedFiles() {
+		return result.getQuarantinedFiles();
+	}
+
+	public long getLastAnalysisTimeMs() {
+		return lastAnalysisTimeMs;
+	}
+
+	/**
+	 * Compare les temps d'analyse des modes de parsing sur un projet (SEQUENTIAL, BATCH,
+	 * PARALLEL, PIPELINED ; SHARDED seulement avec setShardWorkers).
+	 */
+	public static void main(String[] args) throws IOException {
+		Map<ParseMode, Long> timings = new Parser().compareParseModes(args[0]);
+		for (Map.Entry<ParseMode, Long> e : timings.entrySet()) {
+			System.out.println(e.getKey() + " : " + e.getValue() + " ms");
+		}
 	}
 
 	
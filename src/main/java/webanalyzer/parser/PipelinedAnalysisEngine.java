@@ -0,0 +1,168 @@
+package webanalyzer.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Moteur en deux étages : les fichiers sont lus (et décodés) sur un exécuteur d'E/S, puis
+ * parsés un par un (createAST) sur un pool fixe de threads plateforme, un par cœur.
+ *
+ * Sous Java 21 (profil java21), chaque lecture a son thread virtuel : sur un espace de travail
+ * monté en réseau, les attentes de lecture se recouvrent sans bloquer un thread plateforme
+ * chacune. Sur une JVM plus ancienne, un pool de threads plateforme dédié aux E/S les remplace.
+ * Les faits sont ajoutés dans l'ordre des fichiers : même résultat qu'en mode SEQUENTIAL.
+ */
+class PipelinedAnalysisEngine {
+
+    // Fichiers lus mais pas encore parsés (borne la mémoire des sources décodées)
+    private static final int MAX_IN_FLIGHT = 64;
+    // Exécuteur d'E/S sans threads virtuels
+    private static final int FALLBACK_IO_THREADS = 32;
+
+    private final Parser parser;
+    private final int parallelism;
+
+    PipelinedAnalysisEngine(Parser parser) {
+        this(parser, Runtime.getRuntime().availableProcessors());
+    }
+
+    PipelinedAnalysisEngine(Parser parser, int parallelism) {
+        this.parser = parser;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Source lue par l'étage d'E/S, ou faits déjà connus (fichier trop gros ignoré sans lecture).
+     */
+    private static final class Loaded {
+        final SourceLoader.Source source;
+        final String oversize;
+        final FileFacts skipped;
+
+        Loaded(SourceLoader.Source source, String oversize, FileFacts skipped) {
+            this.source = source;
+            this.oversize = oversize;
+            this.skipped = skipped;
+        }
+    }
+
+    AnalysisResult analyze(BlockingQueue<File> queue) throws IOException {
+        return accumulate(parser, queue).toResult();
+    }
+
+    /**
+     * Même contrat que ParallelAnalysisEngine.analyzeModules : un accumulateur par module,
+     * les modules passant l'un après l'autre dans le pipeline.
+     */
+    List<MetricsAccumulator> analyzeModules(List<Parser> parsers, List<List<File>> files) throws IOException {
+        List<MetricsAccumulator> accs = new ArrayList<>();
+        for (int i = 0; i < parsers.size(); i++) {
+            BlockingQueue<File> queue = new LinkedBlockingQueue<>(files.get(i));
+            queue.add(SourceDiscovery.END);
+            accs.add(accumulate(parsers.get(i), queue));
+        }
+        return accs;
+    }
+
+    private MetricsAccumulator accumulate(Parser p, BlockingQueue<File> queue) throws IOException {
+        ExecutorService io = newIoExecutor();
+        ExecutorService cpu = Executors.newFixedThreadPool(parallelism);
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        Deque<File> pendingFiles = new ArrayDeque<>();
+        Deque<CompletableFuture<FileFacts>> pending = new ArrayDeque<>();
+        MetricsAccumulator acc = new MetricsAccumulator();
+        try {
+            File javaFile;
+            while ((javaFile = SourceDiscovery.next(queue)) != SourceDiscovery.END) {
+                inFlight.acquire();
+                File file = javaFile;
+                CompletableFuture<FileFacts> facts = CompletableFuture
+                        .supplyAsync(() -> load(p, file), io)
+                        .thenApplyAsync(loaded -> parse(p, file, loaded), cpu);
+                facts.whenComplete((f, e) -> inFlight.release());
+                pendingFiles.add(file);
+                pending.add(facts);
+                // ajoute au fil de l'eau les faits arrivés en tête, dans l'ordre des fichiers
+                while (!pending.isEmpty() && pending.peek().isDone()) {
+                    add(acc, pendingFiles.poll(), pending.poll());
+                }
+            }
+            while (!pending.isEmpty()) {
+                add(acc, pendingFiles.poll(), pending.poll());
+            }
+            return acc;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Analyse interrompue");
+        } finally {
+            io.shutdownNow();
+            cpu.shutdownNow();
+        }
+    }
+
+    private static void add(MetricsAccumulator acc, File file, CompletableFuture<FileFacts> facts) throws IOException {
+        try {
+            FileFacts f = facts.join();
+            if (f != null) {
+                acc.add(file, f);
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Étage d'E/S : lecture et décodage, empreinte du contenu calculée au passage si le cache est actif.
+     */
+    private static Loaded load(Parser p, File file) {
+        String oversize = p.getFileBudget().checkSize(file.length());
+        if (oversize != null && !p.canRetrySyntactic()) {
+            return new Loaded(null, oversize, FileFacts.skipped(oversize));
+        }
+        try {
+            return new Loaded(SourceLoader.getDefault().load(file, p.getFactCache() != null), oversize, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Étage de parsing : le tampon de la source retourne au pool une fois les faits extraits.
+     */
+    private static FileFacts parse(Parser p, File file, Loaded loaded) {
+        if (loaded.skipped != null) {
+            return loaded.skipped;
+        }
+        try (SourceLoader.Source source = loaded.source) {
+            return p.parseLoaded(source, file.getName(), loaded.oversize);
+        }
+    }
+
+    /**
+     * Threads virtuels si la JVM les fournit (Java 21+), sinon pool de threads plateforme.
+     * Appel par réflexion : le code reste compilable pour Java 8 (profil par défaut).
+     */
+    static ExecutorService newIoExecutor() {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(FALLBACK_IO_THREADS, r -> {
+                Thread t = new Thread(r, "source-io");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package webanalyzer.parser;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lecture minimale d'un pom.xml (DOM) : coordonnées, parent, propriétés,
+ * dependencyManagement, dépendances, modules et dossiers sources.
+ * Les ${...} sont remplacés avec les propriétés du pom et de ses parents.
+ */
+class PomModel {
+
+    private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)}");
+
+    /**
+     * Dépendance déclarée (version éventuellement vide : fournie par le dependencyManagement).
+     */
+    static class Dependency {
+        final String groupId;
+        final String artifactId;
+        final String version;
+        final String scope;
+        final String type;
+        final String classifier;
+        final boolean optional;
+        final String systemPath;
+        // "groupe:artefact" exclus des dépendances transitives ("*" accepté)
+        final Set<String> exclusions = new HashSet<>();
+
+        Dependency(String groupId, String artifactId, String version, String scope, String type,
+                   String classifier, boolean optional, String systemPath) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.scope = scope == null || scope.isEmpty() ? "compile" : scope;
+            this.type = type == null || type.isEmpty() ? "jar" : type;
+            this.classifier = classifier;
+            this.optional = optional;
+            this.systemPath = systemPath;
+        }
+
+        String key() { return groupId + ":" + artifactId; }
+    }
+
+    String groupId;
+    String artifactId;
+    String version;
+    String sourceDirectory;
+    String testSourceDirectory;
+    final Map<String, String> properties = new HashMap<>();
+    final Map<String, Dependency> managed = new LinkedHashMap<>();
+    final List<Dependency> dependencies = new ArrayList<>();
+    final List<String> modules = new ArrayList<>();
+
+    /**
+     * Charge un pom et sa hiérarchie de parents (dossier relatif ou dépôt local).
+     * Retourne null si le fichier est illisible. Passer par ArtifactLocator.pom() pour profiter du cache.
+     */
+    static PomModel load(File pomFile, ArtifactLocator locator, int depth) {
+        Element project = parse(pomFile);
+        if (project == null || depth > 10) return null;
+
+        PomModel model = new PomModel();
+        Element parent = child(project, "parent");
+        PomModel parentModel = null;
+        if (parent != null) {
+            String pg = text(parent, "groupId"), pa = text(parent, "artifactId"), pv = text(parent, "version");
+            String relativePath = text(parent, "relativePath");
+            File local = new File(pomFile.getParentFile(), relativePath == null ? "../pom.xml" : relativePath);
+            if (local.isDirectory()) local = new File(local, "pom.xml");
+            if (local.isFile() && pa != null && pa.equals(artifactIdOf(local))) {
+                parentModel = locator.pom(local, depth + 1);
+            } else if (pg != null && pa != null && pv != null) {
+                File remote = locator.find(pg, pa, pv, null, "pom");
+                if (remote != null) parentModel = locator.pom(remote, depth + 1);
+            }
+            if (parentModel != null) {
+                model.properties.putAll(parentModel.properties);
+                model.managed.putAll(parentModel.managed);
+                model.dependencies.addAll(parentModel.dependencies);
+            }
+            model.groupId = pg;
+            model.version = pv;
+            model.properties.put("project.parent.groupId", nvl(pg));
+            model.properties.put("project.parent.version", nvl(pv));
+        }
+
+        if (text(project, "groupId") != null) model.groupId = text(project, "groupId");
+        if (text(project, "version") != null) model.version = text(project, "version");
+        model.artifactId = text(project, "artifactId");
+
+        Element props = child(project, "properties");
+        if (props != null) {
+            for (Element p : children(props)) {
+                model.properties.put(p.getTagName(), p.getTextContent().trim());
+            }
+        }
+        model.properties.put("project.groupId", nvl(model.groupId));
+        model.properties.put("project.artifactId", nvl(model.artifactId));
+        model.properties.put("project.version", nvl(model.version));
+        model.properties.put("pom.version", nvl(model.version));
+        model.properties.put("project.basedir", pomFile.getAbsoluteFile().getParent());
+        model.properties.put("basedir", pomFile.getAbsoluteFile().getParent());
+        model.version = model.interpolate(model.version);
+        model.groupId = model.interpolate(model.groupId);
+
+        Element mgmt = child(project, "dependencyManagement");
+        Element mgmtDeps = mgmt == null ? null : child(mgmt, "dependencies");
+        if (mgmtDeps != null) {
+            for (Element d : children(mgmtDeps)) {
+                Dependency dep = model.readDependency(d);
+                if ("import".equals(dep.scope) && "pom".equals(dep.type)) {
+                    // BOM importé : ses versions gérées s'ajoutent (sans écraser les nôtres)
+                    File bom = locator.find(dep.groupId, dep.artifactId, dep.version, null, "pom");
+                    PomModel bomModel = bom == null ? null : locator.pom(bom, depth + 1);
+                    if (bomModel != null) {
+                        for (Map.Entry<String, Dependency> e : bomModel.managed.entrySet()) {
+                            model.managed.putIfAbsent(e.getKey(), e.getValue());
+                        }
+                    }
+                } else {
+                    model.managed.put(dep.key(), dep);
+                }
+            }
+        }
+
+        Element deps = child(project, "dependencies");
+        if (deps != null) {
+            for (Element d : children(deps)) {
+                model.dependencies.add(model.readDependency(d));
+            }
+        }
+
+        Element modules = child(project, "modules");
+        if (modules != null) {
+            for (Element m : children(modules)) {
+                model.modules.add(m.getTextContent().trim());
+            }
+        }
+
+        Element build = child(project, "build");
+        if (build != null) {
+            model.sourceDirectory = model.interpolate(text(build, "sourceDirectory"));
+            model.testSourceDirectory = model.interpolate(text(build, "testSourceDirectory"));
+        }
+        return model;
+    }
+
+    /**
+     * Version effective d'une dépendance : déclarée, sinon gérée par le dependencyManagement.
+     */
+    String versionOf(Dependency dep) {
+        if (dep.version != null && !dep.version.isEmpty()) return dep.version;
+        Dependency managedDep = managed.get(dep.key());
+        return managedDep == null ? null : managedDep.version;
+    }
+
+    String scopeOf(Dependency dep) {
+        Dependency managedDep = managed.get(dep.key());
+        return dep.scope.equals("compile") && managedDep != null ? managedDep.scope : dep.scope;
+    }
+
+    String interpolate(String value) {
+        if (value == null) return null;
+        for (int pass = 0; pass < 5 && value.contains("${"); pass++) {
+            Matcher m = PROPERTY.matcher(value);
+            StringBuffer sb = new StringBuffer();
+            while (m.find()) {
+                String replacement = properties.get(m.group(1));
+                if (replacement == null) replacement = System.getProperty(m.group(1), m.group());
+                m.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+            }
+            m.appendTail(sb);
+            if (sb.toString().equals(value)) break;
+            value = sb.toString();
+        }
+        return value;
+    }
+
+    private Dependency readDependency(Element d) {
+        Dependency dep = new Dependency(
+                interpolate(text(d, "groupId")),
+                interpolate(text(d, "artifactId")),
+                interpolate(text(d, "version")),
+                interpolate(text(d, "scope")),
+                interpolate(text(d, "type")),
+                interpolate(text(d, "classifier")),
+                "true".equals(interpolate(text(d, "optional"))),
+                interpolate(text(d, "systemPath")));
+        Element exclusions = child(d, "exclusions");
+        if (exclusions != null) {
+            for (Element e : children(exclusions)) {
+                dep.exclusions.add(interpolate(text(e, "groupId")) + ":" + interpolate(text(e, "artifactId")));
+            }
+        }
+        return dep;
+    }
+
+    // ===============================================
+    // DOM
+    // ===============================================
+
+    private static Element parse(File file) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(false);
+            factory.setExpandEntityReferences(false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            Document doc = factory.newDocumentBuilder().parse(file);
+            return doc.getDocumentElement();
+        } catch (Exception e) {
+            System.err.println("pom illisible : " + file + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    private static String artifactIdOf(File pom) {
+        Element project = parse(pom);
+        return project == null ? null : text(project, "artifactId");
+    }
+
+    private static Element child(Element parent, String name) {
+        for (Element e : children(parent)) {
+            if (e.getTagName().equals(name)) return e;
+        }
+        return null;
+    }
+
+    private static List<Element> children(Element parent) {
+        List<Element> elements = new ArrayList<>();
+        NodeList nodes = parent.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            if (nodes.item(i).getNodeType() == Node.ELEMENT_NODE) {
+                elements.add((Element) nodes.item(i));
+            }
+        }
+        return elements;
+    }
+
+    private static String text(Element parent, String name) {
+        Element e = child(parent, name);
+        return e == null ? null : e.getTextContent().trim();
+    }
+
+    private static String nvl(String s) {
+        return s == null ? "" : s;
+    }
+}
@@ -0,0 +1,47 @@
+package webanalyzer.parser;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Module d'un projet multi-module (module d'un réacteur Maven, projet inclus par
+ * settings.gradle) : ses dossiers sources et les modules du même projet dont il dépend.
+ */
+public final class ProjectModule {
+
+    private final String name;
+    private final File directory;
+    final List<String> sourceRoots = new ArrayList<>();
+    final Set<String> dependencies = new LinkedHashSet<>();
+
+    ProjectModule(String name, File directory) {
+        this.name = name;
+        this.directory = directory.getAbsoluteFile();
+    }
+
+    /**
+     * Longueur du dossier source de ce module qui contient le fichier, 0 s'il n'en contient aucun
+     * (le module le plus spécifique l'emporte quand des modules sont imbriqués).
+     */
+    int match(File file) {
+        String path = file.getAbsolutePath();
+        int best = 0;
+        for (String root : sourceRoots) {
+            if (path.startsWith(root + File.separator) && root.length() > best) {
+                best = root.length();
+            }
+        }
+        return best;
+    }
+
+    public String getName() { return name; }
+    public File getDirectory() { return directory; }
+    public List<String> getSourceRoots() { return Collections.unmodifiableList(sourceRoots); }
+    /** Noms des modules du projet dont celui-ci dépend directement. */
+    public Set<String> getDependencies() { return Collections.unmodifiableSet(dependencies); }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,440 @@
+package webanalyzer.parser;
+
+import webanalyzer.model.AnalysisDelta;
+import webanalyzer.service.CouplingService;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Mode surveillance : garde le modèle d'analyse d'un projet en mémoire et le tient
+ * à jour à partir des événements WatchService (création, modification, suppression).
+ *
+ * Seuls les fichiers touchés sont reparsés, ainsi que leurs dépendants (fichiers dont les
+ * bindings référencent un type qu'ils déclarent, voir DependencyIndex) ; les faits des autres
+ * fichiers sont conservés, et les totaux comme le graphe d'appels fusionné ne sont corrigés
+ * que de la contribution des fichiers mis à jour (IncrementalMetrics). Une modification limitée
+ * aux corps de méthodes ne résout que les méthodes modifiées (Parser.updateChangedMethods).
+ *
+ * Le couplage est tenu à jour par paires d'appels inter-classes, sommées par fichier comme
+ * dans AnalysisSnapshot : seules les arêtes des fichiers mis à jour sont recalculées tant
+ * que le nombre total de relations ne change pas. Chaque mise à jour produit un AnalysisDelta
+ * (métriques, arêtes de couplage modifiées) transmis aux écouteurs et conservé
+ * dans un historique borné pour les clients qui interrogent par version.
+ */
+public class ProjectWatcher implements Closeable {
+
+    // Délai de regroupement des événements (un enregistrement d'IDE en produit plusieurs)
+    private static final long DEBOUNCE_MS = 200;
+    private static final int MAX_HISTORY = 200;
+
+    private final Parser parser;
+    private final Path root;
+    private final int xMethods;
+    private final SourceDiscovery discovery;
+
+    // Faits par fichier, dans l'ordre de découverte
+    private final Map<File, FileFacts> factsByFile = new LinkedHashMap<>();
+    private final IncrementalMetrics metrics = new IncrementalMetrics();
+    private final DependencyIndex<File> dependencies = new DependencyIndex<>();
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+    private final List<Consumer<AnalysisDelta>> listeners = new CopyOnWriteArrayList<>();
+    private final Deque<AnalysisDelta> history = new ArrayDeque<>();
+
+    private volatile AnalysisResult result = AnalysisResult.EMPTY;
+    private final Map<String, Map<String, Double>> couplingMap = new HashMap<>();
+    private final Map<String, Map<String, Integer>> pairCounts = new HashMap<>();
+    private int totalRelations = 0;
+    // Arêtes dont le nombre d'appels a changé depuis la dernière mise à jour
+    private final Map<String, Set<String>> touchedEdges = new TreeMap<>();
+    private int version = 0;
+
+    private WatchService watchService;
+    private Thread watchThread;
+    private volatile boolean running;
+
+    public ProjectWatcher(Parser parser, String projectPath, int xMethods) {
+        this.parser = parser;
+        this.root = Paths.get(projectPath).toAbsolutePath();
+        this.xMethods = xMethods;
+        this.discovery = parser.createDiscovery(root.toFile());
+        parser.setProjectPath(root.toString());
+        parser.setMethodFingerprints(true);
+    }
+
+    /**
+     * Analyse complète initiale puis démarrage de la surveillance en tâche de fond.
+     */
+    public synchronized void start() throws IOException {
+        if (running) return;
+        watchService = root.getFileSystem().newWatchService();
+        registerAll(root);
+
+        List<File> javaFiles = discovery.listJavaFiles();
+        parser.updateProjectTypes(javaFiles);
+        applyChanges(javaFiles, Collections.<File>emptyList());
+
+        running = true;
+        watchThread = new Thread(this::processEvents, "project-watcher-" + root.getFileName());
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        running = false;
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    // ===============================================
+    // BOUCLE D'ÉVÉNEMENTS
+    // ===============================================
+
+    private void processEvents() {
+        while (running) {
+            try {
+                WatchKey key = watchService.take();
+                Set<File> changed = new LinkedHashSet<>();
+                Set<File> removed = new LinkedHashSet<>();
+                boolean rescan = false;
+
+                // regroupe les événements arrivés pendant DEBOUNCE_MS
+                while (key != null) {
+                    rescan |= collectEvents(key, changed, removed);
+                    key = watchService.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+                }
+
+                if (rescan) {
+                    rescan(changed, removed);
+                }
+                if (!changed.isEmpty() || !removed.isEmpty()) {
+                    applyChanges(new ArrayList<>(changed), new ArrayList<>(removed));
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Surveillance : erreur lors de la mise à jour : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Traduit les événements d'une clé en fichiers modifiés/supprimés.
+     * Retourne true si des événements ont été perdus (OVERFLOW) : un rescan est alors nécessaire.
+     */
+    private boolean collectEvents(WatchKey key, Set<File> changed, Set<File> removed) throws IOException {
+        Path dir = watchedDirs.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+            Path child = dir.resolve((Path) event.context());
+            File file = child.toFile();
+
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                // fichier ou dossier entier supprimé
+                String prefix = file.getAbsolutePath() + File.separator;
+                for (File known : knownFiles()) {
+                    if (known.equals(file) || known.getAbsolutePath().startsWith(prefix)) {
+                        removed.add(known);
+                        changed.remove(known);
+                    }
+                }
+            } else if (Files.isDirectory(child)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && !discovery.isExcludedDirectory(child)) {
+                    registerAll(child);
+                    // motifs sur le chemin relatifs à la racine du projet, pas au nouveau dossier
+                    for (File created : new SourceDiscovery(child, parser.getExcludeGlobs()).listJavaFiles()) {
+                        if (!isExcluded(created.toPath())) {
+                            changed.add(created);
+                        }
+                    }
+                }
+            } else if (file.getName().endsWith(".java") && !isExcluded(child)) {
+                changed.add(file);
+                removed.remove(file);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirs.remove(key);
+        }
+        return overflow;
+    }
+
+    /**
+     * Rescan après perte d'événements : compare le disque à l'état connu (dates de modification non suivies,
+     * tous les fichiers présents sont donc considérés comme modifiés).
+     */
+    private void rescan(Set<File> changed, Set<File> removed) {
+        List<File> onDisk = discovery.listJavaFiles();
+        Set<File> known = new HashSet<>(knownFiles());
+        known.removeAll(onDisk);
+        removed.addAll(known);
+        changed.addAll(onDisk);
+    }
+
+    // ===============================================
+    // MISE À JOUR DU MODÈLE
+    // ===============================================
+
+    /**
+     * Reparse les fichiers modifiés et leurs dépendants, oublie les fichiers supprimés puis
+     * recalcule le résultat global et le couplage à partir des faits conservés.
+     */
+    synchronized void applyChanges(List<File> changed, List<File> removed) throws IOException {
+        long start = System.nanoTime();
+        int previousTotal = totalRelations;
+        // pom.xml ou jar modifié depuis la dernière mise à jour : nouvelle clé de cache
+        parser.refreshEnvironment();
+
+        // modifications limitées aux corps de méthodes : types déclarés inchangés, aucun dépendant
+        List<File> updated = new ArrayList<>();
+        List<File> existing = new ArrayList<>();
+        List<File> touched = new ArrayList<>(removed);
+        for (File file : changed) {
+            if (!file.isFile()) {
+                touched.add(file);
+                continue;
+            }
+            updated.add(file);
+            FileFacts previous = factsByFile.get(file);
+            FileFacts facts = null;
+            if (previous != null) {
+                try {
+                    facts = parser.updateChangedMethods(file, previous);
+                } catch (IOException e) {
+                    facts = null; // le reparse complet signalera l'erreur
+                }
+            }
+            if (facts != null) {
+                store(file, facts);
+            } else {
+                touched.add(file);
+                existing.add(file);
+            }
+        }
+
+        // dépendants des types que déclaraient les fichiers touchés...
+        Set<File> dependents = dependencies.dependents(touched);
+
+        for (File file : touched) {
+            if (!existing.contains(file)) {
+                forget(file);
+            }
+        }
+        reanalyze(existing, true);
+
+        // ... et de ceux qu'ils déclarent désormais ; contenu inchangé : le cache ne sert pas
+        dependents.addAll(dependencies.dependents(existing));
+        dependents.removeAll(touched);
+        List<File> dependentFiles = new ArrayList<>();
+        for (File file : factsByFile.keySet()) {
+            if (dependents.contains(file)) {
+                dependentFiles.add(file);
+            }
+        }
+        reanalyze(dependentFiles, false);
+
+        // totaux tenus à jour par store/forget : seul le graphe fusionné est recopié
+        result = metrics.toResult();
+
+        List<CouplingService.EdgeChange> couplingChanges = updateCoupling(totalRelations != previousTotal);
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        AnalysisDelta delta = new AnalysisDelta(++version, toPaths(updated), toPaths(removed), toPaths(dependentFiles),
+                result.toGlobalStats(xMethods), couplingChanges, elapsedMs);
+
+        history.addLast(delta);
+        while (history.size() > MAX_HISTORY) {
+            history.removeFirst();
+        }
+        for (Consumer<AnalysisDelta> listener : listeners) {
+            listener.accept(delta);
+        }
+    }
+
+    private void reanalyze(List<File> files, boolean useCache) throws IOException {
+        FileFacts[] facts = parser.extractFacts(files, true, useCache);
+        for (int i = 0; i < files.size(); i++) {
+            if (facts[i] != null) {
+                store(files.get(i), facts[i]);
+            } else {
+                forget(files.get(i));
+            }
+        }
+    }
+
+    private void store(File file, FileFacts facts) {
+        FileFacts previous = factsByFile.put(file, facts);
+        if (previous != null) {
+            countCalls(previous, -1);
+        }
+        countCalls(facts, 1);
+        metrics.replace(file, previous, facts);
+        dependencies.put(file, facts);
+    }
+
+    private void forget(File file) {
+        FileFacts previous = factsByFile.remove(file);
+        if (previous != null) {
+            countCalls(previous, -1);
+            metrics.replace(file, previous, null);
+        }
+        dependencies.remove(file);
+    }
+
+    // ===============================================
+    // COUPLAGE INCRÉMENTAL
+    // ===============================================
+
+    /**
+     * Ajoute (sign = 1) ou retire (sign = -1) les appels inter-classes d'un fichier.
+     */
+    private void countCalls(FileFacts facts, int sign) {
+        for (Map.Entry<String, Map<String, Integer>> row : AnalysisSnapshot.interClassCalls(facts).entrySet()) {
+            Map<String, Integer> targets = pairCounts.computeIfAbsent(row.getKey(), k -> new HashMap<>());
+            for (Map.Entry<String, Integer> e : row.getValue().entrySet()) {
+                totalRelations += sign * e.getValue();
+                if (targets.merge(e.getKey(), sign * e.getValue(), Integer::sum) == 0) {
+                    targets.remove(e.getKey());
+                }
+                touchedEdges.computeIfAbsent(row.getKey(), k -> new TreeSet<>()).add(e.getKey());
+            }
+            if (targets.isEmpty()) {
+                pairCounts.remove(row.getKey());
+            }
+        }
+    }
+
+    /**
+     * Met à jour la map de couplage : arêtes touchées seulement si le total de relations est
+     * inchangé, sinon tous les ratios sont recalculés à partir des paires.
+     */
+    private List<CouplingService.EdgeChange> updateCoupling(boolean totalChanged) {
+        List<CouplingService.EdgeChange> changes;
+        if (totalChanged) {
+            Map<String, Map<String, Double>> newCoupling = new HashMap<>();
+            for (Map.Entry<String, Map<String, Integer>> row : pairCounts.entrySet()) {
+                Map<String, Double> ratios = new HashMap<>();
+                for (Map.Entry<String, Integer> e : row.getValue().entrySet()) {
+                    ratios.put(e.getKey(), (double) e.getValue() / totalRelations);
+                }
+                newCoupling.put(row.getKey(), ratios);
+            }
+            changes = CouplingService.diff(couplingMap, newCoupling);
+            couplingMap.clear();
+            couplingMap.putAll(newCoupling);
+        } else {
+            changes = new ArrayList<>();
+            for (Map.Entry<String, Set<String>> edges : touchedEdges.entrySet()) {
+                String a = edges.getKey();
+                Map<String, Integer> counts = pairCounts.getOrDefault(a, Collections.<String, Integer>emptyMap());
+                for (String b : edges.getValue()) {
+                    Map<String, Double> row = couplingMap.get(a);
+                    double oldValue = row == null ? 0.0 : row.getOrDefault(b, 0.0);
+                    Integer count = counts.get(b);
+                    double newValue = count == null ? 0.0 : (double) count / totalRelations;
+                    if (Double.compare(oldValue, newValue) == 0) continue;
+                    changes.add(new CouplingService.EdgeChange(a, b, oldValue, newValue));
+                    if (count == null) {
+                        row.remove(b);
+                        if (row.isEmpty()) {
+                            couplingMap.remove(a);
+                        }
+                    } else {
+                        couplingMap.computeIfAbsent(a, k -> new HashMap<>()).put(b, newValue);
+                    }
+                }
+            }
+        }
+        touchedEdges.clear();
+        return changes;
+    }
+
+    // ===============================================
+    // MÉTHODES AUXILIAIRES
+    // ===============================================
+
+    private void registerAll(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (discovery.isExcludedDirectory(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirs.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Fichier exclu par analyzer.discovery.excludes (mêmes motifs que la découverte initiale).
+     */
+    private boolean isExcluded(Path file) {
+        return discovery.isExcluded(root.relativize(file.toAbsolutePath()).toString());
+    }
+
+    private synchronized List<File> knownFiles() {
+        return new ArrayList<>(factsByFile.keySet());
+    }
+
+    private static List<String> toPaths(List<File> files) {
+        List<String> paths = new ArrayList<>();
+        for (File f : files) {
+            paths.add(f.getAbsolutePath());
+        }
+        return paths;
+    }
+
+    public void addListener(Consumer<AnalysisDelta> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<AnalysisDelta> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Deltas produits après la version donnée (les plus anciens peuvent avoir été oubliés).
+     */
+    public synchronized List<AnalysisDelta> getDeltasSince(int sinceVersion) {
+        List<AnalysisDelta> deltas = new ArrayList<>();
+        for (AnalysisDelta d : history) {
+            if (d.getVersion() > sinceVersion) {
+                deltas.add(d);
+            }
+        }
+        return deltas;
+    }
+
+    public AnalysisResult getResult() { return result; }
+    public synchronized Map<String, Map<String, Double>> getCouplingMap() {
+        Map<String, Map<String, Double>> copy = new HashMap<>();
+        for (Map.Entry<String, Map<String, Double>> row : couplingMap.entrySet()) {
+            copy.put(row.getKey(), new HashMap<>(row.getValue()));
+        }
+        return copy;
+    }
+    public synchronized int getVersion() { return version; }
+    public Path getRoot() { return root; }
+    public boolean isRunning() { return running; }
+}
@@ -0,0 +1,32 @@
+package webanalyzer.parser;
+
+/**
+ * Fichier sorti de l'analyse normale pour avoir dépassé son budget (voir FileBudget),
+ * avec le motif et le traitement appliqué.
+ */
+public final class QuarantinedFile {
+
+    /**
+     * SYNTACTIC : faits extraits sans bindings. SKIPPED : fichier absent des métriques.
+     */
+    public enum Outcome { SYNTACTIC, SKIPPED }
+
+    private final String path;
+    private final String reason;
+    private final Outcome outcome;
+
+    QuarantinedFile(String path, String reason, Outcome outcome) {
+        this.path = path;
+        this.reason = reason;
+        this.outcome = outcome;
+    }
+
+    public String getPath() { return path; }
+    public String getReason() { return reason; }
+    public Outcome getOutcome() { return outcome; }
+
+    @Override
+    public String toString() {
+        return path + " (" + reason + ", " + outcome + ")";
+    }
+}
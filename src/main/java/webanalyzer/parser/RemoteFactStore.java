@@ -0,0 +1,227 @@
+package webanalyzer.parser;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Second niveau du cache d'analyse : magasin HTTP partagé entre machines (agents d'intégration
+ * continue, postes des développeurs), adressé par la clé de FactCache. Un fichier analysé sur
+ * une machine n'est plus parsé sur les autres.
+ *
+ * Protocole (voir FactStoreServer, serveur de référence) :
+ * GET {url}/{clé} (200 ou 404), PUT {url}/{clé}, et POST {url}/batch dont le corps liste une clé
+ * par ligne ; la réponse donne pour chaque clé, dans l'ordre, sa taille (int, -1 si absente)
+ * puis ses octets. Les valeurs sont des FileFacts sérialisés, comme les entrées locales.
+ *
+ * Les recherches d'une liste de fichiers partent par lots de BATCH_SIZE clés, MAX_IN_FLIGHT
+ * lots à la fois ; les envois sont asynchrones et portent le jeton partagé (sans jeton, le
+ * magasin n'est que lu). close() attend les envois en cours. Au premier échec réseau, le
+ * magasin est désactivé pour le reste du processus : l'analyse continue avec le seul cache local.
+ */
+public class RemoteFactStore implements Closeable {
+
+    static final int BATCH_SIZE = 256;
+    private static final int MAX_IN_FLIGHT = 4;
+    private static final int CONNECT_TIMEOUT_MS = 2000;
+    private static final int READ_TIMEOUT_MS = 30000;
+    // Taille maximale d'une valeur reçue : une réponse plus grosse désactive le magasin
+    static final int MAX_VALUE_BYTES = 64 * 1024 * 1024;
+    // Attente des envois en cours à la fermeture
+    private static final long FLUSH_TIMEOUT_MS = 10000;
+
+    private final String url;
+    private final String token; // null : lecture seule
+    private final ExecutorService executor = Executors.newFixedThreadPool(MAX_IN_FLIGHT, r -> {
+        Thread t = new Thread(r, "remote-fact-store");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean disabled;
+
+    public RemoteFactStore(String url) {
+        this(url, null);
+    }
+
+    /**
+     * @param token jeton exigé par le serveur pour les écritures, ou null pour ne faire que lire
+     */
+    public RemoteFactStore(String url, String token) {
+        this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.token = token != null && !token.isEmpty() ? token : null;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    // ===============================================
+    // LECTURE
+    // ===============================================
+
+    /**
+     * Valeur d'une clé, ou null (absente ou magasin injoignable).
+     */
+    public byte[] get(String key) {
+        if (disabled) return null;
+        try {
+            HttpURLConnection c = open(url + "/" + key, "GET");
+            if (c.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                return null;
+            }
+            checkStatus(c);
+            try (InputStream in = c.getInputStream()) {
+                return readFully(in);
+            }
+        } catch (IOException e) {
+            disable(e);
+            return null;
+        }
+    }
+
+    /**
+     * Valeurs des clés présentes dans le magasin, par lots envoyés en parallèle.
+     */
+    public Map<String, byte[]> getAll(List<String> keys) {
+        Map<String, byte[]> values = new HashMap<>();
+        if (disabled || keys.isEmpty() || executor.isShutdown()) return values;
+
+        List<Future<Map<String, byte[]>>> batches = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += BATCH_SIZE) {
+            List<String> batch = keys.subList(from, Math.min(keys.size(), from + BATCH_SIZE));
+            batches.add(executor.submit(() -> getBatch(batch)));
+        }
+        for (Future<Map<String, byte[]>> batch : batches) {
+            try {
+                values.putAll(batch.get());
+            } catch (ExecutionException e) {
+                disable(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return values;
+    }
+
+    private Map<String, byte[]> getBatch(List<String> keys) throws IOException {
+        Map<String, byte[]> values = new HashMap<>();
+        if (disabled) return values;
+        HttpURLConnection c = open(url + "/batch", "POST");
+        c.setDoOutput(true);
+        c.setRequestProperty("Content-Type", "text/plain; charset=UTF-8");
+        try (Writer out = new OutputStreamWriter(c.getOutputStream(), StandardCharsets.UTF_8)) {
+            for (String key : keys) {
+                out.write(key);
+                out.write('\n');
+            }
+        }
+        checkStatus(c);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(c.getInputStream()))) {
+            for (String key : keys) {
+                int length = in.readInt();
+                if (length > MAX_VALUE_BYTES) {
+                    throw new IOException("valeur de " + length + " octets pour " + key);
+                }
+                if (length >= 0) {
+                    byte[] value = new byte[length];
+                    in.readFully(value);
+                    values.put(key, value);
+                }
+            }
+        }
+        return values;
+    }
+
+    // ===============================================
+    // ÉCRITURE
+    // ===============================================
+
+    /**
+     * Envoie une valeur en tâche de fond (le magasin étant adressé par le contenu, une valeur
+     * déjà présente est simplement remplacée par la même).
+     */
+    public void put(String key, byte[] value) {
+        if (disabled || token == null || executor.isShutdown()) return;
+        executor.execute(() -> {
+            if (disabled) return;
+            try {
+                HttpURLConnection c = open(url + "/" + key, "PUT");
+                c.setDoOutput(true);
+                c.setFixedLengthStreamingMode(value.length);
+                c.setRequestProperty("Content-Type", "application/octet-stream");
+                c.setRequestProperty("Authorization", FactStoreServer.BEARER + token);
+                try (OutputStream out = c.getOutputStream()) {
+                    out.write(value);
+                }
+                checkStatus(c);
+                c.getInputStream().close();
+            } catch (IOException e) {
+                disable(e);
+            }
+        });
+    }
+
+    /**
+     * Refuse les nouveaux envois et attend ceux en cours (FLUSH_TIMEOUT_MS au plus).
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                System.err.println("Cache partagé " + url + " : envois abandonnés à la fermeture");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===============================================
+    // MÉTHODES AUXILIAIRES
+    // ===============================================
+
+    private static HttpURLConnection open(String address, String method) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) new URL(address).openConnection();
+        c.setRequestMethod(method);
+        c.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        c.setReadTimeout(READ_TIMEOUT_MS);
+        return c;
+    }
+
+    private static void checkStatus(HttpURLConnection c) throws IOException {
+        int status = c.getResponseCode();
+        if (status / 100 != 2) {
+            throw new IOException("HTTP " + status + " pour " + c.getRequestMethod() + " " + c.getURL());
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            if (out.size() + n > MAX_VALUE_BYTES) {
+                throw new IOException("valeur de plus de " + MAX_VALUE_BYTES + " octets");
+            }
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private void disable(Throwable cause) {
+        if (!disabled) {
+            disabled = true;
+            System.err.println("Cache partagé " + url + " désactivé : " + cause.getMessage());
+        }
+    }
+
+    public boolean isDisabled() {
+        return disabled;
+    }
+}
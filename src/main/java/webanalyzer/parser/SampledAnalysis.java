@@ -0,0 +1,287 @@
+package webanalyzer.parser;
+
+import webanalyzer.model.AnalysisEstimate;
+import webanalyzer.model.AnalysisEstimate.Interval;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Analyse approchée d'un gros projet : les fichiers sont analysés dans un ordre aléatoire
+ * stratifié (par package et par classe de taille), par tours de taille croissante, dans un
+ * thread de fond. Après chaque tour, une AnalysisEstimate (totaux, moyennes et top 10 %
+ * avec intervalles de confiance) est publiée ; elle se resserre à chaque tour et devient
+ * exacte quand tous les fichiers sont analysés (le résultat complet est alors disponible).
+ *
+ * L'ordre est proportionnel : tout préfixe contient chaque strate au prorata de sa taille,
+ * si bien que chaque tour est lui-même un échantillon stratifié.
+ */
+public class SampledAnalysis implements Closeable {
+
+    // Taille minimale du premier tour, et taille des lots soumis au pool
+    private static final int MIN_FIRST_ROUND = 100;
+    private static final int CHUNK_SIZE = 64;
+    // Classes de taille : < 2 Ko, < 8 Ko, < 32 Ko, au-delà
+    private static final long[] SIZE_BOUNDS = {2 << 10, 8 << 10, 32 << 10};
+
+    private final Parser parser;
+    private final Path root;
+    private final double firstFraction;
+    private final long seed;
+    private final List<Consumer<AnalysisEstimate>> listeners = new ArrayList<>();
+
+    private volatile AnalysisEstimate estimate;
+    private volatile AnalysisResult result;
+    private volatile Exception failure;
+    private volatile boolean running;
+    private Thread worker;
+    private ForkJoinPool pool;
+
+    /**
+     * @param firstFraction part des fichiers analysés au premier tour (au moins MIN_FIRST_ROUND) ;
+     *                      chaque tour suivant double le nombre de fichiers analysés
+     * @param seed          graine du tirage (même graine : même échantillon)
+     */
+    public SampledAnalysis(Parser parser, String projectPath, double firstFraction, long seed) {
+        this.parser = parser;
+        this.root = Paths.get(projectPath).toAbsolutePath();
+        this.firstFraction = firstFraction;
+        this.seed = seed;
+        parser.setProjectPath(root.toString());
+    }
+
+    /**
+     * Écouteur appelé (depuis le thread de fond) à chaque nouvelle estimation.
+     */
+    public void addListener(Consumer<AnalysisEstimate> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Découvre les fichiers puis lance les tours d'analyse en tâche de fond.
+     */
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        worker = new Thread(this::run, "sampled-analysis-" + root.getFileName());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Attend la fin de l'analyse complète (ou l'arrêt) ; relève l'erreur éventuelle.
+     */
+    public AnalysisResult awaitResult() throws IOException, InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            thread = worker;
+        }
+        if (thread != null) {
+            thread.join();
+        }
+        if (failure != null) {
+            throw new IOException("Analyse échantillonnée de " + root + " impossible : " + failure.getMessage(), failure);
+        }
+        return result;
+    }
+
+    // ===============================================
+    // TOURS D'ANALYSE
+    // ===============================================
+
+    private void run() {
+        long start = System.nanoTime();
+        try {
+            List<File> files = parser.createDiscovery(root.toFile()).listJavaFiles();
+            if (parser.getResolutionMode() == Parser.ResolutionMode.SYNTACTIC) {
+                parser.updateProjectTypes(files);
+            }
+            int total = files.size();
+            String[] strata = new String[total];
+            int[] sizeClasses = new int[total];
+            for (int i = 0; i < total; i++) {
+                File f = files.get(i);
+                sizeClasses[i] = sizeClass(f.length());
+                strata[i] = root.relativize(f.getParentFile().toPath()) + "|" + sizeClasses[i];
+            }
+            int[] order = stratifiedOrder(strata, new Random(seed));
+
+            FileFacts[] facts = new FileFacts[total];
+            int analyzed = 0;
+            int target = Math.min(total, Math.max(MIN_FIRST_ROUND, (int) Math.ceil(total * firstFraction)));
+            int round = 0;
+            while (running && analyzed < total) {
+                analyzeRound(files, order, analyzed, target, facts);
+                analyzed = target;
+                round++;
+                publish(estimate(round, analyzed, strata, sizeClasses, facts, (System.nanoTime() - start) / 1_000_000));
+                target = (int) Math.min(total, 2L * target);
+            }
+            if (total == 0) {
+                publish(estimate(0, 0, strata, sizeClasses, facts, 0));
+            }
+
+            if (analyzed == total) {
+                // tous les fichiers : même résultat qu'une analyse complète (ordre de découverte)
+                MetricsAccumulator acc = new MetricsAccumulator();
+                for (int i = 0; i < total; i++) {
+                    if (facts[i] != null) {
+                        acc.add(files.get(i), facts[i]);
+                    }
+                }
+                result = acc.toResult();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            if (running) {
+                failure = e; // sinon : tâches annulées par close()
+            }
+        } finally {
+            running = false;
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Analyse order[from..to[ par lots soumis au pool.
+     */
+    private void analyzeRound(List<File> files, int[] order, int from, int to, FileFacts[] facts)
+            throws IOException, InterruptedException {
+        List<ForkJoinTask<FileFacts[]>> tasks = new ArrayList<>();
+        List<int[]> indices = new ArrayList<>();
+        for (int c = from; c < to; c += CHUNK_SIZE) {
+            int[] chunk = Arrays.copyOfRange(order, c, Math.min(to, c + CHUNK_SIZE));
+            List<File> chunkFiles = new ArrayList<>(chunk.length);
+            for (int i : chunk) {
+                chunkFiles.add(files.get(i));
+            }
+            indices.add(chunk);
+            tasks.add(pool.submit(() -> parser.extractFacts(chunkFiles, true)));
+        }
+        for (int t = 0; t < tasks.size(); t++) {
+            FileFacts[] chunkFacts;
+            try {
+                chunkFacts = tasks.get(t).get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                throw new IllegalStateException(e.getCause());
+            }
+            int[] chunk = indices.get(t);
+            for (int k = 0; k < chunk.length; k++) {
+                // fichier que JDT n'a pas construit : compté comme vide, il reste dans la population
+                facts[chunk[k]] = chunkFacts[k] != null ? chunkFacts[k] : new FileFacts();
+            }
+        }
+    }
+
+    private void publish(AnalysisEstimate e) {
+        estimate = e;
+        for (Consumer<AnalysisEstimate> listener : listeners) {
+            listener.accept(e);
+        }
+    }
+
+    // ===============================================
+    // TIRAGE ET ESTIMATION
+    // ===============================================
+
+    private static int sizeClass(long bytes) {
+        int c = 0;
+        while (c < SIZE_BOUNDS.length && bytes >= SIZE_BOUNDS[c]) c++;
+        return c;
+    }
+
+    /**
+     * Ordre de tirage proportionnel : les fichiers de chaque strate sont mélangés puis placés
+     * aux positions (k + u) / N_h (u aléatoire par strate) ; le tri global sur ces positions
+     * entrelace les strates au prorata de leur taille.
+     */
+    static int[] stratifiedOrder(String[] strata, Random random) {
+        Map<String, List<Integer>> byStratum = new TreeMap<>();
+        for (int i = 0; i < strata.length; i++) {
+            byStratum.computeIfAbsent(strata[i], k -> new ArrayList<>()).add(i);
+        }
+        double[] position = new double[strata.length];
+        for (List<Integer> members : byStratum.values()) {
+            Collections.shuffle(members, random);
+            double offset = random.nextDouble();
+            for (int k = 0; k < members.size(); k++) {
+                position[members.get(k)] = (k + offset) / members.size();
+            }
+        }
+        Integer[] order = new Integer[strata.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble(i -> position[i]));
+        int[] result = new int[order.length];
+        for (int i = 0; i < order.length; i++) result[i] = order[i];
+        return result;
+    }
+
+    private static AnalysisEstimate estimate(int round, int analyzed, String[] strata, int[] sizeClasses,
+                                             FileFacts[] facts, long elapsedMs) {
+        StratifiedEstimator est = new StratifiedEstimator(strata, sizeClasses, facts);
+        Interval types = est.total(f -> f.classes + f.interfaces);
+        return new AnalysisEstimate(round, analyzed, strata.length, elapsedMs,
+                est.total(f -> f.classes),
+                est.total(f -> f.methods),
+                est.total(f -> f.lines),
+                est.ratio(f -> f.methods, f -> f.classes + f.interfaces),
+                est.ratio(f -> f.linesInMethods, f -> f.methods),
+                est.ratio(f -> f.attributes, f -> f.classes + f.interfaces),
+                topMethodsClasses(est.weights(), types.getValue()));
+    }
+
+    /**
+     * Classes analysées appartenant au décile supérieur estimé : triées par nombre de méthodes,
+     * retenues tant que la somme de leurs poids ne dépasse pas 10 % du nombre estimé de classes
+     * (même proportion que AnalysisResult.getTopMethodsClasses()).
+     */
+    private static List<String> topMethodsClasses(Map<FileFacts, Double> weights, double estimatedTypes) {
+        List<Map.Entry<String, Integer>> classes = new ArrayList<>();
+        Map<String, Double> weightOf = new HashMap<>();
+        for (Map.Entry<FileFacts, Double> e : weights.entrySet()) {
+            for (Map.Entry<String, Integer> c : e.getKey().methodsPerClass.entrySet()) {
+                classes.add(c);
+                weightOf.put(c.getKey(), e.getValue());
+            }
+        }
+        classes.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+        double quota = Math.max(1, Math.ceil(0.10 * estimatedTypes));
+        List<String> top = new ArrayList<>();
+        double covered = 0;
+        for (Map.Entry<String, Integer> c : classes) {
+            if (!top.isEmpty() && covered + weightOf.get(c.getKey()) > quota) break;
+            top.add(c.getKey());
+            covered += weightOf.get(c.getKey());
+        }
+        return top;
+    }
+
+    public AnalysisEstimate getEstimate() { return estimate; }
+    /** Résultat complet, une fois tous les fichiers analysés (null avant). */
+    public AnalysisResult getResult() { return result; }
+    public boolean isRunning() { return running; }
+    public String getProjectPath() { return root.toString(); }
+}
@@ -0,0 +1,241 @@
+package webanalyzer.parser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyse hors processus : les fichiers sont découpés en lots (shards) de fichiers contigus,
+ * chacun analysé dans une JVM fille (ShardWorker) avec son propre tas et son propre GC.
+ * Les faits reviennent par le tube de sortie du processus et sont fusionnés dans l'ordre
+ * des fichiers : le résultat est celui de l'analyse dans un seul processus.
+ *
+ * Un worker qui s'arrête en cours de lot (mémoire épuisée, processus tué) est relancé
+ * sur les seuls fichiers de son lot dont les faits ne sont pas encore arrivés.
+ */
+class ShardCoordinator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardCoordinator.class);
+
+    // Tentatives par lot, première comprise
+    static final int MAX_ATTEMPTS = 3;
+    // En dessous, lancer une JVM coûte plus que l'analyse du lot
+    private static final int MIN_SHARD_FILES = 64;
+    private static final long EXIT_TIMEOUT_SECONDS = 10;
+
+    private final Parser parser;
+    private final int workers;
+    private final List<String> jvmOptions;
+
+    ShardCoordinator(Parser parser, int workers, List<String> jvmOptions) {
+        this.parser = parser;
+        this.workers = Math.max(1, workers);
+        this.jvmOptions = jvmOptions;
+    }
+
+    /**
+     * Lot de fichiers contigus d'un module, analysé avec la configuration de son Parser.
+     */
+    private static final class Shard {
+        final int number;
+        final Parser parser;
+        final List<File> files;
+
+        Shard(int number, Parser parser, List<File> files) {
+            this.number = number;
+            this.parser = parser;
+            this.files = files;
+        }
+    }
+
+    AnalysisResult analyze(List<File> javaFiles) throws IOException {
+        return analyzeModules(Collections.singletonList(parser), Collections.singletonList(javaFiles)).get(0).toResult();
+    }
+
+    /**
+     * Même contrat que ParallelAnalysisEngine.analyzeModules : un accumulateur par module.
+     * Les workers sont répartis entre les modules au prorata de leur nombre de fichiers.
+     */
+    List<MetricsAccumulator> analyzeModules(List<Parser> parsers, List<List<File>> files) throws IOException {
+        int total = 0;
+        for (List<File> moduleFiles : files) {
+            total += moduleFiles.size();
+        }
+
+        List<List<Shard>> shardsByModule = new ArrayList<>();
+        int number = 0;
+        for (int m = 0; m < parsers.size(); m++) {
+            List<File> moduleFiles = files.get(m);
+            int count = (int) Math.round((double) workers * moduleFiles.size() / Math.max(1, total));
+            count = Math.max(1, Math.min(count, (moduleFiles.size() + MIN_SHARD_FILES - 1) / MIN_SHARD_FILES));
+            List<Shard> shards = new ArrayList<>();
+            int size = (moduleFiles.size() + count - 1) / Math.max(1, count);
+            for (int from = 0; from < moduleFiles.size(); from += size) {
+                shards.add(new Shard(number++, parsers.get(m),
+                        moduleFiles.subList(from, Math.min(moduleFiles.size(), from + size))));
+            }
+            shardsByModule.add(shards);
+        }
+        LOG.debug("Analyse en {} lot(s) sur {} JVM fille(s)", number, workers);
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<List<Future<FileFacts[]>>> futures = new ArrayList<>();
+            for (List<Shard> shards : shardsByModule) {
+                List<Future<FileFacts[]>> moduleFutures = new ArrayList<>();
+                for (Shard shard : shards) {
+                    moduleFutures.add(pool.submit(() -> runShard(shard)));
+                }
+                futures.add(moduleFutures);
+            }
+
+            List<MetricsAccumulator> accs = new ArrayList<>();
+            for (int m = 0; m < shardsByModule.size(); m++) {
+                MetricsAccumulator acc = new MetricsAccumulator();
+                for (int s = 0; s < shardsByModule.get(m).size(); s++) {
+                    List<File> shardFiles = shardsByModule.get(m).get(s).files;
+                    FileFacts[] facts = futures.get(m).get(s).get();
+                    for (int i = 0; i < shardFiles.size(); i++) {
+                        if (facts[i] != null) {
+                            acc.add(shardFiles.get(i), facts[i]);
+                        }
+                    }
+                }
+                accs.add(acc);
+            }
+            return accs;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Analyse interrompue");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Analyse un lot dans une JVM fille, relancée sur les fichiers restants si elle échoue.
+     */
+    private FileFacts[] runShard(Shard shard) throws IOException {
+        FileFacts[] facts = new FileFacts[shard.files.size()];
+        boolean[] received = new boolean[facts.length];
+        for (int attempt = 1; ; attempt++) {
+            List<Integer> pending = new ArrayList<>();
+            for (int i = 0; i < received.length; i++) {
+                if (!received[i]) pending.add(i);
+            }
+            try {
+                runWorker(shard, pending, facts, received);
+                return facts;
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw new IOException("Lot " + shard.number + " en échec après " + attempt + " tentatives : "
+                            + e.getMessage(), e);
+                }
+                LOG.debug("Lot {} : {}, nouvelle tentative", shard.number, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Lance un worker sur les fichiers « pending » du lot et range leurs faits au fil des réponses.
+     */
+    private void runWorker(Shard shard, List<Integer> pending, FileFacts[] facts, boolean[] received) throws IOException {
+        ShardWorker.Request request = createRequest(shard.parser);
+        for (int i : pending) {
+            request.files.add(shard.files.get(i).getAbsolutePath());
+        }
+
+        Process process = new ProcessBuilder(command())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try {
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(process.getOutputStream()))) {
+                out.writeObject(request);
+            }
+
+            FileFacts[] workerFacts = new FileFacts[pending.size()];
+            boolean[] workerReceived = new boolean[pending.size()];
+            boolean complete = false;
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(process.getInputStream(), 64 * 1024))) {
+                while (ShardWorker.read(in, workerFacts, workerReceived)) {
+                    // les faits sont rangés par read()
+                }
+                complete = true;
+            } catch (EOFException | StreamCorruptedException e) {
+                // worker arrêté avant la fin du lot (une JVM qui s'arrête sur erreur fatale écrit
+                // son message sur la sortie standard) : les faits reçus sont conservés
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Réponse du worker illisible", e);
+            } finally {
+                for (int i = 0; i < pending.size(); i++) {
+                    if (workerReceived[i]) {
+                        facts[pending.get(i)] = workerFacts[i];
+                        received[pending.get(i)] = true;
+                    }
+                }
+            }
+
+            // un worker qui a cessé de répondre n'est pas attendu indéfiniment
+            if (!complete && !process.waitFor(EXIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+            int exitCode = process.waitFor();
+            if (!complete || exitCode != 0) {
+                throw new IOException("worker arrêté (code " + exitCode + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Analyse interrompue");
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    private ShardWorker.Request createRequest(Parser p) {
+        ShardWorker.Request request = new ShardWorker.Request();
+        request.projectPath = p.getProjectPath();
+        request.resolutionMode = p.getResolutionMode();
+        request.projectTypeNames = p.projectTypeNames;
+        request.sourcepath = p.sourcepath;
+        FileBudget budget = p.getFileBudget();
+        request.budgetMaxBytes = budget.getMaxBytes();
+        request.budgetMaxMillis = budget.getMaxMillis();
+        request.budgetMaxNodes = budget.getMaxNodes();
+        request.budgetOnExceed = budget.getOnExceed();
+        FactCache cache = p.getFactCache();
+        if (cache != null) {
+            request.cacheDir = cache.getCacheDir().toString();
+            request.cacheMaxSizeBytes = cache.getMaxSizeBytes();
+        }
+        // les cœurs sont partagés entre les workers lancés en même temps
+        request.threads = Math.max(1, Runtime.getRuntime().availableProcessors() / workers);
+        return request;
+    }
+
+    /**
+     * Commande de la JVM fille : même java et même classpath que le processus courant.
+     */
+    private List<String> command() {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        return command;
+    }
+}
@@ -0,0 +1,133 @@
+package webanalyzer.parser;
+
+import java.io.*;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Point d'entrée d'une JVM fille lancée par ShardCoordinator : analyse un lot de fichiers
+ * et renvoie les faits de chaque fichier sur la sortie standard.
+ *
+ * Protocole (flux d'objets Java sur les tubes du processus) :
+ *  - entrée : une Request, puis fin du flux ;
+ *  - sortie : pour chaque fichier, son indice dans le lot, le motif de quarantaine,
+ *    l'indicateur « ignoré » et les faits (null si JDT n'a pas pu construire l'AST),
+ *    puis -1 une fois le lot terminé. Les journaux du Parser partent sur la sortie d'erreur.
+ */
+public final class ShardWorker {
+
+    // Fichiers par appel à extractFacts (un createASTs par lot, comme ParallelAnalysisEngine)
+    private static final int CHUNK_SIZE = 64;
+
+    private ShardWorker() {
+    }
+
+    /**
+     * Lot à analyser et configuration du Parser du coordinateur.
+     */
+    static final class Request implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String projectPath;
+        Parser.ResolutionMode resolutionMode;
+        Set<String> projectTypeNames;
+        String[] sourcepath;               // null : dossiers sources du projet
+        long budgetMaxBytes;
+        long budgetMaxMillis;
+        int budgetMaxNodes;
+        FileBudget.OnExceed budgetOnExceed;
+        String cacheDir;                   // null : pas de cache d'analyse
+        long cacheMaxSizeBytes;
+        int threads;
+        List<String> files = new ArrayList<>();
+    }
+
+    public static void main(String[] args) throws Exception {
+        ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024));
+        // la sortie standard porte le protocole : les messages du Parser vont sur la sortie d'erreur
+        System.setOut(System.err);
+
+        Request request;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(System.in))) {
+            request = (Request) in.readObject();
+        }
+        Parser parser = createParser(request);
+
+        List<File> files = new ArrayList<>();
+        for (String path : request.files) {
+            files.add(new File(path));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, request.threads));
+        try {
+            List<Future<FileFacts[]>> chunks = new ArrayList<>();
+            for (int from = 0; from < files.size(); from += CHUNK_SIZE) {
+                List<File> chunk = files.subList(from, Math.min(files.size(), from + CHUNK_SIZE));
+                chunks.add(pool.submit(() -> parser.extractFacts(chunk, true)));
+            }
+            // lots renvoyés dans l'ordre : en cas d'arrêt brutal, le coordinateur reprend après le dernier reçu
+            for (int c = 0; c < chunks.size(); c++) {
+                FileFacts[] facts = chunks.get(c).get();
+                for (int i = 0; i < facts.length; i++) {
+                    write(out, c * CHUNK_SIZE + i, facts[i]);
+                }
+                out.flush();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        out.writeInt(-1);
+        out.flush();
+        System.exit(0);
+    }
+
+    private static Parser createParser(Request request) throws IOException {
+        Parser parser = new Parser();
+        parser.setProjectPath(request.projectPath);
+        parser.setResolutionMode(request.resolutionMode);
+        parser.setFileBudget(new FileBudget(request.budgetMaxBytes, request.budgetMaxMillis,
+                request.budgetMaxNodes, request.budgetOnExceed));
+        parser.sourcepath = request.sourcepath;
+        parser.projectTypeNames = request.projectTypeNames;
+        if (request.cacheDir != null) {
+            parser.setFactCache(new FactCache(Paths.get(request.cacheDir), request.cacheMaxSizeBytes));
+        }
+        return parser;
+    }
+
+    /**
+     * Les champs de quarantaine sont transient (jamais mis en cache) : ils voyagent à part.
+     */
+    private static void write(ObjectOutputStream out, int index, FileFacts facts) throws IOException {
+        out.writeInt(index);
+        out.writeObject(facts != null ? facts.quarantineReason : null);
+        out.writeBoolean(facts != null && facts.skipped);
+        out.writeObject(facts);
+        // oublie les objets déjà écrits : la table des références grossirait sinon avec le lot
+        out.reset();
+    }
+
+    /**
+     * Lit la réponse suivante : faits (ou null) rangés à leur indice ; false une fois le lot terminé.
+     */
+    static boolean read(ObjectInputStream in, FileFacts[] facts, boolean[] received) throws IOException, ClassNotFoundException {
+        int index = in.readInt();
+        if (index < 0) {
+            return false;
+        }
+        String quarantineReason = (String) in.readObject();
+        boolean skipped = in.readBoolean();
+        FileFacts f = (FileFacts) in.readObject();
+        if (f != null) {
+            f.quarantineReason = quarantineReason;
+            f.skipped = skipped;
+        }
+        facts[index] = f;
+        received[index] = true;
+        return true;
+    }
+}
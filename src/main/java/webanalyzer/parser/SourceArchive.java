@@ -0,0 +1,289 @@
+package webanalyzer.parser;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Sources Java lues directement dans une archive, sans extraction sur disque.
+ *
+ *  - .zip / .jar (dont -sources.jar) sur le serveur : système de fichiers zip, parcouru
+ *    avec SourceDiscovery (mêmes exclusions que pour un dossier) ;
+ *  - .tar.gz / .tgz / .tar, et toute archive reçue en flux (upload) : lecture séquentielle
+ *    entrée par entrée (ZipInputStream, ou TarStream sur GZIPInputStream).
+ *
+ * Les entrées .java sont diffusées dans une file bornée, comme SourceDiscovery.stream().
+ * Une entrée plus grosse que le budget par fichier (FileBudget.maxBytes) n'est pas lue :
+ * elle est diffusée sans contenu, avec le motif de sa mise en quarantaine.
+ */
+public class SourceArchive implements Closeable {
+
+    public enum Format { ZIP, TAR_GZ, TAR }
+
+    /**
+     * Fichier source lu dans l'archive : chemin dans l'archive et contenu brut
+     * (vide pour une entrée trop grosse, voir getOversize).
+     */
+    public static final class Entry {
+        private final String path;
+        private final byte[] content;
+        private final String oversize;
+
+        Entry(String path, byte[] content) {
+            this(path, content, null);
+        }
+
+        private Entry(String path, byte[] content, String oversize) {
+            this.path = path;
+            this.content = content;
+            this.oversize = oversize;
+        }
+
+        static Entry oversized(String path, String reason) {
+            return new Entry(path, new byte[0], reason);
+        }
+
+        public String getPath() { return path; }
+        public byte[] getContent() { return content; }
+        /** Motif de dépassement du budget (entrée non lue), ou null. */
+        public String getOversize() { return oversize; }
+        public String getFileName() { return path.substring(path.lastIndexOf('/') + 1); }
+    }
+
+    /** Marqueur de fin de flux déposé dans la file après la dernière entrée (comparer avec ==). */
+    public static final Entry END = new Entry("", new byte[0]);
+
+    private final String name;
+    private final Format format;
+    private final FileSystem zipFileSystem; // archive zip sur disque, sinon null
+    private final InputStream input;        // archive lue en flux, sinon null
+    private volatile Thread producer;
+    private volatile Exception failure;
+
+    private SourceArchive(String name, Format format, FileSystem zipFileSystem, InputStream input) {
+        this.name = name;
+        this.format = format;
+        this.zipFileSystem = zipFileSystem;
+        this.input = input;
+    }
+
+    /**
+     * Indique si ce nom de fichier désigne une archive prise en charge.
+     */
+    public static boolean isArchive(String fileName) {
+        return formatOf(fileName) != null;
+    }
+
+    /**
+     * Ouvre une archive présente sur le serveur.
+     */
+    public static SourceArchive open(File file) throws IOException {
+        Format format = formatOf(file.getName());
+        if (format == null) {
+            throw new IOException("Format d'archive non pris en charge : " + file.getName());
+        }
+        if (format == Format.ZIP) {
+            FileSystem fs = FileSystems.newFileSystem(file.toPath(), (ClassLoader) null);
+            return new SourceArchive(file.getAbsolutePath(), format, fs, null);
+        }
+        return new SourceArchive(file.getAbsolutePath(), format, null, new FileInputStream(file));
+    }
+
+    /**
+     * Archive reçue en flux (upload) : le nom sert à reconnaître le format et à nommer les entrées.
+     */
+    public static SourceArchive open(InputStream in, String name) throws IOException {
+        Format format = formatOf(name);
+        if (format == null) {
+            throw new IOException("Format d'archive non pris en charge : " + name);
+        }
+        return new SourceArchive(name, format, null, in);
+    }
+
+    private static Format formatOf(String fileName) {
+        if (fileName == null) return null;
+        String n = fileName.toLowerCase(Locale.ROOT);
+        if (n.endsWith(".zip") || n.endsWith(".jar")) return Format.ZIP;
+        if (n.endsWith(".tar.gz") || n.endsWith(".tgz")) return Format.TAR_GZ;
+        if (n.endsWith(".tar")) return Format.TAR;
+        return null;
+    }
+
+    /**
+     * Noms des types (Foo.java -> Foo) des entrées non exclues, pour le mode SYNTACTIC.
+     * Disponible seulement pour un zip sur disque (répertoire central) : vide pour un flux,
+     * qu'il faudrait sinon lire deux fois.
+     */
+    public Set<String> listTypeNames(List<String> excludeGlobs) {
+        Set<String> names = new HashSet<>();
+        if (zipFileSystem != null) {
+            for (Path root : zipFileSystem.getRootDirectories()) {
+                new SourceDiscovery(root, excludeGlobs).walkJavaPaths(p -> {
+                    String fileName = p.getFileName().toString();
+                    names.add(fileName.substring(0, fileName.length() - ".java".length()));
+                });
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Lance la lecture dans un thread dédié et diffuse les entrées .java dans une file bornée.
+     * END est déposé en dernier ; une erreur de lecture est relevée par checkFailure().
+     * Les entrées au-delà de budget.getMaxBytes() sont sautées sans être mises en mémoire.
+     */
+    public BlockingQueue<Entry> stream(int capacity, List<String> excludeGlobs, FileBudget budget) {
+        BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(capacity);
+        Thread thread = new Thread(() -> {
+            try {
+                read(excludeGlobs, budget, queue);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ClosedFileSystemException e) {
+                // archive fermée par close() avant la fin de la lecture
+            } catch (UncheckedIOException e) {
+                failure = e.getCause();
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            } finally {
+                try {
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "archive-reader");
+        thread.setDaemon(true);
+        producer = thread;
+        thread.start();
+        return queue;
+    }
+
+    /**
+     * Prend la prochaine entrée de la file (bloquant) ; retourne END en fin de flux.
+     */
+    public static Entry next(BlockingQueue<Entry> queue) throws InterruptedIOException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Analyse interrompue");
+        }
+    }
+
+    /**
+     * Relève l'erreur rencontrée par le thread de lecture (archive tronquée, illisible...).
+     */
+    public void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Lecture de l'archive " + name + " impossible : " + failure.getMessage(), failure);
+        }
+    }
+
+    private void read(List<String> excludeGlobs, FileBudget budget, BlockingQueue<Entry> queue)
+            throws IOException, InterruptedException {
+        if (zipFileSystem != null) {
+            for (Path root : zipFileSystem.getRootDirectories()) {
+                new SourceDiscovery(root, excludeGlobs).walkJavaPaths(p -> {
+                    try {
+                        String path = root.relativize(p).toString();
+                        String oversize = budget.checkSize(Files.size(p));
+                        queue.put(oversize != null ? Entry.oversized(path, oversize) : new Entry(path, Files.readAllBytes(p)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new UncheckedIOException(new InterruptedIOException("Lecture interrompue"));
+                    }
+                });
+            }
+            return;
+        }
+
+        // flux : zip ou tar, lus entrée par entrée (le zip en flux n'a pas de répertoire central)
+        SourceDiscovery filter = new SourceDiscovery(Paths.get(""), excludeGlobs);
+        InputStream in = new BufferedInputStream(input, 64 * 1024);
+        if (format == Format.ZIP) {
+            ZipInputStream zip = new ZipInputStream(in);
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String path = normalize(entry.getName());
+                if (!entry.isDirectory() && path.endsWith(".java") && !filter.isExcluded(path)) {
+                    // taille annoncée par l'en-tête local si elle y figure, sinon copie plafonnée
+                    String oversize = entry.getSize() >= 0 ? budget.checkSize(entry.getSize()) : null;
+                    byte[] content = oversize == null ? readCapped(zip, budget.getMaxBytes()) : null;
+                    if (content == null && oversize == null) {
+                        oversize = "taille > " + budget.getMaxBytes() + " octets";
+                    }
+                    queue.put(oversize != null ? Entry.oversized(path, oversize) : new Entry(path, content));
+                }
+            }
+        } else {
+            TarStream tar = new TarStream(format == Format.TAR_GZ ? new GZIPInputStream(in, 64 * 1024) : in);
+            TarStream.Entry entry;
+            while ((entry = tar.next()) != null) {
+                String path = normalize(entry.name);
+                if (entry.regularFile && path.endsWith(".java") && !filter.isExcluded(path)) {
+                    // contenu sauté par next() sans être lu
+                    String oversize = budget.checkSize(entry.size);
+                    queue.put(oversize != null ? Entry.oversized(path, oversize) : new Entry(path, tar.content()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Contenu de l'entrée courante, ou null dès qu'il dépasse max octets (le reste n'est pas lu ici).
+     */
+    private static byte[] readCapped(InputStream in, long max) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8 * 1024];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            total += n;
+            if (total > max) {
+                return null;
+            }
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static String normalize(String entryName) {
+        String path = entryName.replace('\\', '/');
+        while (path.startsWith("./") || path.startsWith("/")) {
+            path = path.substring(path.startsWith("/") ? 1 : 2);
+        }
+        return path;
+    }
+
+    /**
+     * Chemin affiché d'une entrée, au format des URL jar : "archive!/a/b/C.java".
+     */
+    public String displayPath(Entry entry) {
+        return name + "!/" + entry.getPath();
+    }
+
+    public String getName() { return name; }
+    public Format getFormat() { return format; }
+
+    @Override
+    public void close() throws IOException {
+        Thread thread = producer;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        if (zipFileSystem != null) {
+            zipFileSystem.close();
+        }
+        if (input != null) {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package webanalyzer.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Découverte des fichiers sources .java d'un projet avec Files.walkFileTree.
+ *
+ * Remplace les trois listJavaFiles récursifs (copie de sous-listes à chaque niveau).
+ * Les fichiers peuvent être listés d'un coup ou diffusés dans une file bornée
+ * (producteur/consommateur) : l'analyse commence pendant que le parcours continue.
+ *
+ * Motifs d'exclusion :
+ *  - "nom/" : tout dossier portant ce nom (glob sur le nom), ex. "target/", ".git/" ;
+ *  - autre motif : glob sur le chemin relatif à la racine, ex. "src/gen/**".
+ */
+public class SourceDiscovery {
+
+    public static final List<String> DEFAULT_EXCLUDES = Collections.unmodifiableList(
+            Arrays.asList("target/", "build/", ".git/", "generated-sources/"));
+
+    /** Marqueur de fin de flux déposé dans la file après le dernier fichier (comparer avec ==). */
+    public static final File END = new File("");
+
+    // Attente maximale d'une place dans la file avant de revérifier l'annulation
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    private final Path root;
+    private final List<PathMatcher> excludedDirNames = new ArrayList<>();
+    private final List<PathMatcher> excludedPaths = new ArrayList<>();
+    private volatile boolean cancelled;
+    private volatile Thread producer;
+
+    public SourceDiscovery(Path root) {
+        this(root, DEFAULT_EXCLUDES);
+    }
+
+    public SourceDiscovery(Path root, List<String> excludeGlobs) {
+        this.root = root.toAbsolutePath();
+        FileSystem fs = this.root.getFileSystem();
+        for (String glob : excludeGlobs) {
+            String g = glob.trim();
+            if (g.isEmpty()) continue;
+            if (g.endsWith("/")) {
+                excludedDirNames.add(fs.getPathMatcher("glob:" + g.substring(0, g.length() - 1)));
+            } else {
+                excludedPaths.add(fs.getPathMatcher("glob:" + g));
+            }
+        }
+    }
+
+    /**
+     * Liste tous les fichiers .java non exclus.
+     */
+    public List<File> listJavaFiles() {
+        List<File> javaFiles = new ArrayList<>();
+        walk(javaFiles::add);
+        return javaFiles;
+    }
+
+    /**
+     * Lance le parcours dans un thread dédié et diffuse les fichiers dans une file bornée.
+     * Le producteur attend quand la file est pleine ; END est déposé en dernier.
+     * Un consommateur qui abandonne la file doit appeler cancel() : sans cela le producteur
+     * resterait bloqué sur la file pleine.
+     */
+    public BlockingQueue<File> stream(int capacity) {
+        BlockingQueue<File> queue = new ArrayBlockingQueue<>(capacity);
+        Thread thread = new Thread(() -> {
+            try {
+                walk(f -> {
+                    if (!offer(queue, f)) {
+                        cancelled = true; // arrête le parcours (visitFile)
+                    }
+                });
+            } finally {
+                offer(queue, END);
+            }
+        }, "source-discovery");
+        thread.setDaemon(true);
+        producer = thread;
+        thread.start();
+        return queue;
+    }
+
+    /**
+     * Dépose un fichier dès qu'une place se libère ; false si la découverte est annulée
+     * (ou le thread interrompu) entre-temps.
+     */
+    private boolean offer(BlockingQueue<File> queue, File file) {
+        try {
+            while (!queue.offer(file, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (cancelled) return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Annule la découverte en cours (stream) : le parcours s'arrête au fichier suivant et le
+     * producteur n'attend plus de place dans la file. Une découverte annulée ne parcourt plus rien.
+     */
+    public void cancel() {
+        cancelled = true;
+        Thread thread = producer;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Prend le prochain fichier de la file (bloquant) ; retourne END en fin de flux.
+     */
+    public static File next(BlockingQueue<File> queue) throws InterruptedIOException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Analyse interrompue");
+        }
+    }
+
+    /**
+     * Indique si ce dossier (ou l'un de ses parents sous la racine) est exclu.
+     */
+    public boolean isExcludedDirectory(Path dir) {
+        Path rel = root.relativize(dir.toAbsolutePath());
+        for (Path segment : rel) {
+            for (PathMatcher m : excludedDirNames) {
+                if (m.matches(segment)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indique si un chemin relatif à la racine (entrée d'archive "a/b/C.java") est exclu,
+     * par le nom d'un de ses dossiers ou par un motif sur le chemin complet.
+     */
+    public boolean isExcluded(String relativePath) {
+        Path rel = root.getFileSystem().getPath(relativePath);
+        Path parent = rel.getParent();
+        if (parent != null) {
+            for (Path segment : parent) {
+                for (PathMatcher m : excludedDirNames) {
+                    if (m.matches(segment)) return true;
+                }
+            }
+        }
+        for (PathMatcher m : excludedPaths) {
+            if (m.matches(rel)) return true;
+        }
+        return false;
+    }
+
+    private boolean isExcludedFile(Path file) {
+        Path rel = root.relativize(file);
+        for (PathMatcher m : excludedPaths) {
+            if (m.matches(rel)) return true;
+        }
+        return false;
+    }
+
+    private void walk(Consumer<File> sink) {
+        walkJavaPaths(path -> sink.accept(path.toFile()));
+    }
+
+    /**
+     * Parcourt les fichiers .java non exclus sous forme de Path : utilisable aussi
+     * sur un système de fichiers zip, dont les chemins n'ont pas d'équivalent File.
+     */
+    public void walkJavaPaths(Consumer<Path> sink) {
+        if (!Files.isDirectory(root)) return;
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (cancelled) return FileVisitResult.TERMINATE;
+                    if (!dir.equals(root) && dir.getFileName() != null) {
+                        for (PathMatcher m : excludedDirNames) {
+                            if (m.matches(dir.getFileName())) return FileVisitResult.SKIP_SUBTREE;
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (cancelled) return FileVisitResult.TERMINATE;
+                    if (attrs.isRegularFile() && file.getFileName().toString().endsWith(".java")
+                            && !isExcludedFile(file)) {
+                        sink.accept(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    // fichier ou dossier illisible : ignoré, comme avec File.listFiles()
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Erreur lors du parcours de " + root + " : " + e.getMessage());
+        }
+    }
+
+    public Path getRoot() { return root; }
+}
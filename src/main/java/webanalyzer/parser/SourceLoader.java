@@ -0,0 +1,329 @@
+package webanalyzer.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chargement des fichiers sources sans copie intermédiaire.
+ *
+ * Remplace FileUtils.readFileToString(...).toCharArray() (String puis char[], soit deux copies
+ * avant celle de JDT) : les octets sont lus dans un ByteBuffer réutilisé par thread
+ * (ou projetés en mémoire au-delà de MMAP_THRESHOLD) puis décodés directement dans un char[]
+ * emprunté à un pool.
+ *
+ * Le char[] rendu est plus long que le fichier : la fin est remplie d'espaces, ce qui ne change
+ * ni l'AST ni les positions des nœuds (ASTParser.setSource lit le tableau entier).
+ * Il doit être rendu au pool par Source.close() une fois la CompilationUnit exploitée.
+ *
+ * Encodage : BOM UTF-8 / UTF-16 si présent, sinon UTF-8 strict, et en cas d'octets
+ * invalides l'encodage de repli (windows-1252 par défaut).
+ */
+public class SourceLoader {
+
+    // Au-delà de cette taille, lecture par FileChannel.map plutôt que dans le tampon du thread
+    private static final int MMAP_THRESHOLD = 1 << 20;
+    // Classes de taille des char[] : 2^12 .. 2^23 caractères ; au-delà, tableau non mis en pool
+    private static final int MIN_SHIFT = 12;
+    private static final int MAX_SHIFT = 23;
+    private static final int MAX_POOLED_PER_CLASS = 2 * Runtime.getRuntime().availableProcessors();
+
+    private static final SourceLoader DEFAULT = new SourceLoader();
+
+    private final Charset fallbackCharset;
+    private final ThreadLocal<ByteBuffer> byteBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(64 * 1024));
+    private final List<ConcurrentLinkedQueue<char[]>> pool = new ArrayList<>(MAX_SHIFT - MIN_SHIFT + 1);
+
+    // --- Statistiques ---
+    private final AtomicInteger filesRead = new AtomicInteger();
+    private final AtomicInteger mappedFiles = new AtomicInteger();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong readNanos = new AtomicLong();
+    private final AtomicInteger buffersReused = new AtomicInteger();
+    private final AtomicInteger buffersAllocated = new AtomicInteger();
+    private final AtomicInteger bomFiles = new AtomicInteger();
+    private final AtomicInteger fallbackFiles = new AtomicInteger();
+
+    public SourceLoader() {
+        this(Charset.isSupported("windows-1252") ? Charset.forName("windows-1252") : StandardCharsets.ISO_8859_1);
+    }
+
+    public SourceLoader(Charset fallbackCharset) {
+        this.fallbackCharset = fallbackCharset;
+        for (int shift = MIN_SHIFT; shift <= MAX_SHIFT; shift++) {
+            pool.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /** Instance partagée par les parseurs. */
+    public static SourceLoader getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Source chargée : char[] du pool (rempli d'espaces après getLength()), encodage détecté
+     * et, si demandée, empreinte SHA-256 des octets (même valeur que FactCache.hash).
+     */
+    public final class Source implements AutoCloseable {
+        private char[] chars;
+        private final int length;
+        private final Charset charset;
+        private final boolean bom;
+        private final String hash;
+
+        private Source(char[] chars, int length, Charset charset, boolean bom, String hash) {
+            this.chars = chars;
+            this.length = length;
+            this.charset = charset;
+            this.bom = bom;
+            this.hash = hash;
+        }
+
+        public char[] getChars() {
+            if (chars == null) throw new IllegalStateException("Source déjà rendue au pool");
+            return chars;
+        }
+
+        public int getLength() { return length; }
+        public Charset getCharset() { return charset; }
+        public boolean hasBom() { return bom; }
+        public String getHash() { return hash; }
+
+        @Override
+        public String toString() {
+            return new String(getChars(), 0, length);
+        }
+
+        /** Rend le char[] au pool : il ne doit plus être utilisé ensuite. */
+        @Override
+        public void close() {
+            if (chars != null) {
+                release(chars);
+                chars = null;
+            }
+        }
+    }
+
+    public Source load(File file) throws IOException {
+        return load(file, false);
+    }
+
+    /**
+     * Lit et décode un fichier ; withHash calcule aussi l'empreinte du contenu sur les octets lus.
+     */
+    public Source load(File file, boolean withHash) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer bytes = read(channel);
+            String hash = withHash ? sha256(bytes.duplicate()) : null;
+            return decode(bytes, hash);
+        } finally {
+            readNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Décode un contenu déjà en mémoire (entrée d'archive).
+     */
+    public Source load(byte[] content) {
+        long start = System.nanoTime();
+        try {
+            bytesRead.addAndGet(content.length);
+            filesRead.incrementAndGet();
+            return decode(ByteBuffer.wrap(content), null);
+        } finally {
+            readNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Empreinte SHA-256 du contenu sans décodage (même valeur que FactCache.hash).
+     */
+    public String hash(File file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return sha256(read(channel));
+        } finally {
+            readNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Octets du fichier : tampon du thread (valide jusqu'à la lecture suivante) ou projection mémoire.
+     */
+    private ByteBuffer read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer bytes;
+        if (size >= MMAP_THRESHOLD) {
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mappedFiles.incrementAndGet();
+        } else {
+            bytes = threadBuffer((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // lecture jusqu'à la fin du fichier
+            }
+            bytes.flip();
+        }
+        bytesRead.addAndGet(bytes.remaining());
+        filesRead.incrementAndGet();
+        return bytes;
+    }
+
+    // ===============================================
+    // DÉCODAGE
+    // ===============================================
+
+    private Source decode(ByteBuffer bytes, String hash) {
+        Charset charset = StandardCharsets.UTF_8;
+        boolean bom = false;
+        if (startsWith(bytes, 0xEF, 0xBB, 0xBF)) {
+            bytes.position(bytes.position() + 3);
+            bom = true;
+        } else if (startsWith(bytes, 0xFE, 0xFF)) {
+            bytes.position(bytes.position() + 2);
+            charset = StandardCharsets.UTF_16BE;
+            bom = true;
+        } else if (startsWith(bytes, 0xFF, 0xFE)) {
+            bytes.position(bytes.position() + 2);
+            charset = StandardCharsets.UTF_16LE;
+            bom = true;
+        }
+        if (bom) bomFiles.incrementAndGet();
+
+        // un octet donne au plus un caractère (UTF-8, UTF-16 et encodages 8 bits)
+        char[] chars = acquire(bytes.remaining());
+        int length = decodeInto(bytes.duplicate(), chars, charset, bom ? CodingErrorAction.REPLACE : CodingErrorAction.REPORT);
+        if (length < 0) {
+            // octets invalides en UTF-8 : fichier enregistré dans un encodage 8 bits
+            charset = fallbackCharset;
+            fallbackFiles.incrementAndGet();
+            length = decodeInto(bytes, chars, charset, CodingErrorAction.REPLACE);
+        }
+        Arrays.fill(chars, length, chars.length, ' ');
+        return new Source(chars, length, charset, bom, hash);
+    }
+
+    /** Nombre de caractères décodés, ou -1 si le contenu est invalide pour cet encodage. */
+    private static int decodeInto(ByteBuffer bytes, char[] chars, Charset charset, CodingErrorAction onError) {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(onError)
+                .onUnmappableCharacter(onError);
+        CharBuffer out = CharBuffer.wrap(chars);
+        CoderResult result = decoder.decode(bytes, out, true);
+        if (result.isError()) return -1;
+        if (decoder.flush(out).isError()) return -1;
+        return out.position();
+    }
+
+    private static boolean startsWith(ByteBuffer bytes, int... prefix) {
+        if (bytes.remaining() < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes.get(bytes.position() + i) & 0xFF) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private ByteBuffer threadBuffer(int size) {
+        ByteBuffer buffer = byteBuffers.get();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Integer.highestOneBit(Math.max(size, 1)) << 1);
+            byteBuffers.set(buffer);
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    private static String sha256(ByteBuffer bytes) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(bytes);
+            byte[] digest = md.digest();
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ===============================================
+    // POOL DE char[]
+    // ===============================================
+
+    private char[] acquire(int minLength) {
+        int shift = sizeClass(minLength);
+        if (shift <= MAX_SHIFT) {
+            char[] pooled = pool.get(shift - MIN_SHIFT).poll();
+            if (pooled != null) {
+                buffersReused.incrementAndGet();
+                return pooled;
+            }
+        }
+        buffersAllocated.incrementAndGet();
+        return new char[shift <= MAX_SHIFT ? 1 << shift : minLength];
+    }
+
+    private void release(char[] chars) {
+        int shift = Integer.numberOfTrailingZeros(chars.length);
+        if (Integer.bitCount(chars.length) == 1 && shift >= MIN_SHIFT && shift <= MAX_SHIFT) {
+            ConcurrentLinkedQueue<char[]> queue = pool.get(shift - MIN_SHIFT);
+            if (queue.size() < MAX_POOLED_PER_CLASS) {
+                queue.offer(chars);
+            }
+        }
+    }
+
+    private static int sizeClass(int length) {
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(length, 1) - 1);
+        return Math.max(shift, MIN_SHIFT);
+    }
+
+    // ===============================================
+    // STATISTIQUES
+    // ===============================================
+
+    public int getFilesRead() { return filesRead.get(); }
+    public int getMappedFiles() { return mappedFiles.get(); }
+    public long getBytesRead() { return bytesRead.get(); }
+    public long getReadTimeMs() { return readNanos.get() / 1_000_000; }
+    public int getBuffersReused() { return buffersReused.get(); }
+    public int getBuffersAllocated() { return buffersAllocated.get(); }
+    public int getBomFiles() { return bomFiles.get(); }
+    public int getFallbackFiles() { return fallbackFiles.get(); }
+
+    public void resetStats() {
+        filesRead.set(0);
+        mappedFiles.set(0);
+        bytesRead.set(0);
+        readNanos.set(0);
+        buffersReused.set(0);
+        buffersAllocated.set(0);
+        bomFiles.set(0);
+        fallbackFiles.set(0);
+    }
+
+    /**
+     * Résumé lisible des statistiques (journal d'analyse).
+     */
+    public String statsSummary() {
+        return "Lecture des sources : " + filesRead.get() + " fichiers (" + mappedFiles.get() + " projetés), "
+                + bytesRead.get() / 1024 + " Ko en " + getReadTimeMs() + " ms, tampons réutilisés "
+                + buffersReused.get() + "/" + (buffersReused.get() + buffersAllocated.get())
+                + ", BOM " + bomFiles.get() + ", encodage de repli " + fallbackFiles.get();
+    }
+}
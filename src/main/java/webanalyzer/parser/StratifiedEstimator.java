@@ -0,0 +1,150 @@
+package webanalyzer.parser;
+
+import webanalyzer.model.AnalysisEstimate.Interval;
+
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Estimateurs par stratification sur un échantillon de fichiers : totaux (Σ N_h·ȳ_h),
+ * rapports par linéarisation, variances avec correction de population finie.
+ *
+ * Une strate qui a moins de 2 fichiers analysés ne permet pas d'estimer une variance :
+ * elle est regroupée avec les autres strates de sa classe de taille, puis, si cela ne
+ * suffit pas, avec toutes les strates restantes (strates fusionnées).
+ */
+class StratifiedEstimator {
+
+    // quantile de la loi normale pour un intervalle à 95 %
+    private static final double Z_95 = 1.959964;
+
+    private static final String REST = "*";
+
+    /**
+     * Groupe d'estimation : population N et faits des fichiers analysés.
+     */
+    private static final class Group {
+        int population;
+        final List<FileFacts> sample = new ArrayList<>();
+    }
+
+    private final Collection<Group> groups;
+    private final List<FileFacts> allSampled = new ArrayList<>();
+
+    /**
+     * @param strata      strate de chaque fichier de la population
+     * @param sizeClasses classe de taille de chaque fichier
+     * @param sampled     faits des fichiers analysés (null pour les autres), mêmes indices
+     */
+    StratifiedEstimator(String[] strata, int[] sizeClasses, FileFacts[] sampled) {
+        Map<String, Group> byStratum = new HashMap<>();
+        for (int i = 0; i < strata.length; i++) {
+            Group g = byStratum.computeIfAbsent(strata[i], k -> new Group());
+            g.population++;
+            if (sampled[i] != null) {
+                g.sample.add(sampled[i]);
+                allSampled.add(sampled[i]);
+            }
+        }
+        Map<String, Integer> sizeClassOf = new HashMap<>();
+        for (int i = 0; i < strata.length; i++) {
+            sizeClassOf.put(strata[i], sizeClasses[i]);
+        }
+
+        // fusion des strates trop peu échantillonnées : par classe de taille, puis en un seul reste
+        Map<String, Group> merged = new LinkedHashMap<>();
+        for (Map.Entry<String, Group> e : byStratum.entrySet()) {
+            String key = e.getValue().sample.size() >= 2 ? e.getKey() : "taille-" + sizeClassOf.get(e.getKey());
+            merge(merged, key, e.getValue());
+        }
+        Map<String, Group> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Group> e : merged.entrySet()) {
+            merge(result, e.getValue().sample.size() >= 2 ? e.getKey() : REST, e.getValue());
+        }
+        groups = result.values();
+    }
+
+    private static void merge(Map<String, Group> groups, String key, Group g) {
+        Group target = groups.computeIfAbsent(key, k -> new Group());
+        target.population += g.population;
+        target.sample.addAll(g.sample);
+    }
+
+    /**
+     * Total estimé de la variable sur toute la population.
+     */
+    Interval total(ToDoubleFunction<FileFacts> y) {
+        double total = 0;
+        for (Group g : groups) {
+            total += g.population * mean(g, y);
+        }
+        double margin = Z_95 * Math.sqrt(varianceOfTotal(y));
+        return new Interval(total, Math.max(0, total - margin), total + margin);
+    }
+
+    /**
+     * Rapport des totaux de deux variables (moyenne par classe, par méthode...).
+     * Variance par linéarisation : celle du total des résidus y - R·x, divisée par X².
+     */
+    Interval ratio(ToDoubleFunction<FileFacts> y, ToDoubleFunction<FileFacts> x) {
+        double totalY = total(y).getValue();
+        double totalX = total(x).getValue();
+        if (totalX == 0) {
+            return new Interval(0, 0, 0);
+        }
+        double r = totalY / totalX;
+        double variance = varianceOfTotal(f -> y.applyAsDouble(f) - r * x.applyAsDouble(f)) / (totalX * totalX);
+        double margin = Z_95 * Math.sqrt(variance);
+        return new Interval(r, Math.max(0, r - margin), r + margin);
+    }
+
+    /**
+     * Poids de sondage de chaque fichier analysé (nombre de fichiers de la population qu'il représente).
+     */
+    Map<FileFacts, Double> weights() {
+        Map<FileFacts, Double> weights = new IdentityHashMap<>();
+        for (Group g : groups) {
+            for (FileFacts f : g.sample) {
+                weights.put(f, (double) g.population / g.sample.size());
+            }
+        }
+        return weights;
+    }
+
+    /** Σ N_h² (1 - n_h/N_h) s_h² / n_h */
+    private double varianceOfTotal(ToDoubleFunction<FileFacts> y) {
+        double variance = 0;
+        for (Group g : groups) {
+            int n = g.sample.size();
+            if (n == 0 || n >= g.population) continue;
+            List<FileFacts> values = n >= 2 ? g.sample : allSampled;
+            double s2 = sampleVariance(values, y);
+            variance += (double) g.population * g.population * (1 - (double) n / g.population) * s2 / n;
+        }
+        return variance;
+    }
+
+    /** Moyenne du groupe ; celle de tout l'échantillon pour un groupe sans fichier analysé. */
+    private double mean(Group g, ToDoubleFunction<FileFacts> y) {
+        List<FileFacts> values = g.sample.isEmpty() ? allSampled : g.sample;
+        if (values.isEmpty()) return 0;
+        double sum = 0;
+        for (FileFacts f : values) {
+            sum += y.applyAsDouble(f);
+        }
+        return sum / values.size();
+    }
+
+    private static double sampleVariance(List<FileFacts> values, ToDoubleFunction<FileFacts> y) {
+        int n = values.size();
+        if (n < 2) return 0;
+        double sum = 0, sumSq = 0;
+        for (FileFacts f : values) {
+            double v = y.applyAsDouble(f);
+            sum += v;
+            sumSq += v * v;
+        }
+        double mean = sum / n;
+        return Math.max(0, (sumSq - n * mean * mean) / (n - 1));
+    }
+}
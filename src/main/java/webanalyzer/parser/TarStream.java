@@ -0,0 +1,197 @@
+package webanalyzer.parser;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lecture séquentielle minimale d'une archive tar : en-têtes ustar, noms longs GNU ("L")
+ * et en-têtes pax ("x", clé path). Suffisante pour parcourir les fichiers d'une archive
+ * de sources en flux, sans la décompresser sur disque.
+ */
+class TarStream {
+
+    private static final int BLOCK = 512;
+
+    /**
+     * En-tête de l'entrée courante.
+     */
+    static final class Entry {
+        final String name;
+        final long size;
+        final boolean regularFile;
+
+        Entry(String name, long size, boolean regularFile) {
+            this.name = name;
+            this.size = size;
+            this.regularFile = regularFile;
+        }
+    }
+
+    private final InputStream in;
+    private final byte[] header = new byte[BLOCK];
+    // octets non lus de l'entrée courante, bourrage jusqu'au bloc suivant compris
+    private long remaining;
+    private long contentSize;
+
+    TarStream(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Passe à l'entrée suivante (le contenu non lu de la précédente est sauté) ; null en fin d'archive.
+     */
+    Entry next() throws IOException {
+        skipFully(remaining);
+        remaining = 0;
+        String longName = null;
+        while (true) {
+            if (!readBlock() || isZeroBlock()) return null;
+            long size = number(124, 12);
+            byte type = header[156];
+            if (type == 'L' || type == 'x' || type == 'g') {
+                byte[] data = readData(size);
+                if (type == 'L') {
+                    longName = string(data, 0, data.length);
+                } else if (type == 'x') {
+                    String path = paxPath(data);
+                    if (path != null) longName = path;
+                }
+                continue;
+            }
+            String name = longName;
+            if (name == null) {
+                name = string(header, 0, 100);
+                String prefix = isUstar() ? string(header, 345, 155) : "";
+                if (!prefix.isEmpty()) name = prefix + "/" + name;
+            }
+            contentSize = size;
+            remaining = padded(size);
+            return new Entry(name, size, type == '0' || type == 0);
+        }
+    }
+
+    /**
+     * Contenu complet de l'entrée courante.
+     */
+    byte[] content() throws IOException {
+        if (contentSize > Integer.MAX_VALUE - 8) {
+            throw new IOException("Entrée tar trop volumineuse : " + contentSize + " octets");
+        }
+        byte[] data = new byte[(int) contentSize];
+        readFully(data, data.length);
+        skipFully(remaining - contentSize);
+        remaining = 0;
+        return data;
+    }
+
+    private byte[] readData(long size) throws IOException {
+        if (size > 1 << 20) throw new IOException("En-tête tar étendu invalide (" + size + " octets)");
+        byte[] data = new byte[(int) size];
+        readFully(data, data.length);
+        skipFully(padded(size) - size);
+        return data;
+    }
+
+    /** Valeur "path" d'un en-tête pax : enregistrements "longueur clé=valeur\n". */
+    private static String paxPath(byte[] data) {
+        int pos = 0;
+        while (pos < data.length) {
+            int space = pos;
+            while (space < data.length && data[space] != ' ') space++;
+            if (space >= data.length) break;
+            int length;
+            try {
+                length = Integer.parseInt(new String(data, pos, space - pos, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                break;
+            }
+            if (length <= 0 || pos + length > data.length) break;
+            String record = new String(data, space + 1, pos + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) return record.substring("path=".length());
+            pos += length;
+        }
+        return null;
+    }
+
+    // ===============================================
+    // BLOCS ET CHAMPS
+    // ===============================================
+
+    private boolean readBlock() throws IOException {
+        int read = 0;
+        while (read < BLOCK) {
+            int n = in.read(header, read, BLOCK - read);
+            if (n < 0) {
+                if (read == 0) return false;
+                throw new EOFException("Archive tar tronquée");
+            }
+            read += n;
+        }
+        return true;
+    }
+
+    private boolean isZeroBlock() {
+        for (byte b : header) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    private boolean isUstar() {
+        return header[257] == 'u' && header[258] == 's' && header[259] == 't'
+                && header[260] == 'a' && header[261] == 'r';
+    }
+
+    /** Champ numérique : octal ASCII, ou binaire big-endian si le premier octet a son bit haut (> 8 Go). */
+    private long number(int offset, int length) {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7F;
+            for (int i = 1; i < length; i++) {
+                value = (value << 8) | (header[offset + i] & 0xFF);
+            }
+            return value;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = header[i];
+            if (b >= '0' && b <= '7') {
+                value = value * 8 + (b - '0');
+            } else if (b == 0 || (b == ' ' && value > 0)) {
+                break;
+            }
+        }
+        return value;
+    }
+
+    private static String string(byte[] data, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && data[end] != 0) end++;
+        return new String(data, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static long padded(long size) {
+        return (size + BLOCK - 1) / BLOCK * BLOCK;
+    }
+
+    private void readFully(byte[] data, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = in.read(data, read, length - read);
+            if (n < 0) throw new EOFException("Archive tar tronquée");
+            read += n;
+        }
+    }
+
+    private void skipFully(long count) throws IOException {
+        while (count > 0) {
+            long n = in.skip(count);
+            if (n <= 0) {
+                if (in.read() < 0) throw new EOFException("Archive tar tronquée");
+                n = 1;
+            }
+            count -= n;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package webanalyzer.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import webanalyzer.parser.AnalysisConfig;
+
+/**
+ * Configuration d'analyse de l'application web (clés analyzer.* de application.properties),
+ * la même que celle des interfaces JavaFX (AnalysisConfig.load()).
+ */
+@Component
+public class AnalysisConfigProvider {
+
+    @Autowired
+    private Environment environment;
+
+    private AnalysisConfig config;
+
+    public synchronized AnalysisConfig getConfig() {
+        if (config == null) {
+            config = AnalysisConfig.fromProperties(environment::getProperty);
+        }
+        return config;
+    }
+}
@@ -0,0 +1,147 @@
+package webanalyzer.service;
+
+import graph.ClassMethodCallVisitor;
+import graph.CompactCallGraph;
+
+import java.util.*;
+
+/**
+ * Service de calcul du couplage entre classes à partir du graphe d'appels.
+ */
+public class CouplingService {
+
+    /**
+     * Calcule le couplage dirigé entre classes.
+     * Couplage(A,B) = Nombre d'appels A->B / Nombre total d'appels inter-classes dans l'application.
+     */
+    public static Map<String, Map<String, Double>> calculateCouplingRatio(
+            Map<String, Map<String, List<ClassMethodCallVisitor.MethodCall>>> classMethodCalls) {
+
+        Map<String, Map<String, Double>> couplingMap = new HashMap<>();
+        // Note: La logique de calculateCoupling est ici, renommée pour clarifier que c'est une métrique "ratio global".
+        int totalRelations = 0;
+
+        // 1. Compter les relations inter-classes (Dénominateur global)
+        for (String sourceClass : classMethodCalls.keySet()) {
+            for (List<ClassMethodCallVisitor.MethodCall> calls : classMethodCalls.get(sourceClass).values()) {
+                for (ClassMethodCallVisitor.MethodCall call : calls) {
+                    if (!isInternalCall(sourceClass, call.type)) { // Si la classe cible est différente de la source
+                        totalRelations++;
+                    }
+                }
+            }
+        }
+
+        // 2. Compter les relations entre chaque paire (A,B) (Numérateur)
+        for (String sourceClass : classMethodCalls.keySet()) {
+            for (List<ClassMethodCallVisitor.MethodCall> calls : classMethodCalls.get(sourceClass).values()) {
+                for (ClassMethodCallVisitor.MethodCall call : calls) {
+                    if (!isInternalCall(sourceClass, call.type)) {
+                        couplingMap
+                                .computeIfAbsent(sourceClass, k -> new HashMap<>())
+                                .merge(call.type, 1.0, Double::sum); // Compte le nombre d'appels A -> B
+                    }
+                }
+            }
+        }
+
+        // 3. Normalisation par le total (Couplage(A,B) = Appels(A->B) / TotalAppels)
+        if (totalRelations > 0) {
+            for (String a : couplingMap.keySet()) {
+                for (String b : couplingMap.get(a).keySet()) {
+                    double value = couplingMap.get(a).get(b) / totalRelations;
+                    couplingMap.get(a).put(b, value);
+                }
+            }
+        }
+
+        return couplingMap;
+    }
+
+    /**
+     * Même calcul directement sur le graphe compact : les appels sont comptés par paire
+     * d'identifiants (source, cible) sans matérialiser de MethodCall.
+     */
+    public static Map<String, Map<String, Double>> calculateCouplingRatio(CompactCallGraph graph) {
+        Map<Long, int[]> pairCounts = new LinkedHashMap<>();
+        int totalRelations = 0;
+
+        for (int t = 0; t < graph.typeCount(); t++) {
+            int source = graph.typeId(t);
+            String sourceClass = graph.symbol(source);
+            for (int m = graph.firstMethod(t); m < graph.endMethod(t); m++) {
+                for (int c = graph.firstCall(m); c < graph.endCall(m); c++) {
+                    int target = graph.callType(c);
+                    if (!isInternalCall(sourceClass, graph.symbol(target))) {
+                        totalRelations++;
+                        pairCounts.computeIfAbsent(((long) source << 32) | target, k -> new int[1])[0]++;
+                    }
+                }
+            }
+        }
+
+        Map<String, Map<String, Double>> couplingMap = new HashMap<>();
+        for (Map.Entry<Long, int[]> e : pairCounts.entrySet()) {
+            String a = graph.symbol((int) (e.getKey() >>> 32));
+            String b = graph.symbol((int) e.getKey().longValue());
+            couplingMap.computeIfAbsent(a, k -> new HashMap<>())
+                    .put(b, (double) e.getValue()[0] / totalRelations);
+        }
+        return couplingMap;
+    }
+
+    // Méthode utilitaire pour vérifier si l'appel est dans la même classe
+    public static boolean isInternalCall(String sourceClass, String targetType) {
+        if (targetType == null) return true;
+        return sourceClass.equalsIgnoreCase(targetType.replace(".java", ""));
+    }
+    /**
+     * Compare deux maps de couplage et retourne les arêtes ajoutées, supprimées ou modifiées.
+     * Une arête absente d'un côté a la valeur 0.
+     */
+    public static List<EdgeChange> diff(Map<String, Map<String, Double>> before,
+                                        Map<String, Map<String, Double>> after) {
+        List<EdgeChange> changes = new ArrayList<>();
+        Set<String> sources = new TreeSet<>(before.keySet());
+        sources.addAll(after.keySet());
+
+        for (String a : sources) {
+            Map<String, Double> oldRow = before.getOrDefault(a, Collections.emptyMap());
+            Map<String, Double> newRow = after.getOrDefault(a, Collections.emptyMap());
+            Set<String> targets = new TreeSet<>(oldRow.keySet());
+            targets.addAll(newRow.keySet());
+            for (String b : targets) {
+                double oldValue = oldRow.getOrDefault(b, 0.0);
+                double newValue = newRow.getOrDefault(b, 0.0);
+                if (Double.compare(oldValue, newValue) != 0) {
+                    changes.add(new EdgeChange(a, b, oldValue, newValue));
+                }
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Variation du poids d'une arête de couplage A -> B.
+     */
+    public static class EdgeChange {
+        private final String source;
+        private final String target;
+        private final double oldValue;
+        private final double newValue;
+
+        public EdgeChange(String source, String target, double oldValue, double newValue) {
+            this.source = source;
+            this.target = target;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        public String getSource() { return source; }
+        public String getTarget() { return target; }
+        public double getOldValue() { return oldValue; }
+        public double getNewValue() { return newValue; }
+        public boolean isAdded() { return oldValue == 0.0 && newValue != 0.0; }
+        public boolean isRemoved() { return oldValue != 0.0 && newValue == 0.0; }
+    }
+}
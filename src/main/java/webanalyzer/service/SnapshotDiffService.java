@@ -0,0 +1,136 @@
+package webanalyzer.service;
+
+import webanalyzer.model.SnapshotDiff;
+import webanalyzer.parser.AnalysisSnapshot;
+import webanalyzer.parser.FileFacts;
+
+import java.util.*;
+
+/**
+ * Service de comparaison de deux instantanés d'analyse (par exemple la branche principale
+ * et une pull request).
+ *
+ * Packages et arêtes de couplage sont comparés à partir des faits des seuls fichiers dont les
+ * faits diffèrent (ajoutés, modifiés, supprimés ou dépendants réanalysés) et des agrégats des
+ * instantanés : le coût suit la taille du changement quand « after » dérive de « before »
+ * (les faits inchangés sont alors partagés) ; deux instantanés relus séparément sont comparés
+ * fichier par fichier.
+ * Les tops 10% et les modules sont des propriétés globales, recalculées depuis les agrégats
+ * (sans relire aucun fichier).
+ */
+public class SnapshotDiffService {
+
+    public static SnapshotDiff compare(AnalysisSnapshot before, AnalysisSnapshot after, double moduleThreshold) {
+        if (before.getResolutionMode() != after.getResolutionMode()) {
+            throw new IllegalArgumentException("Instantanés non comparables : " + before.getResolutionMode()
+                    + " / " + after.getResolutionMode());
+        }
+        long start = System.nanoTime();
+        SnapshotDiff diff = new SnapshotDiff();
+
+        // 1. Fichiers touchés (même chemin relatif, empreinte différente)
+        List<String> added = new ArrayList<>();
+        List<String> modified = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, String> e : after.getHashes().entrySet()) {
+            String old = before.getHashes().get(e.getKey());
+            if (old == null) {
+                added.add(e.getKey());
+            } else if (!old.equals(e.getValue())) {
+                modified.add(e.getKey());
+            }
+        }
+        for (String path : before.getHashes().keySet()) {
+            if (!after.getHashes().containsKey(path)) {
+                removed.add(path);
+            }
+        }
+        diff.setAddedFiles(added);
+        diff.setModifiedFiles(modified);
+        diff.setRemovedFiles(removed);
+
+        // 2. Packages et paires de classes touchés, d'un côté ou de l'autre : fichiers ajoutés,
+        //    modifiés ou supprimés, et tout fichier dont les faits ont été recalculés (un dépendant
+        //    réanalysé par update peut résoudre ses appels autrement sans changer de contenu)
+        Set<String> packages = new TreeSet<>();
+        Map<String, Set<String>> pairs = new TreeMap<>();
+        Set<String> touched = new LinkedHashSet<>(removed);
+        for (String path : after.getHashes().keySet()) {
+            if (before.getFacts(path) != after.getFacts(path)) {
+                touched.add(path);
+            }
+        }
+        for (String path : touched) {
+            for (FileFacts f : Arrays.asList(before.getFacts(path), after.getFacts(path))) {
+                if (f == null) continue;
+                packages.add(AnalysisSnapshot.packageOf(f));
+                for (Map.Entry<String, Map<String, Integer>> row : AnalysisSnapshot.interClassCalls(f).entrySet()) {
+                    pairs.computeIfAbsent(row.getKey(), k -> new TreeSet<>()).addAll(row.getValue().keySet());
+                }
+            }
+        }
+
+        List<SnapshotDiff.PackageChange> packageChanges = new ArrayList<>();
+        for (String pkg : packages) {
+            int classesBefore = before.getClassCount(pkg), classesAfter = after.getClassCount(pkg);
+            int methodsBefore = before.getMethodCount(pkg), methodsAfter = after.getMethodCount(pkg);
+            if (classesBefore != classesAfter || methodsBefore != methodsAfter) {
+                packageChanges.add(new SnapshotDiff.PackageChange(pkg, classesBefore, classesAfter, methodsBefore, methodsAfter));
+            }
+        }
+        diff.setPackageChanges(packageChanges);
+
+        // 3. Arêtes dont le nombre d'appels a changé (le poids des autres ne varie qu'avec le total)
+        List<CouplingService.EdgeChange> couplingChanges = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> row : pairs.entrySet()) {
+            for (String target : row.getValue()) {
+                int callsBefore = before.getCallCount(row.getKey(), target);
+                int callsAfter = after.getCallCount(row.getKey(), target);
+                if (callsBefore != callsAfter) {
+                    couplingChanges.add(new CouplingService.EdgeChange(row.getKey(), target,
+                            ratio(callsBefore, before.getTotalRelations()), ratio(callsAfter, after.getTotalRelations())));
+                }
+            }
+        }
+        diff.setTotalRelationsBefore(before.getTotalRelations());
+        diff.setTotalRelationsAfter(after.getTotalRelations());
+        diff.setCouplingChanges(couplingChanges);
+
+        // 4. Tops 10%
+        diff.setTopMethodsEntered(minus(after.getTopMethodsClasses(), before.getTopMethodsClasses()));
+        diff.setTopMethodsLeft(minus(before.getTopMethodsClasses(), after.getTopMethodsClasses()));
+        diff.setTopAttributesEntered(minus(after.getTopAttributeClasses(), before.getTopAttributeClasses()));
+        diff.setTopAttributesLeft(minus(before.getTopAttributeClasses(), after.getTopAttributeClasses()));
+
+        // 5. Modules : un module qui gagne ou perd une classe apparaît comme retiré puis ajouté
+        List<List<String>> modulesBefore = sortedModules(before.getCouplingRatio(), moduleThreshold);
+        List<List<String>> modulesAfter = sortedModules(after.getCouplingRatio(), moduleThreshold);
+        diff.setModulesAdded(minus(modulesAfter, modulesBefore));
+        diff.setModulesRemoved(minus(modulesBefore, modulesAfter));
+
+        diff.setDiffTimeMs((System.nanoTime() - start) / 1_000_000);
+        return diff;
+    }
+
+    private static double ratio(int calls, int totalRelations) {
+        return totalRelations == 0 ? 0.0 : (double) calls / totalRelations;
+    }
+
+    private static <T> List<T> minus(List<T> values, List<T> removed) {
+        Set<T> excluded = new HashSet<>(removed);
+        List<T> result = new ArrayList<>();
+        for (T value : values) {
+            if (!excluded.contains(value)) result.add(value);
+        }
+        return result;
+    }
+
+    private static List<List<String>> sortedModules(Map<String, Map<String, Double>> couplingMap, double threshold) {
+        List<List<String>> modules = new ArrayList<>();
+        for (Set<String> module : ModuleIdentifierService.identifyModules(couplingMap, threshold)) {
+            modules.add(new ArrayList<>(new TreeSet<>(module)));
+        }
+        modules.sort(Comparator.comparing(m -> m.get(0)));
+        return modules;
+    }
+}